@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.openscience.cdk.depict.DepictionGenerator;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.layout.StructureDiagramGenerator;
+
+import java.awt.Dimension;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.vecmath.Point2d;
+
+/**
+ * Adapts the canvas size of structure depictions to the size of the depicted molecule instead of using a fixed
+ * size like the 2048 x 2048 pixels of {@link GraphStreamUtility#getDefaultDepictionGenerator()}. The size is
+ * calculated from the 2D bounding box of the molecule, measured in bond lengths, and a target number of pixels
+ * per bond, and clamped to a minimum and maximum edge length. This way, a single-ring scaffold costs far fewer
+ * pixels (and less memory and encoding time) than a macrocycle while both are depicted with the same bond length.
+ * <br>The node size of the GraphStream graph is scaled accordingly, see {@link #getNodeSize(int)}. Graph nodes get
+ * their size from a style class (see {@link #getNodeSizeClass(int, int)}) whose rule is added to the style sheet
+ * once, instead of from a size declaration in every node style. For this, node sizes are rounded to multiples of
+ * {@link #NODE_SIZE_STEP} pixels, so that nodes of similar size share a class.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class AdaptiveDepictionSizer {
+    /**
+     * Default target number of pixels per bond in the depictions.
+     */
+    public static final int DEFAULT_PIXELS_PER_BOND = 48;
+    //
+    /**
+     * Default minimum edge length of the depictions in pixels.
+     */
+    public static final int DEFAULT_MIN_SIZE = 128;
+    //
+    /**
+     * Default maximum edge length of the depictions in pixels, equal to the fixed size of the default depiction generator.
+     */
+    public static final int DEFAULT_MAX_SIZE = 2048;
+    //
+    /**
+     * Default margin around the molecule bounding box, in bond lengths.
+     */
+    public static final double DEFAULT_MARGIN_IN_BOND_LENGTHS = 1.0;
+    //
+    /**
+     * Default number of pixels per bond in the displayed GraphStream nodes.
+     */
+    public static final int DEFAULT_NODE_PIXELS_PER_BOND = 16;
+    //
+    /**
+     * Node edge lengths in pixels are rounded to multiples of this step for the node size style classes.
+     */
+    public static final int NODE_SIZE_STEP = 4;
+    //
+    /**
+     * Prefix of the node size style classes, followed by the node width and height in pixels, e.g. "size48x32".
+     */
+    public static final String NODE_SIZE_CLASS_PREFIX = "size";
+    //
+    /**
+     * Extracts the node width and height from the name of a node size style class.
+     */
+    private static final Pattern NODE_SIZE_CLASS_PATTERN = Pattern.compile(
+            AdaptiveDepictionSizer.NODE_SIZE_CLASS_PREFIX + "(\\d+)x(\\d+)");
+    //
+    /**
+     * Bond length assumed for molecules without bonds, e.g. a single atom.
+     */
+    private static final double FALLBACK_BOND_LENGTH = 1.5;
+    //
+    /**
+     * Target number of pixels per bond in the depictions.
+     */
+    private final int pixelsPerBond;
+    //
+    /**
+     * Minimum edge length of the depictions in pixels.
+     */
+    private final int minSize;
+    //
+    /**
+     * Maximum edge length of the depictions in pixels.
+     */
+    private final int maxSize;
+    //
+    /**
+     * Number of pixels per bond in the displayed GraphStream nodes.
+     */
+    private final int nodePixelsPerBond;
+    //
+    /**
+     * Constructor that uses the default settings.
+     */
+    public AdaptiveDepictionSizer() {
+        this(AdaptiveDepictionSizer.DEFAULT_PIXELS_PER_BOND,
+                AdaptiveDepictionSizer.DEFAULT_MIN_SIZE,
+                AdaptiveDepictionSizer.DEFAULT_MAX_SIZE,
+                AdaptiveDepictionSizer.DEFAULT_NODE_PIXELS_PER_BOND);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param aPixelsPerBond target number of pixels per bond in the depictions
+     * @param aMinSize minimum edge length of the depictions in pixels
+     * @param aMaxSize maximum edge length of the depictions in pixels
+     * @param aNodePixelsPerBond number of pixels per bond in the displayed GraphStream nodes
+     * @throws IllegalArgumentException if any number is smaller than one or the minimum size is larger than the maximum size
+     */
+    public AdaptiveDepictionSizer(int aPixelsPerBond, int aMinSize, int aMaxSize, int aNodePixelsPerBond)
+            throws IllegalArgumentException
+    {
+        if (aPixelsPerBond < 1 || aMinSize < 1 || aMaxSize < 1 || aNodePixelsPerBond < 1) {
+            throw new IllegalArgumentException("Given pixel numbers must be at least one.");
+        }
+        if (aMinSize > aMaxSize) {
+            throw new IllegalArgumentException("Given minimum size is larger than the given maximum size.");
+        }
+        this.pixelsPerBond = aPixelsPerBond;
+        this.minSize = aMinSize;
+        this.maxSize = aMaxSize;
+        this.nodePixelsPerBond = aNodePixelsPerBond;
+    }
+    //
+    /**
+     * Returns the target number of pixels per bond in the depictions.
+     *
+     * @return pixels per bond
+     */
+    public int getPixelsPerBond() {
+        return this.pixelsPerBond;
+    }
+    //
+    /**
+     * Returns the minimum edge length of the depictions in pixels.
+     *
+     * @return minimum size
+     */
+    public int getMinSize() {
+        return this.minSize;
+    }
+    //
+    /**
+     * Returns the maximum edge length of the depictions in pixels.
+     *
+     * @return maximum size
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+    //
+    /**
+     * Returns the number of pixels per bond in the displayed GraphStream nodes.
+     *
+     * @return node pixels per bond
+     */
+    public int getNodePixelsPerBond() {
+        return this.nodePixelsPerBond;
+    }
+    //
+    /**
+     * Calculates the canvas size for depicting the given molecule. If the molecule has no 2D coordinates yet,
+     * they are generated (like the CDK depiction generator would do when depicting it).
+     *
+     * @param aMolecule molecule to depict
+     * @return canvas size in pixels
+     * @throws NullPointerException if the given molecule is null
+     * @throws CDKException if 2D coordinates cannot be generated for the molecule
+     */
+    public Dimension computeSize(IAtomContainer aMolecule) throws NullPointerException, CDKException {
+        Objects.requireNonNull(aMolecule, "Given molecule is null.");
+        if (aMolecule.getAtomCount() == 0) {
+            return new Dimension(this.minSize, this.minSize);
+        }
+        if (!AdaptiveDepictionSizer.has2DCoordinates(aMolecule)) {
+            new StructureDiagramGenerator().generateCoordinates(aMolecule);
+        }
+        double tmpMinX = Double.POSITIVE_INFINITY;
+        double tmpMinY = Double.POSITIVE_INFINITY;
+        double tmpMaxX = Double.NEGATIVE_INFINITY;
+        double tmpMaxY = Double.NEGATIVE_INFINITY;
+        for (IAtom tmpAtom : aMolecule.atoms()) {
+            Point2d tmpPoint = tmpAtom.getPoint2d();
+            tmpMinX = Math.min(tmpMinX, tmpPoint.x);
+            tmpMinY = Math.min(tmpMinY, tmpPoint.y);
+            tmpMaxX = Math.max(tmpMaxX, tmpPoint.x);
+            tmpMaxY = Math.max(tmpMaxY, tmpPoint.y);
+        }
+        double tmpBondLength = AdaptiveDepictionSizer.averageBondLength(aMolecule);
+        double tmpMargin = 2 * AdaptiveDepictionSizer.DEFAULT_MARGIN_IN_BOND_LENGTHS;
+        double tmpWidthInBonds = (tmpMaxX - tmpMinX) / tmpBondLength + tmpMargin;
+        double tmpHeightInBonds = (tmpMaxY - tmpMinY) / tmpBondLength + tmpMargin;
+        return new Dimension(this.clamp(tmpWidthInBonds * this.pixelsPerBond),
+                this.clamp(tmpHeightInBonds * this.pixelsPerBond));
+    }
+    //
+    /**
+     * Returns a copy of the given depiction generator with its canvas size adapted to the given molecule.
+     * The molecule is scaled to fill the canvas.
+     *
+     * @param aDepictionGenerator depiction generator whose other settings are kept
+     * @param aMolecule molecule to depict
+     * @return depiction generator for the given molecule
+     * @throws NullPointerException if any parameter is null
+     * @throws CDKException if 2D coordinates cannot be generated for the molecule
+     */
+    public DepictionGenerator adapt(DepictionGenerator aDepictionGenerator, IAtomContainer aMolecule)
+            throws NullPointerException, CDKException
+    {
+        Objects.requireNonNull(aDepictionGenerator, "Given depiction generator is null.");
+        Dimension tmpSize = this.computeSize(aMolecule);
+        return aDepictionGenerator.withSize(tmpSize.width, tmpSize.height).withFillToFit();
+    }
+    //
+    /**
+     * Returns the name of the style class giving GraphStream nodes the size matching a depiction of the given size,
+     * with the node edge lengths rounded to multiples of {@link #NODE_SIZE_STEP}, e.g. "size48x32". The respective
+     * style rule is returned by {@link #getNodeSizeStyleRule(String)}.
+     *
+     * @param anImageWidth width of the depiction in pixels
+     * @param anImageHeight height of the depiction in pixels
+     * @return node size style class
+     */
+    public String getNodeSizeClass(int anImageWidth, int anImageHeight) {
+        return AdaptiveDepictionSizer.NODE_SIZE_CLASS_PREFIX
+                + AdaptiveDepictionSizer.roundToNodeSizeStep(this.getNodeSize(anImageWidth)) + "x"
+                + AdaptiveDepictionSizer.roundToNodeSizeStep(this.getNodeSize(anImageHeight));
+    }
+    //
+    /**
+     * Returns the style sheet rule for the given node size style class, e.g.
+     * "node.size48x32 { size-mode: given; size: 48px, 32px; }".
+     *
+     * @param aNodeSizeClass style class name as returned by {@link #getNodeSizeClass(int, int)}
+     * @return style rule or null if the given name is not a node size style class
+     * @throws NullPointerException if the given class name is null
+     */
+    public static String getNodeSizeStyleRule(String aNodeSizeClass) throws NullPointerException {
+        Objects.requireNonNull(aNodeSizeClass, "Given style class is null.");
+        Matcher tmpMatcher = AdaptiveDepictionSizer.NODE_SIZE_CLASS_PATTERN.matcher(aNodeSizeClass);
+        if (!tmpMatcher.matches()) {
+            return null;
+        }
+        return "node." + aNodeSizeClass + " { size-mode: given; size: " + tmpMatcher.group(1) + "px, " + tmpMatcher.group(2) + "px; }";
+    }
+    //
+    /**
+     * Converts an edge length of a depiction into the respective edge length of the displayed GraphStream node.
+     *
+     * @param anImageSize edge length of the depiction in pixels
+     * @return edge length of the node in pixels
+     */
+    public int getNodeSize(int anImageSize) {
+        return Math.max(1, (int) Math.round((double) anImageSize * this.nodePixelsPerBond / this.pixelsPerBond));
+    }
+    //
+    /**
+     * Rounds the given edge length and clamps it to the minimum and maximum size.
+     *
+     * @param aSize edge length in pixels
+     * @return clamped edge length
+     */
+    private int clamp(double aSize) {
+        return (int) Math.max(this.minSize, Math.min(this.maxSize, Math.round(aSize)));
+    }
+    //
+    /**
+     * Rounds the given node edge length to the nearest multiple of {@link #NODE_SIZE_STEP}, at least one step.
+     *
+     * @param aNodeSize node edge length in pixels
+     * @return rounded edge length
+     */
+    private static int roundToNodeSizeStep(int aNodeSize) {
+        int tmpSteps = Math.max(1, Math.round((float) aNodeSize / AdaptiveDepictionSizer.NODE_SIZE_STEP));
+        return tmpSteps * AdaptiveDepictionSizer.NODE_SIZE_STEP;
+    }
+    //
+    /**
+     * Checks whether all atoms of the given molecule have 2D coordinates.
+     *
+     * @param aMolecule molecule to check
+     * @return true if all atoms have 2D coordinates
+     */
+    private static boolean has2DCoordinates(IAtomContainer aMolecule) {
+        for (IAtom tmpAtom : aMolecule.atoms()) {
+            if (Objects.isNull(tmpAtom.getPoint2d())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //
+    /**
+     * Calculates the average 2D bond length of the given molecule.
+     *
+     * @param aMolecule molecule with 2D coordinates
+     * @return average bond length or a fallback length if the molecule has no (non-degenerate) bonds
+     */
+    private static double averageBondLength(IAtomContainer aMolecule) {
+        double tmpLengthSum = 0.0;
+        int tmpBondCount = 0;
+        for (IBond tmpBond : aMolecule.bonds()) {
+            double tmpLength = tmpBond.getBegin().getPoint2d().distance(tmpBond.getEnd().getPoint2d());
+            if (tmpLength > 0.0) {
+                tmpLengthSum += tmpLength;
+                tmpBondCount++;
+            }
+        }
+        return tmpBondCount == 0 ? AdaptiveDepictionSizer.FALLBACK_BOND_LENGTH : tmpLengthSum / tmpBondCount;
+    }
+}
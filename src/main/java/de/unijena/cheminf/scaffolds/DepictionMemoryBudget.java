@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import java.awt.Dimension;
+import java.util.Locale;
+
+/**
+ * Explicit heap budget for generating scaffold graphs, shared by the depiction pipelines and graph generation
+ * methods it is set on (see {@link NodeDepictionPipeline#setMemoryBudget(DepictionMemoryBudget)}). It tracks the
+ * raster images in flight in the pipelines, i.e. depicted but not yet written to their temporary files, and an
+ * estimate of the graphs being built. When a depiction would exceed the budget, the depicting thread waits until
+ * other images have been written (throttling the effective concurrency); with an adaptive depiction sizer, depictions
+ * are additionally scaled down once the use approaches the budget. The peak use is recorded for reporting.
+ * <br>The byte counts are estimates, 4 bytes per image pixel and fixed sizes per graph node and edge, not
+ * measurements of the heap. A single image is always admitted when no other image is in flight, so that
+ * generation makes progress even if the budget is smaller than one image.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class DepictionMemoryBudget {
+    /**
+     * Default fraction of the budget above which adaptively sized depictions are scaled down.
+     */
+    public static final double DEFAULT_DOWNSCALE_THRESHOLD = 0.75;
+    //
+    /**
+     * Estimated bytes per pixel of a depicted raster image (ARGB).
+     */
+    public static final int BYTES_PER_PIXEL = 4;
+    //
+    /**
+     * Estimated bytes of a graph node with its attributes (style, label, scaffold node reference).
+     */
+    public static final long ESTIMATED_NODE_BYTES = 1024L;
+    //
+    /**
+     * Estimated bytes of a graph edge.
+     */
+    public static final long ESTIMATED_EDGE_BYTES = 256L;
+    //
+    /**
+     * Budget in bytes.
+     */
+    private final long budgetBytes;
+    //
+    /**
+     * Fraction of the budget above which depictions are scaled down.
+     */
+    private final double downscaleThreshold;
+    //
+    /**
+     * Bytes of the images currently in flight.
+     */
+    private long imageBytes;
+    //
+    /**
+     * Estimated bytes of the graphs currently being built.
+     */
+    private long graphBytes;
+    //
+    /**
+     * Highest sum of image and graph bytes so far.
+     */
+    private long peakBytes;
+    //
+    /**
+     * Number of depictions that had to wait for the budget.
+     */
+    private long throttledCount;
+    //
+    /**
+     * Number of depictions that were scaled down.
+     */
+    private long downscaledCount;
+    //
+    /**
+     * Constructor with the default downscale threshold.
+     *
+     * @param aBudgetBytes budget in bytes
+     * @throws IllegalArgumentException if the budget is smaller than one
+     */
+    public DepictionMemoryBudget(long aBudgetBytes) throws IllegalArgumentException {
+        this(aBudgetBytes, DepictionMemoryBudget.DEFAULT_DOWNSCALE_THRESHOLD);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param aBudgetBytes budget in bytes
+     * @param aDownscaleThreshold fraction of the budget above which adaptively sized depictions are scaled down,
+     *                            1.0 to scale down only depictions that do not fit at all
+     * @throws IllegalArgumentException if the budget is smaller than one or the threshold is not in (0, 1]
+     */
+    public DepictionMemoryBudget(long aBudgetBytes, double aDownscaleThreshold) throws IllegalArgumentException {
+        if (aBudgetBytes < 1L) {
+            throw new IllegalArgumentException("Given budget must be at least one byte.");
+        }
+        if (!(aDownscaleThreshold > 0.0 && aDownscaleThreshold <= 1.0)) {
+            throw new IllegalArgumentException("Given downscale threshold must be greater than 0 and at most 1.");
+        }
+        this.budgetBytes = aBudgetBytes;
+        this.downscaleThreshold = aDownscaleThreshold;
+    }
+    //
+    /**
+     * Returns the estimated bytes of a raster image of the given size.
+     *
+     * @param aWidth image width in pixels
+     * @param aHeight image height in pixels
+     * @return estimated bytes
+     */
+    public static long estimateImageBytes(int aWidth, int aHeight) {
+        return (long) aWidth * aHeight * DepictionMemoryBudget.BYTES_PER_PIXEL;
+    }
+    //
+    /**
+     * Returns the estimated bytes of a graph with the given numbers of nodes and edges.
+     *
+     * @param aNodeCount number of nodes
+     * @param anEdgeCount number of edges
+     * @return estimated bytes
+     */
+    public static long estimateGraphBytes(int aNodeCount, int anEdgeCount) {
+        return aNodeCount * DepictionMemoryBudget.ESTIMATED_NODE_BYTES + anEdgeCount * DepictionMemoryBudget.ESTIMATED_EDGE_BYTES;
+    }
+    //
+    /**
+     * Returns the budget.
+     *
+     * @return budget in bytes
+     */
+    public long getBudgetBytes() {
+        return this.budgetBytes;
+    }
+    //
+    /**
+     * Returns the fraction of the budget above which adaptively sized depictions are scaled down.
+     *
+     * @return downscale threshold
+     */
+    public double getDownscaleThreshold() {
+        return this.downscaleThreshold;
+    }
+    //
+    /**
+     * Returns the bytes currently in use, i.e. of the images in flight and the graphs being built.
+     *
+     * @return used bytes
+     */
+    public synchronized long getUsedBytes() {
+        return this.imageBytes + this.graphBytes;
+    }
+    //
+    /**
+     * Returns the highest number of bytes in use so far.
+     *
+     * @return peak bytes
+     */
+    public synchronized long getPeakBytes() {
+        return this.peakBytes;
+    }
+    //
+    /**
+     * Returns the number of depictions that had to wait until enough of the budget was free.
+     *
+     * @return throttled depictions
+     */
+    public synchronized long getThrottledCount() {
+        return this.throttledCount;
+    }
+    //
+    /**
+     * Returns the number of depictions that were scaled down to stay within the budget.
+     *
+     * @return downscaled depictions
+     */
+    public synchronized long getDownscaledCount() {
+        return this.downscaledCount;
+    }
+    //
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "Peak memory %.1f of %.1f MiB (%d depictions throttled, %d scaled down)",
+                this.peakBytes / 1048576.0, this.budgetBytes / 1048576.0, this.throttledCount, this.downscaledCount);
+    }
+    //
+    /**
+     * Reserves the budget for an adaptively sized depiction of the given size. As long as the reservation would
+     * exceed the downscale threshold, both dimensions are halved, but not below the given minimum size (or the
+     * original size, if smaller). Then waits until the scaled image fits into the budget or no other image is in
+     * flight. Release the reservation with {@link #releaseImage(long)}.
+     *
+     * @param aSize planned size of the depiction in pixels
+     * @param aMinSize minimum size of a scaled-down depiction in pixels
+     * @return size of the depiction the budget was reserved for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized Dimension reserveImage(Dimension aSize, int aMinSize) throws InterruptedException {
+        int tmpWidth = aSize.width;
+        int tmpHeight = aSize.height;
+        double tmpThresholdBytes = this.downscaleThreshold * this.budgetBytes;
+        while (this.getUsedBytes() + DepictionMemoryBudget.estimateImageBytes(tmpWidth, tmpHeight) > tmpThresholdBytes) {
+            int tmpScaledWidth = Math.max(Math.min(tmpWidth, aMinSize), tmpWidth / 2);
+            int tmpScaledHeight = Math.max(Math.min(tmpHeight, aMinSize), tmpHeight / 2);
+            if (tmpScaledWidth == tmpWidth && tmpScaledHeight == tmpHeight) {
+                break;
+            }
+            tmpWidth = tmpScaledWidth;
+            tmpHeight = tmpScaledHeight;
+        }
+        if (tmpWidth != aSize.width || tmpHeight != aSize.height) {
+            this.downscaledCount++;
+        }
+        this.reserveImage(DepictionMemoryBudget.estimateImageBytes(tmpWidth, tmpHeight));
+        return new Dimension(tmpWidth, tmpHeight);
+    }
+    //
+    /**
+     * Reserves the given number of bytes for an image, waiting until they fit into the budget or no other image
+     * is in flight. Release the reservation with {@link #releaseImage(long)}.
+     *
+     * @param aBytes bytes of the image
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized void reserveImage(long aBytes) throws InterruptedException {
+        boolean tmpIsThrottled = false;
+        //graph bytes alone never block, since they are only released once the images are written
+        while (this.imageBytes > 0L && this.getUsedBytes() + aBytes > this.budgetBytes) {
+            if (!tmpIsThrottled) {
+                this.throttledCount++;
+                tmpIsThrottled = true;
+            }
+            this.wait();
+        }
+        this.imageBytes += aBytes;
+        this.updatePeak();
+    }
+    //
+    /**
+     * Releases the given number of bytes reserved for an image and wakes up waiting depictions.
+     *
+     * @param aBytes bytes of the image
+     */
+    synchronized void releaseImage(long aBytes) {
+        this.imageBytes -= aBytes;
+        this.notifyAll();
+    }
+    //
+    /**
+     * Adds the given number of bytes of a graph being built, without waiting.
+     *
+     * @param aBytes estimated bytes of the graph
+     */
+    synchronized void addGraph(long aBytes) {
+        this.graphBytes += aBytes;
+        this.updatePeak();
+    }
+    //
+    /**
+     * Removes the given number of bytes of a graph that was finished.
+     *
+     * @param aBytes estimated bytes of the graph, as added before
+     */
+    synchronized void removeGraph(long aBytes) {
+        this.graphBytes -= aBytes;
+        this.notifyAll();
+    }
+    //
+    /**
+     * Updates the peak with the bytes currently in use.
+     */
+    private void updatePeak() {
+        this.peakBytes = Math.max(this.peakBytes, this.getUsedBytes());
+    }
+}
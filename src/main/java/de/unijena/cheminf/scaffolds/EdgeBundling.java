@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bundled edge geometry for GraphStream graphs created from scaffold graphs, laid out in rows by scaffold level
+ * (see {@link GraphStreamUtility#computeLevelLayout(ScaffoldNodeCollectionBase)}). Every edge is drawn as a polyline
+ * that leaves its parent vertically for a short trunk, crosses over to the position above its child, and enters
+ * the child vertically. All edges of a parent share its outgoing trunk and all edges of a child share its incoming
+ * trunk, so fan-outs and fan-ins are bundled into single lines.
+ * <br>The geometry is computed once and cached in this object. {@link #apply(Graph)} sets the node positions and
+ * the polylines (GraphStream "ui.points" attribute) on a graph, e.g. again after regenerating it, so that the
+ * viewer or screenshots draw the cached polylines instead of computing edge shapes or a layout.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class EdgeBundling {
+    /**
+     * Default length of the shared trunks at the parent and child end of every edge, in level distances.
+     */
+    public static final double DEFAULT_TRUNK_LENGTH = 0.25;
+    //
+    /**
+     * Style rule appended to the style sheet of graphs the bundling is applied to, to draw the edges as polylines.
+     */
+    private static final String POLYLINE_EDGE_STYLE_RULE = " edge { shape: polyline; }";
+    //
+    /**
+     * Positions (x, y, z) by node ID.
+     */
+    private final Map<String, double[]> nodePositions;
+    //
+    /**
+     * Polyline points (x, y, z triples from the source to the target node) by edge ID.
+     */
+    private final Map<String, double[]> polylines;
+    //
+    /**
+     * Private constructor, use {@link #compute(Graph, ScaffoldNodeCollectionBase)}.
+     *
+     * @param aNodePositions positions by node ID
+     * @param aPolylines polyline points by edge ID
+     */
+    private EdgeBundling(Map<String, double[]> aNodePositions, Map<String, double[]> aPolylines) {
+        this.nodePositions = aNodePositions;
+        this.polylines = aPolylines;
+    }
+    //
+    /**
+     * Computes the bundled edge geometry of the given graph with the default trunk length.
+     *
+     * @param aGraph graph created from the given scaffold graph by one of the graph generation methods of
+     *               {@link GraphStreamUtility}, optionally with reduced edges (see {@link ScaffoldGraphEdgeReducer})
+     * @param aScaffoldNodeCollection scaffold tree or network the graph was created from
+     * @return bundled edge geometry
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if a graph node does not represent a node of the given scaffold graph
+     */
+    public static EdgeBundling compute(Graph aGraph, ScaffoldNodeCollectionBase aScaffoldNodeCollection)
+            throws NullPointerException, IllegalArgumentException
+    {
+        return EdgeBundling.compute(aGraph, aScaffoldNodeCollection, EdgeBundling.DEFAULT_TRUNK_LENGTH);
+    }
+    //
+    /**
+     * Computes the bundled edge geometry of the given graph. The nodes are positioned by the level layout of the
+     * complete scaffold graph, so that the graph of a part of it (e.g. a neighbourhood) keeps the same arrangement.
+     *
+     * @param aGraph graph created from the given scaffold graph by one of the graph generation methods of
+     *               {@link GraphStreamUtility}, optionally with reduced edges (see {@link ScaffoldGraphEdgeReducer})
+     * @param aScaffoldNodeCollection scaffold tree or network the graph was created from
+     * @param aTrunkLength length of the shared trunks at both ends of every edge, in level distances
+     * @return bundled edge geometry
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if a graph node does not represent a node of the given scaffold graph or the
+     * trunk length is not between 0 and 0.5
+     */
+    public static EdgeBundling compute(Graph aGraph, ScaffoldNodeCollectionBase aScaffoldNodeCollection, double aTrunkLength)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        if (!(aTrunkLength >= 0.0 && aTrunkLength <= 0.5)) {
+            throw new IllegalArgumentException("Given trunk length must be between 0 and 0.5.");
+        }
+        double[][] tmpLayout = GraphStreamUtility.computeLevelLayout(aScaffoldNodeCollection);
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(aScaffoldNodeCollection);
+        Map<String, double[]> tmpNodePositions = new HashMap<>(aGraph.getNodeCount() * 2);
+        for (int tmpIndex = 0; tmpIndex < aGraph.getNodeCount(); tmpIndex++) {
+            Node tmpNode = aGraph.getNode(tmpIndex);
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = GraphStreamUtility.getScaffoldNode(tmpNode, aScaffoldNodeCollection);
+            Integer tmpCollectionIndex = Objects.isNull(tmpScaffoldNode) ? null : tmpIndexMap.get(tmpScaffoldNode);
+            if (Objects.isNull(tmpCollectionIndex)) {
+                throw new IllegalArgumentException("Graph node " + tmpNode.getId() + " does not represent a node of the given scaffold graph.");
+            }
+            double[] tmpPosition = tmpLayout[tmpCollectionIndex];
+            tmpNodePositions.put(tmpNode.getId(), new double[] {tmpPosition[0], tmpPosition[1], 0.0});
+        }
+        Map<String, double[]> tmpPolylines = new HashMap<>(aGraph.getEdgeCount() * 2);
+        for (int tmpIndex = 0; tmpIndex < aGraph.getEdgeCount(); tmpIndex++) {
+            Edge tmpEdge = aGraph.getEdge(tmpIndex);
+            double[] tmpSource = tmpNodePositions.get(tmpEdge.getSourceNode().getId());
+            double[] tmpTarget = tmpNodePositions.get(tmpEdge.getTargetNode().getId());
+            //the y axis points upwards, so the parent (lower level) is the upper end
+            double tmpDirection = Math.signum(tmpTarget[1] - tmpSource[1]);
+            //the trunks of an edge within one level must not overlap
+            double tmpTrunk = Math.min(aTrunkLength, Math.abs(tmpTarget[1] - tmpSource[1]) / 2.0);
+            tmpPolylines.put(tmpEdge.getId(), new double[] {
+                    tmpSource[0], tmpSource[1], 0.0,
+                    tmpSource[0], tmpSource[1] + tmpDirection * tmpTrunk, 0.0,
+                    tmpTarget[0], tmpTarget[1] - tmpDirection * tmpTrunk, 0.0,
+                    tmpTarget[0], tmpTarget[1], 0.0});
+        }
+        return new EdgeBundling(tmpNodePositions, tmpPolylines);
+    }
+    //
+    /**
+     * Returns the number of cached polylines.
+     *
+     * @return edge count
+     */
+    public int getEdgeCount() {
+        return this.polylines.size();
+    }
+    //
+    /**
+     * Returns the cached polyline of the edge with the given ID.
+     *
+     * @param anEdgeId edge ID
+     * @return copy of the polyline points (x, y, z triples from the source to the target node) or null if the edge
+     * is unknown
+     */
+    public double[] getPolyline(String anEdgeId) {
+        double[] tmpPolyline = this.polylines.get(anEdgeId);
+        return Objects.isNull(tmpPolyline) ? null : Arrays.copyOf(tmpPolyline, tmpPolyline.length);
+    }
+    //
+    /**
+     * Sets the cached node positions ("xyz") and edge polylines ("ui.points") on the nodes and edges of the given
+     * graph with matching IDs and appends a style rule drawing the edges as polylines to its style sheet. Display the
+     * graph without auto-layout, e.g. with {@code display(false)}, to keep the positions.
+     *
+     * @param aGraph graph the bundling was computed for or a graph generated the same way
+     * @throws NullPointerException if the given graph is null
+     */
+    public void apply(Graph aGraph) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        for (int tmpIndex = 0; tmpIndex < aGraph.getNodeCount(); tmpIndex++) {
+            Node tmpNode = aGraph.getNode(tmpIndex);
+            double[] tmpPosition = this.nodePositions.get(tmpNode.getId());
+            if (!Objects.isNull(tmpPosition)) {
+                tmpNode.setAttribute("xyz", tmpPosition[0], tmpPosition[1], tmpPosition[2]);
+            }
+        }
+        for (int tmpIndex = 0; tmpIndex < aGraph.getEdgeCount(); tmpIndex++) {
+            Edge tmpEdge = aGraph.getEdge(tmpIndex);
+            double[] tmpPolyline = this.polylines.get(tmpEdge.getId());
+            if (!Objects.isNull(tmpPolyline)) {
+                tmpEdge.setAttribute("ui.points", Arrays.stream(tmpPolyline).boxed().toArray());
+            }
+        }
+        Object tmpStyleSheet = aGraph.getAttribute("ui.stylesheet");
+        String tmpStyleSheetString = Objects.isNull(tmpStyleSheet) ? "" : tmpStyleSheet.toString();
+        if (!tmpStyleSheetString.endsWith(EdgeBundling.POLYLINE_EDGE_STYLE_RULE)) {
+            aGraph.setAttribute("ui.stylesheet", tmpStyleSheetString + EdgeBundling.POLYLINE_EDGE_STYLE_RULE);
+        }
+    }
+}
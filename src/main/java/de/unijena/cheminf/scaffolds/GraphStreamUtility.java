@@ -23,23 +23,49 @@ package de.unijena.cheminf.scaffolds;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.AttributeSink;
+import org.graphstream.stream.ElementSink;
+import org.graphstream.stream.GraphReplay;
 import org.graphstream.stream.file.FileSinkImages;
 import org.graphstream.stream.file.images.Resolutions;
+import org.graphstream.ui.view.View;
+import org.graphstream.ui.view.Viewer;
 import org.openscience.cdk.depict.DepictionGenerator;
-import org.openscience.cdk.exception.CDKException;
 import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.NetworkNode;
 import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
 import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
 import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+import org.openscience.cdk.tools.scaffold.TreeNode;
 
-import java.awt.image.BufferedImage;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import javax.imageio.ImageIO;
+import javax.swing.Timer;
 
 /**
  * Contains functionalities to visualise CDK-Scaffold-generated scaffold networks and trees in a
@@ -53,9 +79,11 @@ import javax.imageio.ImageIO;
  */
 public class GraphStreamUtility {
     /**
-     * Default style sheet that is used for the created graphs if no custom style is defined.
+     * Default style sheet that is used for the created graphs if no custom style is defined. The rule for the
+     * {@link #STRUCTURE_NODE_CLASS} style class is added to every style sheet by the graph generation methods.
      */
-    public static final String DEFAULT_GRAPH_STYLE_SHEET = "node { shape: rounded-box; size-mode: fit; padding: 60px; } graph { shape: box; size-mode: fit; padding: 100px; }";
+    public static final String DEFAULT_GRAPH_STYLE_SHEET = "node { shape: rounded-box; size-mode: fit; padding: 60px; } graph { shape: box; size-mode: fit; padding: 100px; } "
+            + "node." + ScaffoldGraphIndex.HIGHLIGHTED_NODE_CLASS + " { stroke-mode: plain; stroke-color: red; stroke-width: 8px; }";
     //
     /**
      *Default ID given to the created graphs if no ID is given.
@@ -73,15 +101,65 @@ public class GraphStreamUtility {
     public static final boolean DEFAULT_ARE_NODES_LABELLED = true;
     //
     /**
-     * Default CDK depiction generator used to create structure images for the graph nodes
+     * Width and height in pixels of the depictions of the default CDK depiction generator, see
+     * {@link #getDefaultDepictionGenerator()}.
      */
-    public static final DepictionGenerator DEFAULT_CDK_DEPICTION_GENERATOR = new DepictionGenerator().withSize(2048,2048).withFillToFit();
+    public static final int DEFAULT_DEPICTION_SIZE = 2048;
     //
     /**
      * the cdk-scaffold ScaffoldNodeBase instances represented by a node in the created graph is stored under this property key.
      */
     public static final String GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE = "ScaffoldNodeBase";
     //
+    /**
+     * With compact node attributes, the index of the represented cdk-scaffold node in its collection (see
+     * ScaffoldNodeCollectionBase.getMatrixNode(int)) is stored under this property key instead of the node instance.
+     */
+    public static final String GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_INDEX = "ScaffoldNodeIndex";
+    //
+    /**
+     * With compact node attributes, the numeric ID of the structure image of a node (see
+     * {@link NodeDepictionPipeline.Result#getImageId()}) is stored under this property key.
+     */
+    public static final String GRAPH_NODE_PROPERTY_KEY_IMAGE_ID = "ImageId";
+    //
+    /**
+     * Style class of all nodes displaying a structure image. Declarations shared by all these nodes, i.e. the fill
+     * mode, are defined for this class in the style sheet instead of in every node style, which only holds the image
+     * reference. The rule "node.structure { fill-mode: image-scaled; }" is put in front of the style sheet of every
+     * created graph, so custom style sheets may override it but do not have to define it.
+     */
+    public static final String STRUCTURE_NODE_CLASS = "structure";
+    //
+    /**
+     * Lock held by the tools of this package while taking screenshots with
+     * {@link #screenshotGraphHighQuality(Graph, String)}, which should not be used for multiple graphs at the same time.
+     */
+    static final Object SCREENSHOT_LOCK = new Object();
+    //
+    /**
+     * Extracts the image path from the "fill-image" declaration of a node style.
+     */
+    private static final Pattern FILL_IMAGE_URL_PATTERN = Pattern.compile("fill-image: url\\('([^']*)'\\)");
+    //
+    /**
+     * Style rule put in front of the style sheet of every created graph and appended to the style sheet of
+     * progressively displayed graphs after an interaction, to show the structure images.
+     */
+    private static final String STRUCTURE_IMAGE_STYLE_RULE = " node." + GraphStreamUtility.STRUCTURE_NODE_CLASS + " { fill-mode: image-scaled; }";
+    //
+    /**
+     * Style rule appended to the style sheet of progressively displayed graphs while the user pans or zooms, to draw
+     * the nodes as plain shapes instead of scaling their structure images in every frame.
+     */
+    private static final String SIMPLIFIED_STRUCTURE_STYLE_RULE = " node." + GraphStreamUtility.STRUCTURE_NODE_CLASS + " { fill-mode: plain; }";
+    //
+    /**
+     * Time in milliseconds without panning or zooming after which a progressively displayed graph is rendered in full
+     * quality again.
+     */
+    private static final int INTERACTION_IDLE_MILLIS = 300;
+    //
     /**
      * Folder to store screenshots, temporary image files, etc.
      */
@@ -97,13 +175,16 @@ public class GraphStreamUtility {
             + File.separatorChar);
     //
     /**
-     * Static class initializer that sets the "org.graphstream.ui" system property to the default
-     * value if it is unset.
+     * Holder of the default CDK depiction generator, initialised on first use of
+     * {@link #getDefaultDepictionGenerator()} instead of when this class is loaded, since creating a depiction
+     * generator loads the CDK rendering and AWT font classes, which dominates the startup of short-lived JVMs.
      */
-    static {
-        if (Objects.isNull(System.getProperty("org.graphStream.ui"))) {
-            System.setProperty("org.graphstream.ui", GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI);
-        }
+    private static final class DefaultDepictionGeneratorHolder {
+        /**
+         * Default CDK depiction generator.
+         */
+        private static final DepictionGenerator INSTANCE = new DepictionGenerator()
+                .withSize(GraphStreamUtility.DEFAULT_DEPICTION_SIZE, GraphStreamUtility.DEFAULT_DEPICTION_SIZE).withFillToFit();
     }
     //
     /**
@@ -113,6 +194,17 @@ public class GraphStreamUtility {
         throw new IllegalStateException("Utility class");
     }
     //
+    /**
+     * Returns the default CDK depiction generator used to create structure images for the graph nodes, depicting on
+     * a 2048 x 2048 pixels canvas filled by the molecule. It is created on the first call. Depiction generators are
+     * immutable, so the instance can be shared and customised with its "with..." methods.
+     *
+     * @return default depiction generator
+     */
+    public static DepictionGenerator getDefaultDepictionGenerator() {
+        return DefaultDepictionGeneratorHolder.INSTANCE;
+    }
+    //
     /**
      * Folder to store screenshots, temporary image files, etc.
      *
@@ -191,7 +283,7 @@ public class GraphStreamUtility {
             throws NullPointerException, IllegalArgumentException, IOException {
         GraphStreamUtility.displayWithGraphStream(aScaffoldNodeCollection,
                 GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
                 GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI
                 );
@@ -215,7 +307,7 @@ public class GraphStreamUtility {
     {
         GraphStreamUtility.displayWithGraphStream(aScaffoldNodeCollection,
                 areNodesLabelled,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
                 GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI
                 );
@@ -317,11 +409,96 @@ public class GraphStreamUtility {
                 areNodesLabelled,
                 aDepictionGenerator,
                 aStyleSheet,
-                new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+                GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection));
         System.setProperty("org.graphstream.ui", aGraphStreamUIProperty);
         tmpGraph.display();
     }
     //
+    /**
+     * The ScaffoldNodeCollectionBase (scaffold network or tree) is displayed progressively in an application window
+     * using GraphStream, see {@link #displayProgressivelyWithGraphStream(ScaffoldNodeCollectionBase, boolean, DepictionGenerator, String)}.
+     *
+     * @param aScaffoldNodeCollection displayed scaffold graph
+     * @return viewer of the opened window
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if any parameter does not fulfil its requirements
+     */
+    public static Viewer displayProgressivelyWithGraphStream(ScaffoldNodeCollectionBase aScaffoldNodeCollection)
+            throws NullPointerException, IllegalArgumentException
+    {
+        return GraphStreamUtility.displayProgressivelyWithGraphStream(aScaffoldNodeCollection,
+                GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
+                GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET);
+    }
+    //
+    /**
+     * The ScaffoldNodeCollectionBase (scaffold network or tree) is displayed progressively in an application window
+     * using the GraphStream Swing viewer, meant for huge graphs. Unlike
+     * {@link #displayWithGraphStream(ScaffoldNodeCollectionBase, boolean, DepictionGenerator, String, String)}, the
+     * window opens at once, showing the graph skeleton with the nodes as plain shapes, arranged in rows by scaffold
+     * level (see {@link #computeLevelLayout(ScaffoldNodeCollectionBase)}) instead of by the GraphStream auto-layout.
+     * The structure depictions are created on a background thread and appear on the nodes as they are finished.
+     * While the user pans or zooms (mouse wheel, dragging, or keys), the nodes are drawn as plain shapes and without
+     * anti-aliasing; the structure images return when the interaction has stopped.
+     * <br>While the user interacts, the rule for the {@link #STRUCTURE_NODE_CLASS} style class is overridden.
+     * <br>NOTE: It is not recommended displaying multiple graphs at the same time using this method because of
+     * multithreading issues.
+     *
+     * @param aScaffoldNodeCollection displayed scaffold graph
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param aDepictionGenerator CDK depiction generator used for generating the structure images on the graph nodes
+     * @param aStyleSheet style sheet property for the graph
+     * @return viewer of the opened window
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if any parameter does not fulfil its requirements
+     */
+    public static Viewer displayProgressivelyWithGraphStream(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                             boolean areNodesLabelled,
+                                                             DepictionGenerator aDepictionGenerator,
+                                                             String aStyleSheet)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Objects.requireNonNull(aDepictionGenerator, "Given depiction generator is null.");
+        Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
+        if (aScaffoldNodeCollection instanceof ScaffoldTree) {
+            if (!((ScaffoldTree) aScaffoldNodeCollection).isValid()) {
+                throw new IllegalArgumentException("Given scaffold tree is invalid (unconnected or without a single root node).");
+            }
+        }
+        Graph tmpGraph = GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection);
+        GraphStreamUtility.prepareGraph(aStyleSheet, tmpGraph);
+        String tmpStyleSheet = (String) tmpGraph.getAttribute("ui.stylesheet");
+        List<IAtomContainer> tmpMolecules = GraphStreamUtility.addSkeleton(aScaffoldNodeCollection, areNodesLabelled, false, tmpGraph);
+        double[][] tmpPositions = GraphStreamUtility.computeLevelLayout(aScaffoldNodeCollection);
+        for (int tmpIndex = 0; tmpIndex < tmpPositions.length; tmpIndex++) {
+            tmpGraph.getNode(tmpIndex).setAttribute("xyz", tmpPositions[tmpIndex][0], tmpPositions[tmpIndex][1], 0.0);
+        }
+        GraphStreamUtility.selectDefaultUiIfUnset();
+        Viewer tmpViewer = tmpGraph.display(false);
+        View tmpView = tmpViewer.getDefaultView();
+        if (tmpView instanceof Component) {
+            SimplifiedRenderingController tmpController = new SimplifiedRenderingController(tmpGraph, tmpStyleSheet);
+            Component tmpComponent = (Component) tmpView;
+            tmpComponent.addMouseListener(tmpController);
+            tmpComponent.addMouseMotionListener(tmpController);
+            tmpComponent.addMouseWheelListener(tmpController);
+            tmpComponent.addKeyListener(tmpController);
+        }
+        Thread tmpDepictionThread = new Thread(() -> {
+            try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(aDepictionGenerator)) {
+                GraphStreamUtility.addStructureImages(tmpGraph, tmpMolecules, tmpPipeline, false);
+            } catch (IOException | RuntimeException anException) {
+                Logger.getLogger(GraphStreamUtility.class.getName()).log(Level.WARNING,
+                        "Depicting the scaffold structures of the displayed graph failed.", anException);
+            }
+        }, "GraphStreamUtility-progressive-depiction");
+        tmpDepictionThread.setDaemon(true);
+        tmpDepictionThread.start();
+        return tmpViewer;
+    }
+    //
     /**
      * The ScaffoldNodeCollectionBase (scaffold network or tree) is parsed into a GraphStream Graph object with nodes depicting the scaffolds.
      *
@@ -336,9 +513,9 @@ public class GraphStreamUtility {
     {
         return GraphStreamUtility.generateGraphFromScaffoldNodeCollection(aScaffoldNodeCollection,
                 GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
-                new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+                GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection));
     }
     //
     /**
@@ -358,9 +535,9 @@ public class GraphStreamUtility {
     {
         return GraphStreamUtility.generateGraphFromScaffoldNodeCollection(aScaffoldNodeCollection,
                 areNodesLabelled,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
-                new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+                GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection));
     }
     //
     /**
@@ -384,7 +561,7 @@ public class GraphStreamUtility {
                 areNodesLabelled,
                 aCDKDepictionGenerator,
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
-                new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+                GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection));
     }
     //
     /**
@@ -410,7 +587,7 @@ public class GraphStreamUtility {
                 areNodesLabelled,
                 aCDKDepictionGenerator,
                 aStyleSheet,
-                new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+                GraphStreamUtility.createPresizedGraph(GraphStreamUtility.DEFAULT_GRAPH_ID, aScaffoldNodeCollection));
     }
     //
     /**
@@ -438,12 +615,14 @@ public class GraphStreamUtility {
                 areNodesLabelled,
                 aCDKDepictionGenerator,
                 aStyleSheet,
-                new SingleGraph(aGraphID));
+                GraphStreamUtility.createPresizedGraph(aGraphID, aScaffoldNodeCollection));
     }
     //
     /**
      * The ScaffoldNodeCollectionBase (scaffold network or tree) is parsed into a GraphStream Graph object with nodes depicting the scaffolds.
      * The optional numbering of the nodes reflects their respective indices in the exported adjacency matrix and their level in the graph.
+     * The structure images are created in parallel by a {@link NodeDepictionPipeline} with default settings that is
+     * closed again afterwards.
      *
      * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) to parse
      * @param areNodesLabelled adds a label with node level and node index if true
@@ -463,8 +642,46 @@ public class GraphStreamUtility {
                                                                 )
             throws NullPointerException, IllegalArgumentException, IOException
     {
-        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
         Objects.requireNonNull(aCDKDepictionGenerator, "Given depiction generator is null.");
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(aCDKDepictionGenerator)) {
+            return GraphStreamUtility.generateGraphFromScaffoldNodeCollection(aScaffoldNodeCollection,
+                    areNodesLabelled,
+                    tmpPipeline,
+                    aStyleSheet,
+                    aGraph);
+        }
+    }
+    //
+    /**
+     * The ScaffoldNodeCollectionBase (scaffold network or tree) is parsed into a GraphStream Graph object with nodes depicting the scaffolds.
+     * The optional numbering of the nodes reflects their respective indices in the exported adjacency matrix and their level in the graph.
+     * The graph structure is created first, then the structure images are depicted, encoded, and written to
+     * temporary files by the given pipeline, and set on the nodes as they are finished. If the pipeline adapts the
+     * depiction sizes to the molecules, the node sizes are scaled accordingly. If the pipeline has a memory budget
+     * (see {@link NodeDepictionPipeline#setMemoryBudget(DepictionMemoryBudget)}), the estimated size of the graph is
+     * accounted for in it while the structures are depicted. The pipeline is not closed by this method and can be
+     * reused for multiple graphs.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) to parse
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param aPipeline pipeline used for generating the structure images on the graph nodes
+     * @param aStyleSheet style sheet property for the graph
+     * @param aGraph empty(!) Graph instance (convenience here, e.g. to connect a file sink image instance to the graph before it is constructed)
+     * @return GraphStream Graph instance representing the given scaffold graph with structure depictions of the scaffolds on its nodes
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if any parameter does not fulfil its requirements
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public static Graph generateGraphFromScaffoldNodeCollection(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                                boolean areNodesLabelled,
+                                                                NodeDepictionPipeline aPipeline,
+                                                                String aStyleSheet,
+                                                                Graph aGraph
+                                                                )
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
         Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
         Objects.requireNonNull(aGraph, "Given Graph instance is null.");
         if (aScaffoldNodeCollection instanceof ScaffoldTree) {
@@ -472,64 +689,667 @@ public class GraphStreamUtility {
                 throw new IllegalArgumentException("Given scaffold tree is invalid (unconnected or without a single root node).");
             }
         }
+        GraphStreamUtility.prepareGraph(aStyleSheet, aGraph);
+        //sinks connected to the given graph receive the finished graph at once instead of every single change
+        SuspendedSinks tmpSuspendedSinks = SuspendedSinks.detach(aGraph);
+        DepictionMemoryBudget tmpBudget = aPipeline.getMemoryBudget();
+        //read once, so that the whole graph is generated with the same setting
+        boolean tmpAreAttributesCompact = aPipeline.areNodeAttributesCompact();
+        long tmpGraphBytes = 0L;
+        try {
+            List<IAtomContainer> tmpMolecules = GraphStreamUtility.addSkeleton(aScaffoldNodeCollection, areNodesLabelled,
+                    tmpAreAttributesCompact, aGraph);
+            if (!Objects.isNull(tmpBudget)) {
+                //the skeleton is complete, so the depictions are throttled against the remaining budget
+                tmpGraphBytes = DepictionMemoryBudget.estimateGraphBytes(aGraph.getNodeCount(), aGraph.getEdgeCount());
+                tmpBudget.addGraph(tmpGraphBytes);
+            }
+            GraphStreamUtility.addStructureImages(aGraph, tmpMolecules, aPipeline, tmpAreAttributesCompact);
+        } finally {
+            if (!Objects.isNull(tmpBudget)) {
+                tmpBudget.removeGraph(tmpGraphBytes);
+            }
+            tmpSuspendedSinks.reattachAndReplay(aGraph);
+        }
+        return aGraph;
+    }
+    //
+    /**
+     * Creates an empty graph for the given scaffold graph with its node and edge storage pre-sized to the number of
+     * scaffold nodes and parent-child relationships, so that it does not grow while being filled, e.g. for
+     * {@link #generateGraphFromScaffoldNodeCollection(ScaffoldNodeCollectionBase, boolean, NodeDepictionPipeline, String, Graph)}.
+     * Strict checking is enabled and automatic creation of nodes is disabled, as for graphs created with the default constructor.
+     *
+     * @param aGraphID id given to the created Graph instance
+     * @param aScaffoldNodeCollection scaffold tree or network the graph is created for
+     * @return empty graph
+     * @throws NullPointerException if any parameter is null
+     */
+    public static Graph createPresizedGraph(String aGraphID, ScaffoldNodeCollectionBase aScaffoldNodeCollection)
+            throws NullPointerException
+    {
+        Objects.requireNonNull(aGraphID, "Given graph ID is null.");
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        List<ScaffoldNodeBase> tmpNodes = aScaffoldNodeCollection.getAllNodes();
+        int tmpEdgeCount = 0;
+        for (ScaffoldNodeBase tmpNode : tmpNodes) {
+            tmpEdgeCount += tmpNode.getChildren().size();
+        }
+        //at least the default capacities of SingleGraph, which does not accept zero
+        return new SingleGraph(aGraphID, true, false, Math.max(tmpNodes.size(), 16), Math.max(tmpEdgeCount, 16));
+    }
+    //
+    /**
+     * Parses the neighbourhood of the given seed nodes in the ScaffoldNodeCollectionBase (scaffold network or tree)
+     * into a GraphStream Graph object with nodes depicting the scaffolds, using the default settings.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) the seeds belong to
+     * @param aSeedNodes nodes of the collection whose neighbourhood should be depicted
+     * @param aMaxAncestorDepth number of levels to go up from the seeds, 0 for no ancestors
+     * @param aMaxDescendantDepth number of levels to go down from the seeds, 0 for no descendants
+     * @return GraphStream Graph instance representing the neighbourhood of the seeds with structure depictions of the scaffolds on its nodes
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if a depth limit is negative or a seed is not part of the collection
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     * @see #generateGraphFromScaffoldNodeNeighbourhood(ScaffoldNodeCollectionBase, Collection, int, int, boolean, NodeDepictionPipeline, String, Graph)
+     */
+    public static Graph generateGraphFromScaffoldNodeNeighbourhood(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                                   Collection<ScaffoldNodeBase<IAtomContainer>> aSeedNodes,
+                                                                   int aMaxAncestorDepth,
+                                                                   int aMaxDescendantDepth)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            return GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(aScaffoldNodeCollection,
+                    aSeedNodes,
+                    aMaxAncestorDepth,
+                    aMaxDescendantDepth,
+                    GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
+                    tmpPipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    new SingleGraph(GraphStreamUtility.DEFAULT_GRAPH_ID));
+        }
+    }
+    //
+    /**
+     * Parses the neighbourhood of the given seed nodes in the ScaffoldNodeCollectionBase (scaffold network or tree)
+     * into a GraphStream Graph object with nodes depicting the scaffolds. Only the seeds, their ancestors up to the
+     * given number of levels above, and their descendants up to the given number of levels below are added, together
+     * with all parent-child edges between them (induced subgraph). The collection is only traversed from the seeds
+     * and its adjacency matrix is not created, so that the generation cost scales with the size of the result, not
+     * the size of the collection.
+     * <br>The nodes are numbered in order of their discovery, starting with the seeds; the numbers do not
+     * correspond to the indices in the adjacency matrix of the collection.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) the seeds belong to
+     * @param aSeedNodes nodes of the collection whose neighbourhood should be depicted
+     * @param aMaxAncestorDepth number of levels to go up from the seeds, 0 for no ancestors
+     * @param aMaxDescendantDepth number of levels to go down from the seeds, 0 for no descendants
+     * @param areNodesLabelled adds a label with node level and node number if true
+     * @param aPipeline pipeline used for generating the structure images on the graph nodes
+     * @param aStyleSheet style sheet property for the graph
+     * @param aGraph empty(!) Graph instance
+     * @return GraphStream Graph instance representing the neighbourhood of the seeds with structure depictions of the scaffolds on its nodes
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if any parameter does not fulfil its requirements, e.g. a seed is not part of the collection
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public static Graph generateGraphFromScaffoldNodeNeighbourhood(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                                   Collection<ScaffoldNodeBase<IAtomContainer>> aSeedNodes,
+                                                                   int aMaxAncestorDepth,
+                                                                   int aMaxDescendantDepth,
+                                                                   boolean areNodesLabelled,
+                                                                   NodeDepictionPipeline aPipeline,
+                                                                   String aStyleSheet,
+                                                                   Graph aGraph)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Objects.requireNonNull(aSeedNodes, "Given seed nodes are null.");
+        Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
+        Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        if (aMaxAncestorDepth < 0 || aMaxDescendantDepth < 0) {
+            throw new IllegalArgumentException("Given depth limits must not be negative.");
+        }
+        //checks the seeds by identity, a molecule with the same SMILES may belong to a node of another collection
+        Map<ScaffoldNodeBase, Integer> tmpNodeNumberMap = aScaffoldNodeCollection.getReverseNodeMap();
+        for (ScaffoldNodeBase<IAtomContainer> tmpSeedNode : aSeedNodes) {
+            Objects.requireNonNull(tmpSeedNode, "Given seed node is null.");
+            if (!tmpNodeNumberMap.containsKey(tmpSeedNode)) {
+                throw new IllegalArgumentException("Given seed node is not part of the given scaffold graph.");
+            }
+        }
+        GraphStreamUtility.prepareGraph(aStyleSheet, aGraph);
+        //discovery order of the nodes, their position is the graph node index
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpNodeIndexMap = new LinkedHashMap<>();
+        for (ScaffoldNodeBase<IAtomContainer> tmpSeedNode : aSeedNodes) {
+            tmpNodeIndexMap.putIfAbsent(tmpSeedNode, tmpNodeIndexMap.size());
+        }
+        GraphStreamUtility.collectNeighbourhood(aSeedNodes, aMaxAncestorDepth, true, tmpNodeIndexMap);
+        GraphStreamUtility.collectNeighbourhood(aSeedNodes, aMaxDescendantDepth, false, tmpNodeIndexMap);
+        //read once, so that the whole graph is generated with the same setting
+        boolean tmpAreAttributesCompact = aPipeline.areNodeAttributesCompact();
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpCollectionIndexMap = tmpAreAttributesCompact
+                ? GraphStreamUtility.getCollectionIndexMap(aScaffoldNodeCollection, tmpNodeIndexMap.keySet()) : Map.of();
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(tmpNodeIndexMap.size());
+        for (Map.Entry<ScaffoldNodeBase<IAtomContainer>, Integer> tmpEntry : tmpNodeIndexMap.entrySet()) {
+            int tmpCollectionIndex = tmpAreAttributesCompact ? tmpCollectionIndexMap.get(tmpEntry.getKey()) : -1;
+            GraphStreamUtility.addScaffoldNode(aGraph, tmpEntry.getValue(), tmpEntry.getKey(), tmpCollectionIndex,
+                    areNodesLabelled, tmpAreAttributesCompact);
+            tmpMolecules.add(tmpEntry.getKey().getMolecule());
+        }
+        /*Add the edges of the induced subgraph*/
+        int tmpEdgeCount = 0;
+        for (Map.Entry<ScaffoldNodeBase<IAtomContainer>, Integer> tmpEntry : tmpNodeIndexMap.entrySet()) {
+            for (ScaffoldNodeBase<IAtomContainer> tmpChild : tmpEntry.getKey().getChildren()) {
+                Integer tmpChildIndex = tmpNodeIndexMap.get(tmpChild);
+                if (!Objects.isNull(tmpChildIndex)) {
+                    aGraph.addEdge(String.valueOf(tmpEdgeCount), (int) tmpEntry.getValue(), (int) tmpChildIndex);
+                    tmpEdgeCount++;
+                }
+            }
+        }
+        GraphStreamUtility.addStructureImages(aGraph, tmpMolecules, aPipeline, tmpAreAttributesCompact);
+        return aGraph;
+    }
+    //
+    /**
+     * Returns the parent nodes of the given scaffold tree or network node.
+     *
+     * @param aScaffoldNode scaffold tree or network node
+     * @return parent nodes, empty for root nodes
+     */
+    static List<ScaffoldNodeBase<IAtomContainer>> getParents(ScaffoldNodeBase<IAtomContainer> aScaffoldNode) {
+        List<ScaffoldNodeBase<IAtomContainer>> tmpParents = new ArrayList<>(2);
+        if (aScaffoldNode instanceof TreeNode) {
+            TreeNode<IAtomContainer> tmpParent = ((TreeNode<IAtomContainer>) aScaffoldNode).getParent();
+            if (!Objects.isNull(tmpParent)) {
+                tmpParents.add(tmpParent);
+            }
+        } else if (aScaffoldNode instanceof NetworkNode) {
+            tmpParents.addAll(((NetworkNode<IAtomContainer>) aScaffoldNode).getParents());
+        }
+        return tmpParents;
+    }
+    //
+    /**
+     * Breadth-first traversal from the given seeds in one direction, adding the discovered nodes to the given map.
+     *
+     * @param aSeedNodes start nodes
+     * @param aMaxDepth number of levels to traverse
+     * @param isUpwards traverses to the parents if true, to the children otherwise
+     * @param aNodeIndexMap receives the discovered nodes with consecutive indices
+     */
+    private static void collectNeighbourhood(Collection<ScaffoldNodeBase<IAtomContainer>> aSeedNodes,
+                                             int aMaxDepth,
+                                             boolean isUpwards,
+                                             Map<ScaffoldNodeBase<IAtomContainer>, Integer> aNodeIndexMap)
+    {
+        Set<ScaffoldNodeBase<IAtomContainer>> tmpVisited = new LinkedHashSet<>(aSeedNodes);
+        List<ScaffoldNodeBase<IAtomContainer>> tmpCurrentLevel = new ArrayList<>(tmpVisited);
+        for (int tmpDepth = 0; tmpDepth < aMaxDepth && !tmpCurrentLevel.isEmpty(); tmpDepth++) {
+            List<ScaffoldNodeBase<IAtomContainer>> tmpNextLevel = new ArrayList<>();
+            for (ScaffoldNodeBase<IAtomContainer> tmpNode : tmpCurrentLevel) {
+                List<ScaffoldNodeBase<IAtomContainer>> tmpNeighbours = isUpwards ? GraphStreamUtility.getParents(tmpNode) : tmpNode.getChildren();
+                for (ScaffoldNodeBase<IAtomContainer> tmpNeighbour : tmpNeighbours) {
+                    if (tmpVisited.add(tmpNeighbour)) {
+                        tmpNextLevel.add(tmpNeighbour);
+                        aNodeIndexMap.putIfAbsent(tmpNeighbour, aNodeIndexMap.size());
+                    }
+                }
+            }
+            tmpCurrentLevel = tmpNextLevel;
+        }
+    }
+    //
+    /**
+     * Checks that the given graph is empty and sets the style sheet and rendering attributes on it. The rule for the
+     * {@link #STRUCTURE_NODE_CLASS} style class is put in front of the given style sheet.
+     *
+     * @param aStyleSheet style sheet property for the graph
+     * @param aGraph empty graph
+     * @throws IllegalArgumentException if the style sheet is blank or the graph is not empty
+     */
+    static void prepareGraph(String aStyleSheet, Graph aGraph) throws IllegalArgumentException {
         if (aStyleSheet.isBlank()) {
             throw new IllegalArgumentException("Given style sheet is blank.");
         }
         if (aGraph.getNodeCount() != 0 || aGraph.getEdgeCount() != 0) {
             throw new IllegalArgumentException("Given Graph instance should be empty! " +
-                    "If you want to merge multiple scaffold collections, use the respective methods on the cdk-scaffold level.");
+                    "If you want to merge multiple scaffold collections, use the respective methods on the cdk-scaffold level " +
+                    "or render multiple scaffold trees side by side using ScaffoldGraphForest.");
         }
-        aGraph.setAttribute("ui.stylesheet", aStyleSheet);
+        aGraph.setAttribute("ui.stylesheet", GraphStreamUtility.STRUCTURE_IMAGE_STYLE_RULE.strip() + " " + aStyleSheet);
         aGraph.setAttribute("ui.quality");
         aGraph.setAttribute("ui.antialias");
         if (!GraphStreamUtility.tempFolder.exists()) {
             GraphStreamUtility.tempFolder.mkdirs();
         }
-        Integer[][] tmpMatrix = aScaffoldNodeCollection.getMatrix();
+    }
+    //
+    /**
+     * Adds a graph node for every node of the given scaffold graph, with its matrix index as ID, and the edges
+     * between them, without structure images. The edges are taken from the parent and child references of the
+     * nodes, not from the adjacency matrix, which needs quadratic memory.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) to parse
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param areAttributesCompact stores the collection indices instead of the scaffold nodes on the graph nodes if true
+     * @param aGraph empty graph to add the nodes and edges to
+     * @return molecules of the scaffold nodes by graph node index
+     */
+    private static List<IAtomContainer> addSkeleton(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                    boolean areNodesLabelled,
+                                                    boolean areAttributesCompact,
+                                                    Graph aGraph)
+    {
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(aScaffoldNodeCollection);
+        int tmpNodeCount = tmpIndexMap.size();
+        //collected here to hand the molecules to the pipeline without querying the collection again
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(tmpNodeCount);
         //used as edge index
         int tmpEdgeCount = 0;
-        //for each matrix row, representing the matrix nodes
-        for (int tmpRowIndex = 0; tmpRowIndex < tmpMatrix.length; tmpRowIndex++) {
-            ScaffoldNodeBase<IAtomContainer> tmpCollectionLevelNode =  aScaffoldNodeCollection.getMatrixNode(tmpRowIndex);
+        //reused for the neighbour indices of every node
+        int[] tmpNeighbourIndices = new int[8];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpCollectionLevelNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
             //each node is assigned its matrix index as id
-            aGraph.addNode(String.valueOf(tmpRowIndex));
-            Node tmpNode = aGraph.getNode(String.valueOf(tmpRowIndex));
+            Node tmpNode = GraphStreamUtility.addScaffoldNode(aGraph, tmpIndex, tmpCollectionLevelNode, tmpIndex,
+                    areNodesLabelled, areAttributesCompact);
+            tmpMolecules.add(tmpCollectionLevelNode.getMolecule());
+            /*Add edges to the parents and children added before, in the order of the lower half of the adjacency
+            matrix without creating it*/
+            List<ScaffoldNodeBase<IAtomContainer>> tmpParents = GraphStreamUtility.getParents(tmpCollectionLevelNode);
+            List<ScaffoldNodeBase<IAtomContainer>> tmpChildren = tmpCollectionLevelNode.getChildren();
+            int tmpNeighbourCount = 0;
+            if (tmpNeighbourIndices.length < tmpParents.size() + tmpChildren.size()) {
+                tmpNeighbourIndices = new int[tmpParents.size() + tmpChildren.size()];
+            }
+            for (List<ScaffoldNodeBase<IAtomContainer>> tmpNeighbours : List.of(tmpParents, tmpChildren)) {
+                for (ScaffoldNodeBase<IAtomContainer> tmpNeighbour : tmpNeighbours) {
+                    int tmpNeighbourIndex = tmpIndexMap.get(tmpNeighbour);
+                    if (tmpNeighbourIndex < tmpIndex) {
+                        tmpNeighbourIndices[tmpNeighbourCount++] = tmpNeighbourIndex;
+                    }
+                }
+            }
+            Arrays.sort(tmpNeighbourIndices, 0, tmpNeighbourCount);
+            for (int tmpNeighbourPosition = 0; tmpNeighbourPosition < tmpNeighbourCount; tmpNeighbourPosition++) {
+                aGraph.addEdge(String.valueOf(tmpEdgeCount), tmpNode, aGraph.getNode(tmpNeighbourIndices[tmpNeighbourPosition]));
+                tmpEdgeCount++;
+            }
+        }
+        return tmpMolecules;
+    }
+    //
+    /**
+     * Computes a layout of the given scaffold graph with the nodes in rows by scaffold level, the level 0 row on top.
+     * Within a row, the nodes are placed in order of their matrix index at unit distance and the row is centred
+     * horizontally. Unlike the GraphStream auto-layout, this takes linear time and needs no iterations.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network
+     * @return x and y coordinate of every node in GraphStream graph units, by matrix index
+     */
+    static double[][] computeLevelLayout(ScaffoldNodeCollectionBase aScaffoldNodeCollection) {
+        //the node count, without creating the adjacency matrix
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        int[] tmpLevels = new int[tmpNodeCount];
+        int[] tmpRowSizes = new int[aScaffoldNodeCollection.getMaxLevel() + 1];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpLevels[tmpIndex] = aScaffoldNodeCollection.getMatrixNode(tmpIndex).getLevel();
+            tmpRowSizes[tmpLevels[tmpIndex]]++;
+        }
+        int[] tmpRowPositions = new int[tmpRowSizes.length];
+        double[][] tmpPositions = new double[tmpNodeCount][2];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            int tmpLevel = tmpLevels[tmpIndex];
+            tmpPositions[tmpIndex][0] = tmpRowPositions[tmpLevel] - (tmpRowSizes[tmpLevel] - 1) / 2.0;
+            //the y axis of GraphStream points upwards
+            tmpPositions[tmpIndex][1] = -tmpLevel;
+            tmpRowPositions[tmpLevel]++;
+        }
+        return tmpPositions;
+    }
+    //
+    /**
+     * Adds a graph node for the given scaffold node with the given index as ID, stores the scaffold node (or, with
+     * compact node attributes, its index in the collection) on it, and labels it if requested.
+     *
+     * @param aGraph graph to add the node to
+     * @param anIndex index of the node, used as ID and in the label
+     * @param aScaffoldNode scaffold tree or network node represented by the graph node
+     * @param aCollectionIndex index of the scaffold node in its collection, only used with compact node attributes
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param areAttributesCompact stores the collection index instead of the scaffold node if true, see
+     *                             {@link NodeDepictionPipeline#setNodeAttributesCompact(boolean)}
+     * @return the added graph node
+     */
+    static Node addScaffoldNode(Graph aGraph,
+                                int anIndex,
+                                ScaffoldNodeBase<IAtomContainer> aScaffoldNode,
+                                int aCollectionIndex,
+                                boolean areNodesLabelled,
+                                boolean areAttributesCompact)
+    {
+        Node tmpNode = aGraph.addNode(String.valueOf(anIndex));
+        if (areAttributesCompact) {
+            //a boxed index instead of the live instance, so that the molecule does not stay reachable through the graph
+            tmpNode.setAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_INDEX, aCollectionIndex);
+        } else {
             //the respective ScaffoldNodeBase instance of the tree or network node is stored on the respective graph node as attribute
-            tmpNode.setAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE, tmpCollectionLevelNode);
-            //Add a label to each node that corresponds to the level in the collection and its index in the matrix if true
-            if (areNodesLabelled) {
-                String tmpLabel = "Level: " + tmpCollectionLevelNode.getLevel() + "; Index: " + tmpRowIndex;
-                tmpNode.setAttribute("ui.label", tmpLabel);
-            }
-            /*Add the structure image*/
-            IAtomContainer tmpCollectionNodeMolecule = tmpCollectionLevelNode.getMolecule();
-            try {
-                BufferedImage tmpNodeImg = aCDKDepictionGenerator.depict(tmpCollectionNodeMolecule).toImg();
-                /*The images need to be stored temporarily but are deleted on JRE exit*/
-                File tmpTemporaryImageFile = File.createTempFile("GraphStream", ".png", GraphStreamUtility.tempFolder);
-                ImageIO.write(tmpNodeImg, "png", tmpTemporaryImageFile);
-                //set the images
-                //alternative fill-mode: image-scaled-ratio-max
-                tmpNode.setAttribute("ui.style", "fill-mode: image-scaled;" + "fill-image: url('" + tmpTemporaryImageFile.getAbsolutePath() + "');");
-                tmpTemporaryImageFile.deleteOnExit();
-            } catch (CDKException aCDKException) {
+            tmpNode.setAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE, aScaffoldNode);
+        }
+        //Add a label to each node that corresponds to the level in the collection and its index in the matrix if true
+        if (areNodesLabelled) {
+            String tmpLabel = "Level: " + aScaffoldNode.getLevel() + "; Index: " + anIndex;
+            tmpNode.setAttribute("ui.label", tmpLabel);
+        }
+        return tmpNode;
+    }
+    //
+    /**
+     * Depicts the given molecules with the given pipeline and sets the images on the graph nodes with the same indices.
+     * The graph is modified while holding its monitor, so that other threads synchronising on the graph (like the
+     * interaction listener of the progressive display) can modify it concurrently.
+     *
+     * @param aGraph graph whose nodes are styled
+     * @param aMolecules molecules by graph node index
+     * @param aPipeline pipeline used for generating the structure images
+     * @param areAttributesCompact stores the image IDs on the nodes if true
+     * @throws IOException if image files cannot be written
+     */
+    private static void addStructureImages(Graph aGraph,
+                                           List<IAtomContainer> aMolecules,
+                                           NodeDepictionPipeline aPipeline,
+                                           boolean areAttributesCompact)
+            throws IOException
+    {
+        int[] tmpNodeIndices = new int[aMolecules.size()];
+        Arrays.setAll(tmpNodeIndices, anIndex -> anIndex);
+        GraphStreamUtility.addStructureImages(aGraph, tmpNodeIndices, aMolecules, aPipeline, areAttributesCompact);
+    }
+    //
+    /**
+     * Depicts the given molecules with the given pipeline and sets the images on the graph nodes with the given
+     * indices, e.g. only on the nodes of a graph whose images cannot be reused. Every styled node gets the
+     * {@link #STRUCTURE_NODE_CLASS} style class and a "ui.style" holding only the image reference. With an adaptive
+     * depiction sizer, the nodes additionally get node size style classes whose rules are appended to the style
+     * sheet once all images are set (see {@link #addNodeSizeStyleRules(Graph)}). The graph is modified while
+     * holding its monitor.
+     *
+     * @param aGraph graph whose nodes are styled
+     * @param aNodeIndices graph node index for every molecule
+     * @param aMolecules molecules to depict
+     * @param aPipeline pipeline used for generating the structure images
+     * @param areAttributesCompact stores the image IDs on the nodes if true
+     * @throws IOException if image files cannot be written
+     */
+    static void addStructureImages(Graph aGraph,
+                                   int[] aNodeIndices,
+                                   List<IAtomContainer> aMolecules,
+                                   NodeDepictionPipeline aPipeline,
+                                   boolean areAttributesCompact)
+            throws IOException
+    {
+        /*Add the structure images*/
+        AdaptiveDepictionSizer tmpSizer = aPipeline.getAdaptiveDepictionSizer();
+        aPipeline.depictNodes(aMolecules.size(), aMolecules::get, GraphStreamUtility.tempFolder, aResult -> {
+            if (Objects.isNull(aResult.getImageFile())) {
                 Logger.getLogger(GraphStreamUtility.class.getName()).log(Level.WARNING,
-                        "Unable to depict structure at index " + tmpRowIndex + ". Displaying empty node.");
+                        "Unable to depict structure at index " + aNodeIndices[aResult.getIndex()] + ". Displaying empty node.");
+                return;
             }
-            /*Add edges*/
-            for (int tmpColumnIndex = 0; tmpColumnIndex < tmpMatrix[tmpRowIndex].length; tmpColumnIndex++) {
-                //Skip a diagonal half to get edges in one direction only.
-                if (tmpRowIndex < tmpColumnIndex) {
-                    continue;
+            //set the images
+            //alternative fill-mode: image-scaled-ratio-max
+            String tmpStyle = "fill-image: url('" + aResult.getImageFile().getAbsolutePath() + "');";
+            synchronized (aGraph) {
+                Node tmpNode = aGraph.getNode(aNodeIndices[aResult.getIndex()]);
+                //the fill mode comes from the shared style class
+                GraphStreamUtility.addNodeStyleClass(tmpNode, GraphStreamUtility.STRUCTURE_NODE_CLASS);
+                if (!Objects.isNull(tmpSizer)) {
+                    //scale the node with its adaptively sized depiction
+                    GraphStreamUtility.addNodeStyleClass(tmpNode,
+                            tmpSizer.getNodeSizeClass(aResult.getImageWidth(), aResult.getImageHeight()));
                 }
-                //Insert an edge if there is 1 in the respective matrix cell
-                if (tmpMatrix[tmpRowIndex][tmpColumnIndex].equals(1)) {
-                    aGraph.addEdge(String.valueOf(tmpEdgeCount), tmpRowIndex, tmpColumnIndex);
-                    tmpEdgeCount++;
+                if (areAttributesCompact) {
+                    tmpNode.setAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_IMAGE_ID, aResult.getImageId());
                 }
+                tmpNode.setAttribute("ui.style", tmpStyle);
             }
+        });
+        if (!Objects.isNull(tmpSizer)) {
+            GraphStreamUtility.addNodeSizeStyleRules(aGraph);
+        }
+    }
+    //
+    /**
+     * Appends the style rules of all node size style classes (see
+     * {@link AdaptiveDepictionSizer#getNodeSizeClass(int, int)}) used by the nodes of the given graph to its style
+     * sheet, if not defined there yet. All rules are appended with a single attribute change, so that the style
+     * sheet is parsed only once more.
+     *
+     * @param aGraph graph whose nodes may have node size style classes
+     */
+    static void addNodeSizeStyleRules(Graph aGraph) {
+        synchronized (aGraph) {
+            Object tmpStyleSheet = aGraph.getAttribute("ui.stylesheet");
+            String tmpCurrentStyleSheet = tmpStyleSheet instanceof String ? (String) tmpStyleSheet : "";
+            Set<String> tmpSizeClasses = new LinkedHashSet<>();
+            for (Node tmpNode : aGraph) {
+                for (String tmpStyleClass : GraphStreamUtility.getNodeStyleClasses(tmpNode)) {
+                    if (tmpStyleClass.startsWith(AdaptiveDepictionSizer.NODE_SIZE_CLASS_PREFIX)) {
+                        tmpSizeClasses.add(tmpStyleClass);
+                    }
+                }
+            }
+            StringBuilder tmpRules = new StringBuilder();
+            for (String tmpSizeClass : tmpSizeClasses) {
+                String tmpRule = AdaptiveDepictionSizer.getNodeSizeStyleRule(tmpSizeClass);
+                if (!Objects.isNull(tmpRule) && !tmpCurrentStyleSheet.contains("node." + tmpSizeClass + " ")) {
+                    tmpRules.append(' ').append(tmpRule);
+                }
+            }
+            if (tmpRules.length() > 0) {
+                aGraph.setAttribute("ui.stylesheet", tmpCurrentStyleSheet + tmpRules);
+            }
+        }
+    }
+    //
+    /**
+     * Returns the cdk-scaffold node represented by the given graph node, both for graphs created with and without
+     * compact node attributes.
+     *
+     * @param aNode graph node created by one of the graph generation methods
+     * @param aScaffoldNodeCollection scaffold tree or network the graph was created from
+     * @return represented scaffold node or null if the node carries neither the instance nor its index
+     * @throws NullPointerException if any parameter is null
+     */
+    public static ScaffoldNodeBase<IAtomContainer> getScaffoldNode(Node aNode, ScaffoldNodeCollectionBase aScaffoldNodeCollection)
+            throws NullPointerException
+    {
+        Objects.requireNonNull(aNode, "Given node is null.");
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Object tmpInstance = aNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE);
+        if (tmpInstance instanceof ScaffoldNodeBase) {
+            return (ScaffoldNodeBase<IAtomContainer>) tmpInstance;
+        }
+        Object tmpIndex = aNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_INDEX);
+        if (tmpIndex instanceof Integer) {
+            return aScaffoldNodeCollection.getMatrixNode((Integer) tmpIndex);
+        }
+        return null;
+    }
+    //
+    /**
+     * Maps every node of the given collection to its index, as used by ScaffoldNodeCollectionBase.getMatrixNode(int),
+     * without creating the adjacency matrix.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network
+     * @return map of the nodes to their indices
+     */
+    static Map<ScaffoldNodeBase<IAtomContainer>, Integer> getCollectionIndexMap(ScaffoldNodeCollectionBase aScaffoldNodeCollection) {
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = new IdentityHashMap<>(tmpNodeCount);
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpIndexMap.put(aScaffoldNodeCollection.getMatrixNode(tmpIndex), tmpIndex);
+        }
+        return tmpIndexMap;
+    }
+    //
+    /**
+     * Maps the given nodes of the given collection to their indices, as used by
+     * ScaffoldNodeCollectionBase.getMatrixNode(int), without resolving the other nodes of the collection. The
+     * indices are looked up via the node numbers of the collection.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network
+     * @param aScaffoldNodes nodes of the collection
+     * @return map of the given nodes to their indices
+     */
+    static Map<ScaffoldNodeBase<IAtomContainer>, Integer> getCollectionIndexMap(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                                                Collection<ScaffoldNodeBase<IAtomContainer>> aScaffoldNodes)
+    {
+        Map<ScaffoldNodeBase, Integer> tmpNodeNumberMap = aScaffoldNodeCollection.getReverseNodeMap();
+        Map<Integer, ScaffoldNodeBase<IAtomContainer>> tmpNodesByNumber = new HashMap<>(aScaffoldNodes.size() * 2);
+        for (ScaffoldNodeBase<IAtomContainer> tmpNode : aScaffoldNodes) {
+            tmpNodesByNumber.put(tmpNodeNumberMap.get(tmpNode), tmpNode);
+        }
+        //the matrix index of a node is the position of its node number
+        List<Integer> tmpMatrixNodeNumbers = aScaffoldNodeCollection.getMatrixNodesNumbers();
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = new IdentityHashMap<>(aScaffoldNodes.size());
+        for (int tmpIndex = 0; tmpIndex < tmpMatrixNodeNumbers.size() && tmpIndexMap.size() < tmpNodesByNumber.size(); tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = tmpNodesByNumber.get(tmpMatrixNodeNumbers.get(tmpIndex));
+            if (!Objects.isNull(tmpNode)) {
+                tmpIndexMap.put(tmpNode, tmpIndex);
+            }
+        }
+        return tmpIndexMap;
+    }
+    //
+    /**
+     * Returns the structure image file displayed on the given node, as set by the graph generation methods.
+     *
+     * @param aNode graph node
+     * @return image file or null if the node does not display a structure image
+     */
+    static File getNodeImageFile(Node aNode) {
+        Object tmpStyle = aNode.getAttribute("ui.style");
+        if (!(tmpStyle instanceof String)) {
+            return null;
+        }
+        Matcher tmpMatcher = GraphStreamUtility.FILL_IMAGE_URL_PATTERN.matcher((String) tmpStyle);
+        return tmpMatcher.find() ? new File(tmpMatcher.group(1)) : null;
+    }
+    //
+    /**
+     * Lets the given target node display the structure image of the given source node, e.g. of another graph
+     * created from a scaffold collection containing the same scaffold. The image file is shared, not copied.
+     *
+     * @param aSourceNode graph node displaying a structure image, created by one of the graph generation methods
+     * @param aTargetNode graph node to display the same image
+     */
+    static void copyStructureImage(Node aSourceNode, Node aTargetNode) {
+        aTargetNode.setAttribute("ui.style", aSourceNode.getAttribute("ui.style"));
+        for (String tmpStyleClass : GraphStreamUtility.getNodeStyleClasses(aSourceNode)) {
+            if (tmpStyleClass.equals(GraphStreamUtility.STRUCTURE_NODE_CLASS)
+                    || !Objects.isNull(AdaptiveDepictionSizer.getNodeSizeStyleRule(tmpStyleClass))) {
+                GraphStreamUtility.addNodeStyleClass(aTargetNode, tmpStyleClass);
+            }
+        }
+        if (aSourceNode.hasAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_IMAGE_ID)) {
+            aTargetNode.setAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_IMAGE_ID,
+                    aSourceNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_IMAGE_ID));
+        }
+    }
+    //
+    /**
+     * Deletes the structure image files displayed on the nodes of the given graph, e.g. after a screenshot was
+     * taken, instead of keeping them until JRE exit.
+     *
+     * @param aGraph graph whose node images are deleted
+     * @throws IOException if an image file cannot be deleted
+     */
+    static void deleteNodeImageFiles(Graph aGraph) throws IOException {
+        for (int tmpNodeIndex = 0; tmpNodeIndex < aGraph.getNodeCount(); tmpNodeIndex++) {
+            File tmpImageFile = GraphStreamUtility.getNodeImageFile(aGraph.getNode(tmpNodeIndex));
+            if (!Objects.isNull(tmpImageFile)) {
+                Files.deleteIfExists(tmpImageFile.toPath());
+            }
+        }
+    }
+    //
+    /**
+     * Adds the given GraphStream style class to the "ui.class" attribute of the given node, keeping the classes it
+     * already has.
+     *
+     * @param aNode graph node
+     * @param aStyleClass name of the style class, as used in the style sheet
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the given class name is blank or contains a comma
+     */
+    public static void addNodeStyleClass(Node aNode, String aStyleClass) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aNode, "Given node is null.");
+        GraphStreamUtility.checkStyleClass(aStyleClass);
+        List<String> tmpClasses = GraphStreamUtility.getNodeStyleClasses(aNode);
+        if (!tmpClasses.contains(aStyleClass)) {
+            tmpClasses.add(aStyleClass);
+            aNode.setAttribute("ui.class", String.join(", ", tmpClasses));
+        }
+    }
+    //
+    /**
+     * Removes the given GraphStream style class from the "ui.class" attribute of the given node, keeping its other classes.
+     *
+     * @param aNode graph node
+     * @param aStyleClass name of the style class, as used in the style sheet
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the given class name is blank or contains a comma
+     */
+    public static void removeNodeStyleClass(Node aNode, String aStyleClass) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aNode, "Given node is null.");
+        GraphStreamUtility.checkStyleClass(aStyleClass);
+        List<String> tmpClasses = GraphStreamUtility.getNodeStyleClasses(aNode);
+        if (tmpClasses.remove(aStyleClass)) {
+            if (tmpClasses.isEmpty()) {
+                aNode.removeAttribute("ui.class");
+            } else {
+                aNode.setAttribute("ui.class", String.join(", ", tmpClasses));
+            }
+        }
+    }
+    //
+    /**
+     * Returns the GraphStream style classes of the given node, parsed from its comma-separated "ui.class" attribute.
+     *
+     * @param aNode graph node
+     * @return modifiable list of class names, empty if the node has none
+     */
+    private static List<String> getNodeStyleClasses(Node aNode) {
+        List<String> tmpClasses = new ArrayList<>(2);
+        Object tmpClassAttribute = aNode.getAttribute("ui.class");
+        if (Objects.isNull(tmpClassAttribute)) {
+            return tmpClasses;
+        }
+        for (String tmpClass : tmpClassAttribute.toString().split(",")) {
+            if (!tmpClass.isBlank()) {
+                tmpClasses.add(tmpClass.trim());
+            }
+        }
+        return tmpClasses;
+    }
+    //
+    /**
+     * Checks the given GraphStream style class name.
+     *
+     * @param aStyleClass name of the style class
+     * @throws NullPointerException if the given class name is null
+     * @throws IllegalArgumentException if the given class name is blank or contains a comma
+     */
+    private static void checkStyleClass(String aStyleClass) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aStyleClass, "Given style class is null.");
+        if (aStyleClass.isBlank() || aStyleClass.contains(",")) {
+            throw new IllegalArgumentException("Given style class is blank or contains a comma.");
         }
-        return aGraph;
     }
     //
     /**
@@ -567,9 +1387,7 @@ public class GraphStreamUtility {
         } catch (SecurityException aSecurityException) {
             throw new IllegalArgumentException("Given file path " + aFilePath +" is protected by a security manager.");
         }
-        if (Objects.isNull(System.getProperty("org.graphStream.ui"))) {
-            System.setProperty("org.graphstream.ui", GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI);
-        }
+        GraphStreamUtility.selectDefaultUiIfUnset();
         aGraph.setAttribute("ui.screenshot", aFilePath);
     }
     //
@@ -633,9 +1451,183 @@ public class GraphStreamUtility {
         } catch (SecurityException aSecurityException) {
             throw new IllegalArgumentException("Given file path " + aFilePath +" is protected by a security manager.");
         }
-        if (Objects.isNull(System.getProperty("org.graphStream.ui"))) {
+        GraphStreamUtility.selectDefaultUiIfUnset();
+        aFileSinkImages.writeAll(aGraph, aFilePath);
+    }
+    //
+    /**
+     * Sets the "org.graphstream.ui" system property to {@link #DEFAULT_GRAPHSTREAM_UI} if it is unset. Called right
+     * before a viewer or renderer is needed instead of when this class is loaded, so that generating graphs without
+     * displaying them does not depend on the UI backends.
+     */
+    private static void selectDefaultUiIfUnset() {
+        if (Objects.isNull(System.getProperty("org.graphstream.ui"))) {
             System.setProperty("org.graphstream.ui", GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI);
         }
-        aFileSinkImages.writeAll(aGraph, aFilePath);
+    }
+    //
+    /**
+     * Sinks detached from a graph while it is filled in bulk, so that no events are sent for every single change.
+     * When reattached, the sinks receive the complete graph at once by a replay of its current state.
+     */
+    private static final class SuspendedSinks {
+        /**
+         * Detached attribute sinks.
+         */
+        private final List<AttributeSink> attributeSinks;
+        //
+        /**
+         * Detached element sinks.
+         */
+        private final List<ElementSink> elementSinks;
+        //
+        /**
+         * Constructor.
+         *
+         * @param anAttributeSinks detached attribute sinks
+         * @param anElementSinks detached element sinks
+         */
+        private SuspendedSinks(List<AttributeSink> anAttributeSinks, List<ElementSink> anElementSinks) {
+            this.attributeSinks = anAttributeSinks;
+            this.elementSinks = anElementSinks;
+        }
+        //
+        /**
+         * Detaches all sinks from the given graph.
+         *
+         * @param aGraph graph to be filled
+         * @return detached sinks
+         */
+        static SuspendedSinks detach(Graph aGraph) {
+            List<AttributeSink> tmpAttributeSinks = new ArrayList<>(2);
+            aGraph.attributeSinks().forEach(tmpAttributeSinks::add);
+            List<ElementSink> tmpElementSinks = new ArrayList<>(2);
+            aGraph.elementSinks().forEach(tmpElementSinks::add);
+            aGraph.clearSinks();
+            return new SuspendedSinks(tmpAttributeSinks, tmpElementSinks);
+        }
+        //
+        /**
+         * Replays the current state of the given graph to the detached sinks and attaches them to the graph again.
+         *
+         * @param aGraph graph the sinks were detached from
+         */
+        void reattachAndReplay(Graph aGraph) {
+            if (this.attributeSinks.isEmpty() && this.elementSinks.isEmpty()) {
+                return;
+            }
+            GraphReplay tmpReplay = new GraphReplay(aGraph.getId());
+            this.attributeSinks.forEach(tmpReplay::addAttributeSink);
+            this.elementSinks.forEach(tmpReplay::addElementSink);
+            synchronized (aGraph) {
+                tmpReplay.replay(aGraph);
+                this.attributeSinks.forEach(aGraph::addAttributeSink);
+                this.elementSinks.forEach(aGraph::addElementSink);
+            }
+        }
+    }
+    //
+    /**
+     * Switches a progressively displayed graph to simplified rendering while the user pans or zooms in its view and
+     * back to full quality when no interaction happened for {@link #INTERACTION_IDLE_MILLIS} milliseconds. Both
+     * switches re-apply the style sheet with a rule for the {@link #STRUCTURE_NODE_CLASS} appended, so that a single
+     * attribute change restyles all nodes. The graph is modified while holding its monitor, since the structure
+     * images are set concurrently. All methods are called on the Swing event dispatch thread.
+     */
+    private static class SimplifiedRenderingController extends MouseAdapter implements KeyListener, ActionListener {
+        /**
+         * Displayed graph.
+         */
+        private final Graph graph;
+        //
+        /**
+         * Style sheet of the displayed graph, including the rule showing the structure images.
+         */
+        private final String styleSheet;
+        //
+        /**
+         * Restarted on every interaction, switches back to full quality when it fires.
+         */
+        private final Timer idleTimer;
+        //
+        /**
+         * Whether the graph is currently rendered in simplified form.
+         */
+        private boolean isSimplified;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aGraph displayed graph
+         * @param aStyleSheet style sheet of the displayed graph, including the rule showing the structure images
+         */
+        SimplifiedRenderingController(Graph aGraph, String aStyleSheet) {
+            this.graph = aGraph;
+            this.styleSheet = aStyleSheet;
+            this.idleTimer = new Timer(GraphStreamUtility.INTERACTION_IDLE_MILLIS, this);
+            this.idleTimer.setRepeats(false);
+            this.isSimplified = false;
+        }
+        //
+        /**
+         * Switches to simplified rendering, if not done yet, and restarts the idle timer.
+         */
+        private void interact() {
+            if (!this.isSimplified) {
+                this.isSimplified = true;
+                synchronized (this.graph) {
+                    this.graph.removeAttribute("ui.quality");
+                    this.graph.removeAttribute("ui.antialias");
+                    this.graph.setAttribute("ui.stylesheet", this.styleSheet + GraphStreamUtility.SIMPLIFIED_STRUCTURE_STYLE_RULE);
+                }
+            }
+            this.idleTimer.restart();
+        }
+        //
+        /**
+         * Switches back to full quality rendering, called by the idle timer.
+         *
+         * @param anActionEvent timer event
+         */
+        @Override
+        public void actionPerformed(ActionEvent anActionEvent) {
+            this.isSimplified = false;
+            synchronized (this.graph) {
+                //appending the rule again overrides the one of the simplified rendering
+                this.graph.setAttribute("ui.stylesheet", this.styleSheet + GraphStreamUtility.STRUCTURE_IMAGE_STYLE_RULE);
+                this.graph.setAttribute("ui.quality");
+                this.graph.setAttribute("ui.antialias");
+            }
+        }
+        //
+        @Override
+        public void mousePressed(MouseEvent aMouseEvent) {
+            this.interact();
+        }
+        //
+        @Override
+        public void mouseDragged(MouseEvent aMouseEvent) {
+            this.interact();
+        }
+        //
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent aMouseWheelEvent) {
+            this.interact();
+        }
+        //
+        @Override
+        public void keyPressed(KeyEvent aKeyEvent) {
+            this.interact();
+        }
+        //
+        @Override
+        public void keyTyped(KeyEvent aKeyEvent) {
+            //not an interaction with the view
+        }
+        //
+        @Override
+        public void keyReleased(KeyEvent aKeyEvent) {
+            //not an interaction with the view
+        }
     }
 }
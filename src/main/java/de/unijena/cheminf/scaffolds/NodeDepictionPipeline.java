@@ -0,0 +1,791 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.openscience.cdk.depict.DepictionGenerator;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Staged pipeline that creates the structure images of scaffold graph nodes. Every node passes three stages,
+ * each running on its own thread pool: CPU-bound depiction of the molecule, CPU-bound encoding of the image
+ * (PNG by default, see {@link NodeImageEncoder}), and blocking writing of the encoded bytes into a temporary file. The stages are connected by bounded
+ * queues and the number of nodes in flight is limited by the pipeline capacity, so that the caller blocks
+ * (backpressure) instead of accumulating images on the heap when one stage is slower than the others.
+ * Optionally, a {@link DepictionMemoryBudget} additionally limits the estimated bytes of the images in flight.
+ * <br>The given CDK depiction generator is shared between the depiction threads. Since CDK depiction generators
+ * are immutable, this is safe, but the depicted molecules must not be shared between nodes.
+ * <br>NOTE: The pipeline holds thread pools that should be released by calling {@link #close()} (or using
+ * try-with-resources) when the pipeline is not needed anymore. The pool threads are daemon threads, i.e. they do
+ * not prevent the JVM from exiting.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class NodeDepictionPipeline implements AutoCloseable {
+    /**
+     * Default number of threads used for depicting the node structures, equal to the number of available processors.
+     */
+    public static final int DEFAULT_DEPICTION_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    //
+    /**
+     * Default number of threads used for encoding the node images, half the number of available processors (at least one).
+     */
+    public static final int DEFAULT_ENCODING_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    //
+    /**
+     * Default number of threads used for writing the encoded node images to file.
+     */
+    public static final int DEFAULT_IO_THREAD_COUNT = 4;
+    //
+    /**
+     * Default maximum number of nodes that are in flight in the pipeline at the same time, i.e. whose images are
+     * held in memory.
+     */
+    public static final int DEFAULT_CAPACITY = 2 * Runtime.getRuntime().availableProcessors();
+    //
+    /**
+     * CDK depiction generator used for generating the structure images.
+     */
+    private final DepictionGenerator depictionGenerator;
+    //
+    /**
+     * Maximum number of nodes in flight.
+     */
+    private final int capacity;
+    //
+    /**
+     * Permits limiting the nodes in flight, shared by all concurrent calls of
+     * {@link #depictNodes(int, IntFunction, File, Consumer)} so that the work queues of the stages never overflow.
+     */
+    private final Semaphore permits;
+    //
+    /**
+     * Prefix of the image file names, followed by the numeric image ID.
+     */
+    public static final String IMAGE_FILE_PREFIX = "GraphStream-node-";
+    //
+    /**
+     * Source of the numeric image IDs, shared by all pipelines.
+     */
+    private static final AtomicInteger IMAGE_ID_COUNTER = new AtomicInteger(0);
+    //
+    /**
+     * Thread pool of the depiction stage.
+     */
+    private final ExecutorService depictionExecutor;
+    //
+    /**
+     * Thread pool of the encoding stage.
+     */
+    private final ExecutorService encodingExecutor;
+    //
+    /**
+     * Thread pool of the file writing stage.
+     */
+    private final ExecutorService ioExecutor;
+    //
+    /**
+     * Adapts the depiction size to the molecules if not null, otherwise the size of the depiction generator is used.
+     */
+    private volatile AdaptiveDepictionSizer adaptiveDepictionSizer;
+    //
+    /**
+     * Encoder of the node images.
+     */
+    private volatile NodeImageEncoder imageEncoder;
+    //
+    /**
+     * Memory budget of the images in flight if not null, otherwise only the capacity limits them.
+     */
+    private volatile DepictionMemoryBudget memoryBudget;
+    //
+    /**
+     * Size of the depictions of the depiction generator, reserved in the memory budget before depicting if no
+     * adaptive depiction sizer is set.
+     */
+    private volatile Dimension depictionSize;
+    //
+    /**
+     * Registers the written image files for deletion on JRE exit if true (default).
+     */
+    private volatile boolean isDeleteOnExit;
+    //
+    /**
+     * Whether the graph nodes created with this pipeline get compact attributes, see
+     * {@link #setNodeAttributesCompact(boolean)}.
+     */
+    private volatile boolean areNodeAttributesCompact;
+    //
+    /**
+     * Encoding buffers that are passed back from the file writing stage to the encoding stage for reuse, at most
+     * one per node in flight.
+     */
+    private final BlockingQueue<ByteArrayOutputStream> encodingBufferPool;
+    //
+    /**
+     * Constructor that uses the default thread counts and capacity.
+     *
+     * @param aDepictionGenerator CDK depiction generator used for generating the structure images
+     * @throws NullPointerException if the given depiction generator is null
+     */
+    public NodeDepictionPipeline(DepictionGenerator aDepictionGenerator) throws NullPointerException {
+        this(aDepictionGenerator,
+                NodeDepictionPipeline.DEFAULT_DEPICTION_THREAD_COUNT,
+                NodeDepictionPipeline.DEFAULT_ENCODING_THREAD_COUNT,
+                NodeDepictionPipeline.DEFAULT_IO_THREAD_COUNT,
+                NodeDepictionPipeline.DEFAULT_CAPACITY);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param aDepictionGenerator CDK depiction generator used for generating the structure images
+     * @param aDepictionThreadCount number of threads depicting the structures, should be about the number of available processors
+     * @param anEncodingThreadCount number of threads encoding the images
+     * @param anIOThreadCount number of threads writing the image files
+     * @param aCapacity maximum number of nodes in flight at the same time, limits the number of images held in memory
+     * @throws NullPointerException if the given depiction generator is null
+     * @throws IllegalArgumentException if any of the numbers is smaller than one
+     */
+    public NodeDepictionPipeline(DepictionGenerator aDepictionGenerator,
+                                 int aDepictionThreadCount,
+                                 int anEncodingThreadCount,
+                                 int anIOThreadCount,
+                                 int aCapacity)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aDepictionGenerator, "Given depiction generator is null.");
+        if (aDepictionThreadCount < 1 || anEncodingThreadCount < 1 || anIOThreadCount < 1) {
+            throw new IllegalArgumentException("Thread counts must be at least one.");
+        }
+        if (aCapacity < 1) {
+            throw new IllegalArgumentException("Given capacity must be at least one.");
+        }
+        this.depictionGenerator = aDepictionGenerator;
+        this.capacity = aCapacity;
+        this.permits = new Semaphore(aCapacity);
+        this.imageEncoder = new NodeImageEncoder();
+        this.depictionSize = new Dimension(GraphStreamUtility.DEFAULT_DEPICTION_SIZE, GraphStreamUtility.DEFAULT_DEPICTION_SIZE);
+        this.isDeleteOnExit = true;
+        this.encodingBufferPool = new ArrayBlockingQueue<>(aCapacity);
+        this.depictionExecutor = NodeDepictionPipeline.createStageExecutor("depiction", aDepictionThreadCount, aCapacity);
+        this.encodingExecutor = NodeDepictionPipeline.createStageExecutor("encoding", anEncodingThreadCount, aCapacity);
+        this.ioExecutor = NodeDepictionPipeline.createStageExecutor("io", anIOThreadCount, aCapacity);
+    }
+    //
+    /**
+     * Returns the CDK depiction generator used for generating the structure images.
+     *
+     * @return depiction generator
+     */
+    public DepictionGenerator getDepictionGenerator() {
+        return this.depictionGenerator;
+    }
+    //
+    /**
+     * Returns the maximum number of nodes in flight at the same time.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+    //
+    /**
+     * Returns the sizer adapting the depiction size to the molecules, null if the fixed size of the depiction
+     * generator is used (default).
+     *
+     * @return adaptive depiction sizer or null
+     */
+    public AdaptiveDepictionSizer getAdaptiveDepictionSizer() {
+        return this.adaptiveDepictionSizer;
+    }
+    //
+    /**
+     * Sets the sizer adapting the depiction size to the molecules. If null, the fixed size of the depiction
+     * generator is used. Must not be called while nodes are being depicted.
+     *
+     * @param anAdaptiveDepictionSizer adaptive depiction sizer or null
+     */
+    public void setAdaptiveDepictionSizer(AdaptiveDepictionSizer anAdaptiveDepictionSizer) {
+        this.adaptiveDepictionSizer = anAdaptiveDepictionSizer;
+    }
+    //
+    /**
+     * Returns the encoder of the node images.
+     *
+     * @return image encoder
+     */
+    public NodeImageEncoder getImageEncoder() {
+        return this.imageEncoder;
+    }
+    //
+    /**
+     * Sets the encoder of the node images, e.g. {@link NodeImageEncoder#createFastEncoder()} for temporary images
+     * that are only displayed. Must not be called while nodes are being depicted.
+     *
+     * @param anImageEncoder image encoder
+     * @throws NullPointerException if the given encoder is null
+     */
+    public void setImageEncoder(NodeImageEncoder anImageEncoder) throws NullPointerException {
+        Objects.requireNonNull(anImageEncoder, "Given image encoder is null.");
+        this.imageEncoder = anImageEncoder;
+    }
+    //
+    /**
+     * Returns the memory budget of the images in flight, null if only the capacity limits them (default).
+     *
+     * @return memory budget or null
+     */
+    public DepictionMemoryBudget getMemoryBudget() {
+        return this.memoryBudget;
+    }
+    //
+    /**
+     * Sets the memory budget of the images in flight, which may be shared with other pipelines. A depiction
+     * thread waits before depicting a structure until its image fits into the budget. With an adaptive depiction
+     * sizer, the planned image size is known in advance and the image is scaled down when the budget is nearly
+     * used up; the results report the planned size then, so that the graph node keeps its size. Without one, the
+     * depiction size of the pipeline (see {@link #setDepictionSize(int, int)}) is reserved instead and the
+     * depiction is scaled down in the same way. The graph generation methods of
+     * {@link GraphStreamUtility} also account for the graph being built. If null, only the capacity limits the
+     * images in flight. Must not be called while nodes are being depicted.
+     *
+     * @param aMemoryBudget memory budget or null
+     */
+    public void setMemoryBudget(DepictionMemoryBudget aMemoryBudget) {
+        this.memoryBudget = aMemoryBudget;
+    }
+    //
+    /**
+     * Returns the size of the depictions of the depiction generator, reserved in the memory budget before depicting
+     * if no adaptive depiction sizer is set (default {@link GraphStreamUtility#DEFAULT_DEPICTION_SIZE} in both
+     * dimensions).
+     *
+     * @return depiction size in pixels
+     */
+    public Dimension getDepictionSize() {
+        return new Dimension(this.depictionSize);
+    }
+    //
+    /**
+     * Sets the size of the depictions of the depiction generator, i.e. the size given to its withSize(...) method.
+     * With a memory budget and without an adaptive depiction sizer, this size is reserved in the budget before a
+     * structure is depicted, so that the image is only allocated once it fits, and the depiction is scaled down
+     * when the budget is nearly used up. Must not be called while nodes are being depicted.
+     *
+     * @param aWidth width in pixels
+     * @param aHeight height in pixels
+     * @throws IllegalArgumentException if any of the numbers is smaller than one
+     */
+    public void setDepictionSize(int aWidth, int aHeight) throws IllegalArgumentException {
+        if (aWidth < 1 || aHeight < 1) {
+            throw new IllegalArgumentException("Given depiction size must be at least one pixel.");
+        }
+        this.depictionSize = new Dimension(aWidth, aHeight);
+    }
+    //
+    /**
+     * Returns whether the written image files are registered for deletion on JRE exit (default true).
+     *
+     * @return true if the image files are deleted on JRE exit
+     */
+    public boolean isDeleteOnExit() {
+        return this.isDeleteOnExit;
+    }
+    //
+    /**
+     * Sets whether the written image files are registered for deletion on JRE exit. Every registration is kept
+     * until the JRE exits, even if the file has been deleted before, so long-running callers that delete or move
+     * the images themselves should turn this off. Must not be called while nodes are being depicted.
+     *
+     * @param isDeleteOnExit true to delete the image files on JRE exit
+     */
+    public void setDeleteOnExit(boolean isDeleteOnExit) {
+        this.isDeleteOnExit = isDeleteOnExit;
+    }
+    //
+    /**
+     * Returns whether the graph nodes created with this pipeline get compact attributes (default false).
+     *
+     * @return true if node attributes are compact
+     */
+    public boolean areNodeAttributesCompact() {
+        return this.areNodeAttributesCompact;
+    }
+    //
+    /**
+     * Sets whether the graph nodes created with this pipeline by the graph generation methods get compact
+     * attributes, to save memory on large graphs. By default, every node references its ScaffoldNodeBase instance
+     * (and thereby keeps its molecule reachable for as long as the graph lives). With compact attributes, a node
+     * instead stores the index of its scaffold node in the collection (see
+     * {@link GraphStreamUtility#getScaffoldNode(org.graphstream.graph.Node, org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase)})
+     * and the numeric ID of its image. In both cases, the node style is given by the shared style class
+     * {@link GraphStreamUtility#STRUCTURE_NODE_CLASS} and "ui.style" only holds the image reference. The setting is
+     * read once per generated graph, so that a graph is never partly compact.
+     *
+     * @param areCompact true for compact node attributes
+     */
+    public void setNodeAttributesCompact(boolean areCompact) {
+        this.areNodeAttributesCompact = areCompact;
+    }
+    //
+    /**
+     * Depicts the given number of molecules and writes the encoded images into the given folder. The images
+     * are deleted on JRE exit unless turned off (see {@link #setDeleteOnExit(boolean)}). The molecules are requested from the given provider and the results are handed to
+     * the given consumer, both on the calling thread only, so that neither needs to be thread-safe (e.g. the
+     * consumer may set attributes on a GraphStream graph). The results are handed over in order of completion, not
+     * in order of index. A molecule that cannot be depicted is handed over as a result without image file.
+     * Concurrent calls share the capacity of the pipeline.
+     *
+     * @param aNodeCount number of molecules to depict, indices 0 to aNodeCount - 1 are requested from the provider
+     * @param aMoleculeProvider returns the molecule to depict for a given index
+     * @param aTargetFolder folder to write the image files into
+     * @param aResultConsumer receives the result for every index
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the given node count is negative
+     * @throws IOException if an image file cannot be written or the calling thread is interrupted
+     */
+    public void depictNodes(int aNodeCount,
+                            IntFunction<IAtomContainer> aMoleculeProvider,
+                            File aTargetFolder,
+                            Consumer<Result> aResultConsumer)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aMoleculeProvider, "Given molecule provider is null.");
+        Objects.requireNonNull(aTargetFolder, "Given target folder is null.");
+        Objects.requireNonNull(aResultConsumer, "Given result consumer is null.");
+        if (aNodeCount < 0) {
+            throw new IllegalArgumentException("Given node count is negative.");
+        }
+        Semaphore tmpPermits = this.permits;
+        //bounded by the number of permits, since a result is queued before its permit is released
+        BlockingQueue<Result> tmpCompletedQueue = new LinkedBlockingQueue<>();
+        AtomicReference<Throwable> tmpFirstFailure = new AtomicReference<>();
+        int tmpSubmittedCount = 0;
+        int tmpConsumedCount = 0;
+        try {
+            for (int tmpIndex = 0; tmpIndex < aNodeCount && tmpFirstFailure.get() == null; tmpIndex++) {
+                IAtomContainer tmpMolecule = aMoleculeProvider.apply(tmpIndex);
+                //blocks if the pipeline is full (backpressure)
+                tmpPermits.acquire();
+                this.submitDepiction(tmpIndex, tmpMolecule, aTargetFolder, tmpPermits, tmpCompletedQueue, tmpFirstFailure);
+                tmpSubmittedCount++;
+                Result tmpResult;
+                while ((tmpResult = tmpCompletedQueue.poll()) != null) {
+                    tmpConsumedCount++;
+                    NodeDepictionPipeline.consume(tmpResult, aResultConsumer, tmpFirstFailure);
+                }
+            }
+            while (tmpConsumedCount < tmpSubmittedCount) {
+                Result tmpResult = tmpCompletedQueue.take();
+                tmpConsumedCount++;
+                NodeDepictionPipeline.consume(tmpResult, aResultConsumer, tmpFirstFailure);
+            }
+        } catch (InterruptedException anInterruptedException) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException tmpException = new InterruptedIOException("Interrupted while depicting the graph nodes.");
+            tmpException.initCause(anInterruptedException);
+            throw tmpException;
+        }
+        Throwable tmpFailure = tmpFirstFailure.get();
+        if (tmpFailure instanceof IOException) {
+            throw (IOException) tmpFailure;
+        } else if (tmpFailure instanceof RuntimeException) {
+            throw (RuntimeException) tmpFailure;
+        } else if (tmpFailure instanceof Error) {
+            throw (Error) tmpFailure;
+        } else if (tmpFailure != null) {
+            throw new IOException("Node depiction failed.", tmpFailure);
+        }
+    }
+    //
+    /**
+     * Shuts down the thread pools of the pipeline. Must not be called while nodes are being depicted.
+     */
+    @Override
+    public void close() {
+        this.depictionExecutor.shutdown();
+        this.encodingExecutor.shutdown();
+        this.ioExecutor.shutdown();
+    }
+    //
+    /**
+     * Submits the given molecule to the depiction stage which passes its image on to the encoding stage, which in
+     * turn passes the encoded bytes on to the file writing stage. Every path through the stages ends by putting a
+     * result into the completed queue and releasing a permit.
+     *
+     * @param anIndex index of the node
+     * @param aMolecule molecule to depict
+     * @param aTargetFolder folder to write the image file into
+     * @param aPermits permits limiting the nodes in flight
+     * @param aCompletedQueue queue receiving the results
+     * @param aFirstFailure holds the first exception that occurred in any stage
+     */
+    private void submitDepiction(int anIndex,
+                                 IAtomContainer aMolecule,
+                                 File aTargetFolder,
+                                 Semaphore aPermits,
+                                 BlockingQueue<Result> aCompletedQueue,
+                                 AtomicReference<Throwable> aFirstFailure)
+    {
+        AdaptiveDepictionSizer tmpSizer = this.adaptiveDepictionSizer;
+        NodeImageEncoder tmpEncoder = this.imageEncoder;
+        DepictionMemoryBudget tmpBudget = this.memoryBudget;
+        Dimension tmpDepictionSize = this.depictionSize;
+        boolean tmpIsDeleteOnExit = this.isDeleteOnExit;
+        NodeDepictionPipeline.executeStage(this.depictionExecutor, aFirstFailure,
+                () -> NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, 0L),
+                () -> {
+            BufferedImage tmpImage;
+            //bytes reserved in the budget for this node, released when it is completed
+            long[] tmpReservedBytes = new long[1];
+            //planned size of the depiction, reported instead of the actual size if scaled down by the budget
+            int tmpNominalWidth = 0;
+            int tmpNominalHeight = 0;
+            try {
+                DepictionGenerator tmpGenerator;
+                if (Objects.isNull(tmpBudget)) {
+                    tmpGenerator = Objects.isNull(tmpSizer) ? this.depictionGenerator : tmpSizer.adapt(this.depictionGenerator, aMolecule);
+                } else {
+                    //reserved before depicting, so that the image is only allocated once it fits into the budget
+                    Dimension tmpSize = Objects.isNull(tmpSizer) ? tmpDepictionSize : tmpSizer.computeSize(aMolecule);
+                    int tmpMinSize = Objects.isNull(tmpSizer) ? AdaptiveDepictionSizer.DEFAULT_MIN_SIZE : tmpSizer.getMinSize();
+                    Dimension tmpBudgetSize = tmpBudget.reserveImage(tmpSize, tmpMinSize);
+                    tmpReservedBytes[0] = DepictionMemoryBudget.estimateImageBytes(tmpBudgetSize.width, tmpBudgetSize.height);
+                    if (Objects.isNull(tmpSizer) && tmpBudgetSize.equals(tmpSize)) {
+                        tmpGenerator = this.depictionGenerator;
+                    } else {
+                        tmpNominalWidth = tmpSize.width;
+                        tmpNominalHeight = tmpSize.height;
+                        tmpGenerator = this.depictionGenerator.withSize(tmpBudgetSize.width, tmpBudgetSize.height).withFillToFit();
+                    }
+                }
+                tmpImage = tmpGenerator.depict(aMolecule).toImg();
+                long tmpImageBytes = DepictionMemoryBudget.estimateImageBytes(tmpImage.getWidth(), tmpImage.getHeight());
+                if (!Objects.isNull(tmpBudget) && tmpImageBytes > tmpReservedBytes[0]) {
+                    //larger than the given depiction size, the reservation is replaced, since waiting for the
+                    //difference on top of it could wait for this node itself
+                    tmpBudget.releaseImage(tmpReservedBytes[0]);
+                    tmpReservedBytes[0] = 0L;
+                    tmpBudget.reserveImage(tmpImageBytes);
+                    tmpReservedBytes[0] = tmpImageBytes;
+                }
+            } catch (CDKException aCDKException) {
+                NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                return;
+            } catch (InterruptedException anInterruptedException) {
+                InterruptedIOException tmpException = new InterruptedIOException("Interrupted while waiting for the memory budget.");
+                tmpException.initCause(anInterruptedException);
+                aFirstFailure.compareAndSet(null, tmpException);
+                NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                return;
+            } catch (RuntimeException | Error anException) {
+                aFirstFailure.compareAndSet(null, anException);
+                NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                return;
+            }
+            int tmpWidth = tmpNominalWidth > 0 ? tmpNominalWidth : tmpImage.getWidth();
+            int tmpHeight = tmpNominalHeight > 0 ? tmpNominalHeight : tmpImage.getHeight();
+            NodeDepictionPipeline.executeStage(this.encodingExecutor, aFirstFailure,
+                    () -> NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]),
+                    () -> {
+                ByteArrayOutputStream tmpPooledBuffer = this.encodingBufferPool.poll();
+                ByteArrayOutputStream tmpEncodedImage = Objects.isNull(tmpPooledBuffer) ? new ByteArrayOutputStream() : tmpPooledBuffer;
+                try {
+                    tmpEncoder.encode(tmpImage, tmpEncodedImage);
+                } catch (IOException | RuntimeException | Error anException) {
+                    aFirstFailure.compareAndSet(null, anException);
+                    NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                    return;
+                }
+                NodeDepictionPipeline.executeStage(this.ioExecutor, aFirstFailure,
+                        () -> {
+                            tmpEncodedImage.reset();
+                            this.encodingBufferPool.offer(tmpEncodedImage);
+                            NodeDepictionPipeline.complete(new Result(anIndex, null, -1, 0, 0), aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                        },
+                        () -> {
+                    File tmpImageFile = null;
+                    int tmpImageId = -1;
+                    try {
+                        tmpImageId = NodeDepictionPipeline.createImageFile(aTargetFolder, tmpEncoder.getFileExtension());
+                        tmpImageFile = NodeDepictionPipeline.getImageFile(aTargetFolder, tmpImageId, tmpEncoder.getFileExtension());
+                        if (tmpIsDeleteOnExit) {
+                            /*The images need to be stored temporarily but are deleted on JRE exit*/
+                            tmpImageFile.deleteOnExit();
+                        }
+                        try (OutputStream tmpOutputStream = new FileOutputStream(tmpImageFile)) {
+                            tmpEncodedImage.writeTo(tmpOutputStream);
+                        }
+                    } catch (IOException | RuntimeException | Error anException) {
+                        aFirstFailure.compareAndSet(null, anException);
+                        tmpImageFile = null;
+                        tmpImageId = -1;
+                    }
+                    tmpEncodedImage.reset();
+                    //dropped if the pool is full
+                    this.encodingBufferPool.offer(tmpEncodedImage);
+                    NodeDepictionPipeline.complete(new Result(anIndex, tmpImageFile, tmpImageId, tmpWidth, tmpHeight),
+                            aPermits, aCompletedQueue, tmpBudget, tmpReservedBytes[0]);
+                });
+            });
+        });
+    }
+    //
+    /**
+     * Passes the given task to the given stage executor. If the executor rejects the task, e.g. because the
+     * pipeline has been closed, the rejection is recorded as failure and the given rejection handler completes the
+     * node instead, so that neither its permit nor its result is lost.
+     *
+     * @param anExecutor executor of the stage
+     * @param aFirstFailure holds the first exception that occurred in any stage
+     * @param aRejectionHandler completes the node if the task is rejected
+     * @param aTask task of the stage
+     */
+    private static void executeStage(ExecutorService anExecutor,
+                                     AtomicReference<Throwable> aFirstFailure,
+                                     Runnable aRejectionHandler,
+                                     Runnable aTask)
+    {
+        try {
+            anExecutor.execute(aTask);
+        } catch (RejectedExecutionException aRejectedExecutionException) {
+            aFirstFailure.compareAndSet(null, aRejectedExecutionException);
+            aRejectionHandler.run();
+        }
+    }
+    //
+    /**
+     * Returns the image file with the given image ID in the given folder.
+     *
+     * @param aFolder folder containing the image
+     * @param anImageId numeric image ID
+     * @param aFileExtension file extension of the image, without dot
+     * @return image file
+     */
+    static File getImageFile(File aFolder, int anImageId, String aFileExtension) {
+        return new File(aFolder, NodeDepictionPipeline.IMAGE_FILE_PREFIX + anImageId + "." + aFileExtension);
+    }
+    //
+    /**
+     * Creates a new, empty image file in the given folder, named after the next free image ID.
+     *
+     * @param aFolder folder to create the image file in
+     * @param aFileExtension file extension of the image, without dot
+     * @return numeric image ID of the created file
+     * @throws IOException if the file cannot be created
+     */
+    private static int createImageFile(File aFolder, String aFileExtension) throws IOException {
+        while (true) {
+            int tmpImageId = NodeDepictionPipeline.IMAGE_ID_COUNTER.getAndIncrement();
+            if (tmpImageId < 0) {
+                throw new IOException("Image IDs are exhausted.");
+            }
+            try {
+                Files.createFile(NodeDepictionPipeline.getImageFile(aFolder, tmpImageId, aFileExtension).toPath());
+                return tmpImageId;
+            } catch (FileAlreadyExistsException aFileAlreadyExistsException) {
+                //left over from an earlier run or written by another process, try the next ID
+            }
+        }
+    }
+    //
+    /**
+     * Hands the given result over to the calling thread and releases the permit and the memory budget of its node.
+     *
+     * @param aResult result to hand over
+     * @param aPermits permits limiting the nodes in flight
+     * @param aCompletedQueue queue receiving the results
+     * @param aBudget memory budget of the pipeline or null
+     * @param aReservedBytes bytes reserved in the memory budget for the node
+     */
+    private static void complete(Result aResult,
+                                 Semaphore aPermits,
+                                 BlockingQueue<Result> aCompletedQueue,
+                                 DepictionMemoryBudget aBudget,
+                                 long aReservedBytes)
+    {
+        if (!Objects.isNull(aBudget) && aReservedBytes > 0L) {
+            aBudget.releaseImage(aReservedBytes);
+        }
+        aCompletedQueue.add(aResult);
+        aPermits.release();
+    }
+    //
+    /**
+     * Passes the given result to the consumer unless a failure occurred already, in which case the remaining
+     * results are only drained.
+     *
+     * @param aResult result to consume
+     * @param aResultConsumer consumer of the caller
+     * @param aFirstFailure holds the first exception that occurred in any stage
+     */
+    private static void consume(Result aResult, Consumer<Result> aResultConsumer, AtomicReference<Throwable> aFirstFailure) {
+        if (aFirstFailure.get() == null) {
+            aResultConsumer.accept(aResult);
+        }
+    }
+    //
+    /**
+     * Creates the fixed-size thread pool of a pipeline stage with a bounded work queue.
+     *
+     * @param aStageName name of the stage, used in the thread names
+     * @param aThreadCount number of threads
+     * @param aQueueCapacity capacity of the work queue
+     * @return executor of the stage
+     */
+    private static ExecutorService createStageExecutor(String aStageName, int aThreadCount, int aQueueCapacity) {
+        AtomicInteger tmpThreadCounter = new AtomicInteger(0);
+        ThreadFactory tmpThreadFactory = aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, "NodeDepictionPipeline-" + aStageName + "-" + tmpThreadCounter.incrementAndGet());
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        };
+        ThreadPoolExecutor tmpExecutor = new ThreadPoolExecutor(aThreadCount, aThreadCount,
+                30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(aQueueCapacity),
+                tmpThreadFactory);
+        tmpExecutor.allowCoreThreadTimeOut(true);
+        return tmpExecutor;
+    }
+    //
+    /**
+     * Result of the pipeline for a single node.
+     */
+    public static final class Result {
+        /**
+         * Index of the node.
+         */
+        private final int index;
+        //
+        /**
+         * Written image file, null if the structure could not be depicted.
+         */
+        private final File imageFile;
+        //
+        /**
+         * Numeric ID of the written image, -1 if the structure could not be depicted.
+         */
+        private final int imageId;
+        //
+        /**
+         * Width of the image in pixels, the planned width if it was scaled down by a memory budget.
+         */
+        private final int imageWidth;
+        //
+        /**
+         * Height of the image in pixels, the planned height if it was scaled down by a memory budget.
+         */
+        private final int imageHeight;
+        //
+        /**
+         * Constructor.
+         *
+         * @param anIndex index of the node
+         * @param anImageFile written image file or null
+         * @param anImageId numeric ID of the written image or -1
+         * @param anImageWidth width of the image in pixels
+         * @param anImageHeight height of the image in pixels
+         */
+        Result(int anIndex, File anImageFile, int anImageId, int anImageWidth, int anImageHeight) {
+            this.index = anIndex;
+            this.imageFile = anImageFile;
+            this.imageId = anImageId;
+            this.imageWidth = anImageWidth;
+            this.imageHeight = anImageHeight;
+        }
+        //
+        /**
+         * Returns the index of the node, as requested from the molecule provider.
+         *
+         * @return node index
+         */
+        public int getIndex() {
+            return this.index;
+        }
+        //
+        /**
+         * Returns the written image file or null if the structure could not be depicted.
+         *
+         * @return image file or null
+         */
+        public File getImageFile() {
+            return this.imageFile;
+        }
+        //
+        /**
+         * Returns the numeric ID of the written image, which is unique among the images written by all pipelines of
+         * this JVM into the same folder and part of the image file name, or -1 if the structure could not be depicted.
+         *
+         * @return image ID or -1
+         */
+        public int getImageId() {
+            return this.imageId;
+        }
+        //
+        /**
+         * Returns the width of the image in pixels, 0 if the structure could not be depicted. If the image was
+         * scaled down by a memory budget, the planned width is returned, which the graph node is sized for.
+         *
+         * @return image width
+         */
+        public int getImageWidth() {
+            return this.imageWidth;
+        }
+        //
+        /**
+         * Returns the height of the image in pixels, 0 if the structure could not be depicted. If the image was
+         * scaled down by a memory budget, the planned height is returned, which the graph node is sized for.
+         *
+         * @return image height
+         */
+        public int getImageHeight() {
+            return this.imageHeight;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Encodes the structure images of scaffold graph nodes. The encoder can write PNG files with a chosen deflate
+ * compression level or uncompressed BMP files, which are much faster to write and meant for temporary images that
+ * never leave the machine (GraphStream reads both formats). Optionally, the colours of a PNG image are reduced before
+ * encoding if this is lossless, i.e. an image with at most 256 distinct colours is written as indexed colour image.
+ * This applies to every greyscale depiction, e.g. of a carbon-only scaffold. An indexed image is used instead of a
+ * greyscale image type because Java treats the latter as linear grey and would shift the grey values on decoding.
+ * <br>Image writers and the buffers for converted images are reused per thread, and images are encoded in memory
+ * without the disk cache of ImageIO. Conversion buffers of images with more than
+ * {@link #MAX_RETAINED_BUFFER_PIXEL_COUNT} pixels are dropped after use, so that a thread does not keep the buffers
+ * of the largest image it ever encoded (they are not accounted for in a {@link DepictionMemoryBudget}). PNG images
+ * without colour reduction are written as they are, without conversion. One encoder instance can be used by
+ * multiple threads at the same time.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class NodeImageEncoder {
+    /**
+     * Image formats the encoder can write.
+     */
+    public enum Format {
+        /**
+         * Portable network graphics, lossless and compressed.
+         */
+        PNG("png"),
+        /**
+         * Windows bitmap, uncompressed and without alpha channel, fast to write.
+         */
+        BMP("bmp");
+        //
+        /**
+         * Name of the format in ImageIO and file extension.
+         */
+        private final String formatName;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aFormatName ImageIO format name
+         */
+        Format(String aFormatName) {
+            this.formatName = aFormatName;
+        }
+        //
+        /**
+         * Returns the ImageIO name of the format which is also used as file extension.
+         *
+         * @return format name
+         */
+        public String getFormatName() {
+            return this.formatName;
+        }
+    }
+    //
+    /**
+     * Compression level value that leaves the compression level to the ImageIO writer.
+     */
+    public static final int WRITER_DEFAULT_COMPRESSION_LEVEL = -1;
+    //
+    /**
+     * Maximum deflate compression level of PNG images.
+     */
+    public static final int MAX_COMPRESSION_LEVEL = 9;
+    //
+    /**
+     * Maximum number of distinct colours of an image to be written as indexed colour image.
+     */
+    private static final int MAX_INDEXED_COLOUR_COUNT = 256;
+    //
+    /**
+     * Maximum number of pixels of the conversion buffers that are kept per thread for the next image, i.e. about
+     * 9 MiB per encoding thread at most.
+     */
+    public static final int MAX_RETAINED_BUFFER_PIXEL_COUNT = 1024 * 1024;
+    //
+    /**
+     * Format written by this encoder.
+     */
+    private final Format format;
+    //
+    /**
+     * Deflate compression level of PNG images, -1 for the writer default.
+     */
+    private final int compressionLevel;
+    //
+    /**
+     * Whether colours of PNG images may be reduced to indexed colours if this is lossless.
+     */
+    private final boolean isColourReductionAllowed;
+    //
+    /**
+     * Image writer, write parameters, and conversion buffer of the current thread.
+     */
+    private final ThreadLocal<WriterState> writerState;
+    //
+    /**
+     * Constructor for an encoder writing PNG images like ImageIO.write() does, i.e. with the default compression level
+     * and without colour reduction.
+     */
+    public NodeImageEncoder() {
+        this(Format.PNG, NodeImageEncoder.WRITER_DEFAULT_COMPRESSION_LEVEL, false);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param aFormat image format to write
+     * @param aCompressionLevel deflate compression level of PNG images between 0 (fastest, no compression) and 9
+     *                          (slowest, smallest files) or -1 for the writer default; ignored for BMP images
+     * @param isColourReductionAllowed whether colours of PNG images may be reduced to indexed colours if this is lossless
+     * @throws NullPointerException if the given format is null
+     * @throws IllegalArgumentException if the given compression level is out of range
+     * @throws IllegalStateException if no ImageIO writer is available for the given format
+     */
+    public NodeImageEncoder(Format aFormat, int aCompressionLevel, boolean isColourReductionAllowed)
+            throws NullPointerException, IllegalArgumentException, IllegalStateException
+    {
+        Objects.requireNonNull(aFormat, "Given format is null.");
+        if (aCompressionLevel < NodeImageEncoder.WRITER_DEFAULT_COMPRESSION_LEVEL || aCompressionLevel > NodeImageEncoder.MAX_COMPRESSION_LEVEL) {
+            throw new IllegalArgumentException("Given compression level must be between -1 and 9.");
+        }
+        if (!ImageIO.getImageWritersByFormatName(aFormat.getFormatName()).hasNext()) {
+            throw new IllegalStateException("No ImageIO writer available for format " + aFormat.getFormatName());
+        }
+        this.format = aFormat;
+        this.compressionLevel = aCompressionLevel;
+        this.isColourReductionAllowed = isColourReductionAllowed;
+        this.writerState = ThreadLocal.withInitial(this::createWriterState);
+    }
+    //
+    /**
+     * Creates an encoder for temporary images that favours encoding speed over file size, writing uncompressed
+     * BMP images.
+     *
+     * @return fast encoder
+     */
+    public static NodeImageEncoder createFastEncoder() {
+        return new NodeImageEncoder(Format.BMP, NodeImageEncoder.WRITER_DEFAULT_COMPRESSION_LEVEL, false);
+    }
+    //
+    /**
+     * Creates an encoder that favours small files, writing PNG images with maximum compression and reduced colours.
+     *
+     * @return compact encoder
+     */
+    public static NodeImageEncoder createCompactEncoder() {
+        return new NodeImageEncoder(Format.PNG, NodeImageEncoder.MAX_COMPRESSION_LEVEL, true);
+    }
+    //
+    /**
+     * Returns the format written by this encoder.
+     *
+     * @return image format
+     */
+    public Format getFormat() {
+        return this.format;
+    }
+    //
+    /**
+     * Returns the deflate compression level of PNG images, -1 for the writer default.
+     *
+     * @return compression level
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+    //
+    /**
+     * Returns whether colours of PNG images may be reduced to indexed colours if this is lossless.
+     *
+     * @return true if colour reduction is allowed
+     */
+    public boolean isColourReductionAllowed() {
+        return this.isColourReductionAllowed;
+    }
+    //
+    /**
+     * Returns the file extension of the written images, without the dot.
+     *
+     * @return file extension
+     */
+    public String getFileExtension() {
+        return this.format.getFormatName();
+    }
+    //
+    /**
+     * Encodes the given image and writes it to the given stream. The stream is not closed.
+     *
+     * @param anImage image to encode
+     * @param anOutputStream stream to write the encoded image to
+     * @throws NullPointerException if any parameter is null
+     * @throws IOException if the image cannot be written
+     */
+    public void encode(BufferedImage anImage, OutputStream anOutputStream) throws NullPointerException, IOException {
+        Objects.requireNonNull(anImage, "Given image is null.");
+        Objects.requireNonNull(anOutputStream, "Given output stream is null.");
+        WriterState tmpState = this.writerState.get();
+        BufferedImage tmpImageToWrite = this.convert(anImage, tmpState);
+        ImageOutputStream tmpImageOutputStream = new MemoryCacheImageOutputStream(anOutputStream);
+        try {
+            tmpState.writer.setOutput(tmpImageOutputStream);
+            tmpState.writer.write(null, new IIOImage(tmpImageToWrite, null, null), tmpState.writeParam);
+        } finally {
+            tmpState.writer.setOutput(null);
+            //flushes to the given stream without closing it
+            tmpImageOutputStream.close();
+            tmpState.dropLargeBuffers();
+        }
+    }
+    //
+    /**
+     * Converts the given image into the image type that is actually written, reusing the conversion buffer of the
+     * current thread where possible.
+     *
+     * @param anImage image to convert
+     * @param aState writer state of the current thread
+     * @return converted image or the given image if no conversion is necessary
+     */
+    private BufferedImage convert(BufferedImage anImage, WriterState aState) {
+        if (this.format == Format.PNG && !this.isColourReductionAllowed
+                || this.format == Format.BMP && anImage.getType() == BufferedImage.TYPE_INT_RGB) {
+            //the pixels are only copied if they need to be inspected or converted
+            return anImage;
+        }
+        int tmpWidth = anImage.getWidth();
+        int tmpHeight = anImage.getHeight();
+        int[] tmpPixels = anImage.getRGB(0, 0, tmpWidth, tmpHeight, aState.getPixelBuffer(tmpWidth * tmpHeight), 0, tmpWidth);
+        boolean tmpIsOpaque = true;
+        for (int tmpPixelIndex = 0; tmpPixelIndex < tmpWidth * tmpHeight; tmpPixelIndex++) {
+            if (tmpPixels[tmpPixelIndex] >>> 24 != 0xFF) {
+                tmpIsOpaque = false;
+                break;
+            }
+        }
+        if (this.isColourReductionAllowed && this.format == Format.PNG) {
+            BufferedImage tmpIndexedImage = NodeImageEncoder.toIndexedImage(tmpPixels, aState.getByteBuffer(tmpWidth * tmpHeight),
+                    tmpWidth, tmpHeight, tmpIsOpaque);
+            if (!Objects.isNull(tmpIndexedImage)) {
+                return tmpIndexedImage;
+            }
+        }
+        if (this.format == Format.BMP || (tmpIsOpaque && anImage.getType() != BufferedImage.TYPE_INT_RGB)) {
+            //BMP has no alpha channel and opaque images do not need one, alpha values are dropped
+            BufferedImage tmpRGBImage = aState.getBuffer(tmpWidth, tmpHeight, BufferedImage.TYPE_INT_RGB);
+            tmpRGBImage.setRGB(0, 0, tmpWidth, tmpHeight, tmpPixels, 0, tmpWidth);
+            return tmpRGBImage;
+        }
+        return anImage;
+    }
+    //
+    /**
+     * Creates an indexed colour image from the given pixels if they have at most 256 distinct colours.
+     *
+     * @param aPixels ARGB pixels in row-major order
+     * @param anIndexBuffer buffer for the colour indices with one element per pixel
+     * @param aWidth image width
+     * @param aHeight image height
+     * @param isOpaque whether all pixels are opaque
+     * @return indexed colour image or null if there are too many colours
+     */
+    private static BufferedImage toIndexedImage(int[] aPixels, byte[] anIndexBuffer, int aWidth, int aHeight, boolean isOpaque) {
+        int[] tmpPalette = new int[NodeImageEncoder.MAX_INDEXED_COLOUR_COUNT];
+        int tmpColourCount = 0;
+        byte[] tmpIndices = anIndexBuffer;
+        int tmpLastColour = 0;
+        int tmpLastIndex = -1;
+        for (int tmpPixelIndex = 0; tmpPixelIndex < tmpIndices.length; tmpPixelIndex++) {
+            int tmpColour = aPixels[tmpPixelIndex];
+            //runs of equal colours, like the background, are frequent
+            if (tmpLastIndex < 0 || tmpColour != tmpLastColour) {
+                tmpLastIndex = -1;
+                for (int tmpPaletteIndex = 0; tmpPaletteIndex < tmpColourCount; tmpPaletteIndex++) {
+                    if (tmpPalette[tmpPaletteIndex] == tmpColour) {
+                        tmpLastIndex = tmpPaletteIndex;
+                        break;
+                    }
+                }
+                if (tmpLastIndex < 0) {
+                    if (tmpColourCount == NodeImageEncoder.MAX_INDEXED_COLOUR_COUNT) {
+                        return null;
+                    }
+                    tmpPalette[tmpColourCount] = tmpColour;
+                    tmpLastIndex = tmpColourCount;
+                    tmpColourCount++;
+                }
+                tmpLastColour = tmpColour;
+            }
+            tmpIndices[tmpPixelIndex] = (byte) tmpLastIndex;
+        }
+        IndexColorModel tmpColorModel = new IndexColorModel(8, Math.max(tmpColourCount, 1),
+                Arrays.copyOf(tmpPalette, Math.max(tmpColourCount, 1)), 0, !isOpaque, -1, DataBuffer.TYPE_BYTE);
+        BufferedImage tmpIndexedImage = new BufferedImage(aWidth, aHeight, BufferedImage.TYPE_BYTE_INDEXED, tmpColorModel);
+        tmpIndexedImage.getRaster().setDataElements(0, 0, aWidth, aHeight, tmpIndices);
+        return tmpIndexedImage;
+    }
+    //
+    /**
+     * Creates the image writer, write parameters, and conversion buffer holder for the current thread.
+     *
+     * @return new writer state
+     */
+    private WriterState createWriterState() {
+        Iterator<ImageWriter> tmpWriters = ImageIO.getImageWritersByFormatName(this.format.getFormatName());
+        ImageWriter tmpWriter = tmpWriters.next();
+        ImageWriteParam tmpWriteParam = tmpWriter.getDefaultWriteParam();
+        if (this.format == Format.PNG
+                && this.compressionLevel != NodeImageEncoder.WRITER_DEFAULT_COMPRESSION_LEVEL
+                && tmpWriteParam.canWriteCompressed()) {
+            tmpWriteParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            //the PNG writer maps quality 1.0 to deflate level 0 and quality 0.0 to level 9
+            tmpWriteParam.setCompressionQuality(1.0f - (float) this.compressionLevel / NodeImageEncoder.MAX_COMPRESSION_LEVEL);
+        }
+        return new WriterState(tmpWriter, tmpWriteParam);
+    }
+    //
+    /**
+     * Image writer, write parameters, and conversion buffer of one thread.
+     */
+    private static final class WriterState {
+        /**
+         * Reused image writer.
+         */
+        private final ImageWriter writer;
+        //
+        /**
+         * Write parameters of the writer.
+         */
+        private final ImageWriteParam writeParam;
+        //
+        /**
+         * Reused image for converted pixels, may be null.
+         */
+        private BufferedImage buffer;
+        //
+        /**
+         * Reused array for the ARGB pixels of the encoded image.
+         */
+        private int[] pixelBuffer = new int[0];
+        //
+        /**
+         * Reused array for colour indices.
+         */
+        private byte[] byteBuffer = new byte[0];
+        //
+        /**
+         * Constructor.
+         *
+         * @param aWriter image writer
+         * @param aWriteParam write parameters
+         */
+        private WriterState(ImageWriter aWriter, ImageWriteParam aWriteParam) {
+            this.writer = aWriter;
+            this.writeParam = aWriteParam;
+        }
+        //
+        /**
+         * Returns the conversion buffer if it has the requested size and type, otherwise a new buffer that replaces it.
+         *
+         * @param aWidth image width
+         * @param aHeight image height
+         * @param anImageType BufferedImage type
+         * @return conversion buffer
+         */
+        private BufferedImage getBuffer(int aWidth, int aHeight, int anImageType) {
+            if (Objects.isNull(this.buffer)
+                    || this.buffer.getWidth() != aWidth
+                    || this.buffer.getHeight() != aHeight
+                    || this.buffer.getType() != anImageType) {
+                this.buffer = new BufferedImage(aWidth, aHeight, anImageType);
+            }
+            return this.buffer;
+        }
+        //
+        /**
+         * Returns the pixel array, enlarged if it is smaller than the requested length.
+         *
+         * @param aLength minimum length
+         * @return pixel array, possibly longer than requested
+         */
+        private int[] getPixelBuffer(int aLength) {
+            if (this.pixelBuffer.length < aLength) {
+                this.pixelBuffer = new int[aLength];
+            }
+            return this.pixelBuffer;
+        }
+        //
+        /**
+         * Returns a byte array of exactly the requested length, reusing the previous one if it has the same length.
+         *
+         * @param aLength length
+         * @return byte array
+         */
+        private byte[] getByteBuffer(int aLength) {
+            if (this.byteBuffer.length != aLength) {
+                this.byteBuffer = new byte[aLength];
+            }
+            return this.byteBuffer;
+        }
+        //
+        /**
+         * Drops the buffers with more than {@link #MAX_RETAINED_BUFFER_PIXEL_COUNT} pixels, so that they can be
+         * garbage collected after the image has been written.
+         */
+        private void dropLargeBuffers() {
+            if (this.pixelBuffer.length > NodeImageEncoder.MAX_RETAINED_BUFFER_PIXEL_COUNT) {
+                this.pixelBuffer = new int[0];
+            }
+            if (this.byteBuffer.length > NodeImageEncoder.MAX_RETAINED_BUFFER_PIXEL_COUNT) {
+                this.byteBuffer = new byte[0];
+            }
+            if (!Objects.isNull(this.buffer)
+                    && (long) this.buffer.getWidth() * this.buffer.getHeight() > NodeImageEncoder.MAX_RETAINED_BUFFER_PIXEL_COUNT) {
+                this.buffer = null;
+            }
+        }
+    }
+}
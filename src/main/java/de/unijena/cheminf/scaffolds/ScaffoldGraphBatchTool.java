@@ -0,0 +1,775 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.io.iterator.IIteratingChemObjectReader;
+import org.openscience.cdk.io.iterator.IteratingSDFReader;
+import org.openscience.cdk.io.iterator.IteratingSMILESReader;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command-line tool that generates scaffold trees or networks for all molecules of an SDF or SMILES file and exports
+ * images of them. The input is streamed, i.e. only the molecules currently being processed are held in memory, so
+ * that files with millions of records can be processed. Gzip-compressed input files (".gz") are supported.
+ * <br>The molecules are processed in parallel by worker threads, each generating the scaffold graph of one molecule
+ * and depicting its nodes with its own {@link NodeDepictionPipeline} (with adaptive depiction sizes). A bounded
+ * queue between the reading thread and the workers keeps the reader from running ahead. Per molecule, either a
+ * screenshot of the whole graph (image type "graph") or the structure images of the graph nodes (image type
+ * "nodes") are written to the output folder, named after the record index of the molecule in the input file.
+ * <br>NOTE: Graph screenshots are taken one at a time, see
+ * {@link GraphStreamUtility#screenshotGraphHighQuality(Graph, String)}. Scaffold generation and node depiction
+ * still run in parallel.
+ * <br>Usage: {@code ScaffoldGraphBatchTool -i <input file> -o <output folder> [-t tree|network] [-m graph|nodes]
+ * [-n <thread count>] [-l <maximum number of molecules>] [-b <memory budget in MiB>] [--no-labels]}
+ * <br>With a memory budget, all workers share one {@link DepictionMemoryBudget}, i.e. the depictions are throttled
+ * or scaled down when the images in flight and the graphs being built approach the budget.
+ * <br>The throughput (and the peak memory use of a budgeted run) is reported on the standard output at the end.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphBatchTool {
+    /**
+     * Type of scaffold graph generated for every molecule.
+     */
+    public enum GraphType {
+        /**
+         * Schuffenhauer scaffold tree.
+         */
+        TREE,
+        /**
+         * Scaffold network.
+         */
+        NETWORK
+    }
+    //
+    /**
+     * Type of images exported for every molecule.
+     */
+    public enum ImageType {
+        /**
+         * Screenshot of the whole scaffold graph.
+         */
+        GRAPH,
+        /**
+         * Structure images of the scaffold graph nodes, written into a subfolder per molecule.
+         */
+        NODES
+    }
+    //
+    /**
+     * Default number of worker threads, equal to the number of available processors.
+     */
+    public static final int DEFAULT_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    //
+    /**
+     * Default graph type.
+     */
+    public static final GraphType DEFAULT_GRAPH_TYPE = GraphType.TREE;
+    //
+    /**
+     * Default image type.
+     */
+    public static final ImageType DEFAULT_IMAGE_TYPE = ImageType.GRAPH;
+    //
+    /**
+     * Usage message printed for invalid command-line arguments.
+     */
+    public static final String USAGE = "Usage: ScaffoldGraphBatchTool -i <input file (.sdf, .sd, .mol, .smi, .smiles, optionally .gz)>"
+            + " -o <output folder> [-t tree|network] [-m graph|nodes] [-n <thread count>] [-l <maximum number of molecules>] [-b <memory budget in MiB>] [--no-labels]"
+            + System.lineSeparator() + "   or: ScaffoldGraphBatchTool --serve [port] [maximum number of concurrent requests] [cache size]";
+    //
+    /**
+     * Capacity of the node depiction pipeline of each worker.
+     */
+    private static final int WORKER_PIPELINE_CAPACITY = 4;
+    //
+    /**
+     * Time in milliseconds the reading thread waits for a free slot in the work queue before checking the workers.
+     */
+    private static final long QUEUE_OFFER_TIMEOUT_MILLIS = 100L;
+    //
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ScaffoldGraphBatchTool.class.getName());
+    //
+    /**
+     * SDF or SMILES input file.
+     */
+    private final File inputFile;
+    //
+    /**
+     * Folder the images are written to.
+     */
+    private final File outputFolder;
+    //
+    /**
+     * Type of scaffold graph generated for every molecule.
+     */
+    private final GraphType graphType;
+    //
+    /**
+     * Type of images exported for every molecule.
+     */
+    private final ImageType imageType;
+    //
+    /**
+     * Number of worker threads.
+     */
+    private final int threadCount;
+    //
+    /**
+     * Maximum number of molecules to read from the input file.
+     */
+    private final long moleculeLimit;
+    //
+    /**
+     * Whether the graph nodes are labelled with level and index.
+     */
+    private final boolean areNodesLabelled;
+    //
+    /**
+     * Memory budget shared by the pipelines of all workers, null for no budget.
+     */
+    private final DepictionMemoryBudget memoryBudget;
+    //
+    /**
+     * Constructor without memory budget.
+     *
+     * @param anInputFile SDF or SMILES input file, optionally gzip-compressed
+     * @param anOutputFolder folder the images are written to, created if it does not exist
+     * @param aGraphType type of scaffold graph generated for every molecule
+     * @param anImageType type of images exported for every molecule
+     * @param aThreadCount number of worker threads
+     * @param aMoleculeLimit maximum number of molecules to read from the input file
+     * @param areNodesLabelled whether the graph nodes are labelled with level and index
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the input file does not exist or has an unsupported extension, the output
+     * folder is a file, or the thread count or molecule limit is smaller than one
+     */
+    public ScaffoldGraphBatchTool(File anInputFile,
+                                  File anOutputFolder,
+                                  GraphType aGraphType,
+                                  ImageType anImageType,
+                                  int aThreadCount,
+                                  long aMoleculeLimit,
+                                  boolean areNodesLabelled)
+            throws NullPointerException, IllegalArgumentException
+    {
+        this(anInputFile, anOutputFolder, aGraphType, anImageType, aThreadCount, aMoleculeLimit, areNodesLabelled, null);
+    }
+    //
+    /**
+     * Constructor.
+     *
+     * @param anInputFile SDF or SMILES input file, optionally gzip-compressed
+     * @param anOutputFolder folder the images are written to, created if it does not exist
+     * @param aGraphType type of scaffold graph generated for every molecule
+     * @param anImageType type of images exported for every molecule
+     * @param aThreadCount number of worker threads
+     * @param aMoleculeLimit maximum number of molecules to read from the input file
+     * @param areNodesLabelled whether the graph nodes are labelled with level and index
+     * @param aMemoryBudget memory budget shared by the depiction pipelines of all workers, null for no budget
+     * @throws NullPointerException if any parameter except the memory budget is null
+     * @throws IllegalArgumentException if the input file does not exist or has an unsupported extension, the output
+     * folder is a file, or the thread count or molecule limit is smaller than one
+     */
+    public ScaffoldGraphBatchTool(File anInputFile,
+                                  File anOutputFolder,
+                                  GraphType aGraphType,
+                                  ImageType anImageType,
+                                  int aThreadCount,
+                                  long aMoleculeLimit,
+                                  boolean areNodesLabelled,
+                                  DepictionMemoryBudget aMemoryBudget)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(anInputFile, "Given input file is null.");
+        Objects.requireNonNull(anOutputFolder, "Given output folder is null.");
+        Objects.requireNonNull(aGraphType, "Given graph type is null.");
+        Objects.requireNonNull(anImageType, "Given image type is null.");
+        if (!anInputFile.isFile()) {
+            throw new IllegalArgumentException("Given input file " + anInputFile + " does not exist or is not a file.");
+        }
+        if (!ScaffoldGraphBatchTool.isSDFile(anInputFile) && !ScaffoldGraphBatchTool.isSMILESFile(anInputFile)) {
+            throw new IllegalArgumentException("Given input file " + anInputFile + " is neither an SDF nor a SMILES file.");
+        }
+        if (anOutputFolder.isFile()) {
+            throw new IllegalArgumentException("Given output folder " + anOutputFolder + " is a file.");
+        }
+        if (aThreadCount < 1) {
+            throw new IllegalArgumentException("Given thread count must be at least one.");
+        }
+        if (aMoleculeLimit < 1) {
+            throw new IllegalArgumentException("Given molecule limit must be at least one.");
+        }
+        this.inputFile = anInputFile;
+        this.outputFolder = anOutputFolder;
+        this.graphType = aGraphType;
+        this.imageType = anImageType;
+        this.threadCount = aThreadCount;
+        this.moleculeLimit = aMoleculeLimit;
+        this.areNodesLabelled = areNodesLabelled;
+        this.memoryBudget = aMemoryBudget;
+    }
+    //
+    /**
+     * Runs the tool with the given command-line arguments and prints the throughput report. Prints the usage message
+     * and exits with status 2 for invalid arguments and exits with status 1 if processing fails.
+     * <br>If the first argument is "--serve", the {@link ScaffoldGraphRenderingServer} is started instead with the
+     * remaining arguments.
+     *
+     * @param args command-line arguments, see {@link #USAGE}
+     * @throws IOException if the rendering server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            ScaffoldGraphRenderingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        ScaffoldGraphBatchTool tmpTool;
+        try {
+            tmpTool = ScaffoldGraphBatchTool.parseArguments(args);
+        } catch (IllegalArgumentException anIllegalArgumentException) {
+            System.err.println(anIllegalArgumentException.getMessage());
+            System.err.println(ScaffoldGraphBatchTool.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (Objects.isNull(System.getProperty("java.awt.headless"))) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        try {
+            Report tmpReport = tmpTool.run();
+            System.out.println(tmpReport);
+        } catch (IOException anIOException) {
+            ScaffoldGraphBatchTool.LOGGER.log(Level.SEVERE, "Batch processing failed.", anIOException);
+            System.exit(1);
+        }
+    }
+    //
+    /**
+     * Creates a tool instance from the given command-line arguments.
+     *
+     * @param args command-line arguments, see {@link #USAGE}
+     * @return tool configured by the arguments
+     * @throws NullPointerException if the given array is null
+     * @throws IllegalArgumentException if an argument is unknown, lacks its value, or has an invalid value
+     */
+    public static ScaffoldGraphBatchTool parseArguments(String[] args) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(args, "Given arguments are null.");
+        File tmpInputFile = null;
+        File tmpOutputFolder = null;
+        GraphType tmpGraphType = ScaffoldGraphBatchTool.DEFAULT_GRAPH_TYPE;
+        ImageType tmpImageType = ScaffoldGraphBatchTool.DEFAULT_IMAGE_TYPE;
+        int tmpThreadCount = ScaffoldGraphBatchTool.DEFAULT_THREAD_COUNT;
+        long tmpMoleculeLimit = Long.MAX_VALUE;
+        boolean tmpAreNodesLabelled = GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED;
+        DepictionMemoryBudget tmpMemoryBudget = null;
+        for (int tmpIndex = 0; tmpIndex < args.length; tmpIndex++) {
+            String tmpArgument = args[tmpIndex];
+            if (tmpArgument.equals("--no-labels")) {
+                tmpAreNodesLabelled = false;
+                continue;
+            }
+            if (tmpIndex + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for argument " + tmpArgument + ".");
+            }
+            String tmpValue = args[++tmpIndex];
+            try {
+                switch (tmpArgument) {
+                    case "-i", "--input" -> tmpInputFile = new File(tmpValue);
+                    case "-o", "--output" -> tmpOutputFolder = new File(tmpValue);
+                    case "-t", "--type" -> tmpGraphType = GraphType.valueOf(tmpValue.toUpperCase(Locale.ROOT));
+                    case "-m", "--images" -> tmpImageType = ImageType.valueOf(tmpValue.toUpperCase(Locale.ROOT));
+                    case "-n", "--threads" -> tmpThreadCount = Integer.parseInt(tmpValue);
+                    case "-l", "--limit" -> tmpMoleculeLimit = Long.parseLong(tmpValue);
+                    case "-b", "--memory-budget" -> tmpMemoryBudget = new DepictionMemoryBudget(Math.multiplyExact(Long.parseLong(tmpValue), 1024L * 1024L));
+                    default -> throw new IllegalArgumentException("Unknown argument " + tmpArgument + ".");
+                }
+            } catch (NumberFormatException | ArithmeticException anException) {
+                throw new IllegalArgumentException("Invalid number " + tmpValue + " for argument " + tmpArgument + ".");
+            }
+        }
+        if (Objects.isNull(tmpInputFile) || Objects.isNull(tmpOutputFolder)) {
+            throw new IllegalArgumentException("Input file and output folder are required.");
+        }
+        return new ScaffoldGraphBatchTool(tmpInputFile, tmpOutputFolder, tmpGraphType, tmpImageType,
+                tmpThreadCount, tmpMoleculeLimit, tmpAreNodesLabelled, tmpMemoryBudget);
+    }
+    //
+    /**
+     * Opens a streaming reader for the given SDF or SMILES file, gzip-compressed if its name ends with ".gz".
+     * Malformed SDF records are skipped. The reader has to be closed by the caller.
+     *
+     * @param aFile SDF or SMILES file
+     * @return iterating reader of the molecules in the file
+     * @throws NullPointerException if the given file is null
+     * @throws IllegalArgumentException if the file has an unsupported extension
+     * @throws IOException if the file cannot be opened
+     */
+    public static IIteratingChemObjectReader<IAtomContainer> openReader(File aFile)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aFile, "Given file is null.");
+        boolean tmpIsSDFile = ScaffoldGraphBatchTool.isSDFile(aFile);
+        if (!tmpIsSDFile && !ScaffoldGraphBatchTool.isSMILESFile(aFile)) {
+            throw new IllegalArgumentException("Given file " + aFile + " is neither an SDF nor a SMILES file.");
+        }
+        InputStream tmpInputStream = new FileInputStream(aFile);
+        try {
+            if (aFile.getName().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+                tmpInputStream = new GZIPInputStream(tmpInputStream);
+            }
+        } catch (IOException anIOException) {
+            tmpInputStream.close();
+            throw anIOException;
+        }
+        Reader tmpReader = new BufferedReader(new InputStreamReader(tmpInputStream, StandardCharsets.UTF_8));
+        if (tmpIsSDFile) {
+            return new IteratingSDFReader(tmpReader, SilentChemObjectBuilder.getInstance(), true);
+        } else {
+            return new IteratingSMILESReader(tmpReader, SilentChemObjectBuilder.getInstance());
+        }
+    }
+    //
+    /**
+     * Processes all molecules of the input file (up to the molecule limit) and writes their images.
+     * Molecules that cannot be processed are logged and counted as failed; they do not stop the run.
+     *
+     * @return throughput report
+     * @throws IOException if the input file cannot be read, the output folder cannot be created, or the calling
+     * thread is interrupted
+     */
+    public Report run() throws IOException {
+        if (!this.outputFolder.isDirectory() && !this.outputFolder.mkdirs()) {
+            throw new IOException("Output folder " + this.outputFolder + " could not be created.");
+        }
+        long tmpStartTime = System.nanoTime();
+        AtomicLong tmpProcessedCount = new AtomicLong();
+        AtomicLong tmpFailedCount = new AtomicLong();
+        AtomicLong tmpImageCount = new AtomicLong();
+        BlockingQueue<MoleculeRecord> tmpQueue = new ArrayBlockingQueue<>(2 * this.threadCount);
+        AtomicInteger tmpThreadCounter = new AtomicInteger(0);
+        ExecutorService tmpWorkers = Executors.newFixedThreadPool(this.threadCount, aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, "ScaffoldGraphBatchTool-worker-" + tmpThreadCounter.incrementAndGet());
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        });
+        List<Future<?>> tmpFutures = new ArrayList<>(this.threadCount);
+        long tmpReadCount = 0;
+        try {
+            for (int tmpIndex = 0; tmpIndex < this.threadCount; tmpIndex++) {
+                tmpFutures.add(tmpWorkers.submit(() -> {
+                    this.work(tmpQueue, tmpProcessedCount, tmpFailedCount, tmpImageCount);
+                    return null;
+                }));
+            }
+            try (IIteratingChemObjectReader<IAtomContainer> tmpReader = ScaffoldGraphBatchTool.openReader(this.inputFile)) {
+                while (tmpReadCount < this.moleculeLimit && tmpReader.hasNext()) {
+                    IAtomContainer tmpMolecule = tmpReader.next();
+                    this.enqueue(tmpQueue, new MoleculeRecord(tmpReadCount, tmpMolecule), tmpFutures);
+                    tmpReadCount++;
+                }
+            }
+            for (int tmpIndex = 0; tmpIndex < this.threadCount; tmpIndex++) {
+                this.enqueue(tmpQueue, MoleculeRecord.END_OF_INPUT, tmpFutures);
+            }
+            for (Future<?> tmpFuture : tmpFutures) {
+                tmpFuture.get();
+            }
+        } catch (InterruptedException anInterruptedException) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException tmpException = new InterruptedIOException("Interrupted while processing the input file.");
+            tmpException.initCause(anInterruptedException);
+            throw tmpException;
+        } catch (ExecutionException anExecutionException) {
+            Throwable tmpCause = anExecutionException.getCause();
+            if (tmpCause instanceof Error) {
+                throw (Error) tmpCause;
+            }
+            throw new IOException("A worker failed.", tmpCause);
+        } finally {
+            tmpWorkers.shutdownNow();
+        }
+        return new Report(tmpReadCount, tmpProcessedCount.get(), tmpFailedCount.get(), tmpImageCount.get(),
+                System.nanoTime() - tmpStartTime, this.memoryBudget);
+    }
+    //
+    /**
+     * Puts the given record into the work queue, waiting for a free slot. Fails if a worker has terminated
+     * prematurely, since the queue might never be drained then.
+     *
+     * @param aQueue work queue
+     * @param aRecord record to enqueue
+     * @param aFutures futures of the workers
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if a worker has failed
+     */
+    private void enqueue(BlockingQueue<MoleculeRecord> aQueue, MoleculeRecord aRecord, List<Future<?>> aFutures)
+            throws InterruptedException, ExecutionException
+    {
+        while (!aQueue.offer(aRecord, ScaffoldGraphBatchTool.QUEUE_OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            for (Future<?> tmpFuture : aFutures) {
+                if (tmpFuture.isDone()) {
+                    tmpFuture.get();
+                    throw new ExecutionException("A worker terminated prematurely.", null);
+                }
+            }
+        }
+    }
+    //
+    /**
+     * Worker loop that takes records from the queue and processes them until the end of the input is signalled.
+     *
+     * @param aQueue work queue
+     * @param aProcessedCount counter of successfully processed molecules
+     * @param aFailedCount counter of failed molecules
+     * @param anImageCount counter of written images
+     * @throws InterruptedException if interrupted while waiting for a record
+     */
+    private void work(BlockingQueue<MoleculeRecord> aQueue, AtomicLong aProcessedCount, AtomicLong aFailedCount, AtomicLong anImageCount)
+            throws InterruptedException
+    {
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator(),
+                1, 1, 1, ScaffoldGraphBatchTool.WORKER_PIPELINE_CAPACITY)) {
+            tmpPipeline.setAdaptiveDepictionSizer(new AdaptiveDepictionSizer());
+            tmpPipeline.setMemoryBudget(this.memoryBudget);
+            //the images are deleted after every graph
+            tmpPipeline.setDeleteOnExit(false);
+            MoleculeRecord tmpRecord;
+            while ((tmpRecord = aQueue.take()) != MoleculeRecord.END_OF_INPUT) {
+                try {
+                    anImageCount.addAndGet(this.process(tmpRecord, tmpScaffoldGenerator, tmpPipeline));
+                    aProcessedCount.incrementAndGet();
+                } catch (CDKException | CloneNotSupportedException | IOException | RuntimeException anException) {
+                    if (anException instanceof InterruptedIOException) {
+                        throw new InterruptedException("Interrupted while processing record " + tmpRecord.index() + ".");
+                    }
+                    aFailedCount.incrementAndGet();
+                    ScaffoldGraphBatchTool.LOGGER.log(Level.WARNING, "Unable to process record " + tmpRecord.index() + ".", anException);
+                }
+            }
+        }
+    }
+    //
+    /**
+     * Generates the scaffold graph of the molecule of the given record and writes its images.
+     *
+     * @param aRecord record to process
+     * @param aScaffoldGenerator scaffold generator of the worker
+     * @param aPipeline node depiction pipeline of the worker
+     * @return number of written images
+     * @throws CDKException if the scaffold graph cannot be generated
+     * @throws CloneNotSupportedException if the molecule cannot be cloned by the scaffold generator
+     * @throws IOException if an image cannot be written
+     */
+    private int process(MoleculeRecord aRecord, ScaffoldGenerator aScaffoldGenerator, NodeDepictionPipeline aPipeline)
+            throws CDKException, CloneNotSupportedException, IOException
+    {
+        ScaffoldNodeCollectionBase tmpCollection = this.graphType == GraphType.TREE
+                ? aScaffoldGenerator.generateSchuffenhauerTree(aRecord.molecule())
+                : aScaffoldGenerator.generateScaffoldNetwork(aRecord.molecule());
+        String tmpName = String.format(Locale.ROOT, "%09d", aRecord.index());
+        Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpCollection,
+                this.areNodesLabelled,
+                aPipeline,
+                GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                GraphStreamUtility.createPresizedGraph(tmpName, tmpCollection));
+        int tmpImageCount = 0;
+        try {
+            if (this.imageType == ImageType.GRAPH) {
+                synchronized (GraphStreamUtility.SCREENSHOT_LOCK) {
+                    GraphStreamUtility.screenshotGraphHighQuality(tmpGraph,
+                            new File(this.outputFolder, tmpName + ".png").getAbsolutePath());
+                }
+                tmpImageCount++;
+            } else {
+                File tmpMoleculeFolder = new File(this.outputFolder, tmpName);
+                if (!tmpMoleculeFolder.isDirectory() && !tmpMoleculeFolder.mkdirs()) {
+                    throw new IOException("Folder " + tmpMoleculeFolder + " could not be created.");
+                }
+                for (int tmpNodeIndex = 0; tmpNodeIndex < tmpGraph.getNodeCount(); tmpNodeIndex++) {
+                    File tmpImageFile = GraphStreamUtility.getNodeImageFile(tmpGraph.getNode(tmpNodeIndex));
+                    if (Objects.isNull(tmpImageFile)) {
+                        continue;
+                    }
+                    String tmpExtension = tmpImageFile.getName().substring(tmpImageFile.getName().lastIndexOf('.'));
+                    Files.move(tmpImageFile.toPath(), new File(tmpMoleculeFolder, tmpNodeIndex + tmpExtension).toPath(),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    tmpImageCount++;
+                }
+            }
+        } finally {
+            //the node images are temporary, remove them right away instead of accumulating them until JRE exit
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+        return tmpImageCount;
+    }
+    //
+    /**
+     * Checks whether the given file is an SDF file by its extension.
+     *
+     * @param aFile file to check
+     * @return true for ".sdf", ".sd" and ".mol" files, optionally gzip-compressed
+     */
+    private static boolean isSDFile(File aFile) {
+        String tmpName = ScaffoldGraphBatchTool.getUncompressedName(aFile);
+        return tmpName.endsWith(".sdf") || tmpName.endsWith(".sd") || tmpName.endsWith(".mol");
+    }
+    //
+    /**
+     * Checks whether the given file is a SMILES file by its extension.
+     *
+     * @param aFile file to check
+     * @return true for ".smi" and ".smiles" files, optionally gzip-compressed
+     */
+    private static boolean isSMILESFile(File aFile) {
+        String tmpName = ScaffoldGraphBatchTool.getUncompressedName(aFile);
+        return tmpName.endsWith(".smi") || tmpName.endsWith(".smiles");
+    }
+    //
+    /**
+     * Returns the lower-case name of the given file without a ".gz" extension.
+     *
+     * @param aFile file
+     * @return lower-case name without compression extension
+     */
+    private static String getUncompressedName(File aFile) {
+        String tmpName = aFile.getName().toLowerCase(Locale.ROOT);
+        return tmpName.endsWith(".gz") ? tmpName.substring(0, tmpName.length() - ".gz".length()) : tmpName;
+    }
+    //
+    /**
+     * Molecule read from the input file with its record index.
+     *
+     * @param index record index in the input file, starting at 0
+     * @param molecule read molecule
+     */
+    private record MoleculeRecord(long index, IAtomContainer molecule) {
+        /**
+         * Marker that signals the end of the input to a worker.
+         */
+        private static final MoleculeRecord END_OF_INPUT = new MoleculeRecord(-1L, null);
+    }
+    //
+    /**
+     * Throughput report of a batch run.
+     */
+    public static final class Report {
+        /**
+         * Number of molecules read from the input file.
+         */
+        private final long readCount;
+        //
+        /**
+         * Number of successfully processed molecules.
+         */
+        private final long processedCount;
+        //
+        /**
+         * Number of molecules that could not be processed.
+         */
+        private final long failedCount;
+        //
+        /**
+         * Number of written images.
+         */
+        private final long imageCount;
+        //
+        /**
+         * Wall-clock duration of the run in nanoseconds.
+         */
+        private final long elapsedNanos;
+        //
+        /**
+         * Memory budget of the run, null for no budget.
+         */
+        private final DepictionMemoryBudget memoryBudget;
+        //
+        /**
+         * Peak memory use of the run in bytes as tracked by the memory budget, 0 for no budget.
+         */
+        private final long peakMemoryBytes;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aReadCount number of molecules read from the input file
+         * @param aProcessedCount number of successfully processed molecules
+         * @param aFailedCount number of molecules that could not be processed
+         * @param anImageCount number of written images
+         * @param anElapsedNanos wall-clock duration of the run in nanoseconds
+         * @param aMemoryBudget memory budget of the run or null
+         */
+        Report(long aReadCount, long aProcessedCount, long aFailedCount, long anImageCount, long anElapsedNanos,
+               DepictionMemoryBudget aMemoryBudget)
+        {
+            this.readCount = aReadCount;
+            this.processedCount = aProcessedCount;
+            this.failedCount = aFailedCount;
+            this.imageCount = anImageCount;
+            this.elapsedNanos = anElapsedNanos;
+            this.memoryBudget = aMemoryBudget;
+            this.peakMemoryBytes = Objects.isNull(aMemoryBudget) ? 0L : aMemoryBudget.getPeakBytes();
+        }
+        //
+        /**
+         * Returns the number of molecules read from the input file.
+         *
+         * @return read molecules
+         */
+        public long getReadCount() {
+            return this.readCount;
+        }
+        //
+        /**
+         * Returns the number of successfully processed molecules.
+         *
+         * @return processed molecules
+         */
+        public long getProcessedCount() {
+            return this.processedCount;
+        }
+        //
+        /**
+         * Returns the number of molecules that could not be processed.
+         *
+         * @return failed molecules
+         */
+        public long getFailedCount() {
+            return this.failedCount;
+        }
+        //
+        /**
+         * Returns the number of written images.
+         *
+         * @return written images
+         */
+        public long getImageCount() {
+            return this.imageCount;
+        }
+        //
+        /**
+         * Returns the wall-clock duration of the run in nanoseconds.
+         *
+         * @return elapsed nanoseconds
+         */
+        public long getElapsedNanos() {
+            return this.elapsedNanos;
+        }
+        //
+        /**
+         * Returns the memory budget of the run, e.g. for its throttling and downscaling counts.
+         *
+         * @return memory budget or null if the run had none
+         */
+        public DepictionMemoryBudget getMemoryBudget() {
+            return this.memoryBudget;
+        }
+        //
+        /**
+         * Returns the peak memory use of the images in flight and the graphs being built, as tracked by the memory
+         * budget.
+         *
+         * @return peak bytes, 0 if the run had no memory budget
+         */
+        public long getPeakMemoryBytes() {
+            return this.peakMemoryBytes;
+        }
+        //
+        /**
+         * Returns the number of read molecules per second of wall-clock time.
+         *
+         * @return molecules per second
+         */
+        public double getMoleculesPerSecond() {
+            return this.perSecond(this.readCount);
+        }
+        //
+        /**
+         * Returns the number of written images per second of wall-clock time.
+         *
+         * @return images per second
+         */
+        public double getImagesPerSecond() {
+            return this.perSecond(this.imageCount);
+        }
+        //
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            String tmpReport = String.format(Locale.ROOT,
+                    "Read %d molecules (%d processed, %d failed) and wrote %d images in %.2f s: %.1f molecules/s, %.1f images/s",
+                    this.readCount, this.processedCount, this.failedCount, this.imageCount,
+                    this.elapsedNanos / 1e9, this.getMoleculesPerSecond(), this.getImagesPerSecond());
+            return Objects.isNull(this.memoryBudget) ? tmpReport : tmpReport + System.lineSeparator() + this.memoryBudget;
+        }
+        //
+        /**
+         * Converts the given count into a rate per second of the run duration.
+         *
+         * @param aCount count
+         * @return count per second
+         */
+        private double perSecond(long aCount) {
+            return this.elapsedNanos <= 0L ? 0.0 : aCount / (this.elapsedNanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Difference between two scaffold graphs (scaffold trees or networks), e.g. of two versions of a compound library.
+ * The nodes of both graphs are matched by their canonical SMILES with a hash join: the canonical SMILES of all
+ * nodes are computed in parallel, the nodes of the old graph are put into a hash map by SMILES, and every node of
+ * the new graph is looked up in it. The edges are matched the same way by the indices of their matched end nodes.
+ * <br>The diff merges both graphs into one with the node indices 0 to n - 1 for the n nodes of the new graph (in
+ * the order of its adjacency matrix), followed by the nodes only present in the old graph. Every node and edge is
+ * either added (only in the new graph), removed (only in the old graph), or shared, see {@link Status}, and the
+ * graph created by {@link #generateGraph(boolean, NodeDepictionPipeline, String, Graph, Graph, Graph)} marks them
+ * with the respective style classes.
+ * <br>The adjacency matrices of the scaffold graphs are not used, so that libraries of a million compounds can be
+ * compared.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphDiff {
+    /**
+     * Status of a node or edge in the diff.
+     */
+    public enum Status {
+        /**
+         * Only present in the new scaffold graph.
+         */
+        ADDED,
+        /**
+         * Only present in the old scaffold graph.
+         */
+        REMOVED,
+        /**
+         * Present in both scaffold graphs.
+         */
+        SHARED;
+        //
+        /**
+         * Returns the GraphStream style class of nodes and edges with this status.
+         *
+         * @return style class name
+         */
+        public String getStyleClass() {
+            return switch (this) {
+                case ADDED -> ScaffoldGraphDiff.ADDED_CLASS;
+                case REMOVED -> ScaffoldGraphDiff.REMOVED_CLASS;
+                case SHARED -> ScaffoldGraphDiff.SHARED_CLASS;
+            };
+        }
+    }
+    //
+    /**
+     * GraphStream style class of added nodes and edges.
+     */
+    public static final String ADDED_CLASS = "added";
+    //
+    /**
+     * GraphStream style class of removed nodes and edges.
+     */
+    public static final String REMOVED_CLASS = "removed";
+    //
+    /**
+     * GraphStream style class of shared nodes and edges.
+     */
+    public static final String SHARED_CLASS = "shared";
+    //
+    /**
+     * Default style sheet of diff graphs, the default graph style sheet with added nodes and edges in green and
+     * removed ones in red (with a dashed node border).
+     */
+    public static final String DEFAULT_DIFF_STYLE_SHEET = GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET + " "
+            + "node." + ScaffoldGraphDiff.ADDED_CLASS + " { stroke-mode: plain; stroke-color: #2CA02C; stroke-width: 8px; } "
+            + "node." + ScaffoldGraphDiff.REMOVED_CLASS + " { stroke-mode: dashes; stroke-color: #D62728; stroke-width: 8px; } "
+            + "edge." + ScaffoldGraphDiff.ADDED_CLASS + " { fill-color: #2CA02C; size: 3px; } "
+            + "edge." + ScaffoldGraphDiff.REMOVED_CLASS + " { fill-color: #D62728; size: 3px; }";
+    //
+    /**
+     * Old scaffold graph.
+     */
+    private final ScaffoldNodeCollectionBase oldCollection;
+    //
+    /**
+     * New scaffold graph.
+     */
+    private final ScaffoldNodeCollectionBase newCollection;
+    //
+    /**
+     * Matrix index of the matched node in the old scaffold graph by matrix index in the new scaffold graph, -1 for
+     * added nodes.
+     */
+    private final int[] oldIndices;
+    //
+    /**
+     * Matrix indices of the removed nodes in the old scaffold graph, in the order of their diff indices.
+     */
+    private final int[] removedIndices;
+    //
+    /**
+     * Diff index of the parent node of every edge.
+     */
+    private final int[] edgeParents;
+    //
+    /**
+     * Diff index of the child node of every edge.
+     */
+    private final int[] edgeChildren;
+    //
+    /**
+     * Status of every edge.
+     */
+    private final Status[] edgeStatuses;
+    //
+    /**
+     * Number of shared nodes.
+     */
+    private final int sharedNodeCount;
+    //
+    /**
+     * Private constructor, use {@link #compute(ScaffoldNodeCollectionBase, ScaffoldNodeCollectionBase)}.
+     *
+     * @param anOldCollection old scaffold graph
+     * @param aNewCollection new scaffold graph
+     * @param anOldIndices old matrix index by new matrix index
+     * @param aRemovedIndices old matrix indices of the removed nodes
+     * @param anEdgeParents parent diff index of every edge
+     * @param anEdgeChildren child diff index of every edge
+     * @param anEdgeStatuses status of every edge
+     * @param aSharedNodeCount number of shared nodes
+     */
+    private ScaffoldGraphDiff(ScaffoldNodeCollectionBase anOldCollection,
+                              ScaffoldNodeCollectionBase aNewCollection,
+                              int[] anOldIndices,
+                              int[] aRemovedIndices,
+                              int[] anEdgeParents,
+                              int[] anEdgeChildren,
+                              Status[] anEdgeStatuses,
+                              int aSharedNodeCount)
+    {
+        this.oldCollection = anOldCollection;
+        this.newCollection = aNewCollection;
+        this.oldIndices = anOldIndices;
+        this.removedIndices = aRemovedIndices;
+        this.edgeParents = anEdgeParents;
+        this.edgeChildren = anEdgeChildren;
+        this.edgeStatuses = anEdgeStatuses;
+        this.sharedNodeCount = aSharedNodeCount;
+    }
+    //
+    /**
+     * Computes the difference between the given old and new scaffold graphs. Nodes are matched by their canonical
+     * SMILES, which are computed in parallel.
+     *
+     * @param anOldCollection old scaffold graph (scaffold tree or network)
+     * @param aNewCollection new scaffold graph (scaffold tree or network)
+     * @return diff of the scaffold graphs
+     * @throws NullPointerException if any parameter is null
+     * @throws CDKException if a canonical SMILES cannot be created for a node
+     */
+    public static ScaffoldGraphDiff compute(ScaffoldNodeCollectionBase anOldCollection, ScaffoldNodeCollectionBase aNewCollection)
+            throws NullPointerException, CDKException
+    {
+        Objects.requireNonNull(anOldCollection, "Given old scaffold graph is null.");
+        Objects.requireNonNull(aNewCollection, "Given new scaffold graph is null.");
+        String[] tmpOldSmiles = ScaffoldGraphDiff.createCanonicalSmiles(anOldCollection);
+        String[] tmpNewSmiles = ScaffoldGraphDiff.createCanonicalSmiles(aNewCollection);
+        /*Hash join of the nodes, building on the old and probing with the new graph*/
+        Map<String, Integer> tmpOldIndexMap = new HashMap<>(tmpOldSmiles.length * 2);
+        for (int tmpOldIndex = 0; tmpOldIndex < tmpOldSmiles.length; tmpOldIndex++) {
+            tmpOldIndexMap.putIfAbsent(tmpOldSmiles[tmpOldIndex], tmpOldIndex);
+        }
+        int[] tmpOldIndices = new int[tmpNewSmiles.length];
+        //diff index of every node of the old graph
+        int[] tmpOldToDiff = new int[tmpOldSmiles.length];
+        Arrays.fill(tmpOldToDiff, -1);
+        int tmpSharedNodeCount = 0;
+        for (int tmpNewIndex = 0; tmpNewIndex < tmpNewSmiles.length; tmpNewIndex++) {
+            Integer tmpOldIndex = tmpOldIndexMap.get(tmpNewSmiles[tmpNewIndex]);
+            //a node of the old graph is matched at most once, also if the new graph contains duplicates
+            if (Objects.isNull(tmpOldIndex) || tmpOldToDiff[tmpOldIndex] != -1) {
+                tmpOldIndices[tmpNewIndex] = -1;
+            } else {
+                tmpOldIndices[tmpNewIndex] = tmpOldIndex;
+                tmpOldToDiff[tmpOldIndex] = tmpNewIndex;
+                tmpSharedNodeCount++;
+            }
+        }
+        int[] tmpRemovedIndices = new int[tmpOldSmiles.length - tmpSharedNodeCount];
+        int tmpRemovedCount = 0;
+        for (int tmpOldIndex = 0; tmpOldIndex < tmpOldSmiles.length; tmpOldIndex++) {
+            if (tmpOldToDiff[tmpOldIndex] == -1) {
+                tmpOldToDiff[tmpOldIndex] = tmpNewSmiles.length + tmpRemovedCount;
+                tmpRemovedIndices[tmpRemovedCount++] = tmpOldIndex;
+            }
+        }
+        /*Hash join of the edges by the diff indices of their end nodes*/
+        long[] tmpOldEdges = ScaffoldGraphDiff.getEdgeKeys(anOldCollection, tmpOldToDiff);
+        long[] tmpNewEdges = ScaffoldGraphDiff.getEdgeKeys(aNewCollection, null);
+        Set<Long> tmpOldEdgeSet = new HashSet<>(tmpOldEdges.length * 2);
+        for (long tmpEdge : tmpOldEdges) {
+            tmpOldEdgeSet.add(tmpEdge);
+        }
+        int tmpMaxEdgeCount = tmpOldEdges.length + tmpNewEdges.length;
+        int[] tmpEdgeParents = new int[tmpMaxEdgeCount];
+        int[] tmpEdgeChildren = new int[tmpMaxEdgeCount];
+        Status[] tmpEdgeStatuses = new Status[tmpMaxEdgeCount];
+        int tmpEdgeCount = 0;
+        for (long tmpEdge : tmpNewEdges) {
+            //removing the shared edges leaves the removed ones in the set
+            boolean tmpIsShared = tmpOldEdgeSet.remove(tmpEdge);
+            tmpEdgeParents[tmpEdgeCount] = (int) (tmpEdge >>> Integer.SIZE);
+            tmpEdgeChildren[tmpEdgeCount] = (int) tmpEdge;
+            tmpEdgeStatuses[tmpEdgeCount++] = tmpIsShared ? Status.SHARED : Status.ADDED;
+        }
+        //iterating the array instead of the set keeps the edge order deterministic
+        for (long tmpEdge : tmpOldEdges) {
+            if (tmpOldEdgeSet.contains(tmpEdge)) {
+                tmpEdgeParents[tmpEdgeCount] = (int) (tmpEdge >>> Integer.SIZE);
+                tmpEdgeChildren[tmpEdgeCount] = (int) tmpEdge;
+                tmpEdgeStatuses[tmpEdgeCount++] = Status.REMOVED;
+            }
+        }
+        return new ScaffoldGraphDiff(anOldCollection,
+                aNewCollection,
+                tmpOldIndices,
+                tmpRemovedIndices,
+                Arrays.copyOf(tmpEdgeParents, tmpEdgeCount),
+                Arrays.copyOf(tmpEdgeChildren, tmpEdgeCount),
+                Arrays.copyOf(tmpEdgeStatuses, tmpEdgeCount),
+                tmpSharedNodeCount);
+    }
+    //
+    /**
+     * Returns the number of nodes in the diff, i.e. of the union of both scaffold graphs.
+     *
+     * @return node count
+     */
+    public int getNodeCount() {
+        return this.oldIndices.length + this.removedIndices.length;
+    }
+    //
+    /**
+     * Returns the number of nodes only present in the new scaffold graph.
+     *
+     * @return added node count
+     */
+    public int getAddedNodeCount() {
+        return this.oldIndices.length - this.sharedNodeCount;
+    }
+    //
+    /**
+     * Returns the number of nodes only present in the old scaffold graph.
+     *
+     * @return removed node count
+     */
+    public int getRemovedNodeCount() {
+        return this.removedIndices.length;
+    }
+    //
+    /**
+     * Returns the number of nodes present in both scaffold graphs.
+     *
+     * @return shared node count
+     */
+    public int getSharedNodeCount() {
+        return this.sharedNodeCount;
+    }
+    //
+    /**
+     * Returns the number of edges in the diff, i.e. of the union of both scaffold graphs.
+     *
+     * @return edge count
+     */
+    public int getEdgeCount() {
+        return this.edgeStatuses.length;
+    }
+    //
+    /**
+     * Returns the status of the node with the given diff index.
+     *
+     * @param aNodeIndex diff index of the node
+     * @return node status
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public Status getNodeStatus(int aNodeIndex) throws IndexOutOfBoundsException {
+        Objects.checkIndex(aNodeIndex, this.getNodeCount());
+        if (aNodeIndex >= this.oldIndices.length) {
+            return Status.REMOVED;
+        }
+        return this.oldIndices[aNodeIndex] == -1 ? Status.ADDED : Status.SHARED;
+    }
+    //
+    /**
+     * Returns the scaffold node with the given diff index, taken from the new scaffold graph for added and shared
+     * nodes and from the old scaffold graph for removed nodes. With compact node attributes (see
+     * {@link NodeDepictionPipeline#setNodeAttributesCompact(boolean)}), the nodes of the diff graph need to be
+     * resolved with this method instead of {@link GraphStreamUtility#getScaffoldNode(Node, ScaffoldNodeCollectionBase)}.
+     *
+     * @param aNodeIndex diff index of the node
+     * @return scaffold node
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public ScaffoldNodeBase<IAtomContainer> getScaffoldNode(int aNodeIndex) throws IndexOutOfBoundsException {
+        Objects.checkIndex(aNodeIndex, this.getNodeCount());
+        if (aNodeIndex >= this.oldIndices.length) {
+            return this.oldCollection.getMatrixNode(this.removedIndices[aNodeIndex - this.oldIndices.length]);
+        }
+        return this.newCollection.getMatrixNode(aNodeIndex);
+    }
+    //
+    /**
+     * Returns the status of the edge with the given index, which is also its ID in the diff graph.
+     *
+     * @param anEdgeIndex edge index
+     * @return edge status
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public Status getEdgeStatus(int anEdgeIndex) throws IndexOutOfBoundsException {
+        return this.edgeStatuses[anEdgeIndex];
+    }
+    //
+    /**
+     * Parses the diff into a GraphStream graph, depicting the structures of all nodes.
+     *
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param aPipeline pipeline used for generating the structure images
+     * @param aStyleSheet style sheet property for the graph, e.g. {@link #DEFAULT_DIFF_STYLE_SHEET}
+     * @param aGraph empty GraphStream graph to add the nodes and edges to
+     * @return the given graph, representing the diff
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the style sheet is blank or the graph is not empty
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public Graph generateGraph(boolean areNodesLabelled, NodeDepictionPipeline aPipeline, String aStyleSheet, Graph aGraph)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        return this.generateGraph(areNodesLabelled, aPipeline, aStyleSheet, aGraph, null, null);
+    }
+    //
+    /**
+     * Parses the diff into a GraphStream graph whose nodes and edges get the style class of their status (see
+     * {@link Status#getStyleClass()}). The graph nodes get the diff indices as IDs. Structure images are reused from
+     * the given graphs previously created from the old and new scaffold graph, if they display the respective
+     * structure; only the remaining nodes, usually the changed ones, are depicted with the given pipeline. Shared
+     * nodes take the image from the graph of the new scaffold graph if it has one, else from the other graph.
+     * <br>NOTE: Reused image files are shared with the given graphs, so they must not be deleted while one of the
+     * graphs is in use.
+     *
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param aPipeline pipeline used for generating the structure images
+     * @param aStyleSheet style sheet property for the graph, e.g. {@link #DEFAULT_DIFF_STYLE_SHEET}
+     * @param aGraph empty GraphStream graph to add the nodes and edges to
+     * @param anOldGraph graph created from the complete old scaffold graph whose structure images are reused, or null
+     * @param aNewGraph graph created from the complete new scaffold graph whose structure images are reused, or null
+     * @return the given graph, representing the diff
+     * @throws NullPointerException if the pipeline, style sheet, or graph is null
+     * @throws IllegalArgumentException if the style sheet is blank, the graph is not empty, or a given graph to reuse
+     * images from does not have as many nodes as its scaffold graph
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public Graph generateGraph(boolean areNodesLabelled,
+                               NodeDepictionPipeline aPipeline,
+                               String aStyleSheet,
+                               Graph aGraph,
+                               Graph anOldGraph,
+                               Graph aNewGraph)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
+        Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        if (!Objects.isNull(anOldGraph) && anOldGraph.getNodeCount() != this.oldCollection.getAllNodes().size()) {
+            throw new IllegalArgumentException("Given old graph was not created from the complete old scaffold graph.");
+        }
+        if (!Objects.isNull(aNewGraph) && aNewGraph.getNodeCount() != this.newCollection.getAllNodes().size()) {
+            throw new IllegalArgumentException("Given new graph was not created from the complete new scaffold graph.");
+        }
+        GraphStreamUtility.prepareGraph(aStyleSheet, aGraph);
+        int tmpNodeCount = this.getNodeCount();
+        //nodes without reusable image
+        int[] tmpDepictedIndices = new int[tmpNodeCount];
+        List<IAtomContainer> tmpDepictedMolecules = new ArrayList<>();
+        //read once, so that the whole graph is generated with the same setting
+        boolean tmpAreAttributesCompact = aPipeline.areNodeAttributesCompact();
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            Status tmpStatus = this.getNodeStatus(tmpIndex);
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = this.getScaffoldNode(tmpIndex);
+            int tmpOldIndex = tmpStatus == Status.REMOVED
+                    ? this.removedIndices[tmpIndex - this.oldIndices.length]
+                    : this.oldIndices[tmpIndex];
+            //the collection index of removed nodes refers to the old scaffold graph
+            int tmpCollectionIndex = tmpStatus == Status.REMOVED ? tmpOldIndex : tmpIndex;
+            Node tmpNode = GraphStreamUtility.addScaffoldNode(aGraph, tmpIndex, tmpScaffoldNode, tmpCollectionIndex,
+                    areNodesLabelled, tmpAreAttributesCompact);
+            GraphStreamUtility.addNodeStyleClass(tmpNode, tmpStatus.getStyleClass());
+            Node tmpCachedNode = null;
+            if (tmpStatus != Status.REMOVED && !Objects.isNull(aNewGraph)) {
+                tmpCachedNode = aNewGraph.getNode(tmpIndex);
+            }
+            if ((Objects.isNull(tmpCachedNode) || Objects.isNull(GraphStreamUtility.getNodeImageFile(tmpCachedNode)))
+                    && tmpStatus != Status.ADDED && !Objects.isNull(anOldGraph)) {
+                tmpCachedNode = anOldGraph.getNode(tmpOldIndex);
+            }
+            if (!Objects.isNull(tmpCachedNode) && !Objects.isNull(GraphStreamUtility.getNodeImageFile(tmpCachedNode))) {
+                GraphStreamUtility.copyStructureImage(tmpCachedNode, tmpNode);
+            } else {
+                tmpDepictedIndices[tmpDepictedMolecules.size()] = tmpIndex;
+                tmpDepictedMolecules.add(tmpScaffoldNode.getMolecule());
+            }
+        }
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < this.edgeStatuses.length; tmpEdgeIndex++) {
+            Edge tmpEdge = aGraph.addEdge(String.valueOf(tmpEdgeIndex), this.edgeParents[tmpEdgeIndex], this.edgeChildren[tmpEdgeIndex]);
+            tmpEdge.setAttribute("ui.class", this.edgeStatuses[tmpEdgeIndex].getStyleClass());
+        }
+        GraphStreamUtility.addStructureImages(aGraph,
+                Arrays.copyOf(tmpDepictedIndices, tmpDepictedMolecules.size()),
+                tmpDepictedMolecules,
+                aPipeline,
+                tmpAreAttributesCompact);
+        //size classes of reused images
+        GraphStreamUtility.addNodeSizeStyleRules(aGraph);
+        return aGraph;
+    }
+    //
+    /**
+     * Creates the canonical SMILES of all nodes of the given scaffold graph in parallel.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network
+     * @return canonical SMILES by matrix index
+     * @throws CDKException if a canonical SMILES cannot be created for a node
+     */
+    private static String[] createCanonicalSmiles(ScaffoldNodeCollectionBase aScaffoldNodeCollection) throws CDKException {
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        String[] tmpSmilesArray = new String[tmpNodeCount];
+        Map<Integer, CDKException> tmpExceptions = new ConcurrentHashMap<>();
+        IntStream.range(0, tmpNodeCount).parallel().forEach(aIndex -> {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(aIndex);
+            try {
+                tmpSmilesArray[aIndex] = ScaffoldGraphIndex.createCanonicalSmiles(tmpNode.getMolecule());
+            } catch (CDKException aCDKException) {
+                tmpExceptions.put(aIndex, aCDKException);
+            }
+        });
+        if (!tmpExceptions.isEmpty()) {
+            Map.Entry<Integer, CDKException> tmpEntry = tmpExceptions.entrySet().iterator().next();
+            throw new CDKException("Unable to create SMILES of node at index " + tmpEntry.getKey(), tmpEntry.getValue());
+        }
+        return tmpSmilesArray;
+    }
+    //
+    /**
+     * Returns the parent-child edges of the given scaffold graph, each encoded as the diff index of the parent in
+     * the upper and the diff index of the child in the lower 32 bits.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network
+     * @param aDiffIndices diff index by matrix index or null if both are equal
+     * @return encoded edges
+     */
+    private static long[] getEdgeKeys(ScaffoldNodeCollectionBase aScaffoldNodeCollection, int[] aDiffIndices) {
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(aScaffoldNodeCollection);
+        int tmpNodeCount = tmpIndexMap.size();
+        int tmpEdgeCount = 0;
+        List<List<ScaffoldNodeBase<IAtomContainer>>> tmpChildNodes = new ArrayList<>(tmpNodeCount);
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+            tmpChildNodes.add(tmpNode.getChildren());
+            tmpEdgeCount += tmpChildNodes.get(tmpIndex).size();
+        }
+        long[] tmpEdges = new long[tmpEdgeCount];
+        int tmpEdgeIndex = 0;
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            long tmpParent = Objects.isNull(aDiffIndices) ? tmpIndex : aDiffIndices[tmpIndex];
+            for (ScaffoldNodeBase<IAtomContainer> tmpChild : tmpChildNodes.get(tmpIndex)) {
+                int tmpChildIndex = tmpIndexMap.get(tmpChild);
+                long tmpChildDiffIndex = Objects.isNull(aDiffIndices) ? tmpChildIndex : aDiffIndices[tmpChildIndex];
+                tmpEdges[tmpEdgeIndex++] = (tmpParent << Integer.SIZE) | tmpChildDiffIndex;
+            }
+        }
+        return tmpEdges;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Optional edge reduction stage for GraphStream graphs created from scaffold graphs, meant for dense scaffold
+ * networks where every child scaffold is linked to all its parents and drawing the edges dominates render time and
+ * clutter. The reduction removes edges from the given graph, the nodes stay untouched. Parent and child of an edge
+ * are distinguished by the scaffold levels of its nodes.
+ * <br>Note that in scaffold networks and trees created by cdk-scaffold, a parent scaffold always has one ring less
+ * than its child, i.e. all edges connect adjacent levels and none is implied by a longer path. The
+ * {@link Mode#TRANSITIVE} and {@link Mode#ADJACENT_LEVELS} reductions therefore only take effect on graphs that were
+ * extended or combined otherwise, while {@link Mode#PRIMARY_PARENT} thins out every scaffold network.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphEdgeReducer {
+    /**
+     * Edge reduction modes.
+     */
+    public enum Mode {
+        /**
+         * Transitive reduction, removes every edge whose child can also be reached from its parent via a longer path
+         * of parent-child edges.
+         */
+        TRANSITIVE,
+        /**
+         * Keeps only the edges between nodes on adjacent scaffold levels.
+         */
+        ADJACENT_LEVELS,
+        /**
+         * Keeps only one edge per child node, the one to its parent with the smallest node index, turning a scaffold
+         * network into a forest.
+         */
+        PRIMARY_PARENT
+    }
+    //
+    /**
+     * Private constructor, the class only has static methods.
+     */
+    private ScaffoldGraphEdgeReducer() {
+    }
+    //
+    /**
+     * Removes edges from the given graph according to the given reduction mode.
+     *
+     * @param aGraph graph created from the given scaffold graph by one of the graph generation methods of
+     *               {@link GraphStreamUtility}
+     * @param aScaffoldNodeCollection scaffold tree or network the graph was created from
+     * @param aMode reduction mode
+     * @return number of removed edges
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if a graph node does not represent a node of the given scaffold graph
+     */
+    public static int reduceEdges(Graph aGraph, ScaffoldNodeCollectionBase aScaffoldNodeCollection, Mode aMode)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Objects.requireNonNull(aMode, "Given reduction mode is null.");
+        int[] tmpLevels = ScaffoldGraphEdgeReducer.getLevels(aGraph, aScaffoldNodeCollection);
+        //parent and child node index of every edge, the edges are collected first to remove them afterwards
+        List<Edge> tmpEdges = aGraph.edges().toList();
+        int[] tmpParents = new int[tmpEdges.size()];
+        int[] tmpChildren = new int[tmpEdges.size()];
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < tmpEdges.size(); tmpEdgeIndex++) {
+            Edge tmpEdge = tmpEdges.get(tmpEdgeIndex);
+            int tmpNode0 = tmpEdge.getNode0().getIndex();
+            int tmpNode1 = tmpEdge.getNode1().getIndex();
+            boolean tmpIsNode0Parent = tmpLevels[tmpNode0] < tmpLevels[tmpNode1]
+                    || (tmpLevels[tmpNode0] == tmpLevels[tmpNode1] && tmpNode0 < tmpNode1);
+            tmpParents[tmpEdgeIndex] = tmpIsNode0Parent ? tmpNode0 : tmpNode1;
+            tmpChildren[tmpEdgeIndex] = tmpIsNode0Parent ? tmpNode1 : tmpNode0;
+        }
+        boolean[] tmpIsRemoved = switch (aMode) {
+            case TRANSITIVE -> ScaffoldGraphEdgeReducer.findTransitiveEdges(tmpLevels, tmpParents, tmpChildren);
+            case ADJACENT_LEVELS -> ScaffoldGraphEdgeReducer.findNonAdjacentEdges(tmpLevels, tmpParents, tmpChildren);
+            case PRIMARY_PARENT -> ScaffoldGraphEdgeReducer.findSecondaryParentEdges(tmpLevels.length, tmpParents, tmpChildren);
+        };
+        int tmpRemovedCount = 0;
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < tmpEdges.size(); tmpEdgeIndex++) {
+            if (tmpIsRemoved[tmpEdgeIndex]) {
+                aGraph.removeEdge(tmpEdges.get(tmpEdgeIndex));
+                tmpRemovedCount++;
+            }
+        }
+        return tmpRemovedCount;
+    }
+    //
+    /**
+     * Returns the scaffold level of every graph node.
+     *
+     * @param aGraph graph created from the given scaffold graph
+     * @param aScaffoldNodeCollection scaffold tree or network the graph was created from
+     * @return levels by graph node index
+     * @throws IllegalArgumentException if a graph node does not represent a scaffold node
+     */
+    static int[] getLevels(Graph aGraph, ScaffoldNodeCollectionBase aScaffoldNodeCollection) throws IllegalArgumentException {
+        int[] tmpLevels = new int[aGraph.getNodeCount()];
+        for (int tmpIndex = 0; tmpIndex < tmpLevels.length; tmpIndex++) {
+            Node tmpNode = aGraph.getNode(tmpIndex);
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = GraphStreamUtility.getScaffoldNode(tmpNode, aScaffoldNodeCollection);
+            if (Objects.isNull(tmpScaffoldNode)) {
+                throw new IllegalArgumentException("Graph node " + tmpNode.getId() + " does not represent a scaffold node.");
+            }
+            tmpLevels[tmpIndex] = tmpScaffoldNode.getLevel();
+        }
+        return tmpLevels;
+    }
+    //
+    /**
+     * Finds the edges whose child can also be reached from their parent via a longer path. Since the levels
+     * increase along every path from parent to child, the search from a parent only follows nodes on levels above
+     * the level of the child.
+     *
+     * @param aLevels levels by node index
+     * @param aParents parent node index of every edge
+     * @param aChildren child node index of every edge
+     * @return whether each edge is removed
+     */
+    private static boolean[] findTransitiveEdges(int[] aLevels, int[] aParents, int[] aChildren) {
+        int[][] tmpChildLists = ScaffoldGraphEdgeReducer.getChildLists(aLevels.length, aParents, aChildren);
+        boolean[] tmpIsRemoved = new boolean[aParents.length];
+        //visit marks, compared with the edge index + 1 to avoid clearing the array for every search
+        int[] tmpVisitMarks = new int[aLevels.length];
+        int[] tmpStack = new int[aLevels.length];
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < aParents.length; tmpEdgeIndex++) {
+            int tmpParent = aParents[tmpEdgeIndex];
+            int tmpChild = aChildren[tmpEdgeIndex];
+            int tmpMark = tmpEdgeIndex + 1;
+            int tmpStackSize = 0;
+            for (int tmpNeighbour : tmpChildLists[tmpParent]) {
+                if (tmpNeighbour != tmpChild && aLevels[tmpNeighbour] < aLevels[tmpChild] && tmpVisitMarks[tmpNeighbour] != tmpMark) {
+                    tmpVisitMarks[tmpNeighbour] = tmpMark;
+                    tmpStack[tmpStackSize++] = tmpNeighbour;
+                }
+            }
+            while (tmpStackSize > 0 && !tmpIsRemoved[tmpEdgeIndex]) {
+                int tmpCurrent = tmpStack[--tmpStackSize];
+                for (int tmpNeighbour : tmpChildLists[tmpCurrent]) {
+                    if (tmpNeighbour == tmpChild) {
+                        tmpIsRemoved[tmpEdgeIndex] = true;
+                        break;
+                    }
+                    if (aLevels[tmpNeighbour] < aLevels[tmpChild] && tmpVisitMarks[tmpNeighbour] != tmpMark) {
+                        tmpVisitMarks[tmpNeighbour] = tmpMark;
+                        tmpStack[tmpStackSize++] = tmpNeighbour;
+                    }
+                }
+            }
+        }
+        return tmpIsRemoved;
+    }
+    //
+    /**
+     * Finds the edges between nodes that are not on adjacent levels.
+     *
+     * @param aLevels levels by node index
+     * @param aParents parent node index of every edge
+     * @param aChildren child node index of every edge
+     * @return whether each edge is removed
+     */
+    private static boolean[] findNonAdjacentEdges(int[] aLevels, int[] aParents, int[] aChildren) {
+        boolean[] tmpIsRemoved = new boolean[aParents.length];
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < aParents.length; tmpEdgeIndex++) {
+            tmpIsRemoved[tmpEdgeIndex] = aLevels[aChildren[tmpEdgeIndex]] - aLevels[aParents[tmpEdgeIndex]] != 1;
+        }
+        return tmpIsRemoved;
+    }
+    //
+    /**
+     * Finds all edges of every child node except the one to its parent with the smallest node index.
+     *
+     * @param aNodeCount number of nodes
+     * @param aParents parent node index of every edge
+     * @param aChildren child node index of every edge
+     * @return whether each edge is removed
+     */
+    private static boolean[] findSecondaryParentEdges(int aNodeCount, int[] aParents, int[] aChildren) {
+        int[] tmpPrimaryParents = new int[aNodeCount];
+        Arrays.fill(tmpPrimaryParents, Integer.MAX_VALUE);
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < aParents.length; tmpEdgeIndex++) {
+            int tmpChild = aChildren[tmpEdgeIndex];
+            tmpPrimaryParents[tmpChild] = Math.min(tmpPrimaryParents[tmpChild], aParents[tmpEdgeIndex]);
+        }
+        boolean[] tmpIsRemoved = new boolean[aParents.length];
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < aParents.length; tmpEdgeIndex++) {
+            tmpIsRemoved[tmpEdgeIndex] = aParents[tmpEdgeIndex] != tmpPrimaryParents[aChildren[tmpEdgeIndex]];
+        }
+        return tmpIsRemoved;
+    }
+    //
+    /**
+     * Collects the child node indices of every node.
+     *
+     * @param aNodeCount number of nodes
+     * @param aParents parent node index of every edge
+     * @param aChildren child node index of every edge
+     * @return child indices by node index
+     */
+    private static int[][] getChildLists(int aNodeCount, int[] aParents, int[] aChildren) {
+        List<List<Integer>> tmpChildLists = new ArrayList<>(aNodeCount);
+        for (int tmpIndex = 0; tmpIndex < aNodeCount; tmpIndex++) {
+            tmpChildLists.add(new ArrayList<>(2));
+        }
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < aParents.length; tmpEdgeIndex++) {
+            tmpChildLists.get(aParents[tmpEdgeIndex]).add(aChildren[tmpEdgeIndex]);
+        }
+        int[][] tmpChildArrays = new int[aNodeCount][];
+        for (int tmpIndex = 0; tmpIndex < aNodeCount; tmpIndex++) {
+            tmpChildArrays[tmpIndex] = tmpChildLists.get(tmpIndex).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return tmpChildArrays;
+    }
+}
@@ -0,0 +1,647 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.stream.file.FileSinkDGS;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Exports scaffold graphs (scaffold trees and networks) to GraphML, GEXF, or DGS files for external tools like
+ * Gephi and Cytoscape. Every node gets its scaffold level, canonical SMILES, and the path of its structure image
+ * relative to the graph file as attributes, and every edge points from the parent to the child scaffold.
+ * The structure images are written into a folder next to the graph file, see {@link #getImageFolder(File)}, with the
+ * node index as file name, so that the references stay valid when the graph file and image folder are moved together.
+ * <br>The export runs in a single pass without building a GraphStream graph or holding the images in memory: the
+ * structures are depicted in parallel by a {@link NodeDepictionPipeline} and every node is written to the graph file
+ * as soon as its image is finished, followed by the edges. The graph file is written as a stream, DGS with the
+ * GraphStream DGS file sink, GraphML and GEXF with a StAX writer (the GraphStream GraphML and GEXF sinks serialise
+ * complete in-memory graphs only).
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphExporter {
+    /**
+     * Supported graph file formats.
+     */
+    public enum Format {
+        /**
+         * GraphML, e.g. for Cytoscape.
+         */
+        GRAPHML("graphml"),
+        /**
+         * GEXF, e.g. for Gephi.
+         */
+        GEXF("gexf"),
+        /**
+         * GraphStream DGS.
+         */
+        DGS("dgs");
+        //
+        /**
+         * File extension of the format, without dot.
+         */
+        private final String fileExtension;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aFileExtension file extension of the format, without dot
+         */
+        Format(String aFileExtension) {
+            this.fileExtension = aFileExtension;
+        }
+        //
+        /**
+         * Returns the file extension of the format, without dot.
+         *
+         * @return file extension
+         */
+        public String getFileExtension() {
+            return this.fileExtension;
+        }
+    }
+    //
+    /**
+     * Name of the node attribute holding the scaffold level.
+     */
+    public static final String NODE_ATTRIBUTE_LEVEL = "level";
+    //
+    /**
+     * Name of the node attribute holding the canonical SMILES of the scaffold.
+     */
+    public static final String NODE_ATTRIBUTE_SMILES = "smiles";
+    //
+    /**
+     * Name of the node attribute holding the path of the structure image relative to the graph file.
+     */
+    public static final String NODE_ATTRIBUTE_IMAGE = "image";
+    //
+    /**
+     * Suffix appended to the graph file name without extension to name the image folder.
+     */
+    public static final String IMAGE_FOLDER_SUFFIX = "-images";
+    //
+    /**
+     * Pipeline used for generating the structure images.
+     */
+    private final NodeDepictionPipeline pipeline;
+    //
+    /**
+     * Constructor.
+     *
+     * @param aPipeline pipeline used for generating the structure images, not closed by the exporter
+     * @throws NullPointerException if the given pipeline is null
+     */
+    public ScaffoldGraphExporter(NodeDepictionPipeline aPipeline) throws NullPointerException {
+        this.pipeline = Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
+    }
+    //
+    /**
+     * Returns the folder the structure images of the given graph file are written into, named like the graph file
+     * without extension plus {@link #IMAGE_FOLDER_SUFFIX}, in the same directory.
+     *
+     * @param aGraphFile graph file
+     * @return image folder
+     * @throws NullPointerException if the given file is null
+     */
+    public static File getImageFolder(File aGraphFile) throws NullPointerException {
+        Objects.requireNonNull(aGraphFile, "Given graph file is null.");
+        String tmpName = aGraphFile.getName();
+        int tmpDotIndex = tmpName.lastIndexOf('.');
+        String tmpBaseName = tmpDotIndex > 0 ? tmpName.substring(0, tmpDotIndex) : tmpName;
+        return new File(aGraphFile.getAbsoluteFile().getParentFile(), tmpBaseName + ScaffoldGraphExporter.IMAGE_FOLDER_SUFFIX);
+    }
+    //
+    /**
+     * Exports the given scaffold graph into the given file in the given format and writes the structure images into
+     * the image folder of the file (see {@link #getImageFolder(File)}). Existing files are overwritten. Nodes whose
+     * structure cannot be depicted are exported without image attribute. While exporting, the pipeline does not
+     * register the image files for deletion on JRE exit (see {@link NodeDepictionPipeline#setDeleteOnExit(boolean)}),
+     * since the exported images are kept; its setting is restored afterwards, so the pipeline must not be used by
+     * other threads during the export.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) to export
+     * @param aFormat format of the graph file
+     * @param aGraphFile graph file to write
+     * @throws NullPointerException if any parameter is null
+     * @throws IOException if the graph file or an image cannot be written
+     */
+    public void export(ScaffoldNodeCollectionBase aScaffoldNodeCollection, Format aFormat, File aGraphFile)
+            throws NullPointerException, IOException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        Objects.requireNonNull(aFormat, "Given format is null.");
+        Objects.requireNonNull(aGraphFile, "Given graph file is null.");
+        File tmpImageFolder = ScaffoldGraphExporter.getImageFolder(aGraphFile);
+        if (!tmpImageFolder.isDirectory() && !tmpImageFolder.mkdirs()) {
+            throw new IOException("Folder " + tmpImageFolder + " could not be created.");
+        }
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(aScaffoldNodeCollection);
+        int tmpNodeCount = tmpIndexMap.size();
+        try (OutputStream tmpOutputStream = new BufferedOutputStream(new FileOutputStream(aGraphFile));
+             RecordWriter tmpWriter = ScaffoldGraphExporter.createRecordWriter(aFormat, tmpOutputStream)) {
+            tmpWriter.begin();
+            //the images are written into the image folder directly, so that moving them is a cheap rename
+            boolean tmpWasDeleteOnExit = this.pipeline.isDeleteOnExit();
+            this.pipeline.setDeleteOnExit(false);
+            try {
+                this.pipeline.depictNodes(tmpNodeCount,
+                        anIndex -> (IAtomContainer) aScaffoldNodeCollection.getMatrixNode(anIndex).getMolecule(),
+                        tmpImageFolder,
+                        aResult -> {
+                            try {
+                                this.writeNode(aScaffoldNodeCollection, aResult, tmpImageFolder, tmpWriter);
+                            } catch (IOException anIOException) {
+                                throw new UncheckedIOException(anIOException);
+                            }
+                        });
+            } catch (UncheckedIOException anUncheckedIOException) {
+                throw anUncheckedIOException.getCause();
+            } finally {
+                this.pipeline.setDeleteOnExit(tmpWasDeleteOnExit);
+            }
+            int tmpEdgeCount = 0;
+            for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+                ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+                List<ScaffoldNodeBase<IAtomContainer>> tmpChildren = tmpNode.getChildren();
+                for (ScaffoldNodeBase<IAtomContainer> tmpChild : tmpChildren) {
+                    tmpWriter.writeEdge(tmpEdgeCount++, tmpIndex, tmpIndexMap.get(tmpChild));
+                }
+            }
+            tmpWriter.end();
+        }
+    }
+    //
+    /**
+     * Moves the image of the given depiction result to its stable name in the image folder and writes the node.
+     *
+     * @param aScaffoldNodeCollection exported scaffold graph
+     * @param aResult depiction result of the node
+     * @param anImageFolder image folder
+     * @param aWriter writer of the graph file
+     * @throws IOException if the image cannot be moved or the node cannot be written
+     */
+    private void writeNode(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                           NodeDepictionPipeline.Result aResult,
+                           File anImageFolder,
+                           RecordWriter aWriter)
+            throws IOException
+    {
+        int tmpIndex = aResult.getIndex();
+        ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+        String tmpImagePath = null;
+        if (Objects.isNull(aResult.getImageFile())) {
+            Logger.getLogger(ScaffoldGraphExporter.class.getName()).log(Level.WARNING,
+                    "Unable to depict structure at index " + tmpIndex + ". Exporting node without image.");
+        } else {
+            String tmpImageName = tmpIndex + "." + this.pipeline.getImageEncoder().getFileExtension();
+            Files.move(aResult.getImageFile().toPath(), new File(anImageFolder, tmpImageName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            //always with slash, also on Windows, since the path is read by other tools
+            tmpImagePath = anImageFolder.getName() + "/" + tmpImageName;
+        }
+        String tmpSmiles = null;
+        try {
+            tmpSmiles = ScaffoldGraphIndex.createCanonicalSmiles(tmpNode.getMolecule());
+        } catch (CDKException aCDKException) {
+            Logger.getLogger(ScaffoldGraphExporter.class.getName()).log(Level.WARNING,
+                    "Unable to create SMILES of node at index " + tmpIndex + ". Exporting node without SMILES.", aCDKException);
+        }
+        aWriter.writeNode(tmpIndex, tmpNode.getLevel(), tmpSmiles, tmpImagePath);
+    }
+    //
+    /**
+     * Creates the record writer for the given format.
+     *
+     * @param aFormat format of the graph file
+     * @param anOutputStream stream of the graph file
+     * @return record writer
+     * @throws IOException if the writer cannot be created
+     */
+    private static RecordWriter createRecordWriter(Format aFormat, OutputStream anOutputStream) throws IOException {
+        return switch (aFormat) {
+            case GRAPHML -> new GraphMLRecordWriter(anOutputStream);
+            case GEXF -> new GEXFRecordWriter(anOutputStream);
+            case DGS -> new DGSRecordWriter(anOutputStream);
+        };
+    }
+    //
+    /**
+     * Writes the nodes and edges of a scaffold graph to a graph file one by one, all nodes before the first edge.
+     * Closing the writer does not close the underlying stream.
+     */
+    private interface RecordWriter extends Closeable {
+        /**
+         * Writes the beginning of the graph file.
+         *
+         * @throws IOException if writing fails
+         */
+        void begin() throws IOException;
+        //
+        /**
+         * Writes a node.
+         *
+         * @param anIndex node index, used as ID
+         * @param aLevel scaffold level
+         * @param aSmiles canonical SMILES or null
+         * @param anImagePath image path relative to the graph file or null
+         * @throws IOException if writing fails
+         */
+        void writeNode(int anIndex, int aLevel, String aSmiles, String anImagePath) throws IOException;
+        //
+        /**
+         * Writes a directed edge from a parent to a child node.
+         *
+         * @param anEdgeIndex edge index, used as ID
+         * @param aParentIndex index of the parent node
+         * @param aChildIndex index of the child node
+         * @throws IOException if writing fails
+         */
+        void writeEdge(int anEdgeIndex, int aParentIndex, int aChildIndex) throws IOException;
+        //
+        /**
+         * Writes the end of the graph file.
+         *
+         * @throws IOException if writing fails
+         */
+        void end() throws IOException;
+    }
+    //
+    /**
+     * Base class of the XML record writers.
+     */
+    private abstract static class XMLRecordWriter implements RecordWriter {
+        /**
+         * StAX writer of the graph file.
+         */
+        protected final XMLStreamWriter writer;
+        //
+        /**
+         * Constructor.
+         *
+         * @param anOutputStream stream of the graph file
+         * @throws IOException if the XML writer cannot be created
+         */
+        XMLRecordWriter(OutputStream anOutputStream) throws IOException {
+            try {
+                this.writer = XMLOutputFactory.newFactory().createXMLStreamWriter(anOutputStream, StandardCharsets.UTF_8.name());
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException("Unable to create XML writer.", anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void close() throws IOException {
+            try {
+                this.writer.close();
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+    }
+    //
+    /**
+     * Writes GraphML files.
+     */
+    private static class GraphMLRecordWriter extends XMLRecordWriter {
+        /**
+         * Constructor.
+         *
+         * @param anOutputStream stream of the graph file
+         * @throws IOException if the XML writer cannot be created
+         */
+        GraphMLRecordWriter(OutputStream anOutputStream) throws IOException {
+            super(anOutputStream);
+        }
+        //
+        @Override
+        public void begin() throws IOException {
+            try {
+                this.writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                this.writer.writeStartElement("graphml");
+                this.writer.writeDefaultNamespace("http://graphml.graphdrawing.org/xmlns");
+                this.writeKey(ScaffoldGraphExporter.NODE_ATTRIBUTE_LEVEL, "int");
+                this.writeKey(ScaffoldGraphExporter.NODE_ATTRIBUTE_SMILES, "string");
+                this.writeKey(ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE, "string");
+                this.writer.writeStartElement("graph");
+                this.writer.writeAttribute("id", "G");
+                this.writer.writeAttribute("edgedefault", "directed");
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void writeNode(int anIndex, int aLevel, String aSmiles, String anImagePath) throws IOException {
+            try {
+                this.writer.writeStartElement("node");
+                this.writer.writeAttribute("id", String.valueOf(anIndex));
+                this.writeData(ScaffoldGraphExporter.NODE_ATTRIBUTE_LEVEL, String.valueOf(aLevel));
+                this.writeData(ScaffoldGraphExporter.NODE_ATTRIBUTE_SMILES, aSmiles);
+                this.writeData(ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE, anImagePath);
+                this.writer.writeEndElement();
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void writeEdge(int anEdgeIndex, int aParentIndex, int aChildIndex) throws IOException {
+            try {
+                this.writer.writeEmptyElement("edge");
+                this.writer.writeAttribute("id", String.valueOf(anEdgeIndex));
+                this.writer.writeAttribute("source", String.valueOf(aParentIndex));
+                this.writer.writeAttribute("target", String.valueOf(aChildIndex));
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void end() throws IOException {
+            try {
+                //closes graph and graphml
+                this.writer.writeEndDocument();
+                this.writer.flush();
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        /**
+         * Declares a node attribute.
+         *
+         * @param aName attribute name, also used as key ID
+         * @param aType GraphML attribute type
+         * @throws XMLStreamException if writing fails
+         */
+        private void writeKey(String aName, String aType) throws XMLStreamException {
+            this.writer.writeEmptyElement("key");
+            this.writer.writeAttribute("id", aName);
+            this.writer.writeAttribute("for", "node");
+            this.writer.writeAttribute("attr.name", aName);
+            this.writer.writeAttribute("attr.type", aType);
+        }
+        //
+        /**
+         * Writes a node attribute value, nothing if it is null.
+         *
+         * @param aKey key ID of the attribute
+         * @param aValue value or null
+         * @throws XMLStreamException if writing fails
+         */
+        private void writeData(String aKey, String aValue) throws XMLStreamException {
+            if (Objects.isNull(aValue)) {
+                return;
+            }
+            this.writer.writeStartElement("data");
+            this.writer.writeAttribute("key", aKey);
+            this.writer.writeCharacters(aValue);
+            this.writer.writeEndElement();
+        }
+    }
+    //
+    /**
+     * Writes GEXF 1.2 files.
+     */
+    private static class GEXFRecordWriter extends XMLRecordWriter {
+        /**
+         * Whether the edges section was started.
+         */
+        private boolean areEdgesStarted;
+        //
+        /**
+         * Constructor.
+         *
+         * @param anOutputStream stream of the graph file
+         * @throws IOException if the XML writer cannot be created
+         */
+        GEXFRecordWriter(OutputStream anOutputStream) throws IOException {
+            super(anOutputStream);
+            this.areEdgesStarted = false;
+        }
+        //
+        @Override
+        public void begin() throws IOException {
+            try {
+                this.writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                this.writer.writeStartElement("gexf");
+                this.writer.writeDefaultNamespace("http://gexf.net/1.2");
+                this.writer.writeAttribute("version", "1.2");
+                this.writer.writeStartElement("graph");
+                this.writer.writeAttribute("defaultedgetype", "directed");
+                this.writer.writeAttribute("mode", "static");
+                this.writer.writeStartElement("attributes");
+                this.writer.writeAttribute("class", "node");
+                this.writeAttributeDeclaration(ScaffoldGraphExporter.NODE_ATTRIBUTE_LEVEL, "integer");
+                this.writeAttributeDeclaration(ScaffoldGraphExporter.NODE_ATTRIBUTE_SMILES, "string");
+                this.writeAttributeDeclaration(ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE, "string");
+                this.writer.writeEndElement();
+                this.writer.writeStartElement("nodes");
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void writeNode(int anIndex, int aLevel, String aSmiles, String anImagePath) throws IOException {
+            try {
+                this.writer.writeStartElement("node");
+                this.writer.writeAttribute("id", String.valueOf(anIndex));
+                this.writer.writeAttribute("label", Objects.isNull(aSmiles) ? String.valueOf(anIndex) : aSmiles);
+                this.writer.writeStartElement("attvalues");
+                this.writeAttributeValue(ScaffoldGraphExporter.NODE_ATTRIBUTE_LEVEL, String.valueOf(aLevel));
+                this.writeAttributeValue(ScaffoldGraphExporter.NODE_ATTRIBUTE_SMILES, aSmiles);
+                this.writeAttributeValue(ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE, anImagePath);
+                this.writer.writeEndElement();
+                this.writer.writeEndElement();
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void writeEdge(int anEdgeIndex, int aParentIndex, int aChildIndex) throws IOException {
+            try {
+                this.startEdges();
+                this.writer.writeEmptyElement("edge");
+                this.writer.writeAttribute("id", String.valueOf(anEdgeIndex));
+                this.writer.writeAttribute("source", String.valueOf(aParentIndex));
+                this.writer.writeAttribute("target", String.valueOf(aChildIndex));
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        @Override
+        public void end() throws IOException {
+            try {
+                //writes an empty edges section for graphs without edges
+                this.startEdges();
+                //closes edges, graph, and gexf
+                this.writer.writeEndDocument();
+                this.writer.flush();
+            } catch (XMLStreamException anXMLStreamException) {
+                throw new IOException(anXMLStreamException);
+            }
+        }
+        //
+        /**
+         * Closes the nodes section and opens the edges section, if not done yet.
+         *
+         * @throws XMLStreamException if writing fails
+         */
+        private void startEdges() throws XMLStreamException {
+            if (!this.areEdgesStarted) {
+                this.areEdgesStarted = true;
+                this.writer.writeEndElement();
+                this.writer.writeStartElement("edges");
+            }
+        }
+        //
+        /**
+         * Declares a node attribute.
+         *
+         * @param aName attribute name, also used as attribute ID
+         * @param aType GEXF attribute type
+         * @throws XMLStreamException if writing fails
+         */
+        private void writeAttributeDeclaration(String aName, String aType) throws XMLStreamException {
+            this.writer.writeEmptyElement("attribute");
+            this.writer.writeAttribute("id", aName);
+            this.writer.writeAttribute("title", aName);
+            this.writer.writeAttribute("type", aType);
+        }
+        //
+        /**
+         * Writes a node attribute value, nothing if it is null.
+         *
+         * @param anAttributeId ID of the attribute
+         * @param aValue value or null
+         * @throws XMLStreamException if writing fails
+         */
+        private void writeAttributeValue(String anAttributeId, String aValue) throws XMLStreamException {
+            if (Objects.isNull(aValue)) {
+                return;
+            }
+            this.writer.writeEmptyElement("attvalue");
+            this.writer.writeAttribute("for", anAttributeId);
+            this.writer.writeAttribute("value", aValue);
+        }
+    }
+    //
+    /**
+     * Writes DGS files by sending the graph events to the GraphStream DGS file sink.
+     */
+    private static class DGSRecordWriter implements RecordWriter {
+        /**
+         * Source ID of the sent graph events.
+         */
+        private static final String SOURCE_ID = ScaffoldGraphExporter.class.getSimpleName();
+        //
+        /**
+         * GraphStream DGS file sink.
+         */
+        private final FileSinkDGS sink;
+        //
+        /**
+         * Stream of the graph file.
+         */
+        private final OutputStream outputStream;
+        //
+        /**
+         * Time ID of the next graph event.
+         */
+        private long timeId;
+        //
+        /**
+         * Constructor.
+         *
+         * @param anOutputStream stream of the graph file
+         */
+        DGSRecordWriter(OutputStream anOutputStream) {
+            this.sink = new FileSinkDGS();
+            this.outputStream = anOutputStream;
+            this.timeId = 0L;
+        }
+        //
+        @Override
+        public void begin() throws IOException {
+            this.sink.begin(this.outputStream);
+        }
+        //
+        @Override
+        public void writeNode(int anIndex, int aLevel, String aSmiles, String anImagePath) {
+            String tmpNodeId = String.valueOf(anIndex);
+            this.sink.nodeAdded(DGSRecordWriter.SOURCE_ID, this.timeId++, tmpNodeId);
+            this.sink.nodeAttributeAdded(DGSRecordWriter.SOURCE_ID, this.timeId++, tmpNodeId,
+                    ScaffoldGraphExporter.NODE_ATTRIBUTE_LEVEL, aLevel);
+            if (!Objects.isNull(aSmiles)) {
+                this.sink.nodeAttributeAdded(DGSRecordWriter.SOURCE_ID, this.timeId++, tmpNodeId,
+                        ScaffoldGraphExporter.NODE_ATTRIBUTE_SMILES, aSmiles);
+            }
+            if (!Objects.isNull(anImagePath)) {
+                this.sink.nodeAttributeAdded(DGSRecordWriter.SOURCE_ID, this.timeId++, tmpNodeId,
+                        ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE, anImagePath);
+            }
+        }
+        //
+        @Override
+        public void writeEdge(int anEdgeIndex, int aParentIndex, int aChildIndex) {
+            this.sink.edgeAdded(DGSRecordWriter.SOURCE_ID, this.timeId++, String.valueOf(anEdgeIndex),
+                    String.valueOf(aParentIndex), String.valueOf(aChildIndex), true);
+        }
+        //
+        @Override
+        public void end() throws IOException {
+            this.sink.end();
+        }
+        //
+        @Override
+        public void close() {
+            //the stream is closed by the caller
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Rendering of multiple scaffold trees, e.g. a Schuffenhauer forest (see ScaffoldGenerator.generateSchuffenhauerForest()),
+ * side by side into a single GraphStream graph, i.e. on one canvas, instead of one graph per tree.
+ * <br>Every tree is laid out in rows by scaffold level (see {@link GraphStreamUtility#computeLevelLayout(org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase)})
+ * and the bounding boxes of the trees are packed onto shelves, the highest trees first, so that the canvas is
+ * roughly square. The per-tree work (layout, parent indices, canonical SMILES) is done for the trees in parallel and
+ * the structures of all trees are depicted in a single run of the depiction pipeline. Scaffolds occurring in
+ * multiple trees, e.g. of forests generated for overlapping data sets, are depicted only once and share their image.
+ * <br>The node positions are set as "xyz" attributes, so the graph should be displayed or screenshot without the
+ * GraphStream auto-layout, e.g. with Graph.display(false) or a FileSinkImages instance with LayoutPolicy.NO_LAYOUT.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphForest {
+    /**
+     * Index of the tree a node belongs to is stored under this property key on the forest graph nodes.
+     */
+    public static final String NODE_ATTRIBUTE_TREE_INDEX = "TreeIndex";
+    //
+    /**
+     * Default gap between two trees in GraphStream graph units, i.e. one empty node slot between them.
+     */
+    public static final double DEFAULT_TREE_GAP = 1.0;
+    //
+    /**
+     * Rendered scaffold trees.
+     */
+    private final List<ScaffoldTree> trees;
+    //
+    /**
+     * Forest index of the first node of every tree, followed by the total node count.
+     */
+    private final int[] nodeOffsets;
+    //
+    /**
+     * X and y coordinate of every node by forest index, interleaved.
+     */
+    private final double[] positions;
+    //
+    /**
+     * Minimum x, minimum y, maximum x, and maximum y coordinate of every tree, each node occupying a unit square
+     * around its position.
+     */
+    private final double[][] treeBounds;
+    //
+    /**
+     * Constructor that lays out the given trees with the default gap between them.
+     *
+     * @param aForest scaffold trees to render
+     * @throws NullPointerException if the given list or one of its trees is null
+     * @throws IllegalArgumentException if the given list is empty or contains an invalid tree
+     */
+    public ScaffoldGraphForest(List<ScaffoldTree> aForest) throws NullPointerException, IllegalArgumentException {
+        this(aForest, ScaffoldGraphForest.DEFAULT_TREE_GAP);
+    }
+    //
+    /**
+     * Constructor that lays out the given trees with the given gap between them.
+     *
+     * @param aForest scaffold trees to render
+     * @param aTreeGap gap between two trees in GraphStream graph units, i.e. the number of empty node slots
+     * @throws NullPointerException if the given list or one of its trees is null
+     * @throws IllegalArgumentException if the given list is empty, contains an invalid tree, or the gap is negative
+     */
+    public ScaffoldGraphForest(List<ScaffoldTree> aForest, double aTreeGap) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aForest, "Given forest is null.");
+        if (aForest.isEmpty()) {
+            throw new IllegalArgumentException("Given forest is empty.");
+        }
+        if (!(aTreeGap >= 0.0) || Double.isInfinite(aTreeGap)) {
+            throw new IllegalArgumentException("Given tree gap must be a finite, non-negative number.");
+        }
+        for (ScaffoldTree tmpTree : aForest) {
+            Objects.requireNonNull(tmpTree, "Given forest contains a null tree.");
+            if (!tmpTree.isValid()) {
+                throw new IllegalArgumentException("Given forest contains an invalid scaffold tree (unconnected or without a single root node).");
+            }
+        }
+        this.trees = List.copyOf(aForest);
+        int tmpTreeCount = this.trees.size();
+        this.nodeOffsets = new int[tmpTreeCount + 1];
+        for (int tmpTreeIndex = 0; tmpTreeIndex < tmpTreeCount; tmpTreeIndex++) {
+            this.nodeOffsets[tmpTreeIndex + 1] = this.nodeOffsets[tmpTreeIndex] + this.trees.get(tmpTreeIndex).getAllNodes().size();
+        }
+        //the level layouts of the trees are independent of each other
+        double[][][] tmpTreeLayouts = new double[tmpTreeCount][][];
+        IntStream.range(0, tmpTreeCount).parallel().forEach(aTreeIndex ->
+                tmpTreeLayouts[aTreeIndex] = GraphStreamUtility.computeLevelLayout(this.trees.get(aTreeIndex)));
+        this.treeBounds = new double[tmpTreeCount][];
+        this.positions = new double[2 * this.nodeOffsets[tmpTreeCount]];
+        this.pack(tmpTreeLayouts, aTreeGap);
+    }
+    //
+    /**
+     * Returns the number of trees.
+     *
+     * @return tree count
+     */
+    public int getTreeCount() {
+        return this.trees.size();
+    }
+    //
+    /**
+     * Returns the tree with the given index.
+     *
+     * @param aTreeIndex index of the tree in the given forest
+     * @return scaffold tree
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public ScaffoldTree getTree(int aTreeIndex) throws IndexOutOfBoundsException {
+        return this.trees.get(aTreeIndex);
+    }
+    //
+    /**
+     * Returns the number of nodes of all trees, i.e. of the forest graph.
+     *
+     * @return node count
+     */
+    public int getNodeCount() {
+        return this.nodeOffsets[this.trees.size()];
+    }
+    //
+    /**
+     * Returns the forest index, i.e. the graph node ID, of the given tree node. The nodes of every tree are
+     * numbered consecutively in the order of their matrix indices, the trees in the given order.
+     *
+     * @param aTreeIndex index of the tree
+     * @param aMatrixIndex matrix index of the node in its tree
+     * @return forest index of the node
+     * @throws IndexOutOfBoundsException if an index is out of range
+     */
+    public int getNodeIndex(int aTreeIndex, int aMatrixIndex) throws IndexOutOfBoundsException {
+        int tmpNodeCount = this.nodeOffsets[aTreeIndex + 1] - this.nodeOffsets[aTreeIndex];
+        return this.nodeOffsets[aTreeIndex] + Objects.checkIndex(aMatrixIndex, tmpNodeCount);
+    }
+    //
+    /**
+     * Returns the index of the tree the node with the given forest index belongs to.
+     *
+     * @param aNodeIndex forest index of the node
+     * @return tree index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public int getTreeIndex(int aNodeIndex) throws IndexOutOfBoundsException {
+        Objects.checkIndex(aNodeIndex, this.getNodeCount());
+        int tmpPosition = Arrays.binarySearch(this.nodeOffsets, aNodeIndex);
+        //every tree has at least one node, so offsets are unique except for the total count
+        return tmpPosition >= 0 ? tmpPosition : -tmpPosition - 2;
+    }
+    //
+    /**
+     * Returns the scaffold node with the given forest index.
+     *
+     * @param aNodeIndex forest index of the node
+     * @return scaffold node
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public ScaffoldNodeBase<IAtomContainer> getScaffoldNode(int aNodeIndex) throws IndexOutOfBoundsException {
+        int tmpTreeIndex = this.getTreeIndex(aNodeIndex);
+        return this.trees.get(tmpTreeIndex).getMatrixNode(aNodeIndex - this.nodeOffsets[tmpTreeIndex]);
+    }
+    //
+    /**
+     * Returns the position of the node with the given forest index on the canvas.
+     *
+     * @param aNodeIndex forest index of the node
+     * @return x and y coordinate in GraphStream graph units
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double[] getPosition(int aNodeIndex) throws IndexOutOfBoundsException {
+        Objects.checkIndex(aNodeIndex, this.getNodeCount());
+        return new double[] {this.positions[2 * aNodeIndex], this.positions[2 * aNodeIndex + 1]};
+    }
+    //
+    /**
+     * Returns the bounding box of the tree with the given index on the canvas, each node occupying a unit square
+     * around its position. The boxes of two trees do not overlap.
+     *
+     * @param aTreeIndex index of the tree
+     * @return minimum x, minimum y, maximum x, and maximum y coordinate in GraphStream graph units
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public double[] getTreeBounds(int aTreeIndex) throws IndexOutOfBoundsException {
+        return this.treeBounds[aTreeIndex].clone();
+    }
+    //
+    /**
+     * Parses all trees into the given GraphStream graph with the forest indices as node IDs, positioned side by side.
+     * Every node carries the index of its tree ({@link #NODE_ATTRIBUTE_TREE_INDEX}) and, with compact node
+     * attributes, its matrix index in that tree, so that {@link GraphStreamUtility#getScaffoldNode(Node, org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase)}
+     * can be used with the respective tree. If requested, the nodes are labelled with their tree index, level, and
+     * matrix index, e.g. "Tree: 2; Level: 1; Index: 4". The canonical SMILES of the nodes are created in parallel
+     * and every distinct scaffold is depicted once; a node whose SMILES cannot be created is depicted on its own.
+     *
+     * @param areNodesLabelled adds a label with tree index, node level, and node index if true
+     * @param aPipeline pipeline used for generating the structure images
+     * @param aStyleSheet style sheet property for the graph, e.g. {@link GraphStreamUtility#DEFAULT_GRAPH_STYLE_SHEET}
+     * @param aGraph empty GraphStream graph to add the nodes and edges to
+     * @return the given graph, representing the forest
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the style sheet is blank or the graph is not empty
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public Graph generateGraph(boolean areNodesLabelled, NodeDepictionPipeline aPipeline, String aStyleSheet, Graph aGraph)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
+        Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        GraphStreamUtility.prepareGraph(aStyleSheet, aGraph);
+        int tmpTreeCount = this.trees.size();
+        int tmpNodeCount = this.getNodeCount();
+        //parent forest index (-1 for the root) and canonical SMILES (null if not available) by forest index
+        int[] tmpParentIndices = new int[tmpNodeCount];
+        String[] tmpSmilesArray = new String[tmpNodeCount];
+        IntStream.range(0, tmpTreeCount).parallel().forEach(aTreeIndex ->
+                this.prepareTree(aTreeIndex, tmpParentIndices, tmpSmilesArray));
+        int[] tmpDepictedIndices = new int[tmpNodeCount];
+        List<IAtomContainer> tmpDepictedMolecules = new ArrayList<>(tmpNodeCount);
+        //forest index of the depicted node showing the same scaffold, -1 for depicted nodes
+        int[] tmpImageSourceIndices = new int[tmpNodeCount];
+        Map<String, Integer> tmpFirstIndexMap = new HashMap<>(tmpNodeCount * 2);
+        int tmpEdgeCount = 0;
+        //read once, so that the whole graph is generated with the same setting
+        boolean tmpAreAttributesCompact = aPipeline.areNodeAttributesCompact();
+        for (int tmpTreeIndex = 0; tmpTreeIndex < tmpTreeCount; tmpTreeIndex++) {
+            ScaffoldTree tmpTree = this.trees.get(tmpTreeIndex);
+            for (int tmpIndex = this.nodeOffsets[tmpTreeIndex]; tmpIndex < this.nodeOffsets[tmpTreeIndex + 1]; tmpIndex++) {
+                int tmpMatrixIndex = tmpIndex - this.nodeOffsets[tmpTreeIndex];
+                ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpTree.getMatrixNode(tmpMatrixIndex);
+                Node tmpNode = GraphStreamUtility.addScaffoldNode(aGraph, tmpIndex, tmpScaffoldNode, tmpMatrixIndex, false,
+                        tmpAreAttributesCompact);
+                tmpNode.setAttribute(ScaffoldGraphForest.NODE_ATTRIBUTE_TREE_INDEX, tmpTreeIndex);
+                tmpNode.setAttribute("xyz", this.positions[2 * tmpIndex], this.positions[2 * tmpIndex + 1], 0.0);
+                if (areNodesLabelled) {
+                    tmpNode.setAttribute("ui.label", "Tree: " + tmpTreeIndex + "; Level: " + tmpScaffoldNode.getLevel()
+                            + "; Index: " + tmpMatrixIndex);
+                }
+                //parents come first in matrix order
+                if (tmpParentIndices[tmpIndex] >= 0) {
+                    aGraph.addEdge(String.valueOf(tmpEdgeCount), tmpParentIndices[tmpIndex], tmpIndex);
+                    tmpEdgeCount++;
+                }
+                Integer tmpFirstIndex = Objects.isNull(tmpSmilesArray[tmpIndex]) ? null
+                        : tmpFirstIndexMap.putIfAbsent(tmpSmilesArray[tmpIndex], tmpIndex);
+                if (Objects.isNull(tmpFirstIndex)) {
+                    tmpImageSourceIndices[tmpIndex] = -1;
+                    tmpDepictedIndices[tmpDepictedMolecules.size()] = tmpIndex;
+                    tmpDepictedMolecules.add(tmpScaffoldNode.getMolecule());
+                } else {
+                    tmpImageSourceIndices[tmpIndex] = tmpFirstIndex;
+                }
+            }
+        }
+        //one pipeline run for the nodes of all trees keeps every stage busy instead of draining it after each tree
+        GraphStreamUtility.addStructureImages(aGraph,
+                Arrays.copyOf(tmpDepictedIndices, tmpDepictedMolecules.size()),
+                tmpDepictedMolecules,
+                aPipeline,
+                tmpAreAttributesCompact);
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            if (tmpImageSourceIndices[tmpIndex] < 0) {
+                continue;
+            }
+            Node tmpSourceNode = aGraph.getNode(tmpImageSourceIndices[tmpIndex]);
+            if (!Objects.isNull(GraphStreamUtility.getNodeImageFile(tmpSourceNode))) {
+                GraphStreamUtility.copyStructureImage(tmpSourceNode, aGraph.getNode(tmpIndex));
+            }
+        }
+        return aGraph;
+    }
+    //
+    /**
+     * Determines the parent forest index and the canonical SMILES of every node of the tree with the given index.
+     * Only writes the array elements of this tree, so that the trees can be prepared concurrently.
+     *
+     * @param aTreeIndex index of the tree
+     * @param aParentIndices receives the forest index of the parent of every node, -1 for the root
+     * @param aSmilesArray receives the canonical SMILES of every node, null if it cannot be created
+     */
+    private void prepareTree(int aTreeIndex, int[] aParentIndices, String[] aSmilesArray) {
+        ScaffoldTree tmpTree = this.trees.get(aTreeIndex);
+        int tmpOffset = this.nodeOffsets[aTreeIndex];
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(tmpTree);
+        for (int tmpIndex = tmpOffset; tmpIndex < this.nodeOffsets[aTreeIndex + 1]; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpTree.getMatrixNode(tmpIndex - tmpOffset);
+            List<ScaffoldNodeBase<IAtomContainer>> tmpParents = GraphStreamUtility.getParents(tmpScaffoldNode);
+            aParentIndices[tmpIndex] = tmpParents.isEmpty() ? -1 : tmpOffset + tmpIndexMap.get(tmpParents.get(0));
+            try {
+                aSmilesArray[tmpIndex] = ScaffoldGraphIndex.createCanonicalSmiles(tmpScaffoldNode.getMolecule());
+            } catch (CDKException aCDKException) {
+                //not shared, depicted on its own
+                aSmilesArray[tmpIndex] = null;
+            }
+        }
+    }
+    //
+    /**
+     * Places the level layouts of the trees on shelves and stores the resulting node positions and tree bounds.
+     * The trees are sorted by descending height (ties by descending width, then by index) and put next to each other
+     * until the shelf width is reached, which is chosen so that the packed canvas is roughly square, but at least as
+     * wide as the widest tree. The first shelf is on top.
+     *
+     * @param aTreeLayouts level layout of every tree, x coordinates centred around 0, y coordinates from 0 to -max level
+     * @param aTreeGap gap between two trees
+     */
+    private void pack(double[][][] aTreeLayouts, double aTreeGap) {
+        int tmpTreeCount = aTreeLayouts.length;
+        //extent of every tree, each node occupying a unit square
+        double[] tmpWidths = new double[tmpTreeCount];
+        double[] tmpHeights = new double[tmpTreeCount];
+        double tmpMaxWidth = 0.0;
+        double tmpTotalArea = 0.0;
+        for (int tmpTreeIndex = 0; tmpTreeIndex < tmpTreeCount; tmpTreeIndex++) {
+            for (double[] tmpPosition : aTreeLayouts[tmpTreeIndex]) {
+                tmpWidths[tmpTreeIndex] = Math.max(tmpWidths[tmpTreeIndex], 2 * Math.abs(tmpPosition[0]) + 1);
+                tmpHeights[tmpTreeIndex] = Math.max(tmpHeights[tmpTreeIndex], 1 - tmpPosition[1]);
+            }
+            tmpMaxWidth = Math.max(tmpMaxWidth, tmpWidths[tmpTreeIndex]);
+            tmpTotalArea += (tmpWidths[tmpTreeIndex] + aTreeGap) * (tmpHeights[tmpTreeIndex] + aTreeGap);
+        }
+        double tmpShelfWidth = Math.max(tmpMaxWidth, Math.sqrt(tmpTotalArea));
+        Integer[] tmpOrder = new Integer[tmpTreeCount];
+        Arrays.setAll(tmpOrder, anIndex -> anIndex);
+        Arrays.sort(tmpOrder, (anIndex, anotherIndex) -> {
+            int tmpComparison = Double.compare(tmpHeights[anotherIndex], tmpHeights[anIndex]);
+            if (tmpComparison == 0) {
+                tmpComparison = Double.compare(tmpWidths[anotherIndex], tmpWidths[anIndex]);
+            }
+            return tmpComparison == 0 ? Integer.compare(anIndex, anotherIndex) : tmpComparison;
+        });
+        double tmpShelfX = 0.0;
+        //y coordinate of the top of the current shelf, the y axis of GraphStream points upwards
+        double tmpShelfTop = 0.0;
+        double tmpShelfHeight = 0.0;
+        for (int tmpTreeIndex : tmpOrder) {
+            if (tmpShelfHeight > 0.0 && tmpShelfX + tmpWidths[tmpTreeIndex] > tmpShelfWidth) {
+                tmpShelfTop -= tmpShelfHeight + aTreeGap;
+                tmpShelfX = 0.0;
+                tmpShelfHeight = 0.0;
+            }
+            double tmpCentreX = tmpShelfX + tmpWidths[tmpTreeIndex] / 2;
+            double[][] tmpLayout = aTreeLayouts[tmpTreeIndex];
+            int tmpOffset = this.nodeOffsets[tmpTreeIndex];
+            for (int tmpMatrixIndex = 0; tmpMatrixIndex < tmpLayout.length; tmpMatrixIndex++) {
+                this.positions[2 * (tmpOffset + tmpMatrixIndex)] = tmpCentreX + tmpLayout[tmpMatrixIndex][0];
+                this.positions[2 * (tmpOffset + tmpMatrixIndex) + 1] = tmpShelfTop - 0.5 + tmpLayout[tmpMatrixIndex][1];
+            }
+            this.treeBounds[tmpTreeIndex] = new double[] {tmpShelfX, tmpShelfTop - tmpHeights[tmpTreeIndex],
+                    tmpShelfX + tmpWidths[tmpTreeIndex], tmpShelfTop};
+            tmpShelfX += tmpWidths[tmpTreeIndex] + aTreeGap;
+            tmpShelfHeight = Math.max(tmpShelfHeight, tmpHeights[tmpTreeIndex]);
+        }
+    }
+}
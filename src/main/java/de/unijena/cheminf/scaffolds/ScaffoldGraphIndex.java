@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.interfaces.IAtom;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.interfaces.IBond;
+import org.openscience.cdk.isomorphism.Pattern;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmiFlavor;
+import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Index over the nodes of a scaffold graph for searching nodes by canonical SMILES, level, parents, children, or
+ * substructure, and for highlighting the found nodes in the GraphStream graph. The node indices used by this class
+ * are the indices in the adjacency matrix of the scaffold node collection, i.e. the node IDs and indices of the
+ * graph created by {@link GraphStreamUtility#generateGraphFromScaffoldNodeCollection(ScaffoldNodeCollectionBase)}.
+ * <br>The index is built once from the collection, computing the canonical SMILES and a substructure screening
+ * fingerprint of every node in parallel. The fingerprint is a hashed set of element paths of up to
+ * {@link #MAX_PATH_LENGTH} bonds that ignores bond orders, so that every substructure of a molecule sets a subset
+ * of its bits. Substructure searches only run the isomorphism test on the nodes passing this screen.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphIndex {
+    /**
+     * GraphStream style class assigned to highlighted nodes, styled in {@link GraphStreamUtility#DEFAULT_GRAPH_STYLE_SHEET}.
+     */
+    public static final String HIGHLIGHTED_NODE_CLASS = "highlighted";
+    //
+    /**
+     * Maximum number of bonds of the element paths encoded in the screening fingerprints.
+     */
+    public static final int MAX_PATH_LENGTH = 4;
+    //
+    /**
+     * Number of bits of the screening fingerprints.
+     */
+    private static final int FINGERPRINT_SIZE = 1024;
+    //
+    /**
+     * Number of 64-bit words of a screening fingerprint.
+     */
+    private static final int FINGERPRINT_WORDS = ScaffoldGraphIndex.FINGERPRINT_SIZE / Long.SIZE;
+    //
+    /**
+     * Molecules of the nodes by index.
+     */
+    private final List<IAtomContainer> molecules;
+    //
+    /**
+     * Node indices by canonical SMILES.
+     */
+    private final Map<String, List<Integer>> smilesMap;
+    //
+    /**
+     * Node indices by level.
+     */
+    private final Map<Integer, List<Integer>> levelMap;
+    //
+    /**
+     * Indices of the parent nodes by node index.
+     */
+    private final int[][] parents;
+    //
+    /**
+     * Indices of the child nodes by node index.
+     */
+    private final int[][] children;
+    //
+    /**
+     * Screening fingerprints of all nodes, {@link #FINGERPRINT_WORDS} consecutive words per node.
+     */
+    private final long[] fingerprints;
+    //
+    /**
+     * Private constructor, use {@link #build(ScaffoldNodeCollectionBase)}.
+     *
+     * @param aMolecules molecules of the nodes
+     * @param aSmilesMap node indices by canonical SMILES
+     * @param aLevelMap node indices by level
+     * @param aParents parent indices
+     * @param aChildren child indices
+     * @param aFingerprints screening fingerprints
+     */
+    private ScaffoldGraphIndex(List<IAtomContainer> aMolecules,
+                               Map<String, List<Integer>> aSmilesMap,
+                               Map<Integer, List<Integer>> aLevelMap,
+                               int[][] aParents,
+                               int[][] aChildren,
+                               long[] aFingerprints)
+    {
+        this.molecules = aMolecules;
+        this.smilesMap = aSmilesMap;
+        this.levelMap = aLevelMap;
+        this.parents = aParents;
+        this.children = aChildren;
+        this.fingerprints = aFingerprints;
+    }
+    //
+    /**
+     * Builds the index for the given scaffold network or tree. The canonical SMILES and fingerprints are computed in
+     * parallel.
+     *
+     * @param aScaffoldNodeCollection scaffold graph (scaffold tree or network) to index
+     * @return index of the scaffold graph
+     * @throws NullPointerException if the given collection is null
+     * @throws CDKException if a canonical SMILES cannot be created for a node
+     */
+    public static ScaffoldGraphIndex build(ScaffoldNodeCollectionBase aScaffoldNodeCollection) throws NullPointerException, CDKException {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        List<ScaffoldNodeBase<IAtomContainer>> tmpNodes = new ArrayList<>(tmpNodeCount);
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = new IdentityHashMap<>(tmpNodeCount);
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(tmpNodeCount);
+        Map<Integer, List<Integer>> tmpLevelMap = new HashMap<>();
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+            tmpNodes.add(tmpNode);
+            tmpIndexMap.put(tmpNode, tmpIndex);
+            tmpMolecules.add(tmpNode.getMolecule());
+            tmpLevelMap.computeIfAbsent(tmpNode.getLevel(), aKey -> new ArrayList<>()).add(tmpIndex);
+        }
+        int[][] tmpChildren = new int[tmpNodeCount][];
+        int[] tmpParentCounts = new int[tmpNodeCount];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            List<ScaffoldNodeBase<IAtomContainer>> tmpChildNodes = tmpNodes.get(tmpIndex).getChildren();
+            tmpChildren[tmpIndex] = new int[tmpChildNodes.size()];
+            for (int tmpChildPosition = 0; tmpChildPosition < tmpChildNodes.size(); tmpChildPosition++) {
+                int tmpChildIndex = tmpIndexMap.get(tmpChildNodes.get(tmpChildPosition));
+                tmpChildren[tmpIndex][tmpChildPosition] = tmpChildIndex;
+                tmpParentCounts[tmpChildIndex]++;
+            }
+        }
+        int[][] tmpParents = new int[tmpNodeCount][];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpParents[tmpIndex] = new int[tmpParentCounts[tmpIndex]];
+            tmpParentCounts[tmpIndex] = 0;
+        }
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            for (int tmpChildIndex : tmpChildren[tmpIndex]) {
+                tmpParents[tmpChildIndex][tmpParentCounts[tmpChildIndex]++] = tmpIndex;
+            }
+        }
+        String[] tmpSmilesArray = new String[tmpNodeCount];
+        long[] tmpFingerprints = new long[tmpNodeCount * ScaffoldGraphIndex.FINGERPRINT_WORDS];
+        Map<Integer, CDKException> tmpExceptions = new ConcurrentHashMap<>();
+        IntStream.range(0, tmpNodeCount).parallel().forEach(aIndex -> {
+            IAtomContainer tmpMolecule = tmpMolecules.get(aIndex);
+            try {
+                tmpSmilesArray[aIndex] = ScaffoldGraphIndex.createCanonicalSmiles(tmpMolecule);
+            } catch (CDKException aCDKException) {
+                tmpExceptions.put(aIndex, aCDKException);
+            }
+            ScaffoldGraphIndex.computeFingerprint(tmpMolecule, tmpFingerprints, aIndex * ScaffoldGraphIndex.FINGERPRINT_WORDS);
+        });
+        if (!tmpExceptions.isEmpty()) {
+            Map.Entry<Integer, CDKException> tmpEntry = tmpExceptions.entrySet().iterator().next();
+            throw new CDKException("Unable to create SMILES of node at index " + tmpEntry.getKey(), tmpEntry.getValue());
+        }
+        Map<String, List<Integer>> tmpSmilesMap = new HashMap<>(tmpNodeCount * 2);
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpSmilesMap.computeIfAbsent(tmpSmilesArray[tmpIndex], aKey -> new ArrayList<>(1)).add(tmpIndex);
+        }
+        return new ScaffoldGraphIndex(tmpMolecules, tmpSmilesMap, tmpLevelMap, tmpParents, tmpChildren, tmpFingerprints);
+    }
+    //
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return node count
+     */
+    public int getNodeCount() {
+        return this.molecules.size();
+    }
+    //
+    /**
+     * Returns the indices of the nodes whose canonical SMILES equals the canonical SMILES of the given SMILES string.
+     *
+     * @param aSmiles SMILES string of the searched scaffold
+     * @return indices of the matching nodes, empty if none match
+     * @throws NullPointerException if the given SMILES is null
+     * @throws CDKException if the given SMILES cannot be parsed or canonicalised
+     */
+    public List<Integer> findBySmiles(String aSmiles) throws NullPointerException, CDKException {
+        Objects.requireNonNull(aSmiles, "Given SMILES is null.");
+        return this.findByMolecule(new SmilesParser(SilentChemObjectBuilder.getInstance()).parseSmiles(aSmiles));
+    }
+    //
+    /**
+     * Returns the indices of the nodes whose canonical SMILES equals the canonical SMILES of the given molecule.
+     *
+     * @param aMolecule searched scaffold
+     * @return indices of the matching nodes, empty if none match
+     * @throws NullPointerException if the given molecule is null
+     * @throws CDKException if the given molecule cannot be canonicalised
+     */
+    public List<Integer> findByMolecule(IAtomContainer aMolecule) throws NullPointerException, CDKException {
+        Objects.requireNonNull(aMolecule, "Given molecule is null.");
+        List<Integer> tmpIndices = this.smilesMap.get(ScaffoldGraphIndex.createCanonicalSmiles(aMolecule));
+        return Objects.isNull(tmpIndices) ? Collections.emptyList() : Collections.unmodifiableList(tmpIndices);
+    }
+    //
+    /**
+     * Returns the indices of the nodes on the given level.
+     *
+     * @param aLevel level in the scaffold graph
+     * @return indices of the nodes on the level, empty if there are none
+     */
+    public List<Integer> findByLevel(int aLevel) {
+        List<Integer> tmpIndices = this.levelMap.get(aLevel);
+        return Objects.isNull(tmpIndices) ? Collections.emptyList() : Collections.unmodifiableList(tmpIndices);
+    }
+    //
+    /**
+     * Returns the indices of the parent nodes of the node with the given index.
+     *
+     * @param aNodeIndex node index
+     * @return parent indices, empty for root nodes
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public List<Integer> findParents(int aNodeIndex) throws IndexOutOfBoundsException {
+        return ScaffoldGraphIndex.toList(this.parents[aNodeIndex]);
+    }
+    //
+    /**
+     * Returns the indices of the child nodes of the node with the given index.
+     *
+     * @param aNodeIndex node index
+     * @return child indices, empty for leaf nodes
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public List<Integer> findChildren(int aNodeIndex) throws IndexOutOfBoundsException {
+        return ScaffoldGraphIndex.toList(this.children[aNodeIndex]);
+    }
+    //
+    /**
+     * Returns the indices of the nodes containing the structure given as SMILES string as substructure.
+     *
+     * @param aSmiles SMILES string of the substructure
+     * @return indices of the matching nodes in ascending order
+     * @throws NullPointerException if the given SMILES is null
+     * @throws CDKException if the given SMILES cannot be parsed
+     */
+    public List<Integer> findBySubstructure(String aSmiles) throws NullPointerException, CDKException {
+        Objects.requireNonNull(aSmiles, "Given SMILES is null.");
+        return this.findBySubstructure(new SmilesParser(SilentChemObjectBuilder.getInstance()).parseSmiles(aSmiles));
+    }
+    //
+    /**
+     * Returns the indices of the nodes containing the given query structure as substructure. Only the nodes passing
+     * the fingerprint screen are tested for a substructure match, in parallel.
+     *
+     * @param aQuery substructure
+     * @return indices of the matching nodes in ascending order
+     * @throws NullPointerException if the given query is null
+     */
+    public List<Integer> findBySubstructure(IAtomContainer aQuery) throws NullPointerException {
+        Objects.requireNonNull(aQuery, "Given query structure is null.");
+        long[] tmpQueryFingerprint = new long[ScaffoldGraphIndex.FINGERPRINT_WORDS];
+        ScaffoldGraphIndex.computeFingerprint(aQuery, tmpQueryFingerprint, 0);
+        Pattern tmpPattern = Pattern.findSubstructure(aQuery);
+        return IntStream.range(0, this.molecules.size())
+                .filter(aIndex -> this.passesScreen(tmpQueryFingerprint, aIndex))
+                .parallel()
+                .filter(aIndex -> tmpPattern.matches(this.molecules.get(aIndex)))
+                .boxed()
+                .toList();
+    }
+    //
+    /**
+     * Highlights the nodes with the given indices in the given graph by adding the style class
+     * {@link #HIGHLIGHTED_NODE_CLASS}. Other highlighted nodes stay highlighted.
+     *
+     * @param aGraph graph created from the indexed scaffold graph
+     * @param aNodeIndices indices of the nodes to highlight
+     * @throws NullPointerException if any parameter is null
+     */
+    public static void highlight(Graph aGraph, Collection<Integer> aNodeIndices) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        Objects.requireNonNull(aNodeIndices, "Given node indices are null.");
+        for (int tmpIndex : aNodeIndices) {
+            GraphStreamUtility.addNodeStyleClass(aGraph.getNode(tmpIndex), ScaffoldGraphIndex.HIGHLIGHTED_NODE_CLASS);
+        }
+    }
+    //
+    /**
+     * Removes the highlighting of all nodes in the given graph.
+     *
+     * @param aGraph graph created from the indexed scaffold graph
+     * @throws NullPointerException if the given graph is null
+     */
+    public static void clearHighlight(Graph aGraph) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        for (Node tmpNode : aGraph) {
+            GraphStreamUtility.removeNodeStyleClass(tmpNode, ScaffoldGraphIndex.HIGHLIGHTED_NODE_CLASS);
+        }
+    }
+    //
+    /**
+     * Checks whether all bits of the query fingerprint are set in the fingerprint of the node with the given index.
+     *
+     * @param aQueryFingerprint query fingerprint
+     * @param aNodeIndex node index
+     * @return true if the node may contain the query
+     */
+    private boolean passesScreen(long[] aQueryFingerprint, int aNodeIndex) {
+        int tmpOffset = aNodeIndex * ScaffoldGraphIndex.FINGERPRINT_WORDS;
+        for (int tmpWord = 0; tmpWord < ScaffoldGraphIndex.FINGERPRINT_WORDS; tmpWord++) {
+            if ((aQueryFingerprint[tmpWord] & ~this.fingerprints[tmpOffset + tmpWord]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+    //
+    /**
+     * Creates the canonical SMILES of the given molecule, in the same flavour used by cdk-scaffold to identify nodes.
+     *
+     * @param aMolecule molecule
+     * @return canonical SMILES
+     * @throws CDKException if the SMILES cannot be created
+     */
+    static String createCanonicalSmiles(IAtomContainer aMolecule) throws CDKException {
+        return new SmilesGenerator(SmiFlavor.Unique).create(aMolecule);
+    }
+    //
+    /**
+     * Computes the screening fingerprint of the given molecule into the given array. All simple paths of up to
+     * {@link #MAX_PATH_LENGTH} bonds are enumerated, and the sequence of atomic numbers of each path (in the
+     * direction that makes it lexicographically smaller) is hashed to one bit.
+     *
+     * @param aMolecule molecule
+     * @param aFingerprints array receiving the fingerprint
+     * @param anOffset index of the first word of the fingerprint in the array
+     */
+    private static void computeFingerprint(IAtomContainer aMolecule, long[] aFingerprints, int anOffset) {
+        int tmpAtomCount = aMolecule.getAtomCount();
+        Map<IAtom, Integer> tmpAtomIndices = new IdentityHashMap<>(tmpAtomCount);
+        int[] tmpElements = new int[tmpAtomCount];
+        for (int tmpIndex = 0; tmpIndex < tmpAtomCount; tmpIndex++) {
+            IAtom tmpAtom = aMolecule.getAtom(tmpIndex);
+            tmpAtomIndices.put(tmpAtom, tmpIndex);
+            Integer tmpAtomicNumber = tmpAtom.getAtomicNumber();
+            tmpElements[tmpIndex] = Objects.isNull(tmpAtomicNumber) ? 0 : tmpAtomicNumber;
+        }
+        int[] tmpDegrees = new int[tmpAtomCount];
+        for (IBond tmpBond : aMolecule.bonds()) {
+            tmpDegrees[tmpAtomIndices.get(tmpBond.getBegin())]++;
+            tmpDegrees[tmpAtomIndices.get(tmpBond.getEnd())]++;
+        }
+        int[][] tmpNeighbours = new int[tmpAtomCount][];
+        for (int tmpIndex = 0; tmpIndex < tmpAtomCount; tmpIndex++) {
+            tmpNeighbours[tmpIndex] = new int[tmpDegrees[tmpIndex]];
+            tmpDegrees[tmpIndex] = 0;
+        }
+        for (IBond tmpBond : aMolecule.bonds()) {
+            int tmpBegin = tmpAtomIndices.get(tmpBond.getBegin());
+            int tmpEnd = tmpAtomIndices.get(tmpBond.getEnd());
+            tmpNeighbours[tmpBegin][tmpDegrees[tmpBegin]++] = tmpEnd;
+            tmpNeighbours[tmpEnd][tmpDegrees[tmpEnd]++] = tmpBegin;
+        }
+        int[] tmpPath = new int[ScaffoldGraphIndex.MAX_PATH_LENGTH + 1];
+        boolean[] tmpIsOnPath = new boolean[tmpAtomCount];
+        for (int tmpStart = 0; tmpStart < tmpAtomCount; tmpStart++) {
+            tmpPath[0] = tmpStart;
+            tmpIsOnPath[tmpStart] = true;
+            ScaffoldGraphIndex.addPaths(tmpPath, 1, tmpIsOnPath, tmpNeighbours, tmpElements, aFingerprints, anOffset);
+            tmpIsOnPath[tmpStart] = false;
+        }
+    }
+    //
+    /**
+     * Sets the bit of the current path and extends it recursively by every neighbour not on the path yet.
+     *
+     * @param aPath atom indices of the current path
+     * @param aLength number of atoms on the current path
+     * @param anIsOnPath flags of the atoms on the current path
+     * @param aNeighbours neighbour atom indices by atom index
+     * @param anElements atomic numbers by atom index
+     * @param aFingerprints array receiving the fingerprint
+     * @param anOffset index of the first word of the fingerprint in the array
+     */
+    private static void addPaths(int[] aPath,
+                                 int aLength,
+                                 boolean[] anIsOnPath,
+                                 int[][] aNeighbours,
+                                 int[] anElements,
+                                 long[] aFingerprints,
+                                 int anOffset)
+    {
+        int tmpForwardHash = aLength;
+        int tmpBackwardHash = aLength;
+        for (int tmpPosition = 0; tmpPosition < aLength; tmpPosition++) {
+            tmpForwardHash = 31 * tmpForwardHash + anElements[aPath[tmpPosition]];
+            tmpBackwardHash = 31 * tmpBackwardHash + anElements[aPath[aLength - 1 - tmpPosition]];
+        }
+        //a path and its reverse set the same bit
+        int tmpHash = Math.min(tmpForwardHash, tmpBackwardHash) * 0x9E3779B1;
+        int tmpBit = (tmpHash >>> 16) % ScaffoldGraphIndex.FINGERPRINT_SIZE;
+        aFingerprints[anOffset + tmpBit / Long.SIZE] |= 1L << (tmpBit % Long.SIZE);
+        if (aLength > ScaffoldGraphIndex.MAX_PATH_LENGTH) {
+            return;
+        }
+        for (int tmpNeighbour : aNeighbours[aPath[aLength - 1]]) {
+            if (anIsOnPath[tmpNeighbour]) {
+                continue;
+            }
+            aPath[aLength] = tmpNeighbour;
+            anIsOnPath[tmpNeighbour] = true;
+            ScaffoldGraphIndex.addPaths(aPath, aLength + 1, anIsOnPath, aNeighbours, anElements, aFingerprints, anOffset);
+            anIsOnPath[tmpNeighbour] = false;
+        }
+    }
+    //
+    /**
+     * Converts the given array into an unmodifiable list.
+     *
+     * @param anArray int array
+     * @return list of the array elements
+     */
+    private static List<Integer> toList(int[] anArray) {
+        return IntStream.of(anArray).boxed().toList();
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Representative subgraph of a huge scaffold graph (scaffold tree or network), e.g. of a whole compound library
+ * with millions of scaffolds, for producing an overview image. Either the k most frequent scaffolds (by the number
+ * of molecules they originate from) of every level are retained, see {@link #selectMostFrequentPerLevel(ScaffoldNodeCollectionBase, int)},
+ * or the scaffolds with at least a given number of children, see
+ * {@link #selectByChildCount(ScaffoldNodeCollectionBase, int, int)}.
+ * <br>The nodes of the collection are streamed once in the order of their matrix indices and only the best
+ * candidates are kept in bounded min-heaps, so memory use depends on the size of the overview, not on the size of
+ * the scaffold graph. The adjacency matrix of the scaffold graph is not used. The retained nodes carry aggregate
+ * counts of the complete graph, e.g. how many of their children are hidden in the overview.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphOverview {
+    /**
+     * Number of molecules the scaffold of a node originates from is stored under this property key on the overview
+     * graph nodes.
+     */
+    public static final String NODE_ATTRIBUTE_ORIGIN_COUNT = "OriginCount";
+    //
+    /**
+     * Number of children of the scaffold node in the complete scaffold graph is stored under this property key on the
+     * overview graph nodes.
+     */
+    public static final String NODE_ATTRIBUTE_CHILD_COUNT = "ChildCount";
+    //
+    /**
+     * Number of children of the scaffold node that are not part of the overview is stored under this property key on
+     * the overview graph nodes.
+     */
+    public static final String NODE_ATTRIBUTE_HIDDEN_CHILD_COUNT = "HiddenChildCount";
+    //
+    /**
+     * Number of nodes of the complete scaffold graph is stored under this property key on the overview graph.
+     */
+    public static final String GRAPH_ATTRIBUTE_TOTAL_NODE_COUNT = "TotalNodeCount";
+    //
+    /**
+     * Number of nodes of the complete scaffold graph on every level, as an int array indexed by level, is stored
+     * under this property key on the overview graph.
+     */
+    public static final String GRAPH_ATTRIBUTE_LEVEL_NODE_COUNTS = "LevelNodeCounts";
+    //
+    /**
+     * Summarised scaffold graph.
+     */
+    private final ScaffoldNodeCollectionBase collection;
+    //
+    /**
+     * Matrix indices of the retained nodes, ordered by level and descending score, by overview index.
+     */
+    private final int[] collectionIndices;
+    //
+    /**
+     * Number of nodes of the complete scaffold graph by level.
+     */
+    private final int[] levelNodeCounts;
+    //
+    /**
+     * Private constructor, use the selection methods.
+     *
+     * @param aCollection summarised scaffold graph
+     * @param aCollectionIndices matrix indices of the retained nodes by overview index
+     * @param aLevelNodeCounts node counts of the complete scaffold graph by level
+     */
+    private ScaffoldGraphOverview(ScaffoldNodeCollectionBase aCollection, int[] aCollectionIndices, int[] aLevelNodeCounts) {
+        this.collection = aCollection;
+        this.collectionIndices = aCollectionIndices;
+        this.levelNodeCounts = aLevelNodeCounts;
+    }
+    //
+    /**
+     * Retains the given number of most frequent scaffolds on every level, i.e. those originating from the most
+     * molecules (see ScaffoldNodeBase.getOriginCount()). Ties are resolved in favour of the smaller matrix index.
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network to summarise
+     * @param aNodesPerLevel maximum number of retained nodes per level
+     * @return overview of the scaffold graph
+     * @throws NullPointerException if the given scaffold graph is null
+     * @throws IllegalArgumentException if the given number is smaller than one
+     */
+    public static ScaffoldGraphOverview selectMostFrequentPerLevel(ScaffoldNodeCollectionBase aScaffoldNodeCollection, int aNodesPerLevel)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        if (aNodesPerLevel < 1) {
+            throw new IllegalArgumentException("Given number of nodes per level must be at least one.");
+        }
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        int[] tmpLevelNodeCounts = new int[aScaffoldNodeCollection.getMaxLevel() + 1];
+        List<PriorityQueue<Long>> tmpHeaps = new ArrayList<>(tmpLevelNodeCounts.length);
+        for (int tmpLevel = 0; tmpLevel < tmpLevelNodeCounts.length; tmpLevel++) {
+            tmpHeaps.add(new PriorityQueue<>(aNodesPerLevel + 1));
+        }
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+            int tmpLevel = tmpNode.getLevel();
+            tmpLevelNodeCounts[tmpLevel]++;
+            ScaffoldGraphOverview.offer(tmpHeaps.get(tmpLevel), aNodesPerLevel, tmpNode.getOriginCount(), tmpIndex);
+        }
+        int tmpRetainedCount = 0;
+        for (PriorityQueue<Long> tmpHeap : tmpHeaps) {
+            tmpRetainedCount += tmpHeap.size();
+        }
+        int[] tmpCollectionIndices = new int[tmpRetainedCount];
+        int tmpOffset = 0;
+        for (PriorityQueue<Long> tmpHeap : tmpHeaps) {
+            int[] tmpLevelIndices = ScaffoldGraphOverview.drainDescending(tmpHeap);
+            System.arraycopy(tmpLevelIndices, 0, tmpCollectionIndices, tmpOffset, tmpLevelIndices.length);
+            tmpOffset += tmpLevelIndices.length;
+        }
+        return new ScaffoldGraphOverview(aScaffoldNodeCollection, tmpCollectionIndices, tmpLevelNodeCounts);
+    }
+    //
+    /**
+     * Retains the scaffolds with at least the given number of children, i.e. the branching points of the scaffold
+     * graph. If more nodes qualify than the given maximum, the ones with the most children are retained (ties are
+     * resolved in favour of the smaller matrix index).
+     *
+     * @param aScaffoldNodeCollection scaffold tree or network to summarise
+     * @param aMinChildCount minimum number of children of a retained node
+     * @param aMaxNodeCount maximum number of retained nodes
+     * @return overview of the scaffold graph
+     * @throws NullPointerException if the given scaffold graph is null
+     * @throws IllegalArgumentException if the minimum child count is negative or the maximum node count is smaller
+     * than one
+     */
+    public static ScaffoldGraphOverview selectByChildCount(ScaffoldNodeCollectionBase aScaffoldNodeCollection,
+                                                           int aMinChildCount,
+                                                           int aMaxNodeCount)
+            throws NullPointerException, IllegalArgumentException
+    {
+        Objects.requireNonNull(aScaffoldNodeCollection, "Given scaffold graph is null.");
+        if (aMinChildCount < 0) {
+            throw new IllegalArgumentException("Given minimum child count is negative.");
+        }
+        if (aMaxNodeCount < 1) {
+            throw new IllegalArgumentException("Given maximum node count must be at least one.");
+        }
+        int tmpNodeCount = aScaffoldNodeCollection.getAllNodes().size();
+        int[] tmpLevelNodeCounts = new int[aScaffoldNodeCollection.getMaxLevel() + 1];
+        PriorityQueue<Long> tmpHeap = new PriorityQueue<>();
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = aScaffoldNodeCollection.getMatrixNode(tmpIndex);
+            tmpLevelNodeCounts[tmpNode.getLevel()]++;
+            int tmpChildCount = tmpNode.getChildren().size();
+            if (tmpChildCount >= aMinChildCount) {
+                ScaffoldGraphOverview.offer(tmpHeap, aMaxNodeCount, tmpChildCount, tmpIndex);
+            }
+        }
+        int[] tmpCollectionIndices = ScaffoldGraphOverview.drainDescending(tmpHeap);
+        //ordered by level like the per-level selection, keeping the descending child count within a level
+        Integer[] tmpOrder = new Integer[tmpCollectionIndices.length];
+        Arrays.setAll(tmpOrder, anIndex -> tmpCollectionIndices[anIndex]);
+        Arrays.sort(tmpOrder, (anIndex1, anIndex2) -> Integer.compare(aScaffoldNodeCollection.getMatrixNode(anIndex1).getLevel(),
+                aScaffoldNodeCollection.getMatrixNode(anIndex2).getLevel()));
+        Arrays.setAll(tmpCollectionIndices, anIndex -> tmpOrder[anIndex]);
+        return new ScaffoldGraphOverview(aScaffoldNodeCollection, tmpCollectionIndices, tmpLevelNodeCounts);
+    }
+    //
+    /**
+     * Returns the number of retained nodes.
+     *
+     * @return node count of the overview
+     */
+    public int getNodeCount() {
+        return this.collectionIndices.length;
+    }
+    //
+    /**
+     * Returns the number of nodes of the complete scaffold graph.
+     *
+     * @return total node count
+     */
+    public int getTotalNodeCount() {
+        int tmpTotalCount = 0;
+        for (int tmpCount : this.levelNodeCounts) {
+            tmpTotalCount += tmpCount;
+        }
+        return tmpTotalCount;
+    }
+    //
+    /**
+     * Returns the number of nodes of the complete scaffold graph on the given level.
+     *
+     * @param aLevel scaffold level
+     * @return node count of the level
+     * @throws IndexOutOfBoundsException if the scaffold graph has no such level
+     */
+    public int getLevelNodeCount(int aLevel) throws IndexOutOfBoundsException {
+        return this.levelNodeCounts[aLevel];
+    }
+    //
+    /**
+     * Returns the matrix index in the summarised scaffold graph of the node with the given overview index.
+     *
+     * @param aNodeIndex overview index, which is also the node ID in the overview graph
+     * @return matrix index
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public int getCollectionIndex(int aNodeIndex) throws IndexOutOfBoundsException {
+        return this.collectionIndices[aNodeIndex];
+    }
+    //
+    /**
+     * Returns the scaffold node with the given overview index.
+     *
+     * @param aNodeIndex overview index, which is also the node ID in the overview graph
+     * @return scaffold node
+     * @throws IndexOutOfBoundsException if the given index is out of range
+     */
+    public ScaffoldNodeBase<IAtomContainer> getScaffoldNode(int aNodeIndex) throws IndexOutOfBoundsException {
+        return this.collection.getMatrixNode(this.collectionIndices[aNodeIndex]);
+    }
+    //
+    /**
+     * Parses the overview into a GraphStream graph with the overview indices as node IDs, depicting only the
+     * retained scaffolds. Edges connect retained parents with their retained children. Every node carries the
+     * aggregate counts {@link #NODE_ATTRIBUTE_ORIGIN_COUNT}, {@link #NODE_ATTRIBUTE_CHILD_COUNT}, and
+     * {@link #NODE_ATTRIBUTE_HIDDEN_CHILD_COUNT}, and the graph carries {@link #GRAPH_ATTRIBUTE_TOTAL_NODE_COUNT}
+     * and {@link #GRAPH_ATTRIBUTE_LEVEL_NODE_COUNTS}. If requested, the nodes are labelled with their level, origin
+     * count, and the number of hidden children, e.g. "Level: 1; Count: 1200; +35".
+     *
+     * @param areNodesLabelled adds a label with node level and aggregate counts if true
+     * @param aPipeline pipeline used for generating the structure images
+     * @param aStyleSheet style sheet property for the graph, e.g. {@link GraphStreamUtility#DEFAULT_GRAPH_STYLE_SHEET}
+     * @param aGraph empty GraphStream graph to add the nodes and edges to
+     * @return the given graph, representing the overview
+     * @throws NullPointerException if any parameter is null
+     * @throws IllegalArgumentException if the style sheet is blank or the graph is not empty
+     * @throws IOException if image files cannot be written for the depicted scaffold structures
+     */
+    public Graph generateGraph(boolean areNodesLabelled, NodeDepictionPipeline aPipeline, String aStyleSheet, Graph aGraph)
+            throws NullPointerException, IllegalArgumentException, IOException
+    {
+        Objects.requireNonNull(aPipeline, "Given depiction pipeline is null.");
+        Objects.requireNonNull(aStyleSheet, "Given style sheet is null");
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        GraphStreamUtility.prepareGraph(aStyleSheet, aGraph);
+        aGraph.setAttribute(ScaffoldGraphOverview.GRAPH_ATTRIBUTE_TOTAL_NODE_COUNT, this.getTotalNodeCount());
+        aGraph.setAttribute(ScaffoldGraphOverview.GRAPH_ATTRIBUTE_LEVEL_NODE_COUNTS, this.levelNodeCounts.clone());
+        int tmpNodeCount = this.getNodeCount();
+        //only the retained nodes, so its size is bounded by the overview
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpOverviewIndexMap = new IdentityHashMap<>(tmpNodeCount);
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(tmpNodeCount);
+        //read once, so that the whole graph is generated with the same setting
+        boolean tmpAreAttributesCompact = aPipeline.areNodeAttributesCompact();
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = this.getScaffoldNode(tmpIndex);
+            tmpOverviewIndexMap.put(tmpScaffoldNode, tmpIndex);
+            tmpMolecules.add(tmpScaffoldNode.getMolecule());
+            GraphStreamUtility.addScaffoldNode(aGraph, tmpIndex, tmpScaffoldNode, this.collectionIndices[tmpIndex], false,
+                    tmpAreAttributesCompact);
+        }
+        int tmpEdgeCount = 0;
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = this.getScaffoldNode(tmpIndex);
+            List<ScaffoldNodeBase<IAtomContainer>> tmpChildren = tmpScaffoldNode.getChildren();
+            int tmpHiddenChildCount = 0;
+            for (ScaffoldNodeBase<IAtomContainer> tmpChild : tmpChildren) {
+                Integer tmpChildIndex = tmpOverviewIndexMap.get(tmpChild);
+                if (Objects.isNull(tmpChildIndex)) {
+                    tmpHiddenChildCount++;
+                } else {
+                    aGraph.addEdge(String.valueOf(tmpEdgeCount), tmpIndex, tmpChildIndex);
+                    tmpEdgeCount++;
+                }
+            }
+            Node tmpNode = aGraph.getNode(tmpIndex);
+            int tmpOriginCount = tmpScaffoldNode.getOriginCount();
+            tmpNode.setAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_ORIGIN_COUNT, tmpOriginCount);
+            tmpNode.setAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_CHILD_COUNT, tmpChildren.size());
+            tmpNode.setAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_HIDDEN_CHILD_COUNT, tmpHiddenChildCount);
+            if (areNodesLabelled) {
+                String tmpLabel = "Level: " + tmpScaffoldNode.getLevel() + "; Count: " + tmpOriginCount;
+                if (tmpHiddenChildCount > 0) {
+                    tmpLabel += "; +" + tmpHiddenChildCount;
+                }
+                tmpNode.setAttribute("ui.label", tmpLabel);
+            }
+        }
+        int[] tmpNodeIndices = new int[tmpNodeCount];
+        Arrays.setAll(tmpNodeIndices, anIndex -> anIndex);
+        GraphStreamUtility.addStructureImages(aGraph, tmpNodeIndices, tmpMolecules, aPipeline, tmpAreAttributesCompact);
+        return aGraph;
+    }
+    //
+    /**
+     * Offers a node to a bounded min-heap of packed score and index keys, evicting the smallest key if the heap
+     * exceeds the given capacity. The index is stored inverted in the lower bits so that on equal scores, the node
+     * with the larger index has the smaller key and is evicted first.
+     *
+     * @param aHeap min-heap of keys
+     * @param aCapacity maximum heap size
+     * @param aScore score of the node, not negative
+     * @param anIndex matrix index of the node
+     */
+    private static void offer(PriorityQueue<Long> aHeap, int aCapacity, int aScore, int anIndex) {
+        long tmpKey = ((long) aScore << Integer.SIZE) | (Integer.MAX_VALUE - anIndex);
+        if (aHeap.size() < aCapacity) {
+            aHeap.add(tmpKey);
+        } else if (tmpKey > aHeap.peek()) {
+            aHeap.poll();
+            aHeap.add(tmpKey);
+        }
+    }
+    //
+    /**
+     * Empties the given heap and returns the matrix indices of its keys in descending order of the keys, i.e. by
+     * descending score.
+     *
+     * @param aHeap min-heap of keys created by {@link #offer(PriorityQueue, int, int, int)}
+     * @return matrix indices
+     */
+    private static int[] drainDescending(PriorityQueue<Long> aHeap) {
+        int[] tmpIndices = new int[aHeap.size()];
+        for (int tmpPosition = tmpIndices.length - 1; tmpPosition >= 0; tmpPosition--) {
+            tmpIndices[tmpPosition] = Integer.MAX_VALUE - (int) (aHeap.poll() & 0xFFFFFFFFL);
+        }
+        return tmpIndices;
+    }
+}
@@ -0,0 +1,829 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.openscience.cdk.depict.Depiction;
+import org.openscience.cdk.depict.DepictionGenerator;
+import org.openscience.cdk.exception.CDKException;
+import org.openscience.cdk.exception.InvalidSmilesException;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded HTTP server that renders scaffold graphs on request, so that other tools can get scaffold graph images
+ * without starting a JVM (and initialising CDK and GraphStream) per image. The server listens on the loopback
+ * address only.
+ * <br>Endpoints:
+ * <ul>
+ *     <li>{@code POST /render?type=tree|network&format=png|svg&labels=true|false} with a plain text body of SMILES
+ *     codes, one per line (anything after the first whitespace of a line and lines starting with "#" are ignored).
+ *     Returns the scaffold network of all molecules or their scaffold tree. PNG images are screenshots of the
+ *     GraphStream graph, SVG images show the scaffold structures in rows by scaffold level.</li>
+ *     <li>{@code GET /health} returns "OK".</li>
+ * </ul>
+ * The number of requests rendered at the same time is bounded; every request handler thread owns a warm set of
+ * scaffold generator, SMILES parser and {@link NodeDepictionPipeline} that is reused for all its requests. Responses
+ * are cached in an LRU cache keyed by the request parameters and SMILES codes that is bounded by the number of
+ * entries and by their total size in bytes; responses larger than the byte bound are not cached.
+ * <br>NOTE: The server has to be closed via {@link #close()} to release its port and threads.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphRenderingServer implements AutoCloseable {
+    /**
+     * Default port.
+     */
+    public static final int DEFAULT_PORT = 8080;
+    //
+    /**
+     * Default maximum number of requests rendered at the same time, equal to the number of available processors.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = Runtime.getRuntime().availableProcessors();
+    //
+    /**
+     * Default maximum number of cached responses.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 128;
+    //
+    /**
+     * Default maximum total size of the cached responses in bytes (64 MiB).
+     */
+    public static final long DEFAULT_MAX_CACHE_BYTES = 64L << 20;
+    //
+    /**
+     * Maximum size of a request body in bytes.
+     */
+    public static final int MAX_REQUEST_BODY_SIZE = 1 << 20;
+    //
+    /**
+     * Maximum number of molecules per request.
+     */
+    public static final int MAX_MOLECULES_PER_REQUEST = 1000;
+    //
+    /**
+     * Path of the rendering endpoint.
+     */
+    public static final String RENDER_PATH = "/render";
+    //
+    /**
+     * Path of the health check endpoint.
+     */
+    public static final String HEALTH_PATH = "/health";
+    //
+    /**
+     * Edge length of the structure depictions in SVG responses, in pixels.
+     */
+    private static final int SVG_CELL_SIZE = 256;
+    //
+    /**
+     * Gap between the structure depictions in SVG responses, in pixels.
+     */
+    private static final int SVG_GAP = 64;
+    //
+    /**
+     * Height reserved for the node labels in SVG responses, in pixels.
+     */
+    private static final int SVG_LABEL_HEIGHT = 24;
+    //
+    /**
+     * SMILES code rendered by every handler slot at startup to initialise CDK and the JIT.
+     */
+    private static final String WARM_UP_SMILES = "c1ccc2c(c1)CCC2";
+    //
+    /**
+     * Logger of this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ScaffoldGraphRenderingServer.class.getName());
+    //
+    /**
+     * Underlying JDK HTTP server.
+     */
+    private final HttpServer httpServer;
+    //
+    /**
+     * Request handler threads, one per render slot.
+     */
+    private final ExecutorService handlerExecutor;
+    //
+    /**
+     * Idle render slots; a handler thread takes one for the duration of a request.
+     */
+    private final BlockingQueue<RenderSlot> renderSlots;
+    //
+    /**
+     * Depiction generator for the structures in SVG responses, shared since CDK depiction generators are immutable.
+     */
+    private final DepictionGenerator svgDepictionGenerator;
+    //
+    /**
+     * LRU cache of the rendered responses by request key, guarded by itself.
+     */
+    private final Map<String, byte[]> responseCache;
+    //
+    /**
+     * Maximum number of cached responses.
+     */
+    private final int cacheSize;
+    //
+    /**
+     * Maximum total size of the cached responses in bytes.
+     */
+    private final long maxCacheBytes;
+    //
+    /**
+     * Total size of the cached responses in bytes, guarded by the response cache.
+     */
+    private long cachedByteCount;
+    //
+    /**
+     * Number of requests answered from the cache.
+     */
+    private final AtomicLong cacheHitCount;
+    //
+    /**
+     * Number of requests that had to be rendered.
+     */
+    private final AtomicLong cacheMissCount;
+    //
+    /**
+     * Constructor that binds the server to the given port on the loopback address and warms up the render slots.
+     * The cached responses are bounded to {@link #DEFAULT_MAX_CACHE_BYTES} in total. The server does not accept
+     * requests before {@link #start()} is called.
+     *
+     * @param aPort port to listen on, 0 for an ephemeral port
+     * @param aMaxConcurrentRequests maximum number of requests rendered at the same time
+     * @param aCacheSize maximum number of cached responses, 0 to disable caching
+     * @throws IllegalArgumentException if the port is out of range, the maximum number of concurrent requests is
+     * smaller than one, or the cache size is negative
+     * @throws IOException if the server cannot be bound to the port
+     */
+    public ScaffoldGraphRenderingServer(int aPort, int aMaxConcurrentRequests, int aCacheSize)
+            throws IllegalArgumentException, IOException
+    {
+        this(aPort, aMaxConcurrentRequests, aCacheSize, ScaffoldGraphRenderingServer.DEFAULT_MAX_CACHE_BYTES);
+    }
+    //
+    /**
+     * Constructor that binds the server to the given port on the loopback address and warms up the render slots.
+     * The server does not accept requests before {@link #start()} is called.
+     *
+     * @param aPort port to listen on, 0 for an ephemeral port
+     * @param aMaxConcurrentRequests maximum number of requests rendered at the same time
+     * @param aCacheSize maximum number of cached responses, 0 to disable caching
+     * @param aMaxCacheBytes maximum total size of the cached responses in bytes, 0 to disable caching
+     * @throws IllegalArgumentException if the port is out of range, the maximum number of concurrent requests is
+     * smaller than one, or the cache size or the maximum cache bytes are negative
+     * @throws IOException if the server cannot be bound to the port
+     */
+    public ScaffoldGraphRenderingServer(int aPort, int aMaxConcurrentRequests, int aCacheSize, long aMaxCacheBytes)
+            throws IllegalArgumentException, IOException
+    {
+        if (aPort < 0 || aPort > 65535) {
+            throw new IllegalArgumentException("Given port is out of range.");
+        }
+        if (aMaxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Given maximum number of concurrent requests must be at least one.");
+        }
+        if (aCacheSize < 0) {
+            throw new IllegalArgumentException("Given cache size is negative.");
+        }
+        if (aMaxCacheBytes < 0) {
+            throw new IllegalArgumentException("Given maximum cache bytes are negative.");
+        }
+        this.svgDepictionGenerator = GraphStreamUtility.getDefaultDepictionGenerator()
+                .withSize(ScaffoldGraphRenderingServer.SVG_CELL_SIZE, ScaffoldGraphRenderingServer.SVG_CELL_SIZE)
+                .withFillToFit();
+        this.responseCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.cacheSize = aCacheSize;
+        this.maxCacheBytes = aMaxCacheBytes;
+        this.cachedByteCount = 0L;
+        this.cacheHitCount = new AtomicLong();
+        this.cacheMissCount = new AtomicLong();
+        int tmpDepictionThreadCount = Math.max(1, Runtime.getRuntime().availableProcessors() / aMaxConcurrentRequests);
+        this.renderSlots = new ArrayBlockingQueue<>(aMaxConcurrentRequests);
+        for (int tmpIndex = 0; tmpIndex < aMaxConcurrentRequests; tmpIndex++) {
+            RenderSlot tmpSlot = new RenderSlot(new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator(),
+                    tmpDepictionThreadCount, 1, 1, 2 * tmpDepictionThreadCount));
+            tmpSlot.pipeline.setAdaptiveDepictionSizer(new AdaptiveDepictionSizer());
+            //the images are deleted after every request
+            tmpSlot.pipeline.setDeleteOnExit(false);
+            this.warmUp(tmpSlot);
+            this.renderSlots.add(tmpSlot);
+        }
+        AtomicInteger tmpThreadCounter = new AtomicInteger(0);
+        this.handlerExecutor = Executors.newFixedThreadPool(aMaxConcurrentRequests, aRunnable -> {
+            Thread tmpThread = new Thread(aRunnable, "ScaffoldGraphRenderingServer-" + tmpThreadCounter.incrementAndGet());
+            tmpThread.setDaemon(true);
+            return tmpThread;
+        });
+        try {
+            this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), aPort), 0);
+        } catch (IOException anIOException) {
+            this.handlerExecutor.shutdown();
+            for (RenderSlot tmpSlot : this.renderSlots) {
+                tmpSlot.pipeline.close();
+            }
+            throw anIOException;
+        }
+        this.httpServer.setExecutor(this.handlerExecutor);
+        this.httpServer.createContext(ScaffoldGraphRenderingServer.RENDER_PATH, this::handleRender);
+        this.httpServer.createContext(ScaffoldGraphRenderingServer.HEALTH_PATH, this::handleHealth);
+    }
+    //
+    /**
+     * Starts the server with the given port, maximum number of concurrent requests and cache size (all optional,
+     * in this order) and keeps it running until the JVM is shut down.
+     *
+     * @param args command-line arguments: [port] [maximum number of concurrent requests] [cache size]
+     *             [maximum cache bytes]
+     * @throws IOException if the server cannot be bound to the port
+     */
+    public static void main(String[] args) throws IOException {
+        if (Objects.isNull(System.getProperty("java.awt.headless"))) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        int tmpPort = args.length > 0 ? Integer.parseInt(args[0]) : ScaffoldGraphRenderingServer.DEFAULT_PORT;
+        int tmpMaxConcurrentRequests = args.length > 1 ? Integer.parseInt(args[1]) : ScaffoldGraphRenderingServer.DEFAULT_MAX_CONCURRENT_REQUESTS;
+        int tmpCacheSize = args.length > 2 ? Integer.parseInt(args[2]) : ScaffoldGraphRenderingServer.DEFAULT_CACHE_SIZE;
+        long tmpMaxCacheBytes = args.length > 3 ? Long.parseLong(args[3]) : ScaffoldGraphRenderingServer.DEFAULT_MAX_CACHE_BYTES;
+        ScaffoldGraphRenderingServer tmpServer = new ScaffoldGraphRenderingServer(tmpPort, tmpMaxConcurrentRequests, tmpCacheSize, tmpMaxCacheBytes);
+        Runtime.getRuntime().addShutdownHook(new Thread(tmpServer::close));
+        tmpServer.start();
+        System.out.println("Rendering scaffold graphs at http://localhost:" + tmpServer.getPort() + ScaffoldGraphRenderingServer.RENDER_PATH);
+    }
+    //
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        this.httpServer.start();
+    }
+    //
+    /**
+     * Returns the port the server is bound to, e.g. the actual port if an ephemeral port was requested.
+     *
+     * @return port
+     */
+    public int getPort() {
+        return this.httpServer.getAddress().getPort();
+    }
+    //
+    /**
+     * Returns the number of requests answered from the response cache.
+     *
+     * @return cache hits
+     */
+    public long getCacheHitCount() {
+        return this.cacheHitCount.get();
+    }
+    //
+    /**
+     * Returns the number of requests that had to be rendered.
+     *
+     * @return cache misses
+     */
+    public long getCacheMissCount() {
+        return this.cacheMissCount.get();
+    }
+    //
+    /**
+     * Returns the total size of the cached responses in bytes.
+     *
+     * @return cached bytes
+     */
+    public long getCachedByteCount() {
+        synchronized (this.responseCache) {
+            return this.cachedByteCount;
+        }
+    }
+    //
+    /**
+     * Stops the server, waiting at most one second for running requests, and releases the render slots.
+     */
+    @Override
+    public void close() {
+        this.httpServer.stop(1);
+        this.handlerExecutor.shutdownNow();
+        try {
+            this.handlerExecutor.awaitTermination(1L, TimeUnit.SECONDS);
+        } catch (InterruptedException anInterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        for (RenderSlot tmpSlot : this.renderSlots) {
+            tmpSlot.pipeline.close();
+        }
+    }
+    //
+    /**
+     * Handles a health check request.
+     *
+     * @param anExchange HTTP exchange
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleHealth(HttpExchange anExchange) throws IOException {
+        try (anExchange) {
+            ScaffoldGraphRenderingServer.sendText(anExchange, 200, "OK");
+        }
+    }
+    //
+    /**
+     * Handles a rendering request, answering it from the cache if possible.
+     *
+     * @param anExchange HTTP exchange
+     * @throws IOException if the request cannot be read or the response cannot be sent
+     */
+    private void handleRender(HttpExchange anExchange) throws IOException {
+        try (anExchange) {
+            this.respondToRender(anExchange);
+        }
+    }
+    //
+    /**
+     * Puts the given response into the cache and evicts the least recently used responses until the cache is within
+     * its bounds of entries and bytes again. A response larger than the byte bound is not cached since it would
+     * evict all other responses.
+     *
+     * @param aKey request key
+     * @param aBody rendered response
+     */
+    private void cacheResponse(String aKey, byte[] aBody) {
+        if (aBody.length > this.maxCacheBytes) {
+            return;
+        }
+        synchronized (this.responseCache) {
+            byte[] tmpReplacedBody = this.responseCache.put(aKey, aBody);
+            this.cachedByteCount += aBody.length - (Objects.isNull(tmpReplacedBody) ? 0 : tmpReplacedBody.length);
+            Iterator<Map.Entry<String, byte[]>> tmpIterator = this.responseCache.entrySet().iterator();
+            while ((this.responseCache.size() > this.cacheSize || this.cachedByteCount > this.maxCacheBytes)
+                    && tmpIterator.hasNext()) {
+                this.cachedByteCount -= tmpIterator.next().getValue().length;
+                tmpIterator.remove();
+            }
+        }
+    }
+    //
+    /**
+     * Answers the given rendering request from the cache or by rendering it, and sends error responses for
+     * invalid requests and failures.
+     *
+     * @param anExchange HTTP exchange, closed by the caller
+     * @throws IOException if the response cannot be sent
+     */
+    private void respondToRender(HttpExchange anExchange) throws IOException {
+        try {
+            if (!anExchange.getRequestMethod().equalsIgnoreCase("POST")) {
+                anExchange.getResponseHeaders().set("Allow", "POST");
+                ScaffoldGraphRenderingServer.sendText(anExchange, 405, "Use POST with SMILES codes as body.");
+                return;
+            }
+            RenderRequest tmpRequest = ScaffoldGraphRenderingServer.parseRequest(anExchange);
+            String tmpKey = tmpRequest.getCacheKey();
+            byte[] tmpBody;
+            synchronized (this.responseCache) {
+                tmpBody = this.responseCache.get(tmpKey);
+            }
+            if (!Objects.isNull(tmpBody)) {
+                this.cacheHitCount.incrementAndGet();
+                anExchange.getResponseHeaders().set("X-Cache", "HIT");
+            } else {
+                this.cacheMissCount.incrementAndGet();
+                RenderSlot tmpSlot = this.renderSlots.take();
+                try {
+                    tmpBody = this.render(tmpRequest, tmpSlot);
+                } finally {
+                    this.renderSlots.add(tmpSlot);
+                }
+                this.cacheResponse(tmpKey, tmpBody);
+                anExchange.getResponseHeaders().set("X-Cache", "MISS");
+            }
+            anExchange.getResponseHeaders().set("Content-Type", tmpRequest.isSvg ? "image/svg+xml" : "image/png");
+            anExchange.sendResponseHeaders(200, tmpBody.length);
+            try (OutputStream tmpOutputStream = anExchange.getResponseBody()) {
+                tmpOutputStream.write(tmpBody);
+            }
+        } catch (InvalidSmilesException | IllegalArgumentException anException) {
+            ScaffoldGraphRenderingServer.sendText(anExchange, 400, anException.getMessage());
+        } catch (RequestTooLargeException aRequestTooLargeException) {
+            ScaffoldGraphRenderingServer.sendText(anExchange, 413, aRequestTooLargeException.getMessage());
+        } catch (InterruptedException anInterruptedException) {
+            Thread.currentThread().interrupt();
+            ScaffoldGraphRenderingServer.sendText(anExchange, 503, "Server is shutting down.");
+        } catch (CDKException | CloneNotSupportedException | IOException | RuntimeException anException) {
+            ScaffoldGraphRenderingServer.LOGGER.log(Level.WARNING, "Rendering failed.", anException);
+            ScaffoldGraphRenderingServer.sendText(anExchange, 500, "Rendering failed: " + anException.getMessage());
+        }
+    }
+    //
+    /**
+     * Renders the scaffold graph of the given request with the given slot.
+     *
+     * @param aRequest rendering request
+     * @param aSlot render slot owned by the calling thread
+     * @return PNG or SVG image
+     * @throws CDKException if a SMILES code is invalid or the scaffold graph cannot be generated
+     * @throws CloneNotSupportedException if a molecule cannot be cloned by the scaffold generator
+     * @throws IOException if the PNG screenshot cannot be written or read
+     * @throws IllegalArgumentException if the molecules of a tree request form more than one scaffold tree
+     */
+    private byte[] render(RenderRequest aRequest, RenderSlot aSlot)
+            throws CDKException, CloneNotSupportedException, IOException, IllegalArgumentException
+    {
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(aRequest.smilesList.size());
+        for (String tmpSmiles : aRequest.smilesList) {
+            tmpMolecules.add(aSlot.smilesParser.parseSmiles(tmpSmiles));
+        }
+        ScaffoldNodeCollectionBase tmpCollection;
+        if (aRequest.isNetwork) {
+            tmpCollection = aSlot.scaffoldGenerator.generateScaffoldNetwork(tmpMolecules);
+        } else {
+            List<ScaffoldTree> tmpForest = aSlot.scaffoldGenerator.generateSchuffenhauerForest(tmpMolecules);
+            if (tmpForest.size() != 1) {
+                throw new IllegalArgumentException("The given molecules form " + tmpForest.size()
+                        + " scaffold trees, request a network instead.");
+            }
+            tmpCollection = tmpForest.get(0);
+        }
+        if (aRequest.isSvg) {
+            return this.renderSvg(tmpCollection, aRequest.areNodesLabelled).getBytes(StandardCharsets.UTF_8);
+        } else {
+            return ScaffoldGraphRenderingServer.renderPng(tmpCollection, aRequest.areNodesLabelled, aSlot.pipeline);
+        }
+    }
+    //
+    /**
+     * Renders the given scaffold graph as PNG screenshot of the GraphStream graph.
+     *
+     * @param aCollection scaffold tree or network
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @param aPipeline node depiction pipeline of the calling thread
+     * @return PNG image
+     * @throws IOException if the screenshot cannot be written or read
+     */
+    private static byte[] renderPng(ScaffoldNodeCollectionBase aCollection, boolean areNodesLabelled, NodeDepictionPipeline aPipeline)
+            throws IOException
+    {
+        Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(aCollection,
+                areNodesLabelled,
+                aPipeline,
+                GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                GraphStreamUtility.createPresizedGraph("render", aCollection));
+        File tmpScreenshotFile = null;
+        try {
+            tmpScreenshotFile = File.createTempFile("render", ".png", GraphStreamUtility.getTempFolder());
+            synchronized (GraphStreamUtility.SCREENSHOT_LOCK) {
+                GraphStreamUtility.screenshotGraphHighQuality(tmpGraph, tmpScreenshotFile.getAbsolutePath());
+            }
+            return Files.readAllBytes(tmpScreenshotFile.toPath());
+        } finally {
+            if (!Objects.isNull(tmpScreenshotFile)) {
+                Files.deleteIfExists(tmpScreenshotFile.toPath());
+            }
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+    }
+    //
+    /**
+     * Renders the given scaffold graph as SVG with the structures arranged in rows by scaffold level, the root(s) on
+     * top, and straight lines for the parent-child relationships.
+     *
+     * @param aCollection scaffold tree or network
+     * @param areNodesLabelled adds a label with node level and node index if true
+     * @return SVG document
+     */
+    private String renderSvg(ScaffoldNodeCollectionBase aCollection, boolean areNodesLabelled) {
+        //the edges are taken from the child references of the nodes, the adjacency matrix needs quadratic memory
+        Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(aCollection);
+        int tmpNodeCount = aCollection.getAllNodes().size();
+        List<ScaffoldNodeBase<IAtomContainer>> tmpNodes = new ArrayList<>(tmpNodeCount);
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpNodes.add(null);
+        }
+        for (Map.Entry<ScaffoldNodeBase<IAtomContainer>, Integer> tmpEntry : tmpIndexMap.entrySet()) {
+            tmpNodes.set(tmpEntry.getValue(), tmpEntry.getKey());
+        }
+        int tmpLevelCount = aCollection.getMaxLevel() + 1;
+        List<List<Integer>> tmpIndicesByLevel = new ArrayList<>(tmpLevelCount);
+        for (int tmpLevel = 0; tmpLevel < tmpLevelCount; tmpLevel++) {
+            tmpIndicesByLevel.add(new ArrayList<>());
+        }
+        int[] tmpLevels = new int[tmpNodeCount];
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpLevels[tmpIndex] = tmpNodes.get(tmpIndex).getLevel();
+            tmpIndicesByLevel.get(tmpLevels[tmpIndex]).add(tmpIndex);
+        }
+        int tmpMaxRowLength = 1;
+        for (List<Integer> tmpRow : tmpIndicesByLevel) {
+            tmpMaxRowLength = Math.max(tmpMaxRowLength, tmpRow.size());
+        }
+        int tmpCellPitch = ScaffoldGraphRenderingServer.SVG_CELL_SIZE + ScaffoldGraphRenderingServer.SVG_GAP;
+        int tmpRowPitch = tmpCellPitch + (areNodesLabelled ? ScaffoldGraphRenderingServer.SVG_LABEL_HEIGHT : 0);
+        int tmpWidth = tmpMaxRowLength * tmpCellPitch + ScaffoldGraphRenderingServer.SVG_GAP;
+        int tmpHeight = tmpLevelCount * tmpRowPitch + ScaffoldGraphRenderingServer.SVG_GAP;
+        //top left corner of the depiction of every node
+        int[] tmpX = new int[tmpNodeCount];
+        int[] tmpY = new int[tmpNodeCount];
+        for (int tmpLevel = 0; tmpLevel < tmpLevelCount; tmpLevel++) {
+            List<Integer> tmpRow = tmpIndicesByLevel.get(tmpLevel);
+            int tmpOffset = (tmpWidth - tmpRow.size() * tmpCellPitch + ScaffoldGraphRenderingServer.SVG_GAP) / 2;
+            for (int tmpPosition = 0; tmpPosition < tmpRow.size(); tmpPosition++) {
+                tmpX[tmpRow.get(tmpPosition)] = tmpOffset + tmpPosition * tmpCellPitch;
+                tmpY[tmpRow.get(tmpPosition)] = ScaffoldGraphRenderingServer.SVG_GAP + tmpLevel * tmpRowPitch;
+            }
+        }
+        int tmpHalfCell = ScaffoldGraphRenderingServer.SVG_CELL_SIZE / 2;
+        StringBuilder tmpSvg = new StringBuilder(1024 * (tmpNodeCount + 1));
+        tmpSvg.append("<?xml version='1.0' encoding='UTF-8'?>\n")
+                .append("<svg version='1.1' xmlns='http://www.w3.org/2000/svg' xmlns:xlink='http://www.w3.org/1999/xlink'")
+                .append(" width='").append(tmpWidth).append("' height='").append(tmpHeight)
+                .append("' viewBox='0 0 ").append(tmpWidth).append(' ').append(tmpHeight).append("'>\n")
+                .append("<rect width='100%' height='100%' fill='white'/>\n");
+        for (int tmpParent = 0; tmpParent < tmpNodeCount; tmpParent++) {
+            for (ScaffoldNodeBase<IAtomContainer> tmpChildNode : tmpNodes.get(tmpParent).getChildren()) {
+                int tmpChild = tmpIndexMap.get(tmpChildNode);
+                tmpSvg.append("<line x1='").append(tmpX[tmpParent] + tmpHalfCell)
+                        .append("' y1='").append(tmpY[tmpParent] + ScaffoldGraphRenderingServer.SVG_CELL_SIZE)
+                        .append("' x2='").append(tmpX[tmpChild] + tmpHalfCell)
+                        .append("' y2='").append(tmpY[tmpChild])
+                        .append("' stroke='#808080' stroke-width='2'/>\n");
+            }
+        }
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpNode = tmpNodes.get(tmpIndex);
+            tmpSvg.append("<rect x='").append(tmpX[tmpIndex]).append("' y='").append(tmpY[tmpIndex])
+                    .append("' width='").append(ScaffoldGraphRenderingServer.SVG_CELL_SIZE)
+                    .append("' height='").append(ScaffoldGraphRenderingServer.SVG_CELL_SIZE)
+                    .append("' rx='12' fill='white' stroke='#404040' stroke-width='2'/>\n");
+            try {
+                String tmpDepiction = this.svgDepictionGenerator.depict(tmpNode.getMolecule()).toSvgStr(Depiction.UNITS_PX);
+                //drop the XML declaration and position the nested SVG element in its cell
+                tmpSvg.append(tmpDepiction.substring(tmpDepiction.indexOf("<svg"))
+                        .replaceFirst("<svg", "<svg x='" + tmpX[tmpIndex] + "' y='" + tmpY[tmpIndex] + "'"));
+                tmpSvg.append('\n');
+            } catch (CDKException aCDKException) {
+                ScaffoldGraphRenderingServer.LOGGER.log(Level.WARNING,
+                        "Unable to depict structure at index " + tmpIndex + ". Displaying empty node.", aCDKException);
+            }
+            if (areNodesLabelled) {
+                tmpSvg.append("<text x='").append(tmpX[tmpIndex] + tmpHalfCell)
+                        .append("' y='").append(tmpY[tmpIndex] + ScaffoldGraphRenderingServer.SVG_CELL_SIZE + ScaffoldGraphRenderingServer.SVG_LABEL_HEIGHT - 4)
+                        .append("' text-anchor='middle' font-family='sans-serif' font-size='16'>Level: ")
+                        .append(tmpLevels[tmpIndex]).append("; Index: ").append(tmpIndex).append("</text>\n");
+            }
+        }
+        tmpSvg.append("</svg>\n");
+        return tmpSvg.toString();
+    }
+    //
+    /**
+     * Renders a small molecule with the given slot as SVG and depicts its nodes with the pipeline of the slot (without
+     * taking a screenshot) to initialise CDK, the depiction code paths and the JIT before the first request.
+     * Failures are only logged.
+     *
+     * @param aSlot render slot to warm up
+     */
+    private void warmUp(RenderSlot aSlot) {
+        RenderRequest tmpRequest = new RenderRequest(false, true, true, List.of(ScaffoldGraphRenderingServer.WARM_UP_SMILES));
+        try {
+            this.render(tmpRequest, aSlot);
+            ScaffoldTree tmpTree = aSlot.scaffoldGenerator.generateSchuffenhauerTree(
+                    aSlot.smilesParser.parseSmiles(ScaffoldGraphRenderingServer.WARM_UP_SMILES));
+            Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpTree,
+                    true,
+                    aSlot.pipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    GraphStreamUtility.createPresizedGraph("warm-up", tmpTree));
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        } catch (CDKException | CloneNotSupportedException | IOException | RuntimeException anException) {
+            ScaffoldGraphRenderingServer.LOGGER.log(Level.WARNING, "Warm-up rendering failed.", anException);
+        }
+    }
+    //
+    /**
+     * Parses the query parameters and the SMILES codes of the given rendering request.
+     *
+     * @param anExchange HTTP exchange
+     * @return parsed request
+     * @throws IllegalArgumentException if a parameter is unknown or has an invalid value, or no SMILES code is given
+     * @throws RequestTooLargeException if the body or the number of SMILES codes exceeds its maximum
+     * @throws IOException if the request body cannot be read
+     */
+    private static RenderRequest parseRequest(HttpExchange anExchange)
+            throws IllegalArgumentException, RequestTooLargeException, IOException
+    {
+        Map<String, String> tmpParameters = new HashMap<>(4);
+        String tmpQuery = anExchange.getRequestURI().getRawQuery();
+        if (!Objects.isNull(tmpQuery) && !tmpQuery.isEmpty()) {
+            for (String tmpPair : tmpQuery.split("&")) {
+                int tmpSeparatorIndex = tmpPair.indexOf('=');
+                String tmpName = tmpSeparatorIndex < 0 ? tmpPair : tmpPair.substring(0, tmpSeparatorIndex);
+                String tmpValue = tmpSeparatorIndex < 0 ? "" : tmpPair.substring(tmpSeparatorIndex + 1);
+                tmpParameters.put(URLDecoder.decode(tmpName, StandardCharsets.UTF_8),
+                        URLDecoder.decode(tmpValue, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT));
+            }
+        }
+        String tmpType = tmpParameters.getOrDefault("type", "tree");
+        String tmpFormat = tmpParameters.getOrDefault("format", "png");
+        String tmpLabels = tmpParameters.getOrDefault("labels", String.valueOf(GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED));
+        tmpParameters.keySet().removeAll(List.of("type", "format", "labels"));
+        if (!tmpParameters.isEmpty()) {
+            throw new IllegalArgumentException("Unknown parameters " + tmpParameters.keySet() + ".");
+        }
+        if (!tmpType.equals("tree") && !tmpType.equals("network")) {
+            throw new IllegalArgumentException("Parameter type must be tree or network.");
+        }
+        if (!tmpFormat.equals("png") && !tmpFormat.equals("svg")) {
+            throw new IllegalArgumentException("Parameter format must be png or svg.");
+        }
+        if (!tmpLabels.equals("true") && !tmpLabels.equals("false")) {
+            throw new IllegalArgumentException("Parameter labels must be true or false.");
+        }
+        byte[] tmpBody;
+        try (InputStream tmpInputStream = anExchange.getRequestBody()) {
+            tmpBody = tmpInputStream.readNBytes(ScaffoldGraphRenderingServer.MAX_REQUEST_BODY_SIZE + 1);
+        }
+        if (tmpBody.length > ScaffoldGraphRenderingServer.MAX_REQUEST_BODY_SIZE) {
+            throw new RequestTooLargeException("Request body exceeds " + ScaffoldGraphRenderingServer.MAX_REQUEST_BODY_SIZE + " bytes.");
+        }
+        List<String> tmpSmilesList = new ArrayList<>();
+        for (String tmpLine : new String(tmpBody, StandardCharsets.UTF_8).split("\\R")) {
+            String tmpTrimmedLine = tmpLine.trim();
+            if (tmpTrimmedLine.isEmpty() || tmpTrimmedLine.startsWith("#")) {
+                continue;
+            }
+            tmpSmilesList.add(tmpTrimmedLine.split("\\s+", 2)[0]);
+            if (tmpSmilesList.size() > ScaffoldGraphRenderingServer.MAX_MOLECULES_PER_REQUEST) {
+                throw new RequestTooLargeException("Request exceeds " + ScaffoldGraphRenderingServer.MAX_MOLECULES_PER_REQUEST + " molecules.");
+            }
+        }
+        if (tmpSmilesList.isEmpty()) {
+            throw new IllegalArgumentException("No SMILES codes given.");
+        }
+        return new RenderRequest(tmpType.equals("network"), tmpFormat.equals("svg"), tmpLabels.equals("true"), tmpSmilesList);
+    }
+    //
+    /**
+     * Sends the given plain text response.
+     *
+     * @param anExchange HTTP exchange
+     * @param aStatusCode HTTP status code
+     * @param aText response text
+     * @throws IOException if the response cannot be sent
+     */
+    private static void sendText(HttpExchange anExchange, int aStatusCode, String aText) throws IOException {
+        byte[] tmpBody = String.valueOf(aText).getBytes(StandardCharsets.UTF_8);
+        anExchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        anExchange.sendResponseHeaders(aStatusCode, tmpBody.length);
+        try (OutputStream tmpOutputStream = anExchange.getResponseBody()) {
+            tmpOutputStream.write(tmpBody);
+        }
+    }
+    //
+    /**
+     * Parsed rendering request.
+     */
+    private static final class RenderRequest {
+        /**
+         * Whether a scaffold network (instead of a tree) is requested.
+         */
+        private final boolean isNetwork;
+        //
+        /**
+         * Whether an SVG (instead of a PNG) image is requested.
+         */
+        private final boolean isSvg;
+        //
+        /**
+         * Whether the nodes are labelled.
+         */
+        private final boolean areNodesLabelled;
+        //
+        /**
+         * Requested SMILES codes.
+         */
+        private final List<String> smilesList;
+        //
+        /**
+         * Constructor.
+         *
+         * @param isNetwork whether a scaffold network (instead of a tree) is requested
+         * @param isSvg whether an SVG (instead of a PNG) image is requested
+         * @param areNodesLabelled whether the nodes are labelled
+         * @param aSmilesList requested SMILES codes
+         */
+        private RenderRequest(boolean isNetwork, boolean isSvg, boolean areNodesLabelled, List<String> aSmilesList) {
+            this.isNetwork = isNetwork;
+            this.isSvg = isSvg;
+            this.areNodesLabelled = areNodesLabelled;
+            this.smilesList = aSmilesList;
+        }
+        //
+        /**
+         * Returns the key of the response in the response cache, covering all request parameters and SMILES codes.
+         *
+         * @return cache key
+         */
+        private String getCacheKey() {
+            return this.isNetwork + "|" + this.isSvg + "|" + this.areNodesLabelled + "|" + String.join("\n", this.smilesList);
+        }
+    }
+    //
+    /**
+     * Warm, reusable set of non-thread-safe instances owned by one request handler thread at a time.
+     */
+    private static final class RenderSlot {
+        /**
+         * Scaffold generator.
+         */
+        private final ScaffoldGenerator scaffoldGenerator;
+        //
+        /**
+         * SMILES parser.
+         */
+        private final SmilesParser smilesParser;
+        //
+        /**
+         * Node depiction pipeline for PNG rendering.
+         */
+        private final NodeDepictionPipeline pipeline;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aPipeline node depiction pipeline for PNG rendering
+         */
+        private RenderSlot(NodeDepictionPipeline aPipeline) {
+            this.scaffoldGenerator = new ScaffoldGenerator();
+            this.smilesParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+            this.pipeline = aPipeline;
+        }
+    }
+    //
+    /**
+     * Thrown if a request exceeds the size limits of the server.
+     */
+    private static final class RequestTooLargeException extends Exception {
+        /**
+         * Constructor.
+         *
+         * @param aMessage error message
+         */
+        private RequestTooLargeException(String aMessage) {
+            super(aMessage);
+        }
+    }
+}
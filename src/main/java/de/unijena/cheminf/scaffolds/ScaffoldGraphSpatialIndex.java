@@ -0,0 +1,667 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.stream.Sink;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Spatial index (point quadtree) of the node positions of a laid-out graph, e.g. of the level layout of the
+ * progressive display (see {@link GraphStreamUtility#displayProgressivelyWithGraphStream(org.openscience.cdk.tools.scaffold.ScaffoldNodeCollectionBase)})
+ * or of {@link EdgeBundling#apply(Graph)}, kept on the side of the graph. Picking the node closest to a point,
+ * e.g. for clicking or hovering, and querying the nodes in a rectangular region, e.g. for rubber-band selection or
+ * viewport culling, take logarithmic instead of linear time in the number of nodes for evenly spread layouts.
+ * <br>Positions are read from the "xyz" or "xy" node attributes in graph units. When attached to a graph with
+ * {@link #attach(Graph)}, the index receives the attribute and element events of the graph as a sink and is updated
+ * incrementally when nodes are moved, added, or removed. All methods are thread-safe, so that the index can be
+ * queried on the UI thread while the graph is changed on another one.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+public class ScaffoldGraphSpatialIndex implements Sink {
+    /**
+     * Maximum number of nodes in a quadtree leaf before it is split.
+     */
+    private static final int LEAF_CAPACITY = 8;
+    //
+    /**
+     * Maximum depth of quadtree cells, limits splitting when many nodes share the same position. The initial root
+     * cell of edge length 1 has depth 0, so the smallest cells have an edge length of 2^-32 graph units.
+     */
+    private static final int MAX_DEPTH = 32;
+    //
+    /**
+     * Indexed nodes by ID.
+     */
+    private final Map<String, Entry> entries;
+    //
+    /**
+     * Root cell of the quadtree, null while the index is empty for the first time.
+     */
+    private Cell root;
+    //
+    /**
+     * Graph this index is attached to by {@link #attach(Graph)}, null otherwise.
+     */
+    private volatile Graph graph;
+    //
+    /**
+     * Constructor of an empty index.
+     */
+    public ScaffoldGraphSpatialIndex() {
+        this.entries = new HashMap<>();
+        this.root = null;
+    }
+    //
+    /**
+     * Creates an index of all nodes of the given graph that have a position, without attaching it to the graph.
+     *
+     * @param aGraph laid-out graph
+     * @return spatial index of the node positions
+     * @throws NullPointerException if the given graph is null
+     */
+    public static ScaffoldGraphSpatialIndex build(Graph aGraph) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        ScaffoldGraphSpatialIndex tmpIndex = new ScaffoldGraphSpatialIndex();
+        tmpIndex.putAll(aGraph);
+        return tmpIndex;
+    }
+    //
+    /**
+     * Creates an index of all nodes of the given graph that have a position and attaches it to the graph as sink,
+     * so that it is updated when nodes move. Detach it with {@link #detach(Graph)} when it is no longer needed.
+     * The index is attached before the current positions are read, so that no position change on another thread
+     * is missed in between.
+     *
+     * @param aGraph laid-out graph
+     * @return spatial index of the node positions, updated incrementally
+     * @throws NullPointerException if the given graph is null
+     */
+    public static ScaffoldGraphSpatialIndex attach(Graph aGraph) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        ScaffoldGraphSpatialIndex tmpIndex = new ScaffoldGraphSpatialIndex();
+        tmpIndex.graph = aGraph;
+        aGraph.addSink(tmpIndex);
+        tmpIndex.putAll(aGraph);
+        return tmpIndex;
+    }
+    //
+    /**
+     * Stops updating this index with the changes of the given graph.
+     *
+     * @param aGraph graph this index was attached to
+     * @throws NullPointerException if the given graph is null
+     */
+    public void detach(Graph aGraph) throws NullPointerException {
+        Objects.requireNonNull(aGraph, "Given Graph instance is null.");
+        aGraph.removeSink(this);
+        if (this.graph == aGraph) {
+            this.graph = null;
+        }
+    }
+    //
+    /**
+     * Adds the node with the given ID at the given position or moves it there if it is already indexed.
+     *
+     * @param aNodeId node ID
+     * @param anX x coordinate in graph units
+     * @param aY y coordinate in graph units
+     * @throws NullPointerException if the given ID is null
+     * @throws IllegalArgumentException if a coordinate is not finite
+     */
+    public synchronized void put(String aNodeId, double anX, double aY) throws NullPointerException, IllegalArgumentException {
+        Objects.requireNonNull(aNodeId, "Given node ID is null.");
+        if (!Double.isFinite(anX) || !Double.isFinite(aY)) {
+            throw new IllegalArgumentException("Given coordinates must be finite.");
+        }
+        Entry tmpOldEntry = this.entries.get(aNodeId);
+        if (!Objects.isNull(tmpOldEntry)) {
+            if (tmpOldEntry.x == anX && tmpOldEntry.y == aY) {
+                return;
+            }
+            this.root.remove(tmpOldEntry);
+        }
+        Entry tmpEntry = new Entry(aNodeId, anX, aY);
+        this.entries.put(aNodeId, tmpEntry);
+        if (Objects.isNull(this.root)) {
+            this.root = new Cell(anX - 0.5, aY - 0.5, anX + 0.5, aY + 0.5, 0);
+        }
+        while (!this.root.contains(anX, aY)) {
+            this.root = this.root.grow(anX, aY);
+        }
+        this.root.insert(tmpEntry);
+    }
+    //
+    /**
+     * Removes the node with the given ID from the index.
+     *
+     * @param aNodeId node ID
+     * @return true if the node was indexed
+     * @throws NullPointerException if the given ID is null
+     */
+    public synchronized boolean remove(String aNodeId) throws NullPointerException {
+        Objects.requireNonNull(aNodeId, "Given node ID is null.");
+        Entry tmpEntry = this.entries.remove(aNodeId);
+        if (Objects.isNull(tmpEntry)) {
+            return false;
+        }
+        this.root.remove(tmpEntry);
+        return true;
+    }
+    //
+    /**
+     * Removes all nodes from the index.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.root = null;
+    }
+    //
+    /**
+     * Returns the number of indexed nodes.
+     *
+     * @return node count
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+    //
+    /**
+     * Returns the indexed position of the node with the given ID.
+     *
+     * @param aNodeId node ID
+     * @return x and y coordinate or null if the node is not indexed
+     * @throws NullPointerException if the given ID is null
+     */
+    public synchronized double[] getPosition(String aNodeId) throws NullPointerException {
+        Objects.requireNonNull(aNodeId, "Given node ID is null.");
+        Entry tmpEntry = this.entries.get(aNodeId);
+        return Objects.isNull(tmpEntry) ? null : new double[] {tmpEntry.x, tmpEntry.y};
+    }
+    //
+    /**
+     * Returns the IDs of all nodes within the given rectangle, borders included, in no particular order.
+     *
+     * @param aMinX minimum x coordinate in graph units
+     * @param aMinY minimum y coordinate in graph units
+     * @param aMaxX maximum x coordinate in graph units
+     * @param aMaxY maximum y coordinate in graph units
+     * @return IDs of the nodes in the region
+     */
+    public synchronized List<String> findInRegion(double aMinX, double aMinY, double aMaxX, double aMaxY) {
+        List<String> tmpNodeIds = new ArrayList<>();
+        if (!Objects.isNull(this.root)) {
+            this.root.collect(aMinX, aMinY, aMaxX, aMaxY, tmpNodeIds);
+        }
+        return tmpNodeIds;
+    }
+    //
+    /**
+     * Returns the ID of the node closest to the given point, e.g. for picking the node under the mouse cursor.
+     *
+     * @param anX x coordinate in graph units
+     * @param aY y coordinate in graph units
+     * @param aMaxDistance maximum distance of the node to the point in graph units
+     * @return ID of the closest node or null if no node is within the maximum distance
+     */
+    public synchronized String findNearest(double anX, double aY, double aMaxDistance) {
+        if (Objects.isNull(this.root) || aMaxDistance < 0.0) {
+            return null;
+        }
+        Entry[] tmpBest = new Entry[1];
+        double[] tmpBestDistanceSquared = new double[] {aMaxDistance * aMaxDistance};
+        this.root.findNearest(anX, aY, tmpBest, tmpBestDistanceSquared);
+        return Objects.isNull(tmpBest[0]) ? null : tmpBest[0].nodeId;
+    }
+    //
+    @Override
+    public void nodeAttributeAdded(String aSourceId, long aTimeId, String aNodeId, String anAttribute, Object aValue) {
+        this.updatePosition(aNodeId, anAttribute, aValue);
+    }
+    //
+    @Override
+    public void nodeAttributeChanged(String aSourceId, long aTimeId, String aNodeId, String anAttribute, Object anOldValue, Object aNewValue) {
+        this.updatePosition(aNodeId, anAttribute, aNewValue);
+    }
+    //
+    @Override
+    public void nodeAttributeRemoved(String aSourceId, long aTimeId, String aNodeId, String anAttribute) {
+        if (!ScaffoldGraphSpatialIndex.isPositionAttribute(anAttribute)) {
+            return;
+        }
+        //the node may still have a position in the other position attribute
+        Graph tmpGraph = this.graph;
+        Node tmpNode = Objects.isNull(tmpGraph) ? null : tmpGraph.getNode(aNodeId);
+        double[] tmpPosition = Objects.isNull(tmpNode) ? null : ScaffoldGraphSpatialIndex.getPosition(tmpNode);
+        if (Objects.isNull(tmpPosition)) {
+            this.remove(aNodeId);
+        } else {
+            this.put(aNodeId, tmpPosition[0], tmpPosition[1]);
+        }
+    }
+    //
+    @Override
+    public void nodeRemoved(String aSourceId, long aTimeId, String aNodeId) {
+        this.remove(aNodeId);
+    }
+    //
+    @Override
+    public void graphCleared(String aSourceId, long aTimeId) {
+        this.clear();
+    }
+    //
+    @Override
+    public void graphAttributeAdded(String aSourceId, long aTimeId, String anAttribute, Object aValue) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void graphAttributeChanged(String aSourceId, long aTimeId, String anAttribute, Object anOldValue, Object aNewValue) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void graphAttributeRemoved(String aSourceId, long aTimeId, String anAttribute) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void edgeAttributeAdded(String aSourceId, long aTimeId, String anEdgeId, String anAttribute, Object aValue) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void edgeAttributeChanged(String aSourceId, long aTimeId, String anEdgeId, String anAttribute, Object anOldValue, Object aNewValue) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void edgeAttributeRemoved(String aSourceId, long aTimeId, String anEdgeId, String anAttribute) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void nodeAdded(String aSourceId, long aTimeId, String aNodeId) {
+        //indexed when its position is set
+    }
+    //
+    @Override
+    public void edgeAdded(String aSourceId, long aTimeId, String anEdgeId, String aFromNodeId, String aToNodeId, boolean isDirected) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void edgeRemoved(String aSourceId, long aTimeId, String anEdgeId) {
+        //not relevant for the node positions
+    }
+    //
+    @Override
+    public void stepBegins(String aSourceId, long aTimeId, double aStep) {
+        //not relevant for the node positions
+    }
+    //
+    /**
+     * Moves, adds, or removes the given node according to a changed attribute value, if it is a position attribute.
+     *
+     * @param aNodeId node ID
+     * @param anAttribute name of the changed attribute
+     * @param aValue new attribute value
+     */
+    private void updatePosition(String aNodeId, String anAttribute, Object aValue) {
+        if (!ScaffoldGraphSpatialIndex.isPositionAttribute(anAttribute)) {
+            return;
+        }
+        double[] tmpPosition = ScaffoldGraphSpatialIndex.toPosition(aValue);
+        if (Objects.isNull(tmpPosition)) {
+            this.remove(aNodeId);
+        } else {
+            this.put(aNodeId, tmpPosition[0], tmpPosition[1]);
+        }
+    }
+    //
+    /**
+     * Indexes all nodes of the given graph that have a position. Every position is read and indexed while holding
+     * the monitor of this index, so that a concurrent position change that is received as event afterwards is not
+     * overwritten with the older value.
+     *
+     * @param aGraph graph whose nodes are indexed
+     */
+    private void putAll(Graph aGraph) {
+        for (Node tmpNode : aGraph) {
+            synchronized (this) {
+                double[] tmpPosition = ScaffoldGraphSpatialIndex.getPosition(tmpNode);
+                if (!Objects.isNull(tmpPosition)) {
+                    this.put(tmpNode.getId(), tmpPosition[0], tmpPosition[1]);
+                }
+            }
+        }
+    }
+    //
+    /**
+     * Checks whether the given attribute holds a node position.
+     *
+     * @param anAttribute attribute name
+     * @return true for "xyz" and "xy"
+     */
+    private static boolean isPositionAttribute(String anAttribute) {
+        return anAttribute.equals("xyz") || anAttribute.equals("xy");
+    }
+    //
+    /**
+     * Returns the position of the given node from its "xyz" or "xy" attribute.
+     *
+     * @param aNode graph node
+     * @return x and y coordinate or null if the node has no (valid) position
+     */
+    private static double[] getPosition(Node aNode) {
+        Object tmpValue = aNode.getAttribute("xyz");
+        if (Objects.isNull(tmpValue)) {
+            tmpValue = aNode.getAttribute("xy");
+        }
+        return ScaffoldGraphSpatialIndex.toPosition(tmpValue);
+    }
+    //
+    /**
+     * Converts a position attribute value, i.e. an array of at least two numbers, into coordinates.
+     *
+     * @param aValue attribute value
+     * @return x and y coordinate or null if the value is no valid position
+     */
+    private static double[] toPosition(Object aValue) {
+        double[] tmpPosition = null;
+        if (aValue instanceof double[] && ((double[]) aValue).length >= 2) {
+            tmpPosition = new double[] {((double[]) aValue)[0], ((double[]) aValue)[1]};
+        } else if (aValue instanceof Object[] && ((Object[]) aValue).length >= 2
+                && ((Object[]) aValue)[0] instanceof Number && ((Object[]) aValue)[1] instanceof Number) {
+            tmpPosition = new double[] {((Number) ((Object[]) aValue)[0]).doubleValue(), ((Number) ((Object[]) aValue)[1]).doubleValue()};
+        }
+        if (Objects.isNull(tmpPosition) || !Double.isFinite(tmpPosition[0]) || !Double.isFinite(tmpPosition[1])) {
+            return null;
+        }
+        return tmpPosition;
+    }
+    //
+    /**
+     * Indexed node.
+     */
+    private static final class Entry {
+        /**
+         * Node ID.
+         */
+        private final String nodeId;
+        //
+        /**
+         * X coordinate.
+         */
+        private final double x;
+        //
+        /**
+         * Y coordinate.
+         */
+        private final double y;
+        //
+        /**
+         * Constructor.
+         *
+         * @param aNodeId node ID
+         * @param anX x coordinate
+         * @param aY y coordinate
+         */
+        private Entry(String aNodeId, double anX, double aY) {
+            this.nodeId = aNodeId;
+            this.x = anX;
+            this.y = aY;
+        }
+    }
+    //
+    /**
+     * Square cell of the quadtree, either a leaf holding entries or an inner cell with four children. Children are
+     * ordered by quadrant: lower x and lower y, higher x and lower y, lower x and higher y, higher x and higher y.
+     */
+    private static final class Cell {
+        /**
+         * Minimum x coordinate (inclusive).
+         */
+        private final double minX;
+        //
+        /**
+         * Minimum y coordinate (inclusive).
+         */
+        private final double minY;
+        //
+        /**
+         * Maximum x coordinate (inclusive).
+         */
+        private final double maxX;
+        //
+        /**
+         * Maximum y coordinate (inclusive).
+         */
+        private final double maxY;
+        //
+        /**
+         * Depth of the cell, its edge length is 2^-depth; roots grown above the initial root have negative depths.
+         */
+        private final int depth;
+        //
+        /**
+         * Entries of a leaf, null for inner cells.
+         */
+        private List<Entry> entries;
+        //
+        /**
+         * Children of an inner cell, null for leaves.
+         */
+        private Cell[] children;
+        //
+        /**
+         * Constructor of a leaf.
+         *
+         * @param aMinX minimum x coordinate
+         * @param aMinY minimum y coordinate
+         * @param aMaxX maximum x coordinate
+         * @param aMaxY maximum y coordinate
+         * @param aDepth depth of the cell
+         */
+        private Cell(double aMinX, double aMinY, double aMaxX, double aMaxY, int aDepth) {
+            this.minX = aMinX;
+            this.minY = aMinY;
+            this.maxX = aMaxX;
+            this.maxY = aMaxY;
+            this.depth = aDepth;
+            this.entries = new ArrayList<>(ScaffoldGraphSpatialIndex.LEAF_CAPACITY);
+            this.children = null;
+        }
+        //
+        /**
+         * Checks whether the given point lies within this cell.
+         *
+         * @param anX x coordinate
+         * @param aY y coordinate
+         * @return true if the point is inside, borders included
+         */
+        private boolean contains(double anX, double aY) {
+            return anX >= this.minX && anX <= this.maxX && aY >= this.minY && aY <= this.maxY;
+        }
+        //
+        /**
+         * Returns a cell of twice the edge length that has this cell as the quadrant facing the given point.
+         *
+         * @param anX x coordinate of a point outside this cell
+         * @param aY y coordinate of a point outside this cell
+         * @return new root cell
+         */
+        private Cell grow(double anX, double aY) {
+            double tmpSize = this.maxX - this.minX;
+            boolean tmpIsGrowingLeft = anX < this.minX;
+            boolean tmpIsGrowingDown = aY < this.minY;
+            double tmpMinX = tmpIsGrowingLeft ? this.minX - tmpSize : this.minX;
+            double tmpMinY = tmpIsGrowingDown ? this.minY - tmpSize : this.minY;
+            Cell tmpParent = new Cell(tmpMinX, tmpMinY, tmpMinX + 2 * tmpSize, tmpMinY + 2 * tmpSize, this.depth - 1);
+            tmpParent.split();
+            tmpParent.children[(tmpIsGrowingLeft ? 1 : 0) + (tmpIsGrowingDown ? 2 : 0)] = this;
+            return tmpParent;
+        }
+        //
+        /**
+         * Turns this leaf into an inner cell with four empty leaf children and returns its former entries.
+         *
+         * @return entries of the former leaf
+         */
+        private List<Entry> split() {
+            double tmpMidX = (this.minX + this.maxX) / 2;
+            double tmpMidY = (this.minY + this.maxY) / 2;
+            this.children = new Cell[] {
+                    new Cell(this.minX, this.minY, tmpMidX, tmpMidY, this.depth + 1),
+                    new Cell(tmpMidX, this.minY, this.maxX, tmpMidY, this.depth + 1),
+                    new Cell(this.minX, tmpMidY, tmpMidX, this.maxY, this.depth + 1),
+                    new Cell(tmpMidX, tmpMidY, this.maxX, this.maxY, this.depth + 1)};
+            List<Entry> tmpEntries = this.entries;
+            this.entries = null;
+            return tmpEntries;
+        }
+        //
+        /**
+         * Returns the child whose quadrant contains the given point, points on the middle lines belong to the
+         * higher quadrants.
+         *
+         * @param anX x coordinate
+         * @param aY y coordinate
+         * @return child cell
+         */
+        private Cell getChild(double anX, double aY) {
+            int tmpQuadrant = (anX >= (this.minX + this.maxX) / 2 ? 1 : 0) + (aY >= (this.minY + this.maxY) / 2 ? 2 : 0);
+            return this.children[tmpQuadrant];
+        }
+        //
+        /**
+         * Inserts the given entry, which lies within this cell, splitting full leaves.
+         *
+         * @param anEntry entry to insert
+         */
+        private void insert(Entry anEntry) {
+            Cell tmpCell = this;
+            while (Objects.isNull(tmpCell.entries)) {
+                tmpCell = tmpCell.getChild(anEntry.x, anEntry.y);
+            }
+            tmpCell.entries.add(anEntry);
+            if (tmpCell.entries.size() > ScaffoldGraphSpatialIndex.LEAF_CAPACITY
+                    && tmpCell.depth < ScaffoldGraphSpatialIndex.MAX_DEPTH) {
+                for (Entry tmpEntry : tmpCell.split()) {
+                    tmpCell.insert(tmpEntry);
+                }
+            }
+        }
+        //
+        /**
+         * Removes the given entry, which lies within this cell. Emptied leaves are kept.
+         *
+         * @param anEntry entry to remove
+         */
+        private void remove(Entry anEntry) {
+            Cell tmpCell = this;
+            while (Objects.isNull(tmpCell.entries)) {
+                tmpCell = tmpCell.getChild(anEntry.x, anEntry.y);
+            }
+            tmpCell.entries.remove(anEntry);
+        }
+        //
+        /**
+         * Adds the node IDs of all entries within the given rectangle to the given list.
+         *
+         * @param aMinX minimum x coordinate
+         * @param aMinY minimum y coordinate
+         * @param aMaxX maximum x coordinate
+         * @param aMaxY maximum y coordinate
+         * @param aNodeIds receives the node IDs
+         */
+        private void collect(double aMinX, double aMinY, double aMaxX, double aMaxY, List<String> aNodeIds) {
+            if (aMinX > this.maxX || aMaxX < this.minX || aMinY > this.maxY || aMaxY < this.minY) {
+                return;
+            }
+            if (Objects.isNull(this.entries)) {
+                for (Cell tmpChild : this.children) {
+                    tmpChild.collect(aMinX, aMinY, aMaxX, aMaxY, aNodeIds);
+                }
+                return;
+            }
+            for (Entry tmpEntry : this.entries) {
+                if (tmpEntry.x >= aMinX && tmpEntry.x <= aMaxX && tmpEntry.y >= aMinY && tmpEntry.y <= aMaxY) {
+                    aNodeIds.add(tmpEntry.nodeId);
+                }
+            }
+        }
+        //
+        /**
+         * Branch-and-bound search for the entry closest to the given point, skipping cells farther away than the
+         * best entry found so far.
+         *
+         * @param anX x coordinate
+         * @param aY y coordinate
+         * @param aBest holds the closest entry found so far
+         * @param aBestDistanceSquared holds the squared distance of the closest entry or the squared maximum distance
+         */
+        private void findNearest(double anX, double aY, Entry[] aBest, double[] aBestDistanceSquared) {
+            if (this.getDistanceSquared(anX, aY) > aBestDistanceSquared[0]) {
+                return;
+            }
+            if (Objects.isNull(this.entries)) {
+                //the quadrant of the point first, to find a close entry early
+                Cell tmpFirstChild = this.getChild(anX, aY);
+                tmpFirstChild.findNearest(anX, aY, aBest, aBestDistanceSquared);
+                for (Cell tmpChild : this.children) {
+                    if (tmpChild != tmpFirstChild) {
+                        tmpChild.findNearest(anX, aY, aBest, aBestDistanceSquared);
+                    }
+                }
+                return;
+            }
+            for (Entry tmpEntry : this.entries) {
+                double tmpDistanceSquared = (tmpEntry.x - anX) * (tmpEntry.x - anX) + (tmpEntry.y - aY) * (tmpEntry.y - aY);
+                if (tmpDistanceSquared <= aBestDistanceSquared[0]) {
+                    aBest[0] = tmpEntry;
+                    aBestDistanceSquared[0] = tmpDistanceSquared;
+                }
+            }
+        }
+        //
+        /**
+         * Returns the squared distance of the given point to this cell, zero if it lies inside.
+         *
+         * @param anX x coordinate
+         * @param aY y coordinate
+         * @return squared distance
+         */
+        private double getDistanceSquared(double anX, double aY) {
+            double tmpDeltaX = Math.max(0.0, Math.max(this.minX - anX, anX - this.maxX));
+            double tmpDeltaY = Math.max(0.0, Math.max(this.minY - aY, aY - this.maxY));
+            return tmpDeltaX * tmpDeltaX + tmpDeltaY * tmpDeltaY;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+/**
+ * Test class for the adaptive sizing of structure depictions.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class AdaptiveDepictionSizerTest {
+    /**
+     * Checks that a single ring gets a smaller canvas than a macrocycle and that both stay within the size limits.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void computeSizeTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        IAtomContainer tmpBenzene = tmpParser.parseSmiles("c1ccccc1");
+        IAtomContainer tmpMacrocycle = tmpParser.parseSmiles("C1CCCCCCCCCCCCCCCCCCCCCCCCCCCCC1");
+        AdaptiveDepictionSizer tmpSizer = new AdaptiveDepictionSizer();
+        Dimension tmpBenzeneSize = tmpSizer.computeSize(tmpBenzene);
+        Dimension tmpMacrocycleSize = tmpSizer.computeSize(tmpMacrocycle);
+        Assertions.assertTrue(tmpBenzeneSize.width < tmpMacrocycleSize.width);
+        Assertions.assertTrue(tmpBenzeneSize.width * tmpBenzeneSize.height < 2048 * 2048 / 16);
+        Assertions.assertTrue(tmpBenzeneSize.width >= AdaptiveDepictionSizer.DEFAULT_MIN_SIZE);
+        Assertions.assertTrue(tmpMacrocycleSize.width <= AdaptiveDepictionSizer.DEFAULT_MAX_SIZE);
+        BufferedImage tmpImage = tmpSizer.adapt(GraphStreamUtility.getDefaultDepictionGenerator(), tmpBenzene).depict(tmpBenzene).toImg();
+        Assertions.assertEquals(tmpBenzeneSize.width, tmpImage.getWidth(), 1.0);
+        Assertions.assertEquals(tmpBenzeneSize.height, tmpImage.getHeight(), 1.0);
+    }
+    //
+    /**
+     * Checks that similar depiction sizes share a node size style class and that its rule declares the rounded size.
+     */
+    @Test
+    void nodeSizeClassTest() {
+        AdaptiveDepictionSizer tmpSizer = new AdaptiveDepictionSizer();
+        String tmpSizeClass = tmpSizer.getNodeSizeClass(144, 96);
+        Assertions.assertEquals("size48x32", tmpSizeClass);
+        Assertions.assertEquals(tmpSizeClass, tmpSizer.getNodeSizeClass(145, 97));
+        Assertions.assertEquals("node.size48x32 { size-mode: given; size: 48px, 32px; }",
+                AdaptiveDepictionSizer.getNodeSizeStyleRule(tmpSizeClass));
+        Assertions.assertNull(AdaptiveDepictionSizer.getNodeSizeStyleRule(GraphStreamUtility.STRUCTURE_NODE_CLASS));
+    }
+    //
+    /**
+     * Checks that invalid settings are rejected.
+     */
+    @Test
+    void invalidSettingsTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveDepictionSizer(0, 128, 2048, 16));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveDepictionSizer(48, 512, 256, 16));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the memory budget of scaffold graph generation.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class DepictionMemoryBudgetTest {
+    /**
+     * Reserves images in a small budget and checks downscaling near the threshold, throttling when the budget is
+     * exhausted, and the peak use.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void reservationTest() throws Exception {
+        DepictionMemoryBudget tmpBudget = new DepictionMemoryBudget(1000L, 0.5);
+        //20 x 20 pixels need 1600 bytes, halved twice until below the threshold of 500 bytes
+        Assertions.assertEquals(new Dimension(10, 10), tmpBudget.reserveImage(new Dimension(20, 20), 4));
+        Assertions.assertEquals(1L, tmpBudget.getDownscaledCount());
+        Assertions.assertEquals(400L, tmpBudget.getUsedBytes());
+        Assertions.assertEquals(new Dimension(5, 5), tmpBudget.reserveImage(new Dimension(5, 5), 4));
+        Assertions.assertEquals(1L, tmpBudget.getDownscaledCount());
+        Assertions.assertEquals(500L, tmpBudget.getUsedBytes());
+        //not scaled below the minimum size
+        Assertions.assertEquals(new Dimension(8, 8), new DepictionMemoryBudget(10L).reserveImage(new Dimension(32, 32), 8));
+        Thread tmpThread = new Thread(() -> {
+            try {
+                tmpBudget.reserveImage(600L);
+            } catch (InterruptedException anInterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        tmpThread.start();
+        tmpThread.join(200L);
+        //500 + 600 bytes exceed the budget
+        Assertions.assertTrue(tmpThread.isAlive());
+        Assertions.assertEquals(500L, tmpBudget.getUsedBytes());
+        tmpBudget.releaseImage(400L);
+        tmpThread.join(TimeUnit.SECONDS.toMillis(10));
+        Assertions.assertFalse(tmpThread.isAlive());
+        Assertions.assertEquals(700L, tmpBudget.getUsedBytes());
+        Assertions.assertEquals(700L, tmpBudget.getPeakBytes());
+        Assertions.assertEquals(1L, tmpBudget.getThrottledCount());
+        tmpBudget.releaseImage(100L);
+        tmpBudget.releaseImage(600L);
+        Assertions.assertEquals(0L, tmpBudget.getUsedBytes());
+        Assertions.assertEquals(700L, tmpBudget.getPeakBytes());
+    }
+    //
+    /**
+     * Checks that graphs exceeding the budget do not block depictions and that invalid budgets are rejected.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void graphAccountingTest() throws Exception {
+        DepictionMemoryBudget tmpBudget = new DepictionMemoryBudget(100L);
+        tmpBudget.addGraph(DepictionMemoryBudget.estimateGraphBytes(1, 0));
+        //admitted although the graph alone exceeds the budget, since no other image is in flight
+        tmpBudget.reserveImage(50L);
+        Assertions.assertEquals(DepictionMemoryBudget.ESTIMATED_NODE_BYTES + 50L, tmpBudget.getPeakBytes());
+        Assertions.assertEquals(0L, tmpBudget.getThrottledCount());
+        tmpBudget.releaseImage(50L);
+        tmpBudget.removeGraph(DepictionMemoryBudget.estimateGraphBytes(1, 0));
+        Assertions.assertEquals(0L, tmpBudget.getUsedBytes());
+        Assertions.assertEquals(4L * 2048L * 2048L, DepictionMemoryBudget.estimateImageBytes(2048, 2048));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DepictionMemoryBudget(0L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DepictionMemoryBudget(100L, 0.0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DepictionMemoryBudget(100L, 1.5));
+    }
+}
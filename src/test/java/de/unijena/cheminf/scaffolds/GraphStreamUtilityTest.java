@@ -21,10 +21,13 @@
 package de.unijena.cheminf.scaffolds;
 
 import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.file.FileSinkImages;
 import org.junit.jupiter.api.Assertions;
-import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.openscience.cdk.interfaces.IAtomContainer;
 import org.openscience.cdk.interfaces.IChemObjectBuilder;
 import org.openscience.cdk.io.FormatFactory;
@@ -42,16 +45,23 @@ import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
 import org.openscience.cdk.tools.scaffold.ScaffoldTree;
 import org.openscience.cdk.tools.scaffold.TreeNode;
 
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import javax.imageio.ImageIO;
+
 /**
  * Test class showcasing the capabilities of the GraphStream scaffold graph visualisation functionality.
  * Please note that most of this is code for example usage of the functionality, not actual test code.
- * Also, most tests are disabled by default to be able to have them run on machines without a graphical display.
+ * The demos that open GraphStream windows are tagged "gui" and excluded from the default (headless) test task to be
+ * able to have the tests run on machines without a graphical display; run them with the "guiTest" Gradle task.
  *
  *  @author Julian Zander, Jonas Schaub (zanderjulian@gmx.de, jonas.schaub@uni-jena.de)
  *  @version 1.0.0.0
@@ -64,7 +74,7 @@ class GraphStreamUtilityTest {
      *
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamTreeTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -77,7 +87,7 @@ class GraphStreamUtilityTest {
         Graph tmpGraph = new SingleGraph("Sertraline-Scaffold-Tree");
         GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldTree,
                 GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
                 tmpGraph);
         System.setProperty("org.graphstream.ui", GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI);
@@ -96,7 +106,7 @@ class GraphStreamUtilityTest {
      *
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamNetworkTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -115,7 +125,7 @@ class GraphStreamUtilityTest {
      *
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamTreeMergeTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -136,7 +146,7 @@ class GraphStreamUtilityTest {
         Graph tmpGraph = new SingleGraph("Pyrimidine-Scaffold-Tree");
         GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldTreeList.get(0),
                 GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
                 tmpGraph);
         System.setProperty("org.graphstream.ui", GraphStreamUtility.DEFAULT_GRAPHSTREAM_UI);
@@ -155,7 +165,7 @@ class GraphStreamUtilityTest {
      *
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamNetworkMergeTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -175,7 +185,7 @@ class GraphStreamUtilityTest {
      * Some additional information is printed for every scaffold node.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamTreeTestFlucloxacillin() throws Exception {
         String tmpFileName = "Test3" ;
@@ -215,7 +225,7 @@ class GraphStreamUtilityTest {
      * Creates a ScaffoldNetwork from a V2000 or V3000 mol file of Flucloxacillin and displays it as a scaffold network with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void graphStreamNetworkTestFlucloxacillin() throws Exception {
         String tmpFileName = "Test3" ;
@@ -256,7 +266,7 @@ class GraphStreamUtilityTest {
      * Creates the scaffold network of Ondasetron. The result is visualised with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void scaffoldNetworkArticleFigure1ANetworkTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -275,7 +285,7 @@ class GraphStreamUtilityTest {
      * Creates the scaffold networks of Alosetron. The result is visualised with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void scaffoldNetworkArticleFigure1BNetworkTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -294,7 +304,7 @@ class GraphStreamUtilityTest {
      * Creates the scaffold networks of Ramosetron. The result is visualised with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void scaffoldNetworkArticleFigure1CNetworkTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -313,7 +323,7 @@ class GraphStreamUtilityTest {
      * Creates the scaffold network of Ondasetron, Alosetron, Ramosetron. The result is visualised with GraphStream and written to a screenshot file.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void scaffoldNetworkArticleFigure1NetworkTest() throws Exception {
         SmilesParser tmpParser  = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -335,7 +345,7 @@ class GraphStreamUtilityTest {
      * Creates multiple scaffold trees of some "fantasy molecules" and merges them. The result is visualised with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void mergeTreeDisplayTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -369,7 +379,7 @@ class GraphStreamUtilityTest {
      * A network is added here that has no connection to the rest of the network. It is displayable in principle, but not optimal.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void mergeNetworkDisplayTest() throws Exception {
         SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
@@ -397,7 +407,7 @@ class GraphStreamUtilityTest {
      * Creates multiple scaffold trees and merges them. The result is visualised with GraphStream.
      * @throws Exception if anything goes wrong
      */
-    @Disabled
+    @Tag("gui")
     @Test
     void mergeMoleculesToForestTest() throws Exception {
         ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
@@ -433,6 +443,23 @@ class GraphStreamUtilityTest {
         TimeUnit.SECONDS.sleep(10);
     }
     //
+    /**
+     * Imports Sertraline (PubChem CID 68617) from a SMILES string.
+     * Generates the scaffold network of this molecule and displays it progressively with GraphStream.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Tag("gui")
+    @Test
+    void progressiveDisplayTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        GraphStreamUtility.displayProgressivelyWithGraphStream(tmpScaffoldNetwork);
+        TimeUnit.SECONDS.sleep(10);
+    }
+    //
     /**
      * Imports Sertraline (PubChem CID 68617) from a SMILES string.
      * Generates the Schuffenhauer tree of this molecule.
@@ -450,13 +477,230 @@ class GraphStreamUtilityTest {
         Graph tmpGraph = new SingleGraph("Sertraline-Scaffold-Tree");
         GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldTree,
                 GraphStreamUtility.DEFAULT_ARE_NODES_LABELLED,
-                GraphStreamUtility.DEFAULT_CDK_DEPICTION_GENERATOR,
+                GraphStreamUtility.getDefaultDepictionGenerator(),
                 GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
                 tmpGraph);
         Assertions.assertEquals(2, tmpGraph.getEdgeCount());
         Assertions.assertEquals(3, tmpGraph.getNodeCount());
     }
     //
+    /**
+     * Generates the neighbourhood subgraph of the middle node of the sertraline scaffold tree with different depth
+     * limits and checks the numbers of nodes and edges (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void neighbourhoodTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldTree tmpScaffoldTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        List<ScaffoldNodeBase<IAtomContainer>> tmpSeeds = List.of(tmpScaffoldTree.getAllNodesOnLevel(1).get(0));
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            Graph tmpSeedGraph = GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(tmpScaffoldTree, tmpSeeds,
+                    0, 0, true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Seed"));
+            Assertions.assertEquals(1, tmpSeedGraph.getNodeCount());
+            Assertions.assertEquals(0, tmpSeedGraph.getEdgeCount());
+            Assertions.assertSame(tmpSeeds.get(0), tmpSeedGraph.getNode("0").getAttribute(
+                    GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE));
+            Graph tmpUpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(tmpScaffoldTree, tmpSeeds,
+                    1, 0, true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Up"));
+            Assertions.assertEquals(2, tmpUpGraph.getNodeCount());
+            Assertions.assertEquals(1, tmpUpGraph.getEdgeCount());
+            Graph tmpFullGraph = GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(tmpScaffoldTree, tmpSeeds,
+                    5, 5, true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Full"));
+            Assertions.assertEquals(3, tmpFullGraph.getNodeCount());
+            Assertions.assertEquals(2, tmpFullGraph.getEdgeCount());
+            Assertions.assertThrows(IllegalArgumentException.class, () -> GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(
+                    tmpScaffoldTree, tmpSeeds, -1, 0, true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Invalid")));
+            //same SMILES, but a node of another tree
+            ScaffoldTree tmpOtherTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+            List<ScaffoldNodeBase<IAtomContainer>> tmpForeignSeeds = List.of(tmpOtherTree.getAllNodesOnLevel(1).get(0));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> GraphStreamUtility.generateGraphFromScaffoldNodeNeighbourhood(
+                    tmpScaffoldTree, tmpForeignSeeds, 1, 1, true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Foreign")));
+        }
+    }
+    //
+    /**
+     * Generates the scaffold network of sertraline with adaptive depiction sizes and verifies the graph structure
+     * against the adjacency matrix of the network, the node attributes, and the dimensions of the node images
+     * (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void headlessGraphVerificationTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        AdaptiveDepictionSizer tmpSizer = new AdaptiveDepictionSizer();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            tmpPipeline.setAdaptiveDepictionSizer(tmpSizer);
+            Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldNetwork,
+                    true,
+                    tmpPipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    new SingleGraph("Sertraline-Scaffold-Network"));
+            Integer[][] tmpMatrix = tmpScaffoldNetwork.getMatrix();
+            int tmpExpectedEdgeCount = 0;
+            for (int tmpRowIndex = 0; tmpRowIndex < tmpMatrix.length; tmpRowIndex++) {
+                for (int tmpColumnIndex = 0; tmpColumnIndex < tmpRowIndex; tmpColumnIndex++) {
+                    if (tmpMatrix[tmpRowIndex][tmpColumnIndex].equals(1)) {
+                        tmpExpectedEdgeCount++;
+                        Assertions.assertNotNull(tmpGraph.getNode(tmpRowIndex).getEdgeBetween(tmpGraph.getNode(tmpColumnIndex)));
+                    }
+                }
+            }
+            Assertions.assertEquals(tmpMatrix.length, tmpGraph.getNodeCount());
+            Assertions.assertEquals(tmpExpectedEdgeCount, tmpGraph.getEdgeCount());
+            for (int tmpIndex = 0; tmpIndex < tmpGraph.getNodeCount(); tmpIndex++) {
+                Node tmpNode = tmpGraph.getNode(tmpIndex);
+                ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpScaffoldNetwork.getMatrixNode(tmpIndex);
+                Assertions.assertSame(tmpScaffoldNode, tmpNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE));
+                Assertions.assertEquals("Level: " + tmpScaffoldNode.getLevel() + "; Index: " + tmpIndex, tmpNode.getAttribute("ui.label"));
+                File tmpImageFile = GraphStreamUtility.getNodeImageFile(tmpNode);
+                Assertions.assertNotNull(tmpImageFile);
+                BufferedImage tmpImage = ImageIO.read(tmpImageFile);
+                Dimension tmpExpectedSize = tmpSizer.computeSize(tmpScaffoldNode.getMolecule());
+                Assertions.assertEquals(tmpExpectedSize.width, tmpImage.getWidth(), 1);
+                Assertions.assertEquals(tmpExpectedSize.height, tmpImage.getHeight(), 1);
+                //the node size comes from a style class whose rule is in the style sheet, not from the node style
+                String tmpSizeClass = tmpSizer.getNodeSizeClass(tmpImage.getWidth(), tmpImage.getHeight());
+                Assertions.assertTrue(tmpNode.getAttribute("ui.class").toString().contains(tmpSizeClass));
+                Assertions.assertTrue(tmpGraph.getAttribute("ui.stylesheet").toString()
+                        .contains(AdaptiveDepictionSizer.getNodeSizeStyleRule(tmpSizeClass)));
+                Assertions.assertFalse(((String) tmpNode.getAttribute("ui.style")).contains("size"));
+            }
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+    }
+    //
+    /**
+     * Generates the scaffold network of sertraline into a pre-sized graph with another graph connected as sink, and
+     * checks that the sink receives the complete graph, replayed after the bulk construction (does not open a GUI
+     * window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void bulkConstructionReplayTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        Graph tmpGraph = GraphStreamUtility.createPresizedGraph("Bulk", tmpScaffoldNetwork);
+        Graph tmpMirror = new SingleGraph("Mirror");
+        tmpGraph.addSink(tmpMirror);
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldNetwork,
+                    true,
+                    tmpPipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    tmpGraph);
+        }
+        Assertions.assertEquals(tmpScaffoldNetwork.getAllNodes().size(), tmpGraph.getNodeCount());
+        Assertions.assertEquals(tmpGraph.getNodeCount(), tmpMirror.getNodeCount());
+        Assertions.assertEquals(tmpGraph.getEdgeCount(), tmpMirror.getEdgeCount());
+        Assertions.assertEquals(tmpGraph.getAttribute("ui.stylesheet"), tmpMirror.getAttribute("ui.stylesheet"));
+        for (int tmpIndex = 0; tmpIndex < tmpGraph.getNodeCount(); tmpIndex++) {
+            Assertions.assertEquals(tmpGraph.getNode(tmpIndex).getAttribute("ui.style"),
+                    tmpMirror.getNode(String.valueOf(tmpIndex)).getAttribute("ui.style"));
+        }
+        //the sink stays connected
+        tmpGraph.addNode("extra");
+        Assertions.assertNotNull(tmpMirror.getNode("extra"));
+        GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+    }
+    //
+    /**
+     * Generates the scaffold network of sertraline with compact node attributes and checks that the nodes reference
+     * their scaffold nodes by index and their images by ID, and use the shared structure style class (does not open
+     * a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void compactNodeAttributesTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            tmpPipeline.setNodeAttributesCompact(true);
+            Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldNetwork, true, tmpPipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Compact"));
+            for (int tmpIndex = 0; tmpIndex < tmpGraph.getNodeCount(); tmpIndex++) {
+                Node tmpNode = tmpGraph.getNode(tmpIndex);
+                Assertions.assertNull(tmpNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_SCAFFOLD_NODE_BASE_INSTANCE));
+                Assertions.assertSame(tmpScaffoldNetwork.getMatrixNode(tmpIndex), GraphStreamUtility.getScaffoldNode(tmpNode, tmpScaffoldNetwork));
+                Object tmpImageId = tmpNode.getAttribute(GraphStreamUtility.GRAPH_NODE_PROPERTY_KEY_IMAGE_ID);
+                Assertions.assertInstanceOf(Integer.class, tmpImageId);
+                Assertions.assertTrue(GraphStreamUtility.getNodeImageFile(tmpNode).getName()
+                        .startsWith(NodeDepictionPipeline.IMAGE_FILE_PREFIX + tmpImageId + "."));
+                Assertions.assertEquals(GraphStreamUtility.STRUCTURE_NODE_CLASS, tmpNode.getAttribute("ui.class"));
+                Assertions.assertFalse(((String) tmpNode.getAttribute("ui.style")).contains("fill-mode"));
+            }
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+    }
+    //
+    /**
+     * Exports the scaffold tree of sertraline with a FileSinkImages instance at a fixed resolution and checks the
+     * dimensions of the written image (does not open a GUI window).
+     *
+     * @param aTempDir temporary directory for the exported image
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void headlessExportTest(@TempDir File aTempDir) throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldTree tmpScaffoldTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldTree);
+        FileSinkImages tmpFileSinkImages = FileSinkImages.createDefault();
+        tmpFileSinkImages.setOutputType(FileSinkImages.OutputType.png);
+        tmpFileSinkImages.setResolution(800, 600);
+        tmpFileSinkImages.setLayoutPolicy(FileSinkImages.LayoutPolicy.COMPUTED_FULLY_AT_NEW_IMAGE);
+        File tmpImageFile = new File(aTempDir, "Sertraline_ScaffoldTree.png");
+        GraphStreamUtility.screenshotGraphHighQuality(tmpGraph, tmpImageFile.getAbsolutePath(), tmpFileSinkImages);
+        BufferedImage tmpImage = ImageIO.read(tmpImageFile);
+        Assertions.assertNotNull(tmpImage);
+        Assertions.assertEquals(800, tmpImage.getWidth());
+        Assertions.assertEquals(600, tmpImage.getHeight());
+    }
+    //
+    /**
+     * Computes the level layout of the sertraline scaffold network and checks that the nodes are placed in centred
+     * rows by scaffold level without overlaps (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void levelLayoutTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+        double[][] tmpPositions = GraphStreamUtility.computeLevelLayout(tmpScaffoldNetwork);
+        Assertions.assertEquals(tmpScaffoldNetwork.getAllNodes().size(), tmpPositions.length);
+        for (int tmpLevel = 0; tmpLevel <= tmpScaffoldNetwork.getMaxLevel(); tmpLevel++) {
+            Set<Double> tmpRowXs = new HashSet<>();
+            double tmpRowXSum = 0.0;
+            for (int tmpIndex = 0; tmpIndex < tmpPositions.length; tmpIndex++) {
+                if (tmpScaffoldNetwork.getMatrixNode(tmpIndex).getLevel() != tmpLevel) {
+                    continue;
+                }
+                Assertions.assertEquals(-tmpLevel, tmpPositions[tmpIndex][1]);
+                Assertions.assertTrue(tmpRowXs.add(tmpPositions[tmpIndex][0]));
+                tmpRowXSum += tmpPositions[tmpIndex][0];
+            }
+            Assertions.assertEquals(0.0, tmpRowXSum, 1e-9);
+        }
+    }
+    //
     /**
      * Loads a mol file of a specific path and returns it as IAtomContainer object.
      * Supports V2000 and V3000 mol files.
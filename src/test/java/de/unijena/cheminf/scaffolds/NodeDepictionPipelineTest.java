@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for the staged node depiction pipeline.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class NodeDepictionPipelineTest {
+    /**
+     * Depicts more molecules than the pipeline capacity allows in flight and checks that every index is handed
+     * over exactly once with a written image file.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void depictNodesBackpressureTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMolecules = new ArrayList<>();
+        for (int tmpIndex = 0; tmpIndex < 10; tmpIndex++) {
+            tmpMolecules.add(tmpParser.parseSmiles("c1ccc2c(c1)CCC2"));
+        }
+        boolean[] tmpIsIndexHandedOver = new boolean[tmpMolecules.size()];
+        GraphStreamUtility.getTempFolder().mkdirs();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator(), 2, 1, 1, 2)) {
+            tmpPipeline.depictNodes(tmpMolecules.size(), tmpMolecules::get, GraphStreamUtility.getTempFolder(), aResult -> {
+                Assertions.assertFalse(tmpIsIndexHandedOver[aResult.getIndex()]);
+                tmpIsIndexHandedOver[aResult.getIndex()] = true;
+                Assertions.assertNotNull(aResult.getImageFile());
+                Assertions.assertTrue(aResult.getImageFile().isFile());
+                Assertions.assertTrue(aResult.getImageWidth() > 0);
+            });
+        }
+        for (boolean tmpIsHandedOver : tmpIsIndexHandedOver) {
+            Assertions.assertTrue(tmpIsHandedOver);
+        }
+    }
+    //
+    /**
+     * Depicts molecules with adaptive sizes under a memory budget that holds only a few of their images and checks
+     * that all of them are depicted with their planned sizes, that the budget was kept, and that it is fully
+     * released afterwards.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void depictNodesMemoryBudgetTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        AdaptiveDepictionSizer tmpSizer = new AdaptiveDepictionSizer();
+        List<IAtomContainer> tmpMolecules = new ArrayList<>();
+        List<Dimension> tmpPlannedSizes = new ArrayList<>();
+        long tmpLargestImageBytes = 0L;
+        for (int tmpIndex = 0; tmpIndex < 10; tmpIndex++) {
+            IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+            Dimension tmpSize = tmpSizer.computeSize(tmpMolecule);
+            tmpLargestImageBytes = Math.max(tmpLargestImageBytes, DepictionMemoryBudget.estimateImageBytes(tmpSize.width, tmpSize.height));
+            tmpMolecules.add(tmpMolecule);
+            tmpPlannedSizes.add(tmpSize);
+        }
+        DepictionMemoryBudget tmpBudget = new DepictionMemoryBudget(2 * tmpLargestImageBytes);
+        boolean[] tmpIsIndexHandedOver = new boolean[tmpMolecules.size()];
+        GraphStreamUtility.getTempFolder().mkdirs();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator(), 4, 1, 1, 8)) {
+            tmpPipeline.setAdaptiveDepictionSizer(tmpSizer);
+            tmpPipeline.setMemoryBudget(tmpBudget);
+            tmpPipeline.depictNodes(tmpMolecules.size(), tmpMolecules::get, GraphStreamUtility.getTempFolder(), aResult -> {
+                tmpIsIndexHandedOver[aResult.getIndex()] = true;
+                Assertions.assertNotNull(aResult.getImageFile());
+                //the planned size, also for scaled-down images
+                Dimension tmpPlannedSize = tmpPlannedSizes.get(aResult.getIndex());
+                Assertions.assertEquals(tmpPlannedSize.width, aResult.getImageWidth());
+                Assertions.assertEquals(tmpPlannedSize.height, aResult.getImageHeight());
+                aResult.getImageFile().delete();
+            });
+        }
+        for (boolean tmpIsHandedOver : tmpIsIndexHandedOver) {
+            Assertions.assertTrue(tmpIsHandedOver);
+        }
+        Assertions.assertTrue(tmpBudget.getPeakBytes() > 0L);
+        Assertions.assertTrue(tmpBudget.getPeakBytes() <= tmpBudget.getBudgetBytes());
+        Assertions.assertEquals(0L, tmpBudget.getUsedBytes());
+    }
+    //
+    /**
+     * Depicts molecules with a fixed depiction size under a memory budget that holds only two of their images and
+     * checks that the depiction size is reserved before depicting, i.e. that the budget was kept, that all results
+     * report the depiction size, and that the budget is fully released afterwards.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void depictNodesFixedSizeMemoryBudgetTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMolecules = new ArrayList<>();
+        for (int tmpIndex = 0; tmpIndex < 10; tmpIndex++) {
+            tmpMolecules.add(tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+        }
+        int tmpDepictionSize = 512;
+        DepictionMemoryBudget tmpBudget = new DepictionMemoryBudget(2 * DepictionMemoryBudget.estimateImageBytes(tmpDepictionSize, tmpDepictionSize));
+        boolean[] tmpIsIndexHandedOver = new boolean[tmpMolecules.size()];
+        GraphStreamUtility.getTempFolder().mkdirs();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(
+                GraphStreamUtility.getDefaultDepictionGenerator().withSize(tmpDepictionSize, tmpDepictionSize), 4, 1, 1, 8)) {
+            tmpPipeline.setDepictionSize(tmpDepictionSize, tmpDepictionSize);
+            tmpPipeline.setMemoryBudget(tmpBudget);
+            tmpPipeline.depictNodes(tmpMolecules.size(), tmpMolecules::get, GraphStreamUtility.getTempFolder(), aResult -> {
+                tmpIsIndexHandedOver[aResult.getIndex()] = true;
+                Assertions.assertNotNull(aResult.getImageFile());
+                Assertions.assertEquals(tmpDepictionSize, aResult.getImageWidth());
+                Assertions.assertEquals(tmpDepictionSize, aResult.getImageHeight());
+                aResult.getImageFile().delete();
+            });
+        }
+        for (boolean tmpIsHandedOver : tmpIsIndexHandedOver) {
+            Assertions.assertTrue(tmpIsHandedOver);
+        }
+        Assertions.assertTrue(tmpBudget.getPeakBytes() > 0L);
+        Assertions.assertTrue(tmpBudget.getPeakBytes() <= tmpBudget.getBudgetBytes());
+        Assertions.assertEquals(0L, tmpBudget.getUsedBytes());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Test class for the encoding of node images.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class NodeImageEncoderTest {
+    /**
+     * Encodes the depiction of a carbon-only and a hetero atom-containing scaffold with all encoder presets and checks
+     * that decoding yields the same pixels, i.e. that the colour reduction is lossless.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void losslessEncodingTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        NodeImageEncoder[] tmpEncoders = new NodeImageEncoder[] {
+                new NodeImageEncoder(),
+                NodeImageEncoder.createCompactEncoder(),
+                NodeImageEncoder.createFastEncoder(),
+                new NodeImageEncoder(NodeImageEncoder.Format.PNG, 1, true)};
+        for (String tmpSmiles : new String[] {"c1ccc2c(c1)CCC2", "c1ccc2c(c1)[nH]c3ncncc23"}) {
+            IAtomContainer tmpMolecule = tmpParser.parseSmiles(tmpSmiles);
+            BufferedImage tmpImage = new AdaptiveDepictionSizer().adapt(GraphStreamUtility.getDefaultDepictionGenerator(), tmpMolecule)
+                    .depict(tmpMolecule).toImg();
+            for (NodeImageEncoder tmpEncoder : tmpEncoders) {
+                ByteArrayOutputStream tmpOutputStream = new ByteArrayOutputStream();
+                //twice to reuse the per-thread buffers
+                tmpEncoder.encode(tmpImage, tmpOutputStream);
+                tmpOutputStream.reset();
+                tmpEncoder.encode(tmpImage, tmpOutputStream);
+                BufferedImage tmpDecodedImage = ImageIO.read(new ByteArrayInputStream(tmpOutputStream.toByteArray()));
+                Assertions.assertEquals(tmpImage.getWidth(), tmpDecodedImage.getWidth());
+                Assertions.assertEquals(tmpImage.getHeight(), tmpDecodedImage.getHeight());
+                for (int tmpY = 0; tmpY < tmpImage.getHeight(); tmpY += 7) {
+                    for (int tmpX = 0; tmpX < tmpImage.getWidth(); tmpX += 7) {
+                        Assertions.assertEquals(tmpImage.getRGB(tmpX, tmpY), tmpDecodedImage.getRGB(tmpX, tmpY));
+                    }
+                }
+            }
+        }
+    }
+    //
+    /**
+     * Checks that invalid compression levels are rejected.
+     */
+    @Test
+    void invalidCompressionLevelTest() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new NodeImageEncoder(NodeImageEncoder.Format.PNG, 10, false));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new NodeImageEncoder(NodeImageEncoder.Format.PNG, -2, false));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Test class for the command-line batch tool.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphBatchToolTest {
+    /**
+     * Processes a small SMILES file with two threads, exporting the node images, and checks the counts of the
+     * report and the written files (does not open a GUI window).
+     *
+     * @param aTempDir temporary directory for the input file and the output
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void nodeImagesBatchTest(@TempDir File aTempDir) throws Exception {
+        File tmpInputFile = new File(aTempDir, "input.smi");
+        Files.write(tmpInputFile.toPath(), List.of(
+                "CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl sertraline",
+                "c1ccccc1 benzene",
+                "c1ccccc1CC(=O)O phenylacetic-acid"), StandardCharsets.UTF_8);
+        File tmpOutputFolder = new File(aTempDir, "out");
+        ScaffoldGraphBatchTool tmpTool = ScaffoldGraphBatchTool.parseArguments(new String[] {
+                "-i", tmpInputFile.getAbsolutePath(),
+                "-o", tmpOutputFolder.getAbsolutePath(),
+                "-t", "tree",
+                "-m", "nodes",
+                "-n", "2",
+                "-l", "2"});
+        ScaffoldGraphBatchTool.Report tmpReport = tmpTool.run();
+        Assertions.assertEquals(2, tmpReport.getReadCount());
+        Assertions.assertEquals(2, tmpReport.getProcessedCount());
+        Assertions.assertEquals(0, tmpReport.getFailedCount());
+        //sertraline scaffold tree with three nodes, benzene with one
+        Assertions.assertEquals(4, tmpReport.getImageCount());
+        Assertions.assertEquals(3, new File(tmpOutputFolder, "000000000").listFiles().length);
+        Assertions.assertEquals(1, new File(tmpOutputFolder, "000000001").listFiles().length);
+        Assertions.assertTrue(tmpReport.getMoleculesPerSecond() > 0.0);
+    }
+    //
+    /**
+     * Checks that invalid command-line arguments are rejected.
+     *
+     * @param aTempDir temporary directory for the input file
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void invalidArgumentsTest(@TempDir File aTempDir) throws Exception {
+        File tmpInputFile = new File(aTempDir, "input.smi");
+        Files.write(tmpInputFile.toPath(), List.of("c1ccccc1"), StandardCharsets.UTF_8);
+        String tmpInputPath = tmpInputFile.getAbsolutePath();
+        String tmpOutputPath = new File(aTempDir, "out").getAbsolutePath();
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", tmpInputPath}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", tmpInputPath, "-o", tmpOutputPath, "-t", "forest"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", tmpInputPath, "-o", tmpOutputPath, "-n", "0"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", tmpInputPath, "-o", tmpOutputPath, "-l"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", tmpInputPath, "-o", tmpOutputPath, "-b", "0"}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ScaffoldGraphBatchTool.parseArguments(new String[] {"-i", new File(aTempDir, "input.txt").getAbsolutePath(), "-o", tmpOutputPath}));
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.file.FileSinkImages;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNetwork;
+import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Headless throughput benchmarks with budgets, so that performance regressions fail the build. Every benchmark is
+ * warmed up and then repeated, and the median duration of the repetitions is compared to its budget.
+ * The budgets are deliberately loose defaults and can be tightened on dedicated machines via system properties, e.g.
+ * "-Dscaffolds.benchmark.minGraphsPerSecond=10" (forwarded by the "benchmark" Gradle task).
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+@Tag("benchmark")
+class ScaffoldGraphBenchmarkTest {
+    /**
+     * Number of unmeasured warm-up runs of every benchmark.
+     */
+    private static final int WARM_UP_RUNS = 2;
+    //
+    /**
+     * Number of measured runs of every benchmark.
+     */
+    private static final int MEASURED_RUNS = 5;
+    //
+    /**
+     * Benchmark molecules (pyrimidine-containing scaffolds and sertraline).
+     */
+    private static final String[] SMILES = new String[] {
+            "c1ncc2c(n1)SC3CCCCC23",
+            "c1ncc2c(n1)SC3CCCC23",
+            "c2ccc1ncncc1c2",
+            "c3ccc2nc(CC1NCNCN1)ncc2c3",
+            "c1ccc3c(c1)oc2cncnc23",
+            "c1cnc3c(c1)oc2cncnc23",
+            "c3ccc(N2NCc1cncnc12)cc3",
+            "c2cnc(N1CCCCC1)nc2",
+            "c2ncc1NCNc1n2",
+            "CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"};
+    //
+    /**
+     * Parsed benchmark molecules.
+     */
+    private static List<IAtomContainer> molecules;
+    //
+    /**
+     * Parses the benchmark molecules.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @BeforeAll
+    static void parseMolecules() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGraphBenchmarkTest.molecules = new ArrayList<>(ScaffoldGraphBenchmarkTest.SMILES.length);
+        for (String tmpSmiles : ScaffoldGraphBenchmarkTest.SMILES) {
+            ScaffoldGraphBenchmarkTest.molecules.add(tmpParser.parseSmiles(tmpSmiles));
+        }
+    }
+    //
+    /**
+     * Generates the scaffold networks of all benchmark molecules and their GraphStream graphs including the node
+     * depictions, and checks the number of graphs per second against the budget
+     * "scaffolds.benchmark.minGraphsPerSecond".
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void graphGenerationThroughputTest() throws Exception {
+        double tmpBudget = ScaffoldGraphBenchmarkTest.getBudget("minGraphsPerSecond", 2.0);
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            tmpPipeline.setAdaptiveDepictionSizer(new AdaptiveDepictionSizer());
+            long tmpMedianNanos = ScaffoldGraphBenchmarkTest.measureMedianNanos(() -> {
+                for (IAtomContainer tmpMolecule : ScaffoldGraphBenchmarkTest.molecules) {
+                    ScaffoldNetwork tmpNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpMolecule);
+                    Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpNetwork,
+                            true,
+                            tmpPipeline,
+                            GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                            new SingleGraph("Benchmark"));
+                    GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+                }
+            });
+            ScaffoldGraphBenchmarkTest.assertThroughput("graph generation", "graphs", ScaffoldGraphBenchmarkTest.molecules.size(),
+                    tmpMedianNanos, tmpBudget);
+        }
+    }
+    //
+    /**
+     * Exports the scaffold trees of all benchmark molecules with FileSinkImages and checks the number of exported
+     * images per second against the budget "scaffolds.benchmark.minExportsPerSecond".
+     *
+     * @param aTempDir temporary directory for the exported images
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void exportThroughputTest(@TempDir File aTempDir) throws Exception {
+        double tmpBudget = ScaffoldGraphBenchmarkTest.getBudget("minExportsPerSecond", 1.0);
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        List<Graph> tmpGraphs = new ArrayList<>(ScaffoldGraphBenchmarkTest.molecules.size());
+        for (IAtomContainer tmpMolecule : ScaffoldGraphBenchmarkTest.molecules) {
+            ScaffoldTree tmpTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+            tmpGraphs.add(GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpTree));
+        }
+        long tmpMedianNanos = ScaffoldGraphBenchmarkTest.measureMedianNanos(() -> {
+            for (int tmpIndex = 0; tmpIndex < tmpGraphs.size(); tmpIndex++) {
+                FileSinkImages tmpFileSinkImages = FileSinkImages.createDefault();
+                tmpFileSinkImages.setOutputType(FileSinkImages.OutputType.png);
+                tmpFileSinkImages.setResolution(800, 600);
+                tmpFileSinkImages.setLayoutPolicy(FileSinkImages.LayoutPolicy.COMPUTED_FULLY_AT_NEW_IMAGE);
+                GraphStreamUtility.screenshotGraphHighQuality(tmpGraphs.get(tmpIndex),
+                        new File(aTempDir, tmpIndex + ".png").getAbsolutePath(), tmpFileSinkImages);
+            }
+        });
+        for (Graph tmpGraph : tmpGraphs) {
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+        ScaffoldGraphBenchmarkTest.assertThroughput("export", "images", tmpGraphs.size(), tmpMedianNanos, tmpBudget);
+    }
+    //
+    /**
+     * Exports the scaffold network of the first benchmark molecule with the batch tool in a fresh JVM per run, and
+     * checks the median wall-clock time of the process against the budget "scaffolds.benchmark.maxStartupSeconds".
+     * This is dominated by class loading and static initialisation, so it tracks the startup time of short-lived
+     * export JVMs. Additional JVM options, e.g. "-XX:SharedArchiveFile=..." to compare with an AppCDS archive
+     * matching this classpath, can be given as space-separated system property "scaffolds.benchmark.startupJvmOptions".
+     *
+     * @param aTempDir temporary directory for the input file and the exported images
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void startupTimeTest(@TempDir File aTempDir) throws Exception {
+        double tmpBudget = ScaffoldGraphBenchmarkTest.getBudget("maxStartupSeconds", 30.0);
+        File tmpInputFile = new File(aTempDir, "startup.smi");
+        Files.writeString(tmpInputFile.toPath(), ScaffoldGraphBenchmarkTest.SMILES[0] + System.lineSeparator());
+        List<String> tmpCommand = new ArrayList<>();
+        tmpCommand.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        tmpCommand.add("-Djava.awt.headless=true");
+        String tmpJvmOptions = System.getProperty("scaffolds.benchmark.startupJvmOptions");
+        if (!Objects.isNull(tmpJvmOptions) && !tmpJvmOptions.isBlank()) {
+            tmpCommand.addAll(Arrays.asList(tmpJvmOptions.trim().split("\\s+")));
+        }
+        tmpCommand.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), ScaffoldGraphBatchTool.class.getName(),
+                "-i", tmpInputFile.getAbsolutePath(), "-o", new File(aTempDir, "output").getAbsolutePath(), "-t", "network"));
+        long tmpMedianNanos = ScaffoldGraphBenchmarkTest.measureMedianNanos(() -> {
+            Process tmpProcess = new ProcessBuilder(tmpCommand).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            Assertions.assertEquals(0, tmpProcess.waitFor(), "Batch tool process failed.");
+        });
+        double tmpSeconds = tmpMedianNanos / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Benchmark startup: %.2f s to first export (median of %d runs, budget %.2f s)",
+                tmpSeconds, ScaffoldGraphBenchmarkTest.MEASURED_RUNS, tmpBudget));
+        Assertions.assertTrue(tmpSeconds <= tmpBudget,
+                String.format(Locale.ROOT, "Startup time is %.2f s, above the budget of %.2f s.", tmpSeconds, tmpBudget));
+    }
+    //
+    /**
+     * Runs the given benchmark after the warm-up runs and returns the median duration of the measured runs.
+     *
+     * @param aBenchmark benchmark to run
+     * @return median duration in nanoseconds
+     * @throws Exception if the benchmark fails
+     */
+    private static long measureMedianNanos(Benchmark aBenchmark) throws Exception {
+        for (int tmpRun = 0; tmpRun < ScaffoldGraphBenchmarkTest.WARM_UP_RUNS; tmpRun++) {
+            aBenchmark.run();
+        }
+        long[] tmpDurations = new long[ScaffoldGraphBenchmarkTest.MEASURED_RUNS];
+        for (int tmpRun = 0; tmpRun < tmpDurations.length; tmpRun++) {
+            long tmpStartTime = System.nanoTime();
+            aBenchmark.run();
+            tmpDurations[tmpRun] = System.nanoTime() - tmpStartTime;
+        }
+        Arrays.sort(tmpDurations);
+        return tmpDurations[tmpDurations.length / 2];
+    }
+    //
+    /**
+     * Prints the throughput of a benchmark and asserts that it meets the given budget.
+     *
+     * @param aBenchmarkName name of the benchmark
+     * @param aUnit unit of the counted items
+     * @param aCount number of items processed in one run
+     * @param aMedianNanos median duration of one run in nanoseconds
+     * @param aMinPerSecond budget, minimum items per second
+     */
+    private static void assertThroughput(String aBenchmarkName, String aUnit, int aCount, long aMedianNanos, double aMinPerSecond) {
+        double tmpPerSecond = aCount / (aMedianNanos / 1e9);
+        System.out.println(String.format(Locale.ROOT, "Benchmark %s: %.2f %s/s (median of %d runs, budget %.2f %s/s)",
+                aBenchmarkName, tmpPerSecond, aUnit, ScaffoldGraphBenchmarkTest.MEASURED_RUNS, aMinPerSecond, aUnit));
+        Assertions.assertTrue(tmpPerSecond >= aMinPerSecond,
+                String.format(Locale.ROOT, "Throughput of %s is %.2f %s/s, below the budget of %.2f %s/s.",
+                        aBenchmarkName, tmpPerSecond, aUnit, aMinPerSecond, aUnit));
+    }
+    //
+    /**
+     * Returns the budget from the system property "scaffolds.benchmark." + the given name, or the given default.
+     *
+     * @param aName name of the budget
+     * @param aDefault default budget
+     * @return budget
+     */
+    private static double getBudget(String aName, double aDefault) {
+        String tmpValue = System.getProperty("scaffolds.benchmark." + aName);
+        return Objects.isNull(tmpValue) ? aDefault : Double.parseDouble(tmpValue);
+    }
+    //
+    /**
+     * A benchmark run that may throw checked exceptions.
+     */
+    @FunctionalInterface
+    private interface Benchmark {
+        /**
+         * Runs the benchmark once.
+         *
+         * @throws Exception if anything goes wrong
+         */
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNetwork;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Test class for the diff of two scaffold graphs.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphDiffTest {
+    /**
+     * Compares the scaffold network of Sertraline (PubChem CID 68617) with the network of Sertraline and a fantasy
+     * molecule in both directions, checks the node and edge counts and statuses, and checks that the diff graph
+     * reuses the structure images of the graph of the old network for the shared nodes.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void networkDiffTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpSertraline = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldNetwork tmpOldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(tmpSertraline);
+        ScaffoldNetwork tmpNewNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(List.of(
+                tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"),
+                tmpParser.parseSmiles("c2ccc(C1NCNN1)cc2"))); //fantasy molecule for testing
+        int tmpOldNodeCount = tmpOldNetwork.getAllNodes().size();
+        int tmpNewNodeCount = tmpNewNetwork.getAllNodes().size();
+        Assertions.assertTrue(tmpNewNodeCount > tmpOldNodeCount);
+        ScaffoldGraphDiff tmpDiff = ScaffoldGraphDiff.compute(tmpOldNetwork, tmpNewNetwork);
+        Assertions.assertEquals(tmpNewNodeCount, tmpDiff.getNodeCount());
+        Assertions.assertEquals(tmpOldNodeCount, tmpDiff.getSharedNodeCount());
+        Assertions.assertEquals(tmpNewNodeCount - tmpOldNodeCount, tmpDiff.getAddedNodeCount());
+        Assertions.assertEquals(0, tmpDiff.getRemovedNodeCount());
+        for (int tmpEdgeIndex = 0; tmpEdgeIndex < tmpDiff.getEdgeCount(); tmpEdgeIndex++) {
+            Assertions.assertNotEquals(ScaffoldGraphDiff.Status.REMOVED, tmpDiff.getEdgeStatus(tmpEdgeIndex));
+        }
+        ScaffoldGraphDiff tmpReverseDiff = ScaffoldGraphDiff.compute(tmpNewNetwork, tmpOldNetwork);
+        Assertions.assertEquals(tmpNewNodeCount, tmpReverseDiff.getNodeCount());
+        Assertions.assertEquals(0, tmpReverseDiff.getAddedNodeCount());
+        Assertions.assertEquals(tmpNewNodeCount - tmpOldNodeCount, tmpReverseDiff.getRemovedNodeCount());
+        Assertions.assertEquals(tmpDiff.getEdgeCount(), tmpReverseDiff.getEdgeCount());
+        for (int tmpNodeIndex = tmpOldNodeCount; tmpNodeIndex < tmpReverseDiff.getNodeCount(); tmpNodeIndex++) {
+            Assertions.assertEquals(ScaffoldGraphDiff.Status.REMOVED, tmpReverseDiff.getNodeStatus(tmpNodeIndex));
+        }
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            Graph tmpOldGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpOldNetwork, false,
+                    tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Old"));
+            Graph tmpDiffGraph = tmpDiff.generateGraph(true, tmpPipeline, ScaffoldGraphDiff.DEFAULT_DIFF_STYLE_SHEET,
+                    new SingleGraph("Diff"), tmpOldGraph, null);
+            Assertions.assertEquals(tmpDiff.getNodeCount(), tmpDiffGraph.getNodeCount());
+            Assertions.assertEquals(tmpDiff.getEdgeCount(), tmpDiffGraph.getEdgeCount());
+            int tmpReusedCount = 0;
+            for (int tmpNodeIndex = 0; tmpNodeIndex < tmpDiffGraph.getNodeCount(); tmpNodeIndex++) {
+                Node tmpNode = tmpDiffGraph.getNode(tmpNodeIndex);
+                ScaffoldGraphDiff.Status tmpStatus = tmpDiff.getNodeStatus(tmpNodeIndex);
+                Assertions.assertTrue(tmpNode.getAttribute("ui.class").toString().contains(tmpStatus.getStyleClass()));
+                File tmpImageFile = GraphStreamUtility.getNodeImageFile(tmpNode);
+                Assertions.assertNotNull(tmpImageFile);
+                for (int tmpOldIndex = 0; tmpOldIndex < tmpOldGraph.getNodeCount(); tmpOldIndex++) {
+                    if (tmpImageFile.equals(GraphStreamUtility.getNodeImageFile(tmpOldGraph.getNode(tmpOldIndex)))) {
+                        Assertions.assertEquals(ScaffoldGraphDiff.Status.SHARED, tmpStatus);
+                        tmpReusedCount++;
+                    }
+                }
+            }
+            Assertions.assertEquals(tmpOldNodeCount, tmpReusedCount);
+            GraphStreamUtility.deleteNodeImageFiles(tmpDiffGraph);
+        }
+    }
+}
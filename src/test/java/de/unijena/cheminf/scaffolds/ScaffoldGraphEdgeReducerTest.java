@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNetwork;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+
+import java.util.Map;
+
+/**
+ * Test class for the edge reduction and edge bundling of scaffold graphs.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphEdgeReducerTest {
+    /**
+     * Adds an edge from a grandparent to the sertraline scaffold to the graph of the scaffold network of Sertraline
+     * (PubChem CID 68617) and checks that the transitive and adjacent level reductions remove exactly this edge, and
+     * that the primary parent reduction leaves one edge per non-root node.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void sertralineNetworkReductionTest() throws Exception {
+        ScaffoldNetwork tmpScaffoldNetwork = ScaffoldGraphEdgeReducerTest.createSertralineNetwork();
+        for (ScaffoldGraphEdgeReducer.Mode tmpMode : new ScaffoldGraphEdgeReducer.Mode[] {
+                ScaffoldGraphEdgeReducer.Mode.TRANSITIVE, ScaffoldGraphEdgeReducer.Mode.ADJACENT_LEVELS}) {
+            Graph tmpGraph = ScaffoldGraphEdgeReducerTest.createGraph(tmpScaffoldNetwork);
+            int tmpEdgeCount = tmpGraph.getEdgeCount();
+            Assertions.assertEquals(0, ScaffoldGraphEdgeReducer.reduceEdges(tmpGraph, tmpScaffoldNetwork, tmpMode));
+            Map<ScaffoldNodeBase<IAtomContainer>, Integer> tmpIndexMap = GraphStreamUtility.getCollectionIndexMap(tmpScaffoldNetwork);
+            ScaffoldNodeBase<IAtomContainer> tmpSertraline = tmpScaffoldNetwork.getAllNodesOnLevel(tmpScaffoldNetwork.getMaxLevel()).get(0);
+            ScaffoldNodeBase<IAtomContainer> tmpParent = GraphStreamUtility.getParents(tmpSertraline).get(0);
+            ScaffoldNodeBase<IAtomContainer> tmpGrandparent = GraphStreamUtility.getParents(tmpParent).get(0);
+            tmpGraph.addEdge("shortcut", tmpIndexMap.get(tmpGrandparent), tmpIndexMap.get(tmpSertraline));
+            Assertions.assertEquals(1, ScaffoldGraphEdgeReducer.reduceEdges(tmpGraph, tmpScaffoldNetwork, tmpMode));
+            Assertions.assertEquals(tmpEdgeCount, tmpGraph.getEdgeCount());
+            Assertions.assertNull(tmpGraph.getEdge("shortcut"));
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+        Graph tmpGraph = ScaffoldGraphEdgeReducerTest.createGraph(tmpScaffoldNetwork);
+        ScaffoldGraphEdgeReducer.reduceEdges(tmpGraph, tmpScaffoldNetwork, ScaffoldGraphEdgeReducer.Mode.PRIMARY_PARENT);
+        Assertions.assertEquals(tmpGraph.getNodeCount() - tmpScaffoldNetwork.getRoots().size(), tmpGraph.getEdgeCount());
+        GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+    }
+    //
+    /**
+     * Computes the edge bundling of the graph of the scaffold network of Sertraline (PubChem CID 68617), applies it,
+     * and checks that every edge polyline starts and ends at the positions of its nodes.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void sertralineNetworkBundlingTest() throws Exception {
+        ScaffoldNetwork tmpScaffoldNetwork = ScaffoldGraphEdgeReducerTest.createSertralineNetwork();
+        Graph tmpGraph = ScaffoldGraphEdgeReducerTest.createGraph(tmpScaffoldNetwork);
+        EdgeBundling tmpBundling = EdgeBundling.compute(tmpGraph, tmpScaffoldNetwork);
+        Assertions.assertEquals(tmpGraph.getEdgeCount(), tmpBundling.getEdgeCount());
+        tmpBundling.apply(tmpGraph);
+        Assertions.assertTrue(tmpGraph.getAttribute("ui.stylesheet").toString().contains("polyline"));
+        for (int tmpIndex = 0; tmpIndex < tmpGraph.getEdgeCount(); tmpIndex++) {
+            Edge tmpEdge = tmpGraph.getEdge(tmpIndex);
+            double[] tmpPolyline = tmpBundling.getPolyline(tmpEdge.getId());
+            Assertions.assertEquals(12, tmpPolyline.length);
+            Object[] tmpSource = (Object[]) tmpEdge.getSourceNode().getAttribute("xyz");
+            Object[] tmpTarget = (Object[]) tmpEdge.getTargetNode().getAttribute("xyz");
+            Assertions.assertEquals((Double) tmpSource[0], tmpPolyline[0]);
+            Assertions.assertEquals((Double) tmpSource[1], tmpPolyline[1]);
+            Assertions.assertEquals((Double) tmpTarget[0], tmpPolyline[9]);
+            Assertions.assertEquals((Double) tmpTarget[1], tmpPolyline[10]);
+            Assertions.assertEquals(12, ((Object[]) tmpEdge.getAttribute("ui.points")).length);
+        }
+        GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+    }
+    //
+    /**
+     * Generates the scaffold network of Sertraline.
+     *
+     * @return scaffold network
+     * @throws Exception if anything goes wrong
+     */
+    private static ScaffoldNetwork createSertralineNetwork() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        return new ScaffoldGenerator().generateScaffoldNetwork(tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+    }
+    //
+    /**
+     * Generates the GraphStream graph of the given scaffold network.
+     *
+     * @param aScaffoldNetwork scaffold network
+     * @return graph
+     * @throws Exception if anything goes wrong
+     */
+    private static Graph createGraph(ScaffoldNetwork aScaffoldNetwork) throws Exception {
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            return GraphStreamUtility.generateGraphFromScaffoldNodeCollection(aScaffoldNetwork, false, tmpPipeline,
+                    GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET, new SingleGraph("Sertraline-Network"));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNetwork;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Test class for the export of scaffold graphs to graph files.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphExporterTest {
+    /**
+     * Exports the scaffold network of Sertraline (PubChem CID 68617) to GraphML, GEXF, and DGS and checks the numbers
+     * of nodes and edges in the files and that the image references point to the written images.
+     *
+     * @param aTempDir temporary directory for the exported files
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void sertralineNetworkExportTest(@TempDir File aTempDir) throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        ScaffoldNetwork tmpScaffoldNetwork = tmpScaffoldGenerator.generateScaffoldNetwork(
+                tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+        int tmpNodeCount = tmpScaffoldNetwork.getAllNodes().size();
+        int tmpEdgeCount = 0;
+        for (int tmpIndex = 0; tmpIndex < tmpNodeCount; tmpIndex++) {
+            tmpEdgeCount += tmpScaffoldNetwork.getMatrixNode(tmpIndex).getChildren().size();
+        }
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            ScaffoldGraphExporter tmpExporter = new ScaffoldGraphExporter(tmpPipeline);
+            for (ScaffoldGraphExporter.Format tmpFormat : ScaffoldGraphExporter.Format.values()) {
+                File tmpGraphFile = new File(aTempDir, "Sertraline." + tmpFormat.getFileExtension());
+                tmpExporter.export(tmpScaffoldNetwork, tmpFormat, tmpGraphFile);
+                //the setting of the caller is restored after the export
+                Assertions.assertTrue(tmpPipeline.isDeleteOnExit());
+                File tmpImageFolder = ScaffoldGraphExporter.getImageFolder(tmpGraphFile);
+                Assertions.assertEquals(new File(aTempDir, "Sertraline" + ScaffoldGraphExporter.IMAGE_FOLDER_SUFFIX).getAbsoluteFile(),
+                        tmpImageFolder);
+                Assertions.assertEquals(tmpNodeCount, tmpImageFolder.listFiles().length);
+                if (tmpFormat == ScaffoldGraphExporter.Format.DGS) {
+                    List<String> tmpLines = Files.readAllLines(tmpGraphFile.toPath(), StandardCharsets.UTF_8);
+                    Assertions.assertEquals(tmpNodeCount, tmpLines.stream().filter(aLine -> aLine.startsWith("an ")).count());
+                    Assertions.assertEquals(tmpEdgeCount, tmpLines.stream().filter(aLine -> aLine.startsWith("ae ")).count());
+                    continue;
+                }
+                Document tmpDocument = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(tmpGraphFile);
+                NodeList tmpNodes = tmpDocument.getElementsByTagName("node");
+                Assertions.assertEquals(tmpNodeCount, tmpNodes.getLength());
+                Assertions.assertEquals(tmpEdgeCount, tmpDocument.getElementsByTagName("edge").getLength());
+                NodeList tmpValues = tmpDocument.getElementsByTagName(tmpFormat == ScaffoldGraphExporter.Format.GRAPHML ? "data" : "attvalue");
+                int tmpImageCount = 0;
+                for (int tmpValueIndex = 0; tmpValueIndex < tmpValues.getLength(); tmpValueIndex++) {
+                    Element tmpValue = (Element) tmpValues.item(tmpValueIndex);
+                    String tmpKey = tmpFormat == ScaffoldGraphExporter.Format.GRAPHML ? tmpValue.getAttribute("key") : tmpValue.getAttribute("for");
+                    if (tmpKey.equals(ScaffoldGraphExporter.NODE_ATTRIBUTE_IMAGE)) {
+                        String tmpPath = tmpFormat == ScaffoldGraphExporter.Format.GRAPHML ? tmpValue.getTextContent() : tmpValue.getAttribute("value");
+                        Assertions.assertTrue(new File(aTempDir, tmpPath).isFile());
+                        tmpImageCount++;
+                    }
+                }
+                Assertions.assertEquals(tmpNodeCount, tmpImageCount);
+            }
+        }
+    }
+}
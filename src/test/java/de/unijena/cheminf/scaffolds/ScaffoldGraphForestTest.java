@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Test class for rendering scaffold forests into a single graph.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphForestTest {
+    /**
+     * Renders a Schuffenhauer forest twice over, i.e. the forest followed by an independently generated copy of it,
+     * and checks the node numbering, that the trees do not overlap on the canvas, that every tree keeps its edges,
+     * and that every scaffold is depicted only once (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void sharedCanvasTest() throws Exception {
+        List<ScaffoldTree> tmpForest = new ArrayList<>(ScaffoldGraphForestTest.createForest());
+        int tmpSingleForestSize = tmpForest.size();
+        tmpForest.addAll(ScaffoldGraphForestTest.createForest());
+        ScaffoldGraphForest tmpScaffoldGraphForest = new ScaffoldGraphForest(tmpForest);
+        Assertions.assertEquals(2 * tmpSingleForestSize, tmpScaffoldGraphForest.getTreeCount());
+        int tmpExpectedNodeCount = 0;
+        for (ScaffoldTree tmpTree : tmpForest) {
+            tmpExpectedNodeCount += tmpTree.getAllNodes().size();
+        }
+        Assertions.assertEquals(tmpExpectedNodeCount, tmpScaffoldGraphForest.getNodeCount());
+        //tree boxes do not overlap
+        for (int tmpTreeIndex = 0; tmpTreeIndex < tmpForest.size(); tmpTreeIndex++) {
+            double[] tmpBounds = tmpScaffoldGraphForest.getTreeBounds(tmpTreeIndex);
+            for (int tmpOtherIndex = tmpTreeIndex + 1; tmpOtherIndex < tmpForest.size(); tmpOtherIndex++) {
+                double[] tmpOtherBounds = tmpScaffoldGraphForest.getTreeBounds(tmpOtherIndex);
+                Assertions.assertTrue(tmpBounds[2] <= tmpOtherBounds[0] || tmpOtherBounds[2] <= tmpBounds[0]
+                        || tmpBounds[3] <= tmpOtherBounds[1] || tmpOtherBounds[3] <= tmpBounds[1]);
+            }
+        }
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            Graph tmpGraph = tmpScaffoldGraphForest.generateGraph(true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    new SingleGraph("Forest"));
+            Assertions.assertEquals(tmpExpectedNodeCount, tmpGraph.getNodeCount());
+            //every tree node except the roots has one parent edge
+            Assertions.assertEquals(tmpExpectedNodeCount - tmpForest.size(), tmpGraph.getEdgeCount());
+            Set<File> tmpImageFiles = new HashSet<>();
+            for (int tmpIndex = 0; tmpIndex < tmpGraph.getNodeCount(); tmpIndex++) {
+                Node tmpNode = tmpGraph.getNode(tmpIndex);
+                int tmpTreeIndex = tmpScaffoldGraphForest.getTreeIndex(tmpIndex);
+                Assertions.assertEquals(tmpTreeIndex, tmpNode.getAttribute(ScaffoldGraphForest.NODE_ATTRIBUTE_TREE_INDEX));
+                ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpScaffoldGraphForest.getScaffoldNode(tmpIndex);
+                Assertions.assertSame(tmpScaffoldNode, GraphStreamUtility.getScaffoldNode(tmpNode, tmpForest.get(tmpTreeIndex)));
+                Assertions.assertEquals(tmpIndex, tmpScaffoldGraphForest.getNodeIndex(tmpTreeIndex,
+                        tmpIndex - tmpScaffoldGraphForest.getNodeIndex(tmpTreeIndex, 0)));
+                //edges stay within the tree and lead to the next level
+                tmpNode.edges().forEach(anEdge -> {
+                    int tmpOppositeIndex = anEdge.getOpposite(tmpNode).getIndex();
+                    Assertions.assertEquals(tmpTreeIndex, tmpScaffoldGraphForest.getTreeIndex(tmpOppositeIndex));
+                    Assertions.assertEquals(1, Math.abs(tmpScaffoldNode.getLevel()
+                            - tmpScaffoldGraphForest.getScaffoldNode(tmpOppositeIndex).getLevel()));
+                });
+                //positioned inside the box of the tree
+                double[] tmpBounds = tmpScaffoldGraphForest.getTreeBounds(tmpTreeIndex);
+                Object[] tmpPosition = (Object[]) tmpNode.getAttribute("xyz");
+                double tmpX = (Double) tmpPosition[0];
+                double tmpY = (Double) tmpPosition[1];
+                Assertions.assertTrue(tmpX > tmpBounds[0] && tmpX < tmpBounds[2] && tmpY > tmpBounds[1] && tmpY < tmpBounds[3]);
+                File tmpImageFile = GraphStreamUtility.getNodeImageFile(tmpNode);
+                Assertions.assertNotNull(tmpImageFile);
+                tmpImageFiles.add(tmpImageFile);
+            }
+            //the second copy of the forest reuses the depictions of the first
+            Assertions.assertEquals(tmpExpectedNodeCount / 2, tmpImageFiles.size());
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ScaffoldGraphForest(new ArrayList<>()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ScaffoldGraphForest(tmpForest, -1.0));
+    }
+    //
+    /**
+     * Generates the Schuffenhauer forest of PubChem CIDs 141755869 and 789817, Thiamine, Erlotinib, Sertraline,
+     * and Cyclohexylbenzene.
+     *
+     * @return scaffold trees
+     * @throws Exception if anything goes wrong
+     */
+    private static List<ScaffoldTree> createForest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(6);
+        tmpMolecules.add(tmpParser.parseSmiles("C1CCC2C(C1)C3=CN=CN=C3S2"));
+        tmpMolecules.add(tmpParser.parseSmiles("C1CC2=C(C1)SC3=C2C(=NC=N3)Cl"));
+        tmpMolecules.add(tmpParser.parseSmiles("CC1=C(SC=[N+]1CC2=CN=C(N=C2N)C)CCO.[Cl-]"));
+        tmpMolecules.add(tmpParser.parseSmiles("COCCOC1=C(C=C2C(=C1)C(=NC=N2)NC3=CC=CC(=C3)C#C)OCCOC"));
+        tmpMolecules.add(tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+        tmpMolecules.add(tmpParser.parseSmiles("C1CCC(CC1)C2=CC=CC=C2"));
+        return new ScaffoldGenerator().generateSchuffenhauerForest(tmpMolecules);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmiFlavor;
+import org.openscience.cdk.smiles.SmilesGenerator;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldTree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for the scaffold graph search index.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphIndexTest {
+    /**
+     * Indexes the Schuffenhauer tree of Sertraline (PubChem CID 68617) and checks the SMILES, level, parent, and
+     * substructure searches as well as the highlighting of the found nodes.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void sertralineTreeIndexTest() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        ScaffoldGenerator tmpScaffoldGenerator = new ScaffoldGenerator();
+        IAtomContainer tmpMolecule = tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl");
+        ScaffoldTree tmpScaffoldTree = tmpScaffoldGenerator.generateSchuffenhauerTree(tmpMolecule);
+        ScaffoldGraphIndex tmpIndex = ScaffoldGraphIndex.build(tmpScaffoldTree);
+        Assertions.assertEquals(3, tmpIndex.getNodeCount());
+        List<Integer> tmpRootIndices = tmpIndex.findByLevel(0);
+        Assertions.assertEquals(1, tmpRootIndices.size());
+        int tmpRootIndex = tmpRootIndices.get(0);
+        Assertions.assertTrue(tmpIndex.findParents(tmpRootIndex).isEmpty());
+        Assertions.assertTrue(tmpIndex.findByLevel(5).isEmpty());
+        SmilesGenerator tmpSmilesGenerator = new SmilesGenerator(SmiFlavor.Unique);
+        for (int tmpNodeIndex = 0; tmpNodeIndex < tmpIndex.getNodeCount(); tmpNodeIndex++) {
+            IAtomContainer tmpNodeMolecule = (IAtomContainer) tmpScaffoldTree.getMatrixNode(tmpNodeIndex).getMolecule();
+            Assertions.assertEquals(List.of(tmpNodeIndex), tmpIndex.findBySmiles(tmpSmilesGenerator.create(tmpNodeMolecule)));
+            if (tmpNodeIndex != tmpRootIndex) {
+                Assertions.assertEquals(1, tmpIndex.findParents(tmpNodeIndex).size());
+                int tmpParentIndex = tmpIndex.findParents(tmpNodeIndex).get(0);
+                Assertions.assertTrue(tmpIndex.findChildren(tmpParentIndex).contains(tmpNodeIndex));
+            }
+        }
+        //the root scaffold is a substructure of every scaffold in the tree
+        IAtomContainer tmpRootMolecule = (IAtomContainer) tmpScaffoldTree.getMatrixNode(tmpRootIndex).getMolecule();
+        Assertions.assertEquals(List.of(0, 1, 2), tmpIndex.findBySubstructure(tmpSmilesGenerator.create(tmpRootMolecule)));
+        Assertions.assertTrue(tmpIndex.findBySubstructure("ClC1=CC=CC=C1").isEmpty());
+        Assertions.assertTrue(tmpIndex.findBySmiles("C1CCNCC1").isEmpty());
+        Graph tmpGraph = GraphStreamUtility.generateGraphFromScaffoldNodeCollection(tmpScaffoldTree);
+        ScaffoldGraphIndex.highlight(tmpGraph, tmpRootIndices);
+        //the highlight class is added to the structure class of the node
+        List<String> tmpStyleClasses = Arrays.stream(tmpGraph.getNode(tmpRootIndex).getAttribute("ui.class").toString().split(","))
+                .map(String::trim).toList();
+        Assertions.assertTrue(tmpStyleClasses.contains(ScaffoldGraphIndex.HIGHLIGHTED_NODE_CLASS));
+        Assertions.assertTrue(tmpStyleClasses.contains(GraphStreamUtility.STRUCTURE_NODE_CLASS));
+        ScaffoldGraphIndex.clearHighlight(tmpGraph);
+        tmpStyleClasses = Arrays.stream(tmpGraph.getNode(tmpRootIndex).getAttribute("ui.class").toString().split(","))
+                .map(String::trim).toList();
+        Assertions.assertFalse(tmpStyleClasses.contains(ScaffoldGraphIndex.HIGHLIGHTED_NODE_CLASS));
+        Assertions.assertTrue(tmpStyleClasses.contains(GraphStreamUtility.STRUCTURE_NODE_CLASS));
+    }
+}
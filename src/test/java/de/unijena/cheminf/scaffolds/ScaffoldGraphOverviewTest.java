@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.interfaces.IAtomContainer;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.smiles.SmilesParser;
+import org.openscience.cdk.tools.scaffold.ScaffoldGenerator;
+import org.openscience.cdk.tools.scaffold.ScaffoldNetwork;
+import org.openscience.cdk.tools.scaffold.ScaffoldNodeBase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for the overview of huge scaffold graphs.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphOverviewTest {
+    /**
+     * Generates the scaffold network of Sertraline (PubChem CID 68617), Tetralin, and Cyclohexylbenzene, retains the
+     * most frequent scaffold of every level, and checks the selection and the aggregate counts on the overview graph
+     * (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void mostFrequentPerLevelTest() throws Exception {
+        ScaffoldNetwork tmpScaffoldNetwork = ScaffoldGraphOverviewTest.createNetwork();
+        ScaffoldGraphOverview tmpOverview = ScaffoldGraphOverview.selectMostFrequentPerLevel(tmpScaffoldNetwork, 1);
+        Assertions.assertEquals(tmpScaffoldNetwork.getMaxLevel() + 1, tmpOverview.getNodeCount());
+        Assertions.assertEquals(tmpScaffoldNetwork.getAllNodes().size(), tmpOverview.getTotalNodeCount());
+        for (int tmpIndex = 0; tmpIndex < tmpOverview.getNodeCount(); tmpIndex++) {
+            ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpOverview.getScaffoldNode(tmpIndex);
+            //ordered by level
+            Assertions.assertEquals(tmpIndex, tmpScaffoldNode.getLevel());
+            Assertions.assertEquals(tmpScaffoldNetwork.getAllNodesOnLevel(tmpIndex).size(), tmpOverview.getLevelNodeCount(tmpIndex));
+            for (ScaffoldNodeBase<IAtomContainer> tmpOtherNode : tmpScaffoldNetwork.getAllNodesOnLevel(tmpIndex)) {
+                Assertions.assertTrue(tmpScaffoldNode.getOriginCount() >= tmpOtherNode.getOriginCount());
+            }
+        }
+        try (NodeDepictionPipeline tmpPipeline = new NodeDepictionPipeline(GraphStreamUtility.getDefaultDepictionGenerator())) {
+            Graph tmpGraph = tmpOverview.generateGraph(true, tmpPipeline, GraphStreamUtility.DEFAULT_GRAPH_STYLE_SHEET,
+                    new SingleGraph("Overview"));
+            Assertions.assertEquals(tmpOverview.getNodeCount(), tmpGraph.getNodeCount());
+            Assertions.assertEquals(tmpOverview.getTotalNodeCount(),
+                    tmpGraph.getAttribute(ScaffoldGraphOverview.GRAPH_ATTRIBUTE_TOTAL_NODE_COUNT));
+            for (int tmpIndex = 0; tmpIndex < tmpGraph.getNodeCount(); tmpIndex++) {
+                Node tmpNode = tmpGraph.getNode(tmpIndex);
+                ScaffoldNodeBase<IAtomContainer> tmpScaffoldNode = tmpOverview.getScaffoldNode(tmpIndex);
+                Assertions.assertEquals(tmpScaffoldNode.getOriginCount(), tmpNode.getAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_ORIGIN_COUNT));
+                Assertions.assertEquals(tmpScaffoldNode.getChildren().size(), tmpNode.getAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_CHILD_COUNT));
+                //every child is either hidden or connected by an edge leading to the next level
+                long tmpRetainedChildCount = tmpNode.edges()
+                        .filter(anEdge -> tmpOverview.getScaffoldNode(anEdge.getOpposite(tmpNode).getIndex()).getLevel() > tmpScaffoldNode.getLevel())
+                        .count();
+                Assertions.assertEquals(tmpScaffoldNode.getChildren().size(),
+                        (Integer) tmpNode.getAttribute(ScaffoldGraphOverview.NODE_ATTRIBUTE_HIDDEN_CHILD_COUNT) + tmpRetainedChildCount);
+                Assertions.assertNotNull(GraphStreamUtility.getNodeImageFile(tmpNode));
+            }
+            GraphStreamUtility.deleteNodeImageFiles(tmpGraph);
+        }
+    }
+    //
+    /**
+     * Retains the scaffolds with at least two children of the test network and checks the selection and its bound.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void childCountThresholdTest() throws Exception {
+        ScaffoldNetwork tmpScaffoldNetwork = ScaffoldGraphOverviewTest.createNetwork();
+        int tmpExpectedCount = 0;
+        for (ScaffoldNodeBase<IAtomContainer> tmpNode : tmpScaffoldNetwork.getAllNodes()) {
+            if (tmpNode.getChildren().size() >= 2) {
+                tmpExpectedCount++;
+            }
+        }
+        ScaffoldGraphOverview tmpOverview = ScaffoldGraphOverview.selectByChildCount(tmpScaffoldNetwork, 2, Integer.MAX_VALUE);
+        Assertions.assertEquals(tmpExpectedCount, tmpOverview.getNodeCount());
+        for (int tmpIndex = 0; tmpIndex < tmpOverview.getNodeCount(); tmpIndex++) {
+            Assertions.assertTrue(tmpOverview.getScaffoldNode(tmpIndex).getChildren().size() >= 2);
+            if (tmpIndex > 0) {
+                Assertions.assertTrue(tmpOverview.getScaffoldNode(tmpIndex - 1).getLevel() <= tmpOverview.getScaffoldNode(tmpIndex).getLevel());
+            }
+        }
+        Assertions.assertEquals(1, ScaffoldGraphOverview.selectByChildCount(tmpScaffoldNetwork, 0, 1).getNodeCount());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ScaffoldGraphOverview.selectMostFrequentPerLevel(tmpScaffoldNetwork, 0));
+    }
+    //
+    /**
+     * Generates the scaffold network of Sertraline, Tetralin, and Cyclohexylbenzene.
+     *
+     * @return scaffold network
+     * @throws Exception if anything goes wrong
+     */
+    private static ScaffoldNetwork createNetwork() throws Exception {
+        SmilesParser tmpParser = new SmilesParser(SilentChemObjectBuilder.getInstance());
+        List<IAtomContainer> tmpMolecules = new ArrayList<>(3);
+        tmpMolecules.add(tmpParser.parseSmiles("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl"));
+        tmpMolecules.add(tmpParser.parseSmiles("C1CCC2=CC=CC=C2C1"));
+        tmpMolecules.add(tmpParser.parseSmiles("C1CCC(CC1)C2=CC=CC=C2"));
+        return new ScaffoldGenerator().generateScaffoldNetwork(tmpMolecules);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Test class for the scaffold graph rendering server.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphRenderingServerTest {
+    /**
+     * Starts a server on an ephemeral localhost port, requests the SVG of the sertraline scaffold tree twice and
+     * checks the response and that the second one comes from the cache. Also checks the error responses for an
+     * invalid SMILES code and a wrong request method (does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void svgRenderingAndCachingTest() throws Exception {
+        try (ScaffoldGraphRenderingServer tmpServer = new ScaffoldGraphRenderingServer(0, 2, 4)) {
+            tmpServer.start();
+            HttpClient tmpClient = HttpClient.newHttpClient();
+            String tmpBaseUri = "http://localhost:" + tmpServer.getPort();
+            HttpResponse<String> tmpHealthResponse = tmpClient.send(HttpRequest.newBuilder(
+                    URI.create(tmpBaseUri + ScaffoldGraphRenderingServer.HEALTH_PATH)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, tmpHealthResponse.statusCode());
+            Assertions.assertEquals("OK", tmpHealthResponse.body());
+            HttpRequest tmpRenderRequest = HttpRequest.newBuilder(URI.create(tmpBaseUri + ScaffoldGraphRenderingServer.RENDER_PATH + "?type=tree&format=svg"))
+                    .POST(HttpRequest.BodyPublishers.ofString("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl sertraline\n"))
+                    .build();
+            HttpResponse<String> tmpFirstResponse = tmpClient.send(tmpRenderRequest, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, tmpFirstResponse.statusCode());
+            Assertions.assertEquals("image/svg+xml", tmpFirstResponse.headers().firstValue("Content-Type").orElse(""));
+            Assertions.assertEquals("MISS", tmpFirstResponse.headers().firstValue("X-Cache").orElse(""));
+            Assertions.assertTrue(tmpFirstResponse.body().contains("<svg"));
+            //three nodes in the sertraline scaffold tree
+            Assertions.assertTrue(tmpFirstResponse.body().contains("Index: 2"));
+            Assertions.assertFalse(tmpFirstResponse.body().contains("Index: 3"));
+            HttpResponse<String> tmpSecondResponse = tmpClient.send(tmpRenderRequest, HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(200, tmpSecondResponse.statusCode());
+            Assertions.assertEquals("HIT", tmpSecondResponse.headers().firstValue("X-Cache").orElse(""));
+            Assertions.assertEquals(tmpFirstResponse.body(), tmpSecondResponse.body());
+            Assertions.assertEquals(1, tmpServer.getCacheHitCount());
+            Assertions.assertEquals(1, tmpServer.getCacheMissCount());
+            Assertions.assertEquals(tmpFirstResponse.body().getBytes(StandardCharsets.UTF_8).length, tmpServer.getCachedByteCount());
+            HttpResponse<String> tmpInvalidResponse = tmpClient.send(HttpRequest.newBuilder(URI.create(tmpBaseUri + ScaffoldGraphRenderingServer.RENDER_PATH + "?format=svg"))
+                    .POST(HttpRequest.BodyPublishers.ofString("C1CC(")).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(400, tmpInvalidResponse.statusCode());
+            HttpResponse<String> tmpGetResponse = tmpClient.send(HttpRequest.newBuilder(
+                    URI.create(tmpBaseUri + ScaffoldGraphRenderingServer.RENDER_PATH)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(405, tmpGetResponse.statusCode());
+        }
+    }
+    //
+    /**
+     * Starts a server whose cache is bounded to a single byte, requests the PNG screenshot of the sertraline scaffold
+     * tree twice and checks that the response is a decodable PNG image and that it is not cached because it exceeds
+     * the byte bound (renders headless, does not open a GUI window).
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void headlessPngRenderingTest() throws Exception {
+        try (ScaffoldGraphRenderingServer tmpServer = new ScaffoldGraphRenderingServer(0, 1, 4, 1L)) {
+            tmpServer.start();
+            HttpClient tmpClient = HttpClient.newHttpClient();
+            HttpRequest tmpRenderRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + tmpServer.getPort()
+                            + ScaffoldGraphRenderingServer.RENDER_PATH + "?type=tree&format=png"))
+                    .POST(HttpRequest.BodyPublishers.ofString("CNC1CCC(C2=CC=CC=C12)C3=CC(=C(C=C3)Cl)Cl sertraline\n"))
+                    .build();
+            HttpResponse<byte[]> tmpFirstResponse = tmpClient.send(tmpRenderRequest, HttpResponse.BodyHandlers.ofByteArray());
+            Assertions.assertEquals(200, tmpFirstResponse.statusCode());
+            Assertions.assertEquals("image/png", tmpFirstResponse.headers().firstValue("Content-Type").orElse(""));
+            Assertions.assertEquals("MISS", tmpFirstResponse.headers().firstValue("X-Cache").orElse(""));
+            BufferedImage tmpImage = ImageIO.read(new ByteArrayInputStream(tmpFirstResponse.body()));
+            Assertions.assertNotNull(tmpImage);
+            Assertions.assertTrue(tmpImage.getWidth() > 0 && tmpImage.getHeight() > 0);
+            Assertions.assertEquals(0L, tmpServer.getCachedByteCount());
+            HttpResponse<byte[]> tmpSecondResponse = tmpClient.send(tmpRenderRequest, HttpResponse.BodyHandlers.ofByteArray());
+            Assertions.assertEquals(200, tmpSecondResponse.statusCode());
+            Assertions.assertEquals("MISS", tmpSecondResponse.headers().firstValue("X-Cache").orElse(""));
+            Assertions.assertEquals(0, tmpServer.getCacheHitCount());
+            Assertions.assertEquals(2, tmpServer.getCacheMissCount());
+        }
+    }
+    //
+    /**
+     * Sends a request body that is one byte larger than the maximum request body size and checks that it is rejected
+     * with status 413 without rendering anything.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void oversizedRequestBodyTest() throws Exception {
+        try (ScaffoldGraphRenderingServer tmpServer = new ScaffoldGraphRenderingServer(0, 1, 4)) {
+            tmpServer.start();
+            HttpClient tmpClient = HttpClient.newHttpClient();
+            byte[] tmpOversizedBody = new byte[ScaffoldGraphRenderingServer.MAX_REQUEST_BODY_SIZE + 1];
+            Arrays.fill(tmpOversizedBody, (byte) 'C');
+            HttpResponse<String> tmpResponse = tmpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + tmpServer.getPort()
+                            + ScaffoldGraphRenderingServer.RENDER_PATH + "?type=tree&format=svg"))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(tmpOversizedBody)).build(), HttpResponse.BodyHandlers.ofString());
+            Assertions.assertEquals(413, tmpResponse.statusCode());
+            Assertions.assertEquals(0, tmpServer.getCacheMissCount());
+            Assertions.assertEquals(0L, tmpServer.getCachedByteCount());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026 Julian Zander <zanderjulian@gmx.de>
+ *                    Jonas Schaub <jonas.schaub@uni-jena.de>
+ *                    Achim Zielesny <achim.zielesny@w-hs.de>
+ *                    Christoph Steinbeck <christoph.steinbeck@uni-jena.de>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package de.unijena.cheminf.scaffolds;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for the spatial index of laid-out graphs.
+ *
+ * @author Jonas Schaub (jonas.schaub@uni-jena.de)
+ * @version 1.0.0.0
+ */
+class ScaffoldGraphSpatialIndexTest {
+    /**
+     * Places random nodes, including duplicate positions, and checks region queries and nearest node picking of the
+     * index against a linear scan over all nodes.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void queryAgainstLinearScanTest() throws Exception {
+        Graph tmpGraph = ScaffoldGraphSpatialIndexTest.createRandomGraph(new Random(42), 2000);
+        ScaffoldGraphSpatialIndex tmpIndex = ScaffoldGraphSpatialIndex.build(tmpGraph);
+        Assertions.assertEquals(tmpGraph.getNodeCount(), tmpIndex.size());
+        Random tmpRandom = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            double tmpMinX = tmpRandom.nextDouble() * 200.0 - 100.0;
+            double tmpMinY = tmpRandom.nextDouble() * 200.0 - 100.0;
+            double tmpMaxX = tmpMinX + tmpRandom.nextDouble() * 50.0;
+            double tmpMaxY = tmpMinY + tmpRandom.nextDouble() * 50.0;
+            Assertions.assertEquals(
+                    ScaffoldGraphSpatialIndexTest.scanRegion(tmpGraph, tmpMinX, tmpMinY, tmpMaxX, tmpMaxY),
+                    new HashSet<>(tmpIndex.findInRegion(tmpMinX, tmpMinY, tmpMaxX, tmpMaxY)));
+            double tmpX = tmpRandom.nextDouble() * 240.0 - 120.0;
+            double tmpY = tmpRandom.nextDouble() * 240.0 - 120.0;
+            String tmpNearestId = tmpIndex.findNearest(tmpX, tmpY, Double.MAX_VALUE);
+            Assertions.assertNotNull(tmpNearestId);
+            Assertions.assertEquals(ScaffoldGraphSpatialIndexTest.scanNearestDistance(tmpGraph, tmpX, tmpY),
+                    ScaffoldGraphSpatialIndexTest.getDistance(tmpGraph.getNode(tmpNearestId), tmpX, tmpY), 1e-9);
+        }
+        Assertions.assertNull(tmpIndex.findNearest(1000.0, 1000.0, 10.0));
+    }
+    //
+    /**
+     * Attaches the index to a graph and checks that moving, adding, and removing nodes as well as clearing the graph
+     * update it incrementally.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    @Test
+    void incrementalUpdateTest() throws Exception {
+        Graph tmpGraph = ScaffoldGraphSpatialIndexTest.createRandomGraph(new Random(3), 100);
+        ScaffoldGraphSpatialIndex tmpIndex = ScaffoldGraphSpatialIndex.attach(tmpGraph);
+        Assertions.assertEquals(100, tmpIndex.size());
+        //move a node far outside the current bounds, the root has to grow
+        tmpGraph.getNode("0").setAttribute("xyz", 5000.0, -5000.0, 0.0);
+        Assertions.assertEquals("0", tmpIndex.findNearest(4990.0, -4990.0, 20.0));
+        Assertions.assertEquals(List.of("0"), tmpIndex.findInRegion(4000.0, -6000.0, 6000.0, -4000.0));
+        Assertions.assertTrue(tmpIndex.findInRegion(-100.0, -100.0, 100.0, 100.0).stream().noneMatch("0"::equals));
+        //nodes without position are indexed once it is set
+        Node tmpNewNode = tmpGraph.addNode("new");
+        Assertions.assertEquals(100, tmpIndex.size());
+        tmpNewNode.setAttribute("xy", 300.0, 300.0);
+        Assertions.assertEquals(101, tmpIndex.size());
+        Assertions.assertArrayEquals(new double[] {300.0, 300.0}, tmpIndex.getPosition("new"));
+        tmpGraph.removeNode("new");
+        Assertions.assertEquals(100, tmpIndex.size());
+        Assertions.assertNull(tmpIndex.getPosition("new"));
+        tmpGraph.getNode("1").removeAttribute("xyz");
+        Assertions.assertEquals(99, tmpIndex.size());
+        Assertions.assertEquals(ScaffoldGraphSpatialIndexTest.scanRegion(tmpGraph, -100.0, -100.0, 100.0, 100.0),
+                new HashSet<>(tmpIndex.findInRegion(-100.0, -100.0, 100.0, 100.0)));
+        //a node keeps its "xyz" position if its "xy" attribute is removed
+        tmpGraph.getNode("3").setAttribute("xy", 50.0, 50.0);
+        tmpGraph.getNode("3").setAttribute("xyz", 60.0, 60.0, 0.0);
+        tmpGraph.getNode("3").removeAttribute("xy");
+        Assertions.assertEquals(99, tmpIndex.size());
+        Assertions.assertArrayEquals(new double[] {60.0, 60.0}, tmpIndex.getPosition("3"));
+        tmpIndex.detach(tmpGraph);
+        tmpGraph.getNode("2").setAttribute("xyz", 7000.0, 7000.0, 0.0);
+        Assertions.assertNull(tmpIndex.findNearest(7000.0, 7000.0, 1.0));
+        tmpIndex = ScaffoldGraphSpatialIndex.attach(tmpGraph);
+        tmpGraph.clear();
+        Assertions.assertEquals(0, tmpIndex.size());
+        Assertions.assertNull(tmpIndex.findNearest(0.0, 0.0, Double.MAX_VALUE));
+    }
+    //
+    /**
+     * Creates a graph of the given number of nodes with random positions between -100 and 100, every tenth node
+     * sharing the position of its predecessor.
+     *
+     * @param aRandom random number generator
+     * @param aNodeCount number of nodes
+     * @return graph with "xyz" node positions
+     */
+    private static Graph createRandomGraph(Random aRandom, int aNodeCount) {
+        Graph tmpGraph = new SingleGraph("SpatialIndexTest");
+        double tmpX = 0.0;
+        double tmpY = 0.0;
+        for (int i = 0; i < aNodeCount; i++) {
+            if (i % 10 != 9) {
+                tmpX = aRandom.nextDouble() * 200.0 - 100.0;
+                tmpY = aRandom.nextDouble() * 200.0 - 100.0;
+            }
+            tmpGraph.addNode(Integer.toString(i)).setAttribute("xyz", tmpX, tmpY, 0.0);
+        }
+        return tmpGraph;
+    }
+    //
+    /**
+     * Returns the IDs of all positioned nodes within the given rectangle by a linear scan.
+     *
+     * @param aGraph laid-out graph
+     * @param aMinX minimum x coordinate
+     * @param aMinY minimum y coordinate
+     * @param aMaxX maximum x coordinate
+     * @param aMaxY maximum y coordinate
+     * @return IDs of the nodes in the region
+     */
+    private static HashSet<String> scanRegion(Graph aGraph, double aMinX, double aMinY, double aMaxX, double aMaxY) {
+        HashSet<String> tmpNodeIds = new HashSet<>();
+        for (Node tmpNode : aGraph) {
+            Object[] tmpPosition = (Object[]) tmpNode.getAttribute("xyz");
+            if (tmpPosition == null) {
+                continue;
+            }
+            double tmpX = (Double) tmpPosition[0];
+            double tmpY = (Double) tmpPosition[1];
+            if (tmpX >= aMinX && tmpX <= aMaxX && tmpY >= aMinY && tmpY <= aMaxY) {
+                tmpNodeIds.add(tmpNode.getId());
+            }
+        }
+        return tmpNodeIds;
+    }
+    //
+    /**
+     * Returns the distance of the node closest to the given point by a linear scan.
+     *
+     * @param aGraph laid-out graph
+     * @param anX x coordinate
+     * @param aY y coordinate
+     * @return smallest distance
+     */
+    private static double scanNearestDistance(Graph aGraph, double anX, double aY) {
+        List<Double> tmpDistances = new ArrayList<>(aGraph.getNodeCount());
+        for (Node tmpNode : aGraph) {
+            tmpDistances.add(ScaffoldGraphSpatialIndexTest.getDistance(tmpNode, anX, aY));
+        }
+        return tmpDistances.stream().mapToDouble(Double::doubleValue).min().orElse(Double.NaN);
+    }
+    //
+    /**
+     * Returns the distance of the given node to the given point.
+     *
+     * @param aNode node with "xyz" position
+     * @param anX x coordinate
+     * @param aY y coordinate
+     * @return distance
+     */
+    private static double getDistance(Node aNode, double anX, double aY) {
+        Object[] tmpPosition = (Object[]) aNode.getAttribute("xyz");
+        return Math.hypot((Double) tmpPosition[0] - anX, (Double) tmpPosition[1] - aY);
+    }
+}